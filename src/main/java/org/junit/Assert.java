@@ -1,10 +1,19 @@
 package org.junit;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
 import org.hamcrest.Matcher;
 import org.hamcrest.MatcherAssert;
 import org.junit.internal.ArrayComparisonFailure;
+import org.junit.internal.ContentComparison;
 import org.junit.internal.ExactComparisonCriteria;
 import org.junit.internal.InexactComparisonCriteria;
+import org.junit.internal.ResourceBudget;
+import org.junit.internal.UnorderedComparison;
 
 /**
  * A set of assertion methods useful for writing tests. Only failed assertions
@@ -532,6 +541,280 @@ public class Assert {
         new ExactComparisonCriteria().arrayEquals(message, expecteds, actuals);
     }
 
+    /**
+     * Asserts that two collections have the same elements, regardless of
+     * their order. An element that occurs several times has to occur as often
+     * in both collections. If they do not, an {@link AssertionError} is thrown
+     * with the given message, which lists some of the missing and unexpected
+     * elements. If <code>expected</code> and <code>actual</code> are
+     * <code>null</code>, they are considered equal.
+     *
+     * <p>The elements are compared by hashing them, so the comparison takes
+     * linear time even for very large collections.
+     *
+     * @param message the identifying message for the {@link AssertionError} (<code>null</code>
+     * okay)
+     * @param expected collection with the expected elements
+     * @param actual collection with the actual elements
+     */
+    public static void assertEqualsIgnoringOrder(String message, Iterable<?> expected,
+            Iterable<?> actual) {
+        if (bothNullOrNeither(message, expected, actual)) {
+            new UnorderedComparison(expected, actual).assertEqual(message);
+        }
+    }
+
+    /**
+     * Asserts that two collections have the same elements, regardless of
+     * their order. An element that occurs several times has to occur as often
+     * in both collections. If they do not, an {@link AssertionError} is thrown.
+     * If <code>expected</code> and <code>actual</code> are <code>null</code>,
+     * they are considered equal.
+     *
+     * @param expected collection with the expected elements
+     * @param actual collection with the actual elements
+     */
+    public static void assertEqualsIgnoringOrder(Iterable<?> expected, Iterable<?> actual) {
+        assertEqualsIgnoringOrder(null, expected, actual);
+    }
+
+    /**
+     * Asserts that a collection contains all elements of another, each at
+     * least as often. If it does not, an {@link AssertionError} is thrown with
+     * the given message, which lists some of the missing elements. If
+     * <code>expectedSubset</code> and <code>actual</code> are <code>null</code>,
+     * the assertion passes.
+     *
+     * @param message the identifying message for the {@link AssertionError} (<code>null</code>
+     * okay)
+     * @param expectedSubset collection with the elements that are expected
+     * in <code>actual</code>
+     * @param actual collection to check
+     */
+    public static void assertContainsAll(String message, Iterable<?> expectedSubset,
+            Iterable<?> actual) {
+        if (bothNullOrNeither(message, expectedSubset, actual)) {
+            new UnorderedComparison(expectedSubset, actual).assertActualContainsAll(message);
+        }
+    }
+
+    /**
+     * Asserts that a collection contains all elements of another, each at
+     * least as often. If it does not, an {@link AssertionError} is thrown.
+     *
+     * @param expectedSubset collection with the elements that are expected
+     * in <code>actual</code>
+     * @param actual collection to check
+     */
+    public static void assertContainsAll(Iterable<?> expectedSubset, Iterable<?> actual) {
+        assertContainsAll(null, expectedSubset, actual);
+    }
+
+    /**
+     * Asserts that all elements of a collection are contained in another, each
+     * at most as often. If they are not, an {@link AssertionError} is thrown
+     * with the given message, which lists some of the unexpected elements. If
+     * <code>expectedSuperset</code> and <code>actual</code> are
+     * <code>null</code>, the assertion passes.
+     *
+     * @param message the identifying message for the {@link AssertionError} (<code>null</code>
+     * okay)
+     * @param expectedSuperset collection with the elements that
+     * <code>actual</code> may contain
+     * @param actual collection to check
+     */
+    public static void assertContainedIn(String message, Iterable<?> expectedSuperset,
+            Iterable<?> actual) {
+        if (bothNullOrNeither(message, expectedSuperset, actual)) {
+            new UnorderedComparison(expectedSuperset, actual).assertActualContainedIn(message);
+        }
+    }
+
+    /**
+     * Asserts that all elements of a collection are contained in another, each
+     * at most as often. If they are not, an {@link AssertionError} is thrown.
+     *
+     * @param expectedSuperset collection with the elements that
+     * <code>actual</code> may contain
+     * @param actual collection to check
+     */
+    public static void assertContainedIn(Iterable<?> expectedSuperset, Iterable<?> actual) {
+        assertContainedIn(null, expectedSuperset, actual);
+    }
+
+    /**
+     * @return whether neither collection is <code>null</code>
+     * @throws AssertionError if only one of them is
+     */
+    private static boolean bothNullOrNeither(String message, Iterable<?> expected,
+            Iterable<?> actual) {
+        if (expected == null && actual == null) {
+            return false;
+        }
+        String header = message == null ? "" : message + ": ";
+        if (expected == null) {
+            fail(header + "expected collection was null");
+        }
+        if (actual == null) {
+            fail(header + "actual collection was null");
+        }
+        return true;
+    }
+
+    /**
+     * Asserts that two files have the same contents. If they do not, an
+     * {@link AssertionError} is thrown with the given message, which gives
+     * either the sizes of the files or the offset of the first differing
+     * byte, with the bytes around it.
+     *
+     * <p>The files are mapped into memory and compared region by region, so
+     * that comparing even very large files takes a constant amount of heap.
+     *
+     * @param message the identifying message for the {@link AssertionError} (<code>null</code>
+     * okay)
+     * @param expected file with the expected contents
+     * @param actual file with the actual contents
+     * @throws IOException if one of the files cannot be read
+     */
+    public static void assertContentEquals(String message, File expected, File actual)
+            throws IOException {
+        new ContentComparison(message).assertEqual(expected, actual);
+    }
+
+    /**
+     * Asserts that two files have the same contents. If they do not, an
+     * {@link AssertionError} is thrown.
+     *
+     * @param expected file with the expected contents
+     * @param actual file with the actual contents
+     * @throws IOException if one of the files cannot be read
+     */
+    public static void assertContentEquals(File expected, File actual) throws IOException {
+        assertContentEquals(null, expected, actual);
+    }
+
+    /**
+     * Asserts that the remaining bytes of two buffers are equal. If they are
+     * not, an {@link AssertionError} is thrown with the given message, which
+     * gives either the numbers of remaining bytes or the offset of the first
+     * differing byte, with the bytes around it. The positions of the buffers
+     * are not changed.
+     *
+     * @param message the identifying message for the {@link AssertionError} (<code>null</code>
+     * okay)
+     * @param expected buffer with the expected bytes
+     * @param actual buffer with the actual bytes
+     */
+    public static void assertContentEquals(String message, ByteBuffer expected, ByteBuffer actual) {
+        new ContentComparison(message).assertEqual(expected, actual);
+    }
+
+    /**
+     * Asserts that the remaining bytes of two buffers are equal. If they are
+     * not, an {@link AssertionError} is thrown.
+     *
+     * @param expected buffer with the expected bytes
+     * @param actual buffer with the actual bytes
+     */
+    public static void assertContentEquals(ByteBuffer expected, ByteBuffer actual) {
+        assertContentEquals(null, expected, actual);
+    }
+
+    /**
+     * Asserts that two streams have the same contents. If they do not, an
+     * {@link AssertionError} is thrown with the given message, which gives
+     * the offset of the first differing byte, with the bytes around it. The
+     * streams are read in chunks, up to the first difference, and are not
+     * closed.
+     *
+     * @param message the identifying message for the {@link AssertionError} (<code>null</code>
+     * okay)
+     * @param expected stream with the expected contents
+     * @param actual stream with the actual contents
+     * @throws IOException if one of the streams cannot be read
+     */
+    public static void assertContentEquals(String message, InputStream expected, InputStream actual)
+            throws IOException {
+        new ContentComparison(message).assertEqual(expected, actual);
+    }
+
+    /**
+     * Asserts that two streams have the same contents. If they do not, an
+     * {@link AssertionError} is thrown.
+     *
+     * @param expected stream with the expected contents
+     * @param actual stream with the actual contents
+     * @throws IOException if one of the streams cannot be read
+     */
+    public static void assertContentEquals(InputStream expected, InputStream actual) throws IOException {
+        assertContentEquals(null, expected, actual);
+    }
+
+    /**
+     * Asserts that running {@code runnable} allocates at most {@code bytes}
+     * of heap memory on the current thread. If it allocates more, an
+     * {@link AssertionError} is thrown with the given message and the
+     * measured number of bytes. {@code runnable} is run several times: first
+     * to warm it up, then to measure it, and the least measurement counts.
+     * The memory allocated by measuring itself is not counted. If the JVM
+     * cannot measure allocated memory, an {@link AssumptionViolatedException}
+     * is thrown.
+     *
+     * @param message the identifying message for the {@link AssertionError} (<code>null</code>
+     * okay)
+     * @param bytes the most bytes {@code runnable} may allocate
+     * @param runnable the code to measure
+     */
+    public static void assertAllocatesAtMost(String message, long bytes, Runnable runnable) {
+        new ResourceBudget(message).assertAllocatesAtMost(bytes, runnable);
+    }
+
+    /**
+     * Asserts that running {@code runnable} allocates at most {@code bytes}
+     * of heap memory on the current thread. If it allocates more, an
+     * {@link AssertionError} is thrown.
+     *
+     * @param bytes the most bytes {@code runnable} may allocate
+     * @param runnable the code to measure
+     * @see #assertAllocatesAtMost(String, long, Runnable)
+     */
+    public static void assertAllocatesAtMost(long bytes, Runnable runnable) {
+        assertAllocatesAtMost(null, bytes, runnable);
+    }
+
+    /**
+     * Asserts that running {@code runnable} uses at most {@code time} of CPU
+     * time on the current thread. If it uses more, an
+     * {@link AssertionError} is thrown with the given message and the
+     * measured CPU time. {@code runnable} is run several times: first to warm
+     * it up, then to measure it, and the least measurement counts. The CPU
+     * time used by measuring itself is not counted. If the JVM cannot measure
+     * CPU time, an {@link AssumptionViolatedException} is thrown.
+     *
+     * @param message the identifying message for the {@link AssertionError} (<code>null</code>
+     * okay)
+     * @param time the most CPU time {@code runnable} may use
+     * @param unit the unit of {@code time}
+     * @param runnable the code to measure
+     */
+    public static void assertCpuTimeAtMost(String message, long time, TimeUnit unit, Runnable runnable) {
+        new ResourceBudget(message).assertCpuTimeAtMost(unit.toNanos(time), runnable);
+    }
+
+    /**
+     * Asserts that running {@code runnable} uses at most {@code time} of CPU
+     * time on the current thread. If it uses more, an
+     * {@link AssertionError} is thrown.
+     *
+     * @param time the most CPU time {@code runnable} may use
+     * @param unit the unit of {@code time}
+     * @param runnable the code to measure
+     * @see #assertCpuTimeAtMost(String, long, TimeUnit, Runnable)
+     */
+    public static void assertCpuTimeAtMost(long time, TimeUnit unit, Runnable runnable) {
+        assertCpuTimeAtMost(null, time, unit, runnable);
+    }
+
     /**
      * Asserts that two doubles are equal to within a positive delta.
      * If they are not, an {@link AssertionError} is thrown with the given
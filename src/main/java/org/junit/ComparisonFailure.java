@@ -1,5 +1,8 @@
 package org.junit;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Thrown when an {@link org.junit.Assert#assertEquals(Object, Object) assertEquals(String, String)} fails.
  * Create and throw a <code>ComparisonFailure</code> manually if you want to show users the
@@ -16,6 +19,13 @@ public class ComparisonFailure extends AssertionError {
      * @see ComparisonCompactor
      */
     private static final int MAX_CONTEXT_LENGTH = 20;
+
+    /**
+     * The length from which multi-line strings are compared line by line.
+     *
+     * @see LineDiff
+     */
+    private static final int MIN_LINE_DIFF_LENGTH = 8 * 1024;
     private static final long serialVersionUID = 1L;
 
     private String expected;
@@ -36,11 +46,15 @@ public class ComparisonFailure extends AssertionError {
 
     /**
      * Returns "..." in place of common prefix and "..." in place of common suffix between expected and actual.
+     * If the strings are long and have several lines, returns the first hunks of a line diff instead.
      *
      * @see Throwable#getMessage()
      */
     @Override
     public String getMessage() {
+        if (LineDiff.appliesTo(expected, actual)) {
+            return new LineDiff(expected, actual).format(super.getMessage());
+        }
         return new ComparisonCompactor(MAX_CONTEXT_LENGTH, expected, actual).compact(super.getMessage());
     }
 
@@ -163,4 +177,283 @@ public class ComparisonFailure extends AssertionError {
             }
         }
     }
+
+    /**
+     * Compares long strings line by line, and shows the first hunks of the
+     * difference in the style of a unified diff, with lines of the expected
+     * string marked "-" and lines of the actual string marked "+".
+     * <p/>
+     * Lines are referred to by their offsets in the strings and their hash
+     * codes, so they are not copied. Common leading and trailing lines are
+     * skipped; the remaining lines are compared with Myers' algorithm, which
+     * takes time and memory in proportion to the number of differing lines.
+     * It gives up after {@link #MAX_EDITS} of them, and then shows the lines
+     * from the first difference on.
+     */
+    private static class LineDiff {
+        private static final int MAX_EDITS = 500;
+        private static final int CONTEXT_LINES = 3;
+        private static final int MAX_HUNKS = 5;
+        private static final int MAX_HUNK_LINES = 40;
+        private static final int MAX_LINE_LENGTH = 200;
+
+        private static final int DELETE = 0;
+        private static final int INSERT = 1;
+
+        private final Lines expected;
+        private final Lines actual;
+
+        /**
+         * The differing lines, in order: a line of <code>expected</code> that
+         * is missing in <code>actual</code> (<code>DELETE</code>), or a line of
+         * <code>actual</code> that is not in <code>expected</code>
+         * (<code>INSERT</code>), each with the positions in both strings
+         */
+        private final List<int[]> edits = new ArrayList<int[]>();
+
+        private boolean complete;
+
+        static boolean appliesTo(String expected, String actual) {
+            return expected != null && actual != null
+                    && Math.max(expected.length(), actual.length()) >= MIN_LINE_DIFF_LENGTH
+                    && expected.indexOf('\n') >= 0 && actual.indexOf('\n') >= 0
+                    && !expected.equals(actual);
+        }
+
+        LineDiff(String expected, String actual) {
+            this.expected = new Lines(expected);
+            this.actual = new Lines(actual);
+            int prefix = 0;
+            while (prefix < this.expected.size() && prefix < this.actual.size()
+                    && this.expected.equals(prefix, this.actual, prefix)) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < this.expected.size() - prefix && suffix < this.actual.size() - prefix
+                    && this.expected.equals(this.expected.size() - 1 - suffix,
+                    this.actual, this.actual.size() - 1 - suffix)) {
+                suffix++;
+            }
+            complete = diff(prefix, this.expected.size() - suffix, prefix, this.actual.size() - suffix);
+        }
+
+        /**
+         * Finds the shortest edit script for the lines between the given
+         * bounds with Myers' algorithm, and adds it to <code>edits</code>.
+         *
+         * @return <code>false</code> if more than <code>MAX_EDITS</code> lines
+         *         differ
+         */
+        private boolean diff(int expectedStart, int expectedEnd, int actualStart, int actualEnd) {
+            int n = expectedEnd - expectedStart;
+            int m = actualEnd - actualStart;
+            int max = Math.min(n + m, MAX_EDITS);
+            int offset = max + 1;
+            int[] v = new int[2 * max + 3];
+            List<int[]> trace = new ArrayList<int[]>();
+            for (int d = 0; d <= max; d++) {
+                for (int k = -d; k <= d; k += 2) {
+                    int x;
+                    if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                        x = v[offset + k + 1];
+                    } else {
+                        x = v[offset + k - 1] + 1;
+                    }
+                    int y = x - k;
+                    while (x < n && y < m && expected.equals(expectedStart + x, actual, actualStart + y)) {
+                        x++;
+                        y++;
+                    }
+                    v[offset + k] = x;
+                    if (x >= n && y >= m) {
+                        backtrack(trace, d, n, m, expectedStart, actualStart);
+                        return true;
+                    }
+                }
+                int[] snapshot = new int[2 * d + 1];
+                System.arraycopy(v, offset - d, snapshot, 0, snapshot.length);
+                trace.add(snapshot);
+            }
+            return false;
+        }
+
+        private void backtrack(List<int[]> trace, int editCount, int n, int m, int expectedStart, int actualStart) {
+            int x = n;
+            int y = m;
+            int[][] reversed = new int[editCount][];
+            for (int d = editCount; d > 0; d--) {
+                int[] v = trace.get(d - 1);
+                int k = x - y;
+                int previousK;
+                if (k == -d || (k != d && v[k - 1 + d - 1] < v[k + 1 + d - 1])) {
+                    previousK = k + 1;
+                } else {
+                    previousK = k - 1;
+                }
+                int previousX = v[previousK + d - 1];
+                int previousY = previousX - previousK;
+                if (previousK == k + 1) {
+                    reversed[d - 1] = new int[]{INSERT, expectedStart + previousX, actualStart + previousY};
+                } else {
+                    reversed[d - 1] = new int[]{DELETE, expectedStart + previousX, actualStart + previousY};
+                }
+                x = previousX;
+                y = previousY;
+            }
+            for (int[] each : reversed) {
+                edits.add(each);
+            }
+        }
+
+        String format(String message) {
+            StringBuilder builder = new StringBuilder();
+            if (message != null && !message.equals("")) {
+                builder.append(message).append(" ");
+            }
+            builder.append("expected and actual differed in lines (expected ").append(expected.size())
+                    .append(" lines, actual ").append(actual.size()).append(" lines):");
+            builder.append("\n--- expected\n+++ actual");
+            if (complete) {
+                appendHunks(builder);
+            } else {
+                appendFromFirstDifference(builder);
+            }
+            return builder.toString();
+        }
+
+        private void appendHunks(StringBuilder builder) {
+            int hunks = 0;
+            int first = 0;
+            while (first < edits.size()) {
+                int last = first;
+                while (last + 1 < edits.size()
+                        && equalLinesBetween(edits.get(last), edits.get(last + 1)) <= 2 * CONTEXT_LINES) {
+                    last++;
+                }
+                if (hunks == MAX_HUNKS) {
+                    builder.append("\n(more hunks omitted)");
+                    return;
+                }
+                appendHunk(builder, first, last);
+                hunks++;
+                first = last + 1;
+            }
+        }
+
+        private static int equalLinesBetween(int[] edit, int[] next) {
+            int end = edit[0] == DELETE ? edit[1] + 1 : edit[1];
+            return next[1] - end;
+        }
+
+        private void appendHunk(StringBuilder builder, int first, int last) {
+            int[] firstEdit = edits.get(first);
+            int[] lastEdit = edits.get(last);
+            int leading = Math.min(CONTEXT_LINES, Math.min(firstEdit[1], firstEdit[2]));
+            int expectedEnd = lastEdit[0] == DELETE ? lastEdit[1] + 1 : lastEdit[1];
+            int actualEnd = lastEdit[0] == INSERT ? lastEdit[2] + 1 : lastEdit[2];
+            int trailing = Math.min(CONTEXT_LINES, expected.size() - expectedEnd);
+            int x = firstEdit[1] - leading;
+            int y = firstEdit[2] - leading;
+            builder.append("\n@@ -").append(x + 1).append(',').append(expectedEnd + trailing - x)
+                    .append(" +").append(y + 1).append(',').append(actualEnd + trailing - y).append(" @@");
+            int shown = 0;
+            for (int i = first; i <= last; i++) {
+                int[] edit = edits.get(i);
+                while (x < edit[1]) {
+                    shown = appendLine(builder, ' ', expected, x++, shown);
+                    y++;
+                }
+                if (edit[0] == DELETE) {
+                    shown = appendLine(builder, '-', expected, x++, shown);
+                } else {
+                    shown = appendLine(builder, '+', actual, y++, shown);
+                }
+            }
+            for (int i = 0; i < trailing; i++) {
+                shown = appendLine(builder, ' ', expected, x++, shown);
+            }
+            if (shown > MAX_HUNK_LINES) {
+                builder.append("\n(").append(shown - MAX_HUNK_LINES).append(" more lines)");
+            }
+        }
+
+        private void appendFromFirstDifference(StringBuilder builder) {
+            int first = 0;
+            while (first < expected.size() && first < actual.size() && expected.equals(first, actual, first)) {
+                first++;
+            }
+            builder.append("\n(more than ").append(MAX_EDITS).append(" lines differed; showing the lines from line ")
+                    .append(first + 1).append(" on)");
+            int shown = 0;
+            for (int i = first; i < expected.size() && shown < MAX_HUNK_LINES / 2; i++) {
+                shown = appendLine(builder, '-', expected, i, shown);
+            }
+            shown = 0;
+            for (int i = first; i < actual.size() && shown < MAX_HUNK_LINES / 2; i++) {
+                shown = appendLine(builder, '+', actual, i, shown);
+            }
+        }
+
+        private static int appendLine(StringBuilder builder, char marker, Lines lines, int index, int shown) {
+            if (shown < MAX_HUNK_LINES) {
+                builder.append('\n').append(marker).append(lines.get(index, MAX_LINE_LENGTH));
+            }
+            return shown + 1;
+        }
+    }
+
+    /**
+     * The lines of a string, as offsets into it
+     */
+    private static class Lines {
+        private final String string;
+        private final int[] starts;
+        private final int[] hashes;
+
+        Lines(String string) {
+            this.string = string;
+            int count = 1;
+            for (int i = string.indexOf('\n'); i >= 0; i = string.indexOf('\n', i + 1)) {
+                count++;
+            }
+            starts = new int[count + 1];
+            hashes = new int[count];
+            int line = 0;
+            int hash = 0;
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                if (c == '\n') {
+                    hashes[line++] = hash;
+                    starts[line] = i + 1;
+                    hash = 0;
+                } else {
+                    hash = 31 * hash + c;
+                }
+            }
+            hashes[line] = hash;
+            starts[count] = string.length() + 1;
+        }
+
+        int size() {
+            return hashes.length;
+        }
+
+        private int length(int index) {
+            return starts[index + 1] - 1 - starts[index];
+        }
+
+        boolean equals(int index, Lines other, int otherIndex) {
+            return hashes[index] == other.hashes[otherIndex]
+                    && length(index) == other.length(otherIndex)
+                    && string.regionMatches(starts[index], other.string, other.starts[otherIndex], length(index));
+        }
+
+        String get(int index, int maxLength) {
+            int length = length(index);
+            if (length > maxLength) {
+                return string.substring(starts[index], starts[index] + maxLength) + "...";
+            }
+            return string.substring(starts[index], starts[index] + length);
+        }
+    }
 }
@@ -7,6 +7,7 @@ import java.util.concurrent.TimeUnit;
 import org.junit.runner.Computer;
 import org.junit.runner.Runner;
 import org.junit.runners.ParentRunner;
+import org.junit.runners.Suite;
 import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.RunnerBuilder;
 import org.junit.runners.model.RunnerScheduler;
@@ -16,9 +17,23 @@ public class ParallelComputer extends Computer {
 
     private final boolean fMethods;
 
+    private final int fConstructionThreads;
+
     public ParallelComputer(boolean classes, boolean methods) {
+        this(classes, methods, 1);
+    }
+
+    /**
+     * @param classes whether the classes are run in parallel
+     * @param methods whether the methods of each class are run in parallel
+     * @param constructionThreads the number of threads used to construct the
+     * runners for the classes (see {@link ParallelRunnerBuilder})
+     * @since 4.12
+     */
+    public ParallelComputer(boolean classes, boolean methods, int constructionThreads) {
         fClasses = classes;
         fMethods = methods;
+        fConstructionThreads = constructionThreads;
     }
 
     public static Computer classes() {
@@ -29,6 +44,16 @@ public class ParallelComputer extends Computer {
         return new ParallelComputer(false, true);
     }
 
+    /**
+     * Returns a computer that runs the tests in serial order, but constructs
+     * the runners for the classes on up to {@code threads} threads.
+     *
+     * @since 4.12
+     */
+    public static Computer construction(int threads) {
+        return new ParallelComputer(false, false, threads);
+    }
+
     private static Runner parallelize(Runner runner) {
         if (runner instanceof ParentRunner) {
             ((ParentRunner<?>) runner).setScheduler(new RunnerScheduler() {
@@ -54,10 +79,23 @@ public class ParallelComputer extends Computer {
     @Override
     public Runner getSuite(RunnerBuilder builder, java.lang.Class<?>[] classes)
             throws InitializationError {
-        Runner suite = super.getSuite(builder, classes);
+        Runner suite = fConstructionThreads > 1
+                ? constructInParallel(builder, classes)
+                : super.getSuite(builder, classes);
         return fClasses ? parallelize(suite) : suite;
     }
 
+    private Runner constructInParallel(final RunnerBuilder builder, Class<?>[] classes)
+            throws InitializationError {
+        RunnerBuilder classBuilder = new RunnerBuilder() {
+            @Override
+            public Runner runnerForClass(Class<?> testClass) throws Throwable {
+                return getRunner(builder, testClass);
+            }
+        };
+        return new Suite(new ParallelRunnerBuilder(classBuilder, fConstructionThreads), classes);
+    }
+
     @Override
     protected Runner getRunner(RunnerBuilder builder, Class<?> testClass)
             throws Throwable {
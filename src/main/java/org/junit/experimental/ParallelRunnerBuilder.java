@@ -0,0 +1,126 @@
+package org.junit.experimental;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.internal.runners.ErrorReportingRunner;
+import org.junit.runner.Runner;
+import org.junit.runners.model.RunnerBuilder;
+
+/**
+ * A {@link RunnerBuilder} that constructs the runners for the children of a
+ * suite concurrently, on a bounded number of threads. Class loading, static
+ * initialization and validation of the children thus no longer happen one
+ * class at a time before the first test can start.
+ *
+ * <p>The runners are returned in declaration order, and a class whose runner
+ * cannot be constructed is reported by an {@link ErrorReportingRunner}, just
+ * as with any other builder. Nested suites are constructed serially on the
+ * thread that constructs their enclosing child.
+ *
+ * <pre>
+ * Computer computer = ParallelComputer.construction(8);
+ * JUnitCore.runClasses(computer, classes);
+ * </pre>
+ *
+ * @since 4.12
+ */
+public class ParallelRunnerBuilder extends RunnerBuilder {
+    private static final ThreadLocal<Boolean> CONSTRUCTING = new ThreadLocal<Boolean>();
+
+    private final RunnerBuilder fBuilder;
+
+    private final int fThreads;
+
+    /**
+     * @param builder constructs the runner for each single class
+     * @param threads the maximum number of threads used for construction
+     */
+    public ParallelRunnerBuilder(RunnerBuilder builder, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive, but was " + threads);
+        }
+        fBuilder = builder;
+        fThreads = threads;
+    }
+
+    @Override
+    public Runner runnerForClass(Class<?> testClass) throws Throwable {
+        return fBuilder.runnerForClass(testClass);
+    }
+
+    @Override
+    protected List<Runner> runners(Class<?>[] children) {
+        if (fThreads == 1 || children.length < 2 || CONSTRUCTING.get() != null) {
+            return super.runners(children);
+        }
+        ExecutorService service = Executors.newFixedThreadPool(
+                Math.min(fThreads, children.length), new ConstructionThreadFactory());
+        try {
+            List<Future<Runner>> futures = new ArrayList<Future<Runner>>(children.length);
+            for (Class<?> each : children) {
+                futures.add(service.submit(new Construction(each)));
+            }
+            List<Runner> runners = new ArrayList<Runner>(children.length);
+            for (int i = 0; i < children.length; i++) {
+                Runner childRunner = await(children[i], futures.get(i));
+                if (childRunner != null) {
+                    runners.add(childRunner);
+                }
+            }
+            return runners;
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    private Runner await(Class<?> child, Future<Runner> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return new ErrorReportingRunner(child, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ErrorReportingRunner(child, e);
+        }
+    }
+
+    private class Construction implements Callable<Runner> {
+        private final Class<?> fChild;
+
+        Construction(Class<?> child) {
+            fChild = child;
+        }
+
+        public Runner call() {
+            CONSTRUCTING.set(Boolean.TRUE);
+            try {
+                return safeRunnerForClass(fChild);
+            } finally {
+                CONSTRUCTING.remove();
+            }
+        }
+    }
+
+    private static class ConstructionThreadFactory implements ThreadFactory {
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+        private final int fPoolNumber = POOL_NUMBER.incrementAndGet();
+
+        private final AtomicInteger fThreadNumber = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "junit-construction-" + fPoolNumber
+                    + "-" + fThreadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.junit.experimental.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.internal.AtomicFiles;
+
+/**
+ * The file in which the baselines of benchmarks are stored: the operations
+ * per second of each benchmark, by the name of its class and method.
+ *
+ * <p>There is one store per file and JVM, so that the file is read once.
+ */
+final class BaselineStore {
+    private static final int MAGIC = 0x4A55424E; // "JUBN"
+    private static final int VERSION = 1;
+
+    private static final Map<File, BaselineStore> STORES = new HashMap<File, BaselineStore>();
+
+    private final File fFile;
+
+    private final Map<String, Double> fBaselines = new TreeMap<String, Double>();
+
+    private BaselineStore(File file) {
+        fFile = file;
+    }
+
+    /**
+     * @return the store of {@code file}. If the file does not exist or
+     *         cannot be read, the store is empty.
+     */
+    static BaselineStore open(File file) {
+        File key = file.getAbsoluteFile();
+        synchronized (STORES) {
+            BaselineStore store = STORES.get(key);
+            if (store == null) {
+                store = new BaselineStore(key);
+                store.read();
+                STORES.put(key, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * @return the operations per second recorded for {@code key}, or
+     *         {@code null} if there are none
+     */
+    synchronized Double get(String key) {
+        return fBaselines.get(key);
+    }
+
+    /**
+     * Records {@code opsPerSecond} for {@code key}, and saves the file.
+     */
+    synchronized void put(String key, double opsPerSecond) throws IOException {
+        fBaselines.put(key, opsPerSecond);
+        save();
+    }
+
+    private void read() {
+        File file = AtomicFiles.current(fFile);
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("not a benchmark baseline file: " + fFile);
+                }
+                for (int i = in.readInt(); i > 0; i--) {
+                    String key = in.readUTF();
+                    fBaselines.put(key, in.readDouble());
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            // a corrupt file is as good as none
+            fBaselines.clear();
+        }
+    }
+
+    private void save() throws IOException {
+        AtomicFiles.replace(fFile, new AtomicFiles.Contents() {
+            public void writeTo(DataOutputStream out) throws IOException {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(fBaselines.size());
+                for (Map.Entry<String, Double> each : fBaselines.entrySet()) {
+                    out.writeUTF(each.getKey());
+                    out.writeDouble(each.getValue());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package org.junit.experimental.benchmark;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method that {@link BenchmarkRunner} measures. The method must be
+ * public and void, and either take no arguments or a single {@link Blackhole}.
+ *
+ * <p>The method is invoked repeatedly for {@link #warmupIterations()}
+ * iterations, whose results are discarded, and then for
+ * {@link #iterations()}, each of which yields a sample of the operations per
+ * second. Each iteration lasts at least {@link #iterationMillis()}.
+ *
+ * @since 4.12
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Benchmark {
+    /**
+     * The number of iterations run before measuring, to let the JVM compile
+     * and optimize the code
+     */
+    int warmupIterations() default 5;
+
+    /**
+     * The number of iterations that are measured
+     */
+    int iterations() default 10;
+
+    /**
+     * The minimum duration of each iteration, in milliseconds
+     */
+    long iterationMillis() default 100;
+
+    /**
+     * The benchmark fails if fewer operations per second are measured. The
+     * default, 0, means no threshold.
+     */
+    double minOpsPerSecond() default 0;
+
+    /**
+     * The benchmark fails if it is slower than its baseline by more than this
+     * percentage. Baselines are only compared if
+     * {@link BenchmarkRunner#BASELINE_PROPERTY} is set.
+     */
+    double tolerance() default 10;
+}
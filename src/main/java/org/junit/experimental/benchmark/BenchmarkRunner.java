@@ -0,0 +1,384 @@
+package org.junit.experimental.benchmark;
+
+import java.io.File;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.internal.AssumptionViolatedException;
+import org.junit.internal.runners.model.EachTestNotifier;
+import org.junit.runner.Description;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.Statement;
+
+/**
+ * Runs the {@link Benchmark} methods of a class as tests that measure their
+ * throughput, next to its ordinary {@link org.junit.Test} methods:
+ *
+ * <pre>
+ * &#064;RunWith(BenchmarkRunner.class)
+ * public class ParserBenchmark {
+ *     &#064;Benchmark(iterations = 20, minOpsPerSecond = 1000000)
+ *     public void parse(Blackhole blackhole) {
+ *         blackhole.consume(Integer.parseInt(&quot;12345&quot;));
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>A benchmark runs like a test: with a new instance of the class, its
+ * {@link org.junit.Before} and {@link org.junit.After} methods, and its
+ * rules, which are all run once around the whole measurement. Its throughput
+ * is attached as a {@link Throughput} to the description passed to
+ * {@link org.junit.runner.notification.RunListener#testFinished}.
+ *
+ * <p>A benchmark fails if it is slower than its
+ * {@link Benchmark#minOpsPerSecond()}. If the system property
+ * {@value #BASELINE_PROPERTY} names a file, a benchmark also fails if it is
+ * slower than the baseline in that file by more than its
+ * {@link Benchmark#tolerance()}. The first throughput measured for a
+ * benchmark becomes its baseline; to record new baselines, run the
+ * benchmarks with the system property {@value #UPDATE_PROPERTY} set to
+ * {@code true}.
+ *
+ * <p>The benchmark methods are invoked by reflection, which costs more than
+ * an empty method. This cost is calibrated once per JVM by measuring an empty
+ * method of the same shape, and subtracted from the time of each operation.
+ * As what remains of a benchmark that takes hardly longer than an empty method
+ * is mostly noise, at most half of its time is subtracted.
+ *
+ * @since 4.12
+ */
+public class BenchmarkRunner extends BlockJUnit4ClassRunner {
+    /**
+     * The system property that names the file of the baselines
+     */
+    public static final String BASELINE_PROPERTY = "junit.benchmark.baseline";
+
+    /**
+     * The system property that makes benchmarks record their throughput as
+     * their new baseline
+     */
+    public static final String UPDATE_PROPERTY = "junit.benchmark.update";
+
+    /**
+     * Two-sided 95% quantiles of Student's t-distribution, by degrees of
+     * freedom minus one. Beyond the table, the normal quantile is used.
+     */
+    private static final double[] T_95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+            2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069,
+            2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    private static final double Z_95 = 1.960;
+
+    private static final int CALIBRATION_ITERATIONS = 5;
+
+    private static final long CALIBRATION_NANOS = 10000000;
+
+    /**
+     * The nanoseconds it takes to invoke an empty benchmark, by its number of
+     * parameters
+     */
+    private static final ConcurrentHashMap<Integer, Double> OVERHEADS = new ConcurrentHashMap<Integer, Double>();
+
+    private final ConcurrentHashMap<FrameworkMethod, Throughput> fThroughputs = new ConcurrentHashMap<FrameworkMethod, Throughput>();
+
+    public BenchmarkRunner(Class<?> klass) throws InitializationError {
+        super(klass);
+    }
+
+    @Override
+    protected List<FrameworkMethod> computeTestMethods() {
+        List<FrameworkMethod> methods = new ArrayList<FrameworkMethod>(super.computeTestMethods());
+        for (FrameworkMethod each : getTestClass().getAnnotatedMethods(Benchmark.class)) {
+            if (!methods.contains(each)) {
+                methods.add(each);
+            }
+        }
+        return methods;
+    }
+
+    @Override
+    protected void validateTestMethods(List<Throwable> errors) {
+        super.validateTestMethods(errors);
+        for (FrameworkMethod each : getTestClass().getAnnotatedMethods(Benchmark.class)) {
+            each.validatePublicVoid(false, errors);
+            Class<?>[] parameters = each.getMethod().getParameterTypes();
+            if (parameters.length > 1 || (parameters.length == 1 && parameters[0] != Blackhole.class)) {
+                errors.add(new Exception("Method " + each.getName()
+                        + " should have no parameters or a single Blackhole"));
+            }
+            Benchmark benchmark = each.getAnnotation(Benchmark.class);
+            if (benchmark.iterations() < 1 || benchmark.warmupIterations() < 0 || benchmark.iterationMillis() < 1) {
+                errors.add(new Exception("Method " + each.getName()
+                        + " should have at least one iteration of at least one millisecond"));
+            }
+        }
+    }
+
+    @Override
+    protected void runChild(FrameworkMethod method, RunNotifier notifier) {
+        if (method.getAnnotation(Benchmark.class) == null) {
+            super.runChild(method, notifier);
+            return;
+        }
+        Description description = describeChild(method);
+        if (isIgnored(method)) {
+            notifier.fireTestIgnored(description);
+            return;
+        }
+        notifier.fireTestStarted(description);
+        Throwable failure = null;
+        try {
+            methodBlock(method).evaluate();
+        } catch (Throwable e) {
+            failure = e;
+        }
+        Throughput throughput = fThroughputs.remove(method);
+        EachTestNotifier eachNotifier = new EachTestNotifier(notifier,
+                throughput == null ? description : withThroughput(method, description, throughput));
+        if (failure instanceof AssumptionViolatedException) {
+            eachNotifier.addFailedAssumption((AssumptionViolatedException) failure);
+        } else if (failure != null) {
+            eachNotifier.addFailure(failure);
+        }
+        eachNotifier.fireTestFinished();
+    }
+
+    private Description withThroughput(FrameworkMethod method, Description description, Throughput throughput) {
+        List<Annotation> annotations = new ArrayList<Annotation>(description.getAnnotations());
+        annotations.add(throughput);
+        return Description.createTestDescription(getTestClass().getJavaClass(), testName(method),
+                annotations.toArray(new Annotation[annotations.size()]));
+    }
+
+    @Override
+    protected Statement methodInvoker(FrameworkMethod method, Object test) {
+        Benchmark benchmark = method.getAnnotation(Benchmark.class);
+        if (benchmark == null) {
+            return super.methodInvoker(method, test);
+        }
+        return new Measure(method, test, benchmark);
+    }
+
+    private class Measure extends Statement {
+        private final FrameworkMethod fMethod;
+
+        private final Object fTarget;
+
+        private final Benchmark fBenchmark;
+
+        private final Blackhole fBlackhole = new Blackhole();
+
+        Measure(FrameworkMethod method, Object target, Benchmark benchmark) {
+            fMethod = method;
+            fTarget = target;
+            fBenchmark = benchmark;
+        }
+
+        @Override
+        public void evaluate() throws Throwable {
+            Method method = fMethod.getMethod();
+            Object[] arguments = method.getParameterTypes().length == 0 ? new Object[0] : new Object[]{fBlackhole};
+            long iterationNanos = fBenchmark.iterationMillis() * 1000000;
+            double overheadNanos = overheadNanos(arguments);
+            for (int i = 0; i < fBenchmark.warmupIterations(); i++) {
+                runIteration(method, arguments, iterationNanos, overheadNanos);
+            }
+            double[] samples = new double[fBenchmark.iterations()];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = runIteration(method, arguments, iterationNanos, overheadNanos);
+            }
+            fBlackhole.publish();
+
+            Throughput throughput = throughput(samples);
+            fThroughputs.put(fMethod, throughput);
+            assertFastEnough(throughput);
+        }
+
+        /**
+         * @return the operations per second, after subtracting the overhead of
+         *         invoking the method
+         */
+        private double runIteration(Method method, Object[] arguments, long iterationNanos, double overheadNanos)
+                throws Throwable {
+            double nanos = nanosPerOperation(fTarget, method, arguments, iterationNanos);
+            return 1e9 / Math.max(nanos - overheadNanos, nanos / 2);
+        }
+
+        private void assertFastEnough(Throughput throughput) throws Exception {
+            double opsPerSecond = throughput.opsPerSecond();
+            if (opsPerSecond < fBenchmark.minOpsPerSecond()) {
+                throw new AssertionError(format(throughput) + " was below the threshold of "
+                        + format(fBenchmark.minOpsPerSecond()) + " ops/s");
+            }
+            String baselineFile = System.getProperty(BASELINE_PROPERTY);
+            if (baselineFile == null) {
+                return;
+            }
+            BaselineStore store = BaselineStore.open(new File(baselineFile));
+            String key = getTestClass().getJavaClass().getName() + "#" + fMethod.getName();
+            Double baseline = store.get(key);
+            if (baseline == null || Boolean.getBoolean(UPDATE_PROPERTY)) {
+                store.put(key, opsPerSecond);
+            } else if (opsPerSecond < baseline * (1 - fBenchmark.tolerance() / 100)) {
+                throw new AssertionError(format(throughput) + " was more than " + format(fBenchmark.tolerance())
+                        + "% below the baseline of " + format(baseline) + " ops/s");
+            }
+        }
+    }
+
+    /**
+     * Invokes {@code method} in batches, doubling the size of the batches
+     * while they are short, until the iteration has lasted long enough.
+     *
+     * @return the nanoseconds per invocation
+     */
+    private static double nanosPerOperation(Object target, Method method, Object[] arguments,
+            long iterationNanos) throws Throwable {
+        long operations = 0;
+        long batch = 1;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (long i = 0; i < batch; i++) {
+                invoke(target, method, arguments);
+            }
+            operations += batch;
+            elapsed = System.nanoTime() - start;
+            if (elapsed < iterationNanos / 16) {
+                batch *= 2;
+            }
+        } while (elapsed < iterationNanos);
+        return (double) elapsed / operations;
+    }
+
+    private static void invoke(Object target, Method method, Object[] arguments) throws Throwable {
+        try {
+            method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * @return the nanoseconds it takes to invoke an empty benchmark with
+     *         {@code arguments}, the least of a few measurements, as noise
+     *         only ever adds to them
+     */
+    private static double overheadNanos(Object[] arguments) throws Throwable {
+        Double overhead = OVERHEADS.get(arguments.length);
+        if (overhead == null) {
+            Method empty = arguments.length == 0
+                    ? EmptyBenchmark.class.getMethod("run")
+                    : EmptyBenchmark.class.getMethod("run", Blackhole.class);
+            empty.setAccessible(true);
+            double least = Double.MAX_VALUE;
+            for (int i = 0; i < CALIBRATION_ITERATIONS; i++) {
+                least = Math.min(least, nanosPerOperation(new EmptyBenchmark(), empty, arguments, CALIBRATION_NANOS));
+            }
+            overhead = least;
+            OVERHEADS.put(arguments.length, overhead);
+        }
+        return overhead;
+    }
+
+    private static final class EmptyBenchmark {
+        public void run() {
+        }
+
+        public void run(Blackhole blackhole) {
+        }
+    }
+
+    /**
+     * @return the mean of {@code samples} with its 95% confidence interval
+     */
+    private static Throughput throughput(double[] samples) {
+        int n = samples.length;
+        double sum = 0;
+        for (double each : samples) {
+            sum += each;
+        }
+        double mean = sum / n;
+        if (n < 2) {
+            return new MeasuredThroughput(mean, 0, n);
+        }
+        double squares = 0;
+        for (double each : samples) {
+            squares += (each - mean) * (each - mean);
+        }
+        double standardDeviation = Math.sqrt(squares / (n - 1));
+        double t = n - 1 <= T_95.length ? T_95[n - 2] : Z_95;
+        return new MeasuredThroughput(mean, t * standardDeviation / Math.sqrt(n), n);
+    }
+
+    private static String format(Throughput throughput) {
+        return "throughput of " + format(throughput.opsPerSecond()) + " +- " + format(throughput.error())
+                + " ops/s";
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.US, "%.1f", value);
+    }
+
+    private static final class MeasuredThroughput implements Throughput {
+        private final double fOpsPerSecond;
+
+        private final double fError;
+
+        private final int fIterations;
+
+        MeasuredThroughput(double opsPerSecond, double error, int iterations) {
+            fOpsPerSecond = opsPerSecond;
+            fError = error;
+            fIterations = iterations;
+        }
+
+        public double opsPerSecond() {
+            return fOpsPerSecond;
+        }
+
+        public double error() {
+            return fError;
+        }
+
+        public int iterations() {
+            return fIterations;
+        }
+
+        public Class<? extends Annotation> annotationType() {
+            return Throughput.class;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Throughput)) {
+                return false;
+            }
+            Throughput other = (Throughput) obj;
+            return Double.compare(fOpsPerSecond, other.opsPerSecond()) == 0
+                    && Double.compare(fError, other.error()) == 0 && fIterations == other.iterations();
+        }
+
+        @Override
+        public int hashCode() {
+            // as specified by Annotation#hashCode()
+            return ((127 * "opsPerSecond".hashCode()) ^ Double.valueOf(fOpsPerSecond).hashCode())
+                    + ((127 * "error".hashCode()) ^ Double.valueOf(fError).hashCode())
+                    + ((127 * "iterations".hashCode()) ^ Integer.valueOf(fIterations).hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return "@" + Throughput.class.getName() + "(opsPerSecond=" + fOpsPerSecond + ", error=" + fError
+                    + ", iterations=" + fIterations + ")";
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.junit.experimental.benchmark;
+
+/**
+ * Consumes the results of a {@link Benchmark} method, so that the JVM cannot
+ * eliminate the code computing them as dead code:
+ *
+ * <pre>
+ * &#064;Benchmark
+ * public void parse(Blackhole blackhole) {
+ *     blackhole.consume(Integer.parseInt(&quot;12345&quot;));
+ * }
+ * </pre>
+ *
+ * <p>Values are folded into state that is published when the benchmark
+ * ends, which costs little more than an addition per value.
+ *
+ * @since 4.12
+ */
+public final class Blackhole {
+    private static volatile long fPublished;
+
+    private static volatile Object fPublishedObject;
+
+    private long fState;
+
+    private Object fObject;
+
+    Blackhole() {
+    }
+
+    public void consume(Object value) {
+        fObject = value;
+        fState++;
+    }
+
+    public void consume(boolean value) {
+        fState += value ? 1 : 0;
+    }
+
+    public void consume(int value) {
+        fState += value;
+    }
+
+    public void consume(long value) {
+        fState += value;
+    }
+
+    public void consume(float value) {
+        fState += Float.floatToRawIntBits(value);
+    }
+
+    public void consume(double value) {
+        fState += Double.doubleToRawLongBits(value);
+    }
+
+    /**
+     * Publishes the consumed values, so that they are observable.
+     */
+    void publish() {
+        fPublished = fState;
+        fPublishedObject = fObject;
+    }
+}
@@ -0,0 +1,46 @@
+package org.junit.experimental.benchmark;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The throughput measured for a {@link Benchmark}. {@link BenchmarkRunner}
+ * attaches it to the {@link org.junit.runner.Description} that it passes to
+ * {@link org.junit.runner.notification.RunListener#testFinished}, and to the
+ * descriptions of the failures of the benchmark, once it has been measured:
+ *
+ * <pre>
+ * public void testFinished(Description description) {
+ *     Throughput throughput = description.getAnnotation(Throughput.class);
+ *     if (throughput != null) {
+ *         report(description, throughput.opsPerSecond(), throughput.error());
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>It cannot be put on any element of a program.
+ *
+ * @since 4.12
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface Throughput {
+    /**
+     * The mean of the operations per second of the measured iterations. The
+     * time an operation took excludes the calibrated cost of invoking the
+     * benchmark method by reflection; see {@link BenchmarkRunner}.
+     */
+    double opsPerSecond();
+
+    /**
+     * The half width of the 95% confidence interval of
+     * {@link #opsPerSecond()}, or 0 if only one iteration was measured
+     */
+    double error();
+
+    /**
+     * The number of measured iterations
+     */
+    int iterations();
+}
@@ -0,0 +1,295 @@
+package org.junit.experimental.discovery;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The parts of a class file that are needed to decide whether it contains
+ * tests. Read directly from the bytes of the class file, so that the class
+ * is neither loaded nor initialized.
+ */
+final class ClassFile {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_INTERFACE = 0x0200;
+    static final int ACC_ABSTRACT = 0x0400;
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String OBJECT = "java.lang.Object";
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private final String fName;
+    private final String fSuperName;
+    private final int fAccess;
+    private final Set<String> fAnnotations;
+    private final List<Method> fMethods;
+
+    private ClassFile(String name, String superName, int access,
+            Set<String> annotations, List<Method> methods) {
+        fName = name;
+        fSuperName = superName;
+        fAccess = access;
+        fAnnotations = Collections.unmodifiableSet(annotations);
+        fMethods = Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * A method of the class, with the descriptors of its runtime visible
+     * annotations.
+     */
+    static final class Method {
+        private final String fName;
+        private final String fDescriptor;
+        private final int fAccess;
+        private final Set<String> fAnnotations;
+
+        Method(String name, String descriptor, int access, Set<String> annotations) {
+            fName = name;
+            fDescriptor = descriptor;
+            fAccess = access;
+            fAnnotations = Collections.unmodifiableSet(annotations);
+        }
+
+        String getName() {
+            return fName;
+        }
+
+        String getDescriptor() {
+            return fDescriptor;
+        }
+
+        int getAccess() {
+            return fAccess;
+        }
+
+        boolean isAnnotatedWith(String annotationDescriptor) {
+            return fAnnotations.contains(annotationDescriptor);
+        }
+
+        Set<String> getAnnotations() {
+            return fAnnotations;
+        }
+    }
+
+    /**
+     * @return the binary name of the class, e.g. {@code com.example.FooTest$Inner}
+     */
+    String getName() {
+        return fName;
+    }
+
+    /**
+     * @return the binary name of the superclass, or {@code null} if the
+     *         superclass is {@code java.lang.Object} or there is none
+     */
+    String getSuperName() {
+        return fSuperName;
+    }
+
+    int getAccess() {
+        return fAccess;
+    }
+
+    boolean isConcretePublicClass() {
+        return (fAccess & ACC_PUBLIC) != 0 && (fAccess & (ACC_INTERFACE | ACC_ABSTRACT)) == 0;
+    }
+
+    boolean isAnnotatedWith(String annotationDescriptor) {
+        return fAnnotations.contains(annotationDescriptor);
+    }
+
+    Set<String> getAnnotations() {
+        return fAnnotations;
+    }
+
+    List<Method> getMethods() {
+        return fMethods;
+    }
+
+    boolean hasMethodAnnotatedWith(String annotationDescriptor) {
+        for (Method each : fMethods) {
+            if (each.isAnnotatedWith(annotationDescriptor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean hasMethod(String name, String descriptor, int requiredAccess) {
+        for (Method each : fMethods) {
+            if (each.getName().equals(name) && each.getDescriptor().equals(descriptor)
+                    && (each.getAccess() & requiredAccess) == requiredAccess) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the given class file.
+     *
+     * @throws IOException if {@code bytes} is not a well-formed class file
+     */
+    static ClassFile parse(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        Object[] constants = readConstantPool(in);
+        int access = in.readUnsignedShort();
+        String name = className(constants, in.readUnsignedShort());
+        int superIndex = in.readUnsignedShort();
+        String superName = superIndex == 0 ? null : className(constants, superIndex);
+        if (OBJECT.equals(superName)) {
+            superName = null;
+        }
+        skip(in, 2 * in.readUnsignedShort()); // interfaces
+        int fieldCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldCount; i++) {
+            skip(in, 6);
+            readAnnotations(in, constants);
+        }
+        int methodCount = in.readUnsignedShort();
+        List<Method> methods = new ArrayList<Method>(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            int methodAccess = in.readUnsignedShort();
+            String methodName = utf8(constants, in.readUnsignedShort());
+            String descriptor = utf8(constants, in.readUnsignedShort());
+            methods.add(new Method(methodName, descriptor, methodAccess,
+                    readAnnotations(in, constants)));
+        }
+        Set<String> annotations = readAnnotations(in, constants);
+        return new ClassFile(name, superName, access, annotations, methods);
+    }
+
+    private static Object[] readConstantPool(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        Object[] constants = new Object[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    constants[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    constants[i] = Integer.valueOf(in.readUnsignedShort());
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skip(in, 2);
+                    break;
+                case 15: // MethodHandle
+                    skip(in, 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skip(in, 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    skip(in, 8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("unknown constant pool tag " + tag);
+            }
+        }
+        return constants;
+    }
+
+    private static Set<String> readAnnotations(DataInputStream in, Object[] constants)
+            throws IOException {
+        Set<String> annotations = new HashSet<String>();
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8(constants, in.readUnsignedShort());
+            int length = in.readInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                int annotationCount = in.readUnsignedShort();
+                for (int j = 0; j < annotationCount; j++) {
+                    annotations.add(readAnnotation(in, constants));
+                }
+            } else {
+                skip(in, length);
+            }
+        }
+        return annotations;
+    }
+
+    private static String readAnnotation(DataInputStream in, Object[] constants)
+            throws IOException {
+        String type = utf8(constants, in.readUnsignedShort());
+        int pairCount = in.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            skip(in, 2);
+            skipElementValue(in, constants);
+        }
+        return type;
+    }
+
+    private static void skipElementValue(DataInputStream in, Object[] constants)
+            throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                skip(in, 4);
+                break;
+            case '@':
+                readAnnotation(in, constants);
+                break;
+            case '[':
+                int count = in.readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue(in, constants);
+                }
+                break;
+            default:
+                skip(in, 2);
+        }
+    }
+
+    private static String className(Object[] constants, int index) throws IOException {
+        Object nameIndex = constant(constants, index);
+        if (!(nameIndex instanceof Integer)) {
+            throw new IOException("constant " + index + " is not a class");
+        }
+        return utf8(constants, (Integer) nameIndex).replace('/', '.');
+    }
+
+    private static String utf8(Object[] constants, int index) throws IOException {
+        Object value = constant(constants, index);
+        if (!(value instanceof String)) {
+            throw new IOException("constant " + index + " is not a string");
+        }
+        return (String) value;
+    }
+
+    private static Object constant(Object[] constants, int index) throws IOException {
+        if (index <= 0 || index >= constants.length) {
+            throw new IOException("invalid constant pool index " + index);
+        }
+        return constants[index];
+    }
+
+    private static void skip(DataInputStream in, int bytes) throws IOException {
+        if (in.skipBytes(bytes) != bytes) {
+            throw new IOException("unexpected end of class file");
+        }
+    }
+}
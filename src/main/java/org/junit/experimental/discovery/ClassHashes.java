@@ -0,0 +1,65 @@
+package org.junit.experimental.discovery;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+import org.junit.internal.Digests;
+
+/**
+ * Computes hashes of the class files of loaded classes.
+ *
+ * @since 4.12
+ */
+public final class ClassHashes {
+    private ClassHashes() {
+    }
+
+    /**
+     * Returns a hash of the class files of {@code type} and all of its
+     * superclasses, or {@code null} if one of the class files cannot be found.
+     */
+    public static byte[] hashWithSuperclasses(Class<?> type) {
+        MessageDigest digest = Digests.newSha1();
+        for (Class<?> each = type; each != null && each != Object.class; each = each.getSuperclass()) {
+            if (!update(digest, each)) {
+                return null;
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Adds the class file of {@code type} to {@code digest}.
+     *
+     * @return {@code false} if the class file cannot be found
+     */
+    static boolean update(MessageDigest digest, Class<?> type) {
+        InputStream in = openClassFile(type);
+        if (in == null) {
+            return false;
+        }
+        try {
+            try {
+                digest.update(type.getName().getBytes("UTF-8"));
+                byte[] buffer = new byte[8192];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                    digest.update(buffer, 0, read);
+                }
+                return true;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static InputStream openClassFile(Class<?> type) {
+        String resource = type.getName().replace('.', '/') + ".class";
+        ClassLoader loader = type.getClassLoader();
+        return loader == null
+                ? ClassLoader.getSystemResourceAsStream(resource)
+                : loader.getResourceAsStream(resource);
+    }
+}
@@ -0,0 +1,236 @@
+package org.junit.experimental.discovery;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.internal.AtomicFiles;
+
+/**
+ * A persistent index of what is known about test classes from previous runs:
+ * the runner that was used and whether the class passed validation. Each entry
+ * is keyed by a hash of the class file of the class and of its superclasses,
+ * so it is ignored as soon as one of them changes.
+ *
+ * <p>The index is stored in a compact binary file that is read into memory at
+ * once; an entry is only decoded when it is looked up. The file is read rather
+ * than mapped, as a mapped file cannot be replaced on some platforms until the
+ * mapping is garbage collected.
+ *
+ * @see IndexedComputer
+ * @since 4.12
+ */
+public final class DiscoveryIndex {
+    private static final int MAGIC = 0x4A554458; // "JUDX"
+    private static final int VERSION = 2;
+    private static final String CHARSET = "UTF-8";
+
+    private final File fFile;
+
+    private final ByteBuffer fBuffer;
+
+    private final Map<String, Integer> fOffsets = new ConcurrentHashMap<String, Integer>();
+
+    private final Map<String, Entry> fEntries = new ConcurrentHashMap<String, Entry>();
+
+    private DiscoveryIndex(File file, ByteBuffer buffer) {
+        fFile = file;
+        fBuffer = buffer;
+    }
+
+    /**
+     * What is known about a single test class.
+     */
+    public static final class Entry {
+        private final String fClassName;
+        private final byte[] fHash;
+        private final String fRunnerClassName;
+        private final boolean fValid;
+
+        public Entry(String className, byte[] hash, String runnerClassName, boolean valid) {
+            fClassName = className;
+            fHash = hash.clone();
+            fRunnerClassName = runnerClassName;
+            fValid = valid;
+        }
+
+        public String getClassName() {
+            return fClassName;
+        }
+
+        /**
+         * @return the hash of the class files of the class and its superclasses
+         */
+        public byte[] getHash() {
+            return fHash.clone();
+        }
+
+        /**
+         * @return the name of the class of the runner that ran the class
+         */
+        public String getRunnerClassName() {
+            return fRunnerClassName;
+        }
+
+        /**
+         * @return whether the runner for the class could be constructed
+         *         without errors
+         */
+        public boolean isValid() {
+            return fValid;
+        }
+
+        boolean hasHash(byte[] hash) {
+            return Arrays.equals(fHash, hash);
+        }
+    }
+
+    /**
+     * Opens the index stored in {@code file}. If the file does not exist or
+     * cannot be read, the index is empty.
+     */
+    public static DiscoveryIndex open(File file) {
+        File current = AtomicFiles.current(file);
+        if (current.isFile()) {
+            try {
+                DiscoveryIndex index = new DiscoveryIndex(file, read(current));
+                index.readOffsets();
+                return index;
+            } catch (IOException e) {
+                // an unreadable index is as good as none
+            } catch (RuntimeException e) {
+                // a truncated or corrupt index is as good as none
+            }
+        }
+        return new DiscoveryIndex(file, null);
+    }
+
+    private static ByteBuffer read(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private void readOffsets() throws IOException {
+        ByteBuffer buffer = fBuffer.duplicate();
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("not a discovery index: " + fFile);
+        }
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            int start = buffer.position();
+            fOffsets.put(readString(buffer), Integer.valueOf(start));
+            buffer.position(start + length);
+        }
+    }
+
+    /**
+     * Returns the entry for {@code className}, or {@code null} if there is
+     * none or if it was recorded for a different {@code hash}.
+     */
+    public Entry get(String className, byte[] hash) {
+        Entry entry = fEntries.get(className);
+        if (entry == null) {
+            entry = decode(className);
+        }
+        return entry != null && entry.hasHash(hash) ? entry : null;
+    }
+
+    private Entry decode(String className) {
+        Integer offset = fOffsets.get(className);
+        if (offset == null) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = fBuffer.duplicate();
+            buffer.position(offset.intValue());
+            readString(buffer);
+            byte[] hash = new byte[buffer.get() & 0xFF];
+            buffer.get(hash);
+            String runnerClassName = readString(buffer);
+            boolean valid = buffer.get() != 0;
+            return new Entry(className, hash, runnerClassName, valid);
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Adds {@code entry} to the index, replacing any entry for the same class.
+     */
+    public void put(Entry entry) {
+        fEntries.put(entry.getClassName(), entry);
+    }
+
+    /**
+     * Writes the index to its file. The file is replaced atomically, so a reader never
+     * sees a partly written index; see {@link AtomicFiles#replace}.
+     */
+    public synchronized void save() throws IOException {
+        final List<Entry> entries = new ArrayList<Entry>();
+        for (String each : fOffsets.keySet()) {
+            if (!fEntries.containsKey(each)) {
+                Entry entry = decode(each);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        entries.addAll(fEntries.values());
+
+        AtomicFiles.replace(fFile, new AtomicFiles.Contents() {
+            public void writeTo(DataOutputStream out) throws IOException {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Entry each : entries) {
+                    byte[] bytes = encode(each);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+        });
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, entry.getClassName());
+        out.writeByte(entry.fHash.length);
+        out.write(entry.fHash);
+        writeString(out, entry.getRunnerClassName());
+        out.writeBoolean(entry.isValid());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(CHARSET);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) throws UnsupportedEncodingException {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, CHARSET);
+    }
+}
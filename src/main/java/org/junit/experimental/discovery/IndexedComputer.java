@@ -0,0 +1,101 @@
+package org.junit.experimental.discovery;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.internal.builders.IgnoredClassRunner;
+import org.junit.internal.runners.ErrorReportingRunner;
+import org.junit.runner.Computer;
+import org.junit.runner.Runner;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+
+/**
+ * A {@link Computer} that remembers in a {@link DiscoveryIndex} how the runner
+ * for each class was built. If neither a class nor any of its superclasses has
+ * changed since a previous run, its runner is created directly, without asking
+ * each of the default builders in turn and without validating the class again.
+ *
+ * <p>Validation is only skipped for classes that passed validation before and
+ * are run by a {@link BlockJUnit4ClassRunner}. Changes to classes other than
+ * the test class and its superclasses (for example the type of a rule field)
+ * do not invalidate the index.
+ *
+ * <pre>
+ * JUnitCore.runClasses(new IndexedComputer(new File(".junit-index")), classes);
+ * </pre>
+ *
+ * @since 4.12
+ */
+public class IndexedComputer extends Computer {
+    private final File fIndexFile;
+
+    private volatile DiscoveryIndex fIndex;
+
+    /**
+     * @param indexFile the file in which the index is stored
+     */
+    public IndexedComputer(File indexFile) {
+        fIndexFile = indexFile;
+    }
+
+    @Override
+    public Runner getSuite(RunnerBuilder builder, Class<?>[] classes) throws InitializationError {
+        fIndex = DiscoveryIndex.open(fIndexFile);
+        Runner suite = super.getSuite(builder, classes);
+        try {
+            fIndex.save();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return suite;
+    }
+
+    @Override
+    protected Runner getRunner(RunnerBuilder builder, Class<?> testClass) throws Throwable {
+        byte[] hash = ClassHashes.hashWithSuperclasses(testClass);
+        if (hash == null) {
+            return super.getRunner(builder, testClass);
+        }
+        Runner runner = knownRunner(fIndex.get(testClass.getName(), hash), testClass);
+        if (runner == null) {
+            runner = super.getRunner(builder, testClass);
+            fIndex.put(entryFor(testClass, hash, runner));
+        }
+        return runner;
+    }
+
+    private static Runner knownRunner(DiscoveryIndex.Entry entry, Class<?> testClass)
+            throws InitializationError {
+        if (entry == null || !entry.isValid()) {
+            return null;
+        } else if (entry.getRunnerClassName().equals(BlockJUnit4ClassRunner.class.getName())) {
+            return new ValidatedClassRunner(testClass);
+        } else if (entry.getRunnerClassName().equals(IgnoredClassRunner.class.getName())) {
+            return new IgnoredClassRunner(testClass);
+        }
+        return null;
+    }
+
+    private static DiscoveryIndex.Entry entryFor(Class<?> testClass, byte[] hash, Runner runner) {
+        boolean valid = runner != null && !(runner instanceof ErrorReportingRunner);
+        String runnerClassName = runner == null ? "" : runner.getClass().getName();
+        return new DiscoveryIndex.Entry(testClass.getName(), hash, runnerClassName, valid);
+    }
+
+    /**
+     * A {@link BlockJUnit4ClassRunner} for a class that is known to be valid.
+     */
+    private static class ValidatedClassRunner extends BlockJUnit4ClassRunner {
+        ValidatedClassRunner(Class<?> klass) throws InitializationError {
+            super(klass);
+        }
+
+        @Override
+        protected void collectInitializationErrors(List<Throwable> errors) {
+            // validated in a previous run
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package org.junit.experimental.discovery;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+
+import org.junit.internal.Classes;
+import org.junit.runner.Computer;
+import org.junit.runner.Request;
+
+/**
+ * Finds test classes in directories and jars without loading them. The class
+ * files are parsed directly, and a class is considered a test class if it is
+ * public and concrete, and
+ * <ul>
+ * <li>it, or one of its superclasses, has a method annotated with {@code @Test},</li>
+ * <li>it, or one of its superclasses, is annotated with {@code @RunWith}, or</li>
+ * <li>it extends the JUnit 3 {@code TestCase}, or has a JUnit 3 {@code suite()} method.</li>
+ * </ul>
+ * Superclasses are only taken into account if they are found in the scanned
+ * roots. The class files are listed first, and then read and parsed in
+ * parallel in batches, so that a single large root is scanned in parallel
+ * as well. Class files that cannot be parsed are skipped; see
+ * {@link #getUnreadableClassFiles()}.
+ *
+ * <pre>
+ * TestClassScanner scanner = TestClassScanner.forClassPath()
+ *         .includePackage("com.example")
+ *         .includeClassNames(".*Test");
+ * new JUnitCore().run(scanner.request(new Computer()));
+ * </pre>
+ *
+ * @since 4.12
+ */
+public class TestClassScanner {
+    private static final String TEST = "Lorg/junit/Test;";
+    private static final String RUN_WITH = "Lorg/junit/runner/RunWith;";
+    private static final String TEST_CASE = "junit.framework.TestCase";
+    private static final String SUITE_DESCRIPTOR = "()Ljunit/framework/Test;";
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    /**
+     * The number of class files read and parsed by one task
+     */
+    private static final int BATCH_SIZE = 128;
+
+    private final List<File> fRoots;
+
+    private final List<String> fPackages = new ArrayList<String>();
+
+    private final List<Pattern> fClassNamePatterns = new ArrayList<Pattern>();
+
+    private boolean fIncludeNestedClasses = false;
+
+    private int fThreads = Runtime.getRuntime().availableProcessors();
+
+    private final List<String> fUnreadableClassFiles = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * @param roots the directories and jars to scan
+     */
+    public TestClassScanner(List<File> roots) {
+        fRoots = new ArrayList<File>(roots);
+    }
+
+    /**
+     * @return a scanner for the directories and jars of {@code java.class.path}
+     */
+    public static TestClassScanner forClassPath() {
+        List<File> roots = new ArrayList<File>();
+        for (String each : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (each.length() > 0) {
+                roots.add(new File(each));
+            }
+        }
+        return new TestClassScanner(roots);
+    }
+
+    /**
+     * Only finds classes in {@code packageName} or its subpackages. May be
+     * called several times to include several packages.
+     */
+    public TestClassScanner includePackage(String packageName) {
+        fPackages.add(packageName);
+        return this;
+    }
+
+    /**
+     * Only finds classes whose fully qualified name matches {@code regex}.
+     * May be called several times to include several patterns.
+     */
+    public TestClassScanner includeClassNames(String regex) {
+        fClassNamePatterns.add(Pattern.compile(regex));
+        return this;
+    }
+
+    /**
+     * Whether nested classes (i.e. classes whose binary name contains
+     * {@code $}) are found. They are not by default.
+     */
+    public TestClassScanner includeNestedClasses(boolean includeNestedClasses) {
+        fIncludeNestedClasses = includeNestedClasses;
+        return this;
+    }
+
+    /**
+     * The number of threads used to read and parse the class files. Defaults to the number of
+     * available processors.
+     */
+    public TestClassScanner threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive, but was " + threads);
+        }
+        fThreads = threads;
+        return this;
+    }
+
+    /**
+     * Scans the roots.
+     *
+     * @return the names of the test classes found, sorted alphabetically
+     * @throws IOException if a root cannot be read
+     */
+    public List<String> scan() throws IOException {
+        return testClasses(readClassFiles());
+    }
+
+    /**
+     * @return the class files that the last scan skipped because they could
+     *         not be parsed, each with the reason
+     */
+    public List<String> getUnreadableClassFiles() {
+        synchronized (fUnreadableClassFiles) {
+            return new ArrayList<String>(fUnreadableClassFiles);
+        }
+    }
+
+    List<String> testClasses(Map<String, ClassFile> classFiles) {
+        List<String> testClasses = new ArrayList<String>();
+        for (ClassFile each : classFiles.values()) {
+            if (isIncluded(each.getName()) && isTestClass(each, classFiles)) {
+                testClasses.add(each.getName());
+            }
+        }
+        Collections.sort(testClasses);
+        return testClasses;
+    }
+
+    /**
+     * Scans the roots and loads the test classes found, using the current
+     * thread's context class loader.
+     *
+     * @throws IOException if a root cannot be read
+     * @throws ClassNotFoundException if a test class cannot be loaded
+     */
+    public Class<?>[] scanClasses() throws IOException, ClassNotFoundException {
+        List<String> names = scan();
+        Class<?>[] classes = new Class<?>[names.size()];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = Classes.getClass(names.get(i));
+        }
+        return classes;
+    }
+
+    /**
+     * Scans the roots and creates a {@link Request} for the test classes found.
+     *
+     * @throws IOException if a root cannot be read
+     * @throws ClassNotFoundException if a test class cannot be loaded
+     */
+    public Request request(Computer computer) throws IOException, ClassNotFoundException {
+        return Request.classes(computer, scanClasses());
+    }
+
+    private boolean isIncluded(String className) {
+        if (!fIncludeNestedClasses && className.indexOf('$') >= 0) {
+            return false;
+        }
+        return isInIncludedPackage(className) && matchesIncludedPattern(className);
+    }
+
+    private boolean isInIncludedPackage(String className) {
+        if (fPackages.isEmpty()) {
+            return true;
+        }
+        for (String each : fPackages) {
+            if (className.startsWith(each + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesIncludedPattern(String className) {
+        if (fClassNamePatterns.isEmpty()) {
+            return true;
+        }
+        for (Pattern each : fClassNamePatterns) {
+            if (each.matcher(className).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTestClass(ClassFile classFile, Map<String, ClassFile> classFiles) {
+        if (!classFile.isConcretePublicClass()) {
+            return false;
+        }
+        if (classFile.hasMethod("suite", SUITE_DESCRIPTOR, ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC)) {
+            return true;
+        }
+        for (ClassFile each = classFile; each != null; each = classFiles.get(each.getSuperName())) {
+            if (each.isAnnotatedWith(RUN_WITH) || each.hasMethodAnnotatedWith(TEST)
+                    || TEST_CASE.equals(each.getSuperName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Map<String, ClassFile> readClassFiles() throws IOException {
+        fUnreadableClassFiles.clear();
+        List<Callable<List<ClassFile>>> batches = listBatches();
+        ExecutorService service = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(fThreads, batches.size())));
+        try {
+            List<Future<List<ClassFile>>> futures = new ArrayList<Future<List<ClassFile>>>();
+            for (Callable<List<ClassFile>> each : batches) {
+                futures.add(service.submit(each));
+            }
+            Map<String, ClassFile> classFiles = new HashMap<String, ClassFile>();
+            for (Future<List<ClassFile>> each : futures) {
+                for (ClassFile classFile : await(each)) {
+                    // the first root containing a class wins, as with a class loader
+                    if (!classFiles.containsKey(classFile.getName())) {
+                        classFiles.put(classFile.getName(), classFile);
+                    }
+                }
+            }
+            return classFiles;
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    private static List<ClassFile> await(Future<List<ClassFile>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while scanning");
+        }
+    }
+
+    /**
+     * @return the tasks that read the class files of the roots, in the order
+     *         of the roots
+     */
+    private List<Callable<List<ClassFile>>> listBatches() throws IOException {
+        List<Callable<List<ClassFile>>> batches = new ArrayList<Callable<List<ClassFile>>>();
+        for (File root : fRoots) {
+            if (root.isDirectory()) {
+                List<File> files = new ArrayList<File>();
+                listDirectory(root, files);
+                for (int from = 0; from < files.size(); from += BATCH_SIZE) {
+                    batches.add(directoryBatch(files.subList(from, Math.min(from + BATCH_SIZE, files.size()))));
+                }
+            } else if (root.isFile()) {
+                List<String> entries = listJar(root);
+                for (int from = 0; from < entries.size(); from += BATCH_SIZE) {
+                    batches.add(jarBatch(root, entries.subList(from, Math.min(from + BATCH_SIZE, entries.size()))));
+                }
+            }
+        }
+        return batches;
+    }
+
+    private static void listDirectory(File directory, List<File> classFiles) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Could not list " + directory);
+        }
+        for (File each : files) {
+            if (each.isDirectory()) {
+                listDirectory(each, classFiles);
+            } else if (each.getName().endsWith(CLASS_FILE_SUFFIX)) {
+                classFiles.add(each);
+            }
+        }
+    }
+
+    private static List<String> listJar(File file) throws IOException {
+        List<String> classFiles = new ArrayList<String>();
+        JarFile jar = new JarFile(file);
+        try {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry each = entries.nextElement();
+                if (!each.isDirectory() && each.getName().endsWith(CLASS_FILE_SUFFIX)) {
+                    classFiles.add(each.getName());
+                }
+            }
+        } finally {
+            jar.close();
+        }
+        return classFiles;
+    }
+
+    private Callable<List<ClassFile>> directoryBatch(final List<File> files) {
+        return new Callable<List<ClassFile>>() {
+            public List<ClassFile> call() throws IOException {
+                List<ClassFile> classFiles = new ArrayList<ClassFile>(files.size());
+                for (File each : files) {
+                    InputStream in = new FileInputStream(each);
+                    try {
+                        addClassFile(each.getPath(), readFully(in, (int) each.length()), classFiles);
+                    } finally {
+                        in.close();
+                    }
+                }
+                return classFiles;
+            }
+        };
+    }
+
+    private Callable<List<ClassFile>> jarBatch(final File file, final List<String> entries) {
+        return new Callable<List<ClassFile>>() {
+            public List<ClassFile> call() throws IOException {
+                List<ClassFile> classFiles = new ArrayList<ClassFile>(entries.size());
+                JarFile jar = new JarFile(file);
+                try {
+                    for (String each : entries) {
+                        JarEntry entry = jar.getJarEntry(each);
+                        InputStream in = jar.getInputStream(entry);
+                        try {
+                            addClassFile(file + "!" + each, readFully(in, (int) entry.getSize()), classFiles);
+                        } finally {
+                            in.close();
+                        }
+                    }
+                } finally {
+                    jar.close();
+                }
+                return classFiles;
+            }
+        };
+    }
+
+    private void addClassFile(String location, byte[] bytes, List<ClassFile> classFiles) {
+        try {
+            classFiles.add(ClassFile.parse(bytes));
+        } catch (IOException e) {
+            fUnreadableClassFiles.add("Could not read " + location + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            // a corrupt class file may fail in other ways
+            fUnreadableClassFiles.add("Could not read " + location + ": " + e);
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int sizeHint) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sizeHint > 0 ? sizeHint : 4096);
+        byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,264 @@
+package org.junit.experimental.discovery;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.runners.model.TestPlan;
+
+/**
+ * Generates the source of a {@link TestPlan} for each JUnit 4 test class in a
+ * directory of compiled classes. Run it after the test classes have been
+ * compiled and compile its output together with them:
+ *
+ * <pre>
+ * java org.junit.experimental.discovery.TestPlanGenerator target/test-classes target/generated-test-plans
+ * </pre>
+ *
+ * <p>The class files are read without loading the classes. Plans are only
+ * generated for classes that are run by the default runner and whose
+ * superclasses are all found in the directory. Test and fixture methods that
+ * could not be run are reported as errors, and the generator then exits with
+ * a non-zero status.
+ *
+ * @since 4.12
+ */
+public class TestPlanGenerator {
+    private static final String TEST = "Lorg/junit/Test;";
+    private static final String BEFORE = "Lorg/junit/Before;";
+    private static final String AFTER = "Lorg/junit/After;";
+    private static final String BEFORE_CLASS = "Lorg/junit/BeforeClass;";
+    private static final String AFTER_CLASS = "Lorg/junit/AfterClass;";
+    private static final String RUN_WITH = "Lorg/junit/runner/RunWith;";
+    private static final String NO_ARGS_VOID = "()V";
+    private static final String CONSTRUCTOR = "<init>";
+
+    private final File fClassesDirectory;
+
+    private final File fOutputDirectory;
+
+    private final List<String> fErrors = new ArrayList<String>();
+
+    /**
+     * @param classesDirectory the directory containing the compiled test classes
+     * @param outputDirectory the directory to which the sources of the plans are written
+     */
+    public TestPlanGenerator(File classesDirectory, File outputDirectory) {
+        fClassesDirectory = classesDirectory;
+        fOutputDirectory = outputDirectory;
+    }
+
+    public static void main(String... args) {
+        if (args.length != 2) {
+            System.err.println("usage: TestPlanGenerator <classes directory> <output directory>");
+            System.exit(2);
+        }
+        TestPlanGenerator generator = new TestPlanGenerator(new File(args[0]), new File(args[1]));
+        try {
+            List<String> errors = generator.generate();
+            printErrors(errors, System.err);
+            System.exit(errors.isEmpty() ? 0 : 1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    private static void printErrors(List<String> errors, PrintStream out) {
+        for (String each : errors) {
+            out.println(each);
+        }
+    }
+
+    /**
+     * Generates the plans.
+     *
+     * @return the problems found in the test classes, for which no plans were
+     *         generated
+     * @throws IOException if the classes cannot be read or the plans cannot
+     *         be written
+     */
+    public List<String> generate() throws IOException {
+        fErrors.clear();
+        TestClassScanner scanner = new TestClassScanner(Collections.singletonList(fClassesDirectory))
+                .includeNestedClasses(true);
+        Map<String, ClassFile> classFiles = scanner.readClassFiles();
+        fErrors.addAll(scanner.getUnreadableClassFiles());
+        for (String each : scanner.testClasses(classFiles)) {
+            List<ClassFile> hierarchy = hierarchy(classFiles.get(each), classFiles);
+            if (hierarchy != null && isRunByDefaultRunner(hierarchy)) {
+                generate(hierarchy);
+            }
+        }
+        return new ArrayList<String>(fErrors);
+    }
+
+    /**
+     * @return the class followed by its superclasses, or {@code null} if not
+     *         all of them were found
+     */
+    private static List<ClassFile> hierarchy(ClassFile classFile, Map<String, ClassFile> classFiles) {
+        List<ClassFile> hierarchy = new ArrayList<ClassFile>();
+        for (ClassFile each = classFile; each != null; each = classFiles.get(each.getSuperName())) {
+            hierarchy.add(each);
+            if (each.getSuperName() == null) {
+                return hierarchy;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRunByDefaultRunner(List<ClassFile> hierarchy) {
+        boolean hasTests = false;
+        for (ClassFile each : hierarchy) {
+            if (each.isAnnotatedWith(RUN_WITH)) {
+                return false;
+            }
+            hasTests |= each.hasMethodAnnotatedWith(TEST);
+        }
+        return hasTests;
+    }
+
+    private void generate(List<ClassFile> hierarchy) throws IOException {
+        ClassFile testClass = hierarchy.get(0);
+        int errors = fErrors.size();
+        validateConstructor(testClass);
+        Set<String> testMethods = new LinkedHashSet<String>();
+        Set<String> instanceMethods = new LinkedHashSet<String>();
+        Map<String, String> staticMethods = new LinkedHashMap<String, String>();
+        for (ClassFile each : hierarchy) {
+            for (ClassFile.Method method : each.getMethods()) {
+                if (method.isAnnotatedWith(TEST)) {
+                    validate(each, method, false);
+                    testMethods.add(method.getName());
+                    instanceMethods.add(method.getName());
+                } else if (method.isAnnotatedWith(BEFORE) || method.isAnnotatedWith(AFTER)) {
+                    validate(each, method, false);
+                    instanceMethods.add(method.getName());
+                } else if (method.isAnnotatedWith(BEFORE_CLASS) || method.isAnnotatedWith(AFTER_CLASS)) {
+                    validate(each, method, true);
+                    if (!staticMethods.containsKey(method.getName())) {
+                        staticMethods.put(method.getName(), sourceName(each.getName()));
+                    }
+                }
+            }
+        }
+        if (fErrors.size() == errors) {
+            write(testClass.getName(), planSource(testClass.getName(), testMethods,
+                    instanceMethods, staticMethods));
+        }
+    }
+
+    private void validateConstructor(ClassFile testClass) {
+        List<ClassFile.Method> constructors = new ArrayList<ClassFile.Method>();
+        for (ClassFile.Method each : testClass.getMethods()) {
+            if (each.getName().equals(CONSTRUCTOR) && (each.getAccess() & ClassFile.ACC_PUBLIC) != 0) {
+                constructors.add(each);
+            }
+        }
+        if (constructors.size() != 1 || !constructors.get(0).getDescriptor().equals(NO_ARGS_VOID)) {
+            fErrors.add(testClass.getName()
+                    + ": Test class should have exactly one public zero-argument constructor");
+        }
+    }
+
+    private void validate(ClassFile declaringClass, ClassFile.Method method, boolean isStatic) {
+        String prefix = declaringClass.getName() + ": Method " + method.getName();
+        if ((method.getAccess() & ClassFile.ACC_PUBLIC) == 0) {
+            fErrors.add(prefix + "() should be public");
+        }
+        if (isStatic != ((method.getAccess() & ClassFile.ACC_STATIC) != 0)) {
+            fErrors.add(prefix + "() " + (isStatic ? "should" : "should not") + " be static");
+        }
+        if (!method.getDescriptor().equals(NO_ARGS_VOID)) {
+            fErrors.add(prefix + " should have no parameters and return void");
+        }
+    }
+
+    private static String sourceName(String binaryName) {
+        return binaryName.replace('$', '.');
+    }
+
+    private static String planSource(String testClassName, Set<String> testMethods,
+            Set<String> instanceMethods, Map<String, String> staticMethods) {
+        int lastDot = testClassName.lastIndexOf('.');
+        String planName = testClassName.substring(lastDot + 1) + TestPlan.CLASS_NAME_SUFFIX;
+        String testClass = sourceName(testClassName);
+        StringBuilder source = new StringBuilder();
+        if (lastDot >= 0) {
+            source.append("package ").append(testClassName.substring(0, lastDot)).append(";\n\n");
+        }
+        source.append("/**\n * Generated by ").append(TestPlanGenerator.class.getName())
+                .append(". Do not edit.\n */\n");
+        source.append("public final class ").append(planName)
+                .append(" implements ").append(TestPlan.class.getName()).append(" {\n");
+
+        source.append("    public java.util.List<String> getTestMethodNames() {\n");
+        source.append("        return java.util.Arrays.asList(new String[]{");
+        appendQuoted(source, testMethods);
+        source.append("});\n    }\n\n");
+
+        source.append("    public boolean canInvoke(String methodName) {\n");
+        source.append("        return java.util.Arrays.asList(new String[]{");
+        Set<String> allMethods = new LinkedHashSet<String>(instanceMethods);
+        allMethods.addAll(staticMethods.keySet());
+        appendQuoted(source, allMethods);
+        source.append("}).contains(methodName);\n    }\n\n");
+
+        source.append("    public Object createTest() throws Exception {\n");
+        source.append("        return new ").append(testClass).append("();\n    }\n\n");
+
+        source.append("    public void invoke(Object target, String methodName) throws Throwable {\n");
+        for (Map.Entry<String, String> each : staticMethods.entrySet()) {
+            source.append("        if (\"").append(each.getKey()).append("\".equals(methodName)) {\n");
+            source.append("            ").append(each.getValue()).append('.').append(each.getKey())
+                    .append("();\n            return;\n        }\n");
+        }
+        if (!instanceMethods.isEmpty()) {
+            source.append("        ").append(testClass).append(" test = (").append(testClass)
+                    .append(") target;\n");
+        }
+        for (String each : instanceMethods) {
+            source.append("        if (\"").append(each).append("\".equals(methodName)) {\n");
+            source.append("            test.").append(each).append("();\n            return;\n        }\n");
+        }
+        source.append("        throw new NoSuchMethodException(methodName);\n    }\n}\n");
+        return source.toString();
+    }
+
+    private static void appendQuoted(StringBuilder source, Set<String> names) {
+        boolean first = true;
+        for (String each : names) {
+            if (!first) {
+                source.append(", ");
+            }
+            source.append('"').append(each).append('"');
+            first = false;
+        }
+    }
+
+    private void write(String testClassName, String source) throws IOException {
+        File file = new File(fOutputDirectory,
+                testClassName.replace('.', File.separatorChar) + TestPlan.CLASS_NAME_SUFFIX + ".java");
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write(source);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.junit.experimental.max;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.internal.RecordLog;
+
+/**
+ * The file in which a {@link MaxHistory} is stored.
+ *
+ * <p>The file is a {@link RecordLog}, so several JVMs can record into the
+ * same store. Each test is given an integer id by a name record the first
+ * time it is written, and later records refer to it by that id. Once the log
+ * holds many more records than there are live values it is compacted to the
+ * latest values.
+ */
+final class HistoryStore {
+    private static final int MAGIC = 0x4A554D48; // "JUMH"
+    private static final int VERSION = 1;
+    private static final String CHARSET = "UTF-8";
+
+    private static final byte NAME = 1;
+    /**
+     * The duration of the last run, as written before {@link TestStatistics}
+     * were kept. Only read.
+     */
+    static final byte DURATION = 2;
+    static final byte FAILURE = 3;
+    static final byte STATISTICS = 4;
+
+    /**
+     * The log is not compacted before it holds at least this many records.
+     */
+    private static final int MIN_RECORDS_TO_COMPACT = 1024;
+
+    /**
+     * A single value recorded for a test: a number, or for
+     * {@link #STATISTICS} some bytes.
+     */
+    static final class Record {
+        private final String fTest;
+        private final byte fType;
+        private final long fValue;
+        private final byte[] fData;
+
+        Record(String test, byte type, long value) {
+            fTest = test;
+            fType = type;
+            fValue = value;
+            fData = null;
+        }
+
+        Record(String test, byte type, byte[] data) {
+            fTest = test;
+            fType = type;
+            fValue = 0;
+            fData = data;
+        }
+
+        String getTest() {
+            return fTest;
+        }
+
+        byte getType() {
+            return fType;
+        }
+
+        long getValue() {
+            return fValue;
+        }
+
+        byte[] getData() {
+            return fData;
+        }
+    }
+
+    /**
+     * The values read from the store.
+     */
+    interface Contents {
+        /**
+         * Called for each record read, in the order the records were written.
+         */
+        void put(Record record);
+
+        /**
+         * Called while the store is locked, after the records of other writers
+         * were read.
+         *
+         * @return the records to append
+         */
+        List<Record> unsaved();
+
+        /**
+         * @return the latest value of each kind for each test
+         */
+        List<Record> snapshot();
+    }
+
+    private final RecordLog fLog;
+
+    private final Map<Integer, String> fNames = new HashMap<Integer, String>();
+
+    private final Map<String, Integer> fIds = new HashMap<String, Integer>();
+
+    HistoryStore(File file) {
+        fLog = new RecordLog(file, MAGIC, VERSION);
+    }
+
+    /**
+     * Reads all records in the store into {@code contents}.
+     *
+     * @throws CouldNotReadCoreException if the file exists but is not a
+     *         history store. It is replaced on the next {@link #append}.
+     */
+    synchronized void read(Contents contents) throws CouldNotReadCoreException {
+        try {
+            fLog.read(new ContentsReader(contents));
+        } catch (IOException e) {
+            throw new CouldNotReadCoreException(e);
+        }
+    }
+
+    /**
+     * Reads into {@code contents} what other writers appended in the meantime,
+     * and then appends its {@link Contents#unsaved() unsaved} records, which
+     * are put into {@code contents} as well. As the store is locked all the
+     * while, the unsaved records can be computed from the latest values of
+     * all writers.
+     */
+    synchronized void append(final Contents contents) throws IOException {
+        fLog.update(new RecordLog.Update() {
+            public void update() throws IOException {
+                appendLocked(contents);
+            }
+        });
+    }
+
+    private void appendLocked(Contents contents) throws IOException {
+        boolean readable;
+        try {
+            fLog.read(new ContentsReader(contents));
+            readable = fLog.isReadable();
+        } catch (IOException e) {
+            readable = false;
+        }
+        List<Record> records = contents.unsaved();
+        for (Record each : records) {
+            contents.put(each);
+        }
+        int recordCount = fLog.getRecordCount();
+        if (!readable || recordCount + records.size() >= MIN_RECORDS_TO_COMPACT) {
+            List<Record> snapshot = contents.snapshot();
+            if (!readable || recordCount + records.size() > 2 * (snapshot.size() + fIds.size())) {
+                fNames.clear();
+                fIds.clear();
+                fLog.compact(encode(snapshot));
+                return;
+            }
+        }
+        fLog.append(encode(records));
+    }
+
+    /**
+     * Puts the records of the log into {@link Contents}.
+     */
+    private final class ContentsReader implements RecordLog.Reader {
+        private final Contents fContents;
+
+        ContentsReader(Contents contents) {
+            fContents = contents;
+        }
+
+        public void reset() {
+            fNames.clear();
+            fIds.clear();
+        }
+
+        public void read(byte[] bytes) throws IOException {
+            ByteBuffer record = ByteBuffer.wrap(bytes);
+            byte type = record.get();
+            Integer id = Integer.valueOf(record.getInt());
+            if (type == NAME) {
+                String name = new String(bytes, record.position(), record.remaining(), CHARSET);
+                fNames.put(id, name);
+                fIds.put(name, id);
+                return;
+            }
+            String name = fNames.get(id);
+            if (name == null) {
+                throw new IOException("unknown test id " + id + " in " + fLog.getFile());
+            }
+            if (type == STATISTICS) {
+                byte[] data = new byte[record.remaining()];
+                record.get(data);
+                fContents.put(new Record(name, type, data));
+            } else {
+                fContents.put(new Record(name, type, record.getLong()));
+            }
+        }
+    }
+
+    /**
+     * @return the records of the log for {@code records}, preceded by name
+     *         records for the tests that do not have an id yet
+     */
+    private List<byte[]> encode(List<Record> records) throws IOException {
+        List<byte[]> encoded = new ArrayList<byte[]>();
+        for (Record each : records) {
+            Integer id = fIds.get(each.getTest());
+            if (id == null) {
+                id = Integer.valueOf(fIds.size());
+                fIds.put(each.getTest(), id);
+                fNames.put(id, each.getTest());
+                encoded.add(nameRecord(id.intValue(), each.getTest()));
+            }
+            encoded.add(valueRecord(id.intValue(), each));
+        }
+        return encoded;
+    }
+
+    private static byte[] nameRecord(int id, String name) throws UnsupportedEncodingException {
+        byte[] nameBytes = name.getBytes(CHARSET);
+        ByteBuffer record = ByteBuffer.allocate(5 + nameBytes.length);
+        record.put(NAME).putInt(id).put(nameBytes);
+        return record.array();
+    }
+
+    private static byte[] valueRecord(int id, Record record) {
+        if (record.getData() != null) {
+            ByteBuffer bytes = ByteBuffer.allocate(5 + record.getData().length);
+            bytes.put(record.getType()).putInt(id).put(record.getData());
+            return bytes.array();
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(13);
+        bytes.put(record.getType()).putInt(id).putLong(record.getValue());
+        return bytes.array();
+    }
+}
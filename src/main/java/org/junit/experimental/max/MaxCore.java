@@ -3,7 +3,10 @@ package org.junit.experimental.max;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import junit.framework.TestSuite;
 import org.junit.internal.requests.SortingRequest;
@@ -14,6 +17,10 @@ import org.junit.runner.JUnitCore;
 import org.junit.runner.Request;
 import org.junit.runner.Result;
 import org.junit.runner.Runner;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.notification.RunListener;
+import org.junit.runners.ParentRunner;
 import org.junit.runners.Suite;
 import org.junit.runners.model.InitializationError;
 
@@ -28,6 +35,16 @@ import org.junit.runners.model.InitializationError;
  * <li> Sort groups such that the most recent failure date is first, and never-failing tests are at the end.
  * <li> Within a group, run the fastest tests first.
  * </ol>
+ *
+ * By default each test is run on its own, so the tests of a class may be
+ * interleaved with those of other classes. With {@link #preservingClasses()},
+ * the tests of each class are run together instead.
+ *
+ * With {@link #retryingFailedTests(int)}, a failing test is run again, and
+ * reported as flaky if it then passes. How often each test was flaky is kept
+ * in the history, and with {@link #quarantiningFlakyTests(double)} the tests
+ * that are flaky too often are left out of {@link #run(Request, JUnitCore)},
+ * to be run separately by {@link #runQuarantined(Request, JUnitCore)}.
  */
 public class MaxCore {
     private static final String MALFORMED_JUNIT_3_TEST_CLASS_PREFIX = "malformed JUnit 3 test class: ";
@@ -51,10 +68,74 @@ public class MaxCore {
 
     private final MaxHistory fHistory;
 
+    private boolean fPreserveClasses = false;
+
+    private int fRetries = 0;
+
+    /**
+     * Negative if flaky tests are not quarantined
+     */
+    private double fQuarantineThreshold = -1;
+
     private MaxCore(File storedResults) {
         fHistory = MaxHistory.forFolder(storedResults);
     }
 
+    /**
+     * Makes this MaxCore keep the tests of each class together. Classes are
+     * ordered by their most urgent test, and the tests within each class by
+     * the rules above, through {@link org.junit.runner.manipulation.Sortable}.
+     * The runners of the request are used as they are, so each class's
+     * {@code @BeforeClass}, {@code @AfterClass} and {@code @ClassRule}s run
+     * once, and a request for a parallel {@link org.junit.runner.Computer}
+     * still runs in parallel. Runners that are not sortable keep their order.
+     *
+     * @return this MaxCore
+     * @since 4.12
+     */
+    public MaxCore preservingClasses() {
+        fPreserveClasses = true;
+        return this;
+    }
+
+    /**
+     * Makes this MaxCore run a failing test up to {@code retries} more times,
+     * each time with a fresh instance of the test class. A test that passes
+     * when retried is reported to
+     * {@link org.junit.runner.notification.RunListener#testFlaky(org.junit.runner.notification.Failure)}
+     * instead of as a failure, and recorded as flaky in the history.
+     *
+     * @return this MaxCore
+     * @since 4.12
+     */
+    public MaxCore retryingFailedTests(int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("retries must not be negative, but was " + retries);
+        }
+        fRetries = retries;
+        return this;
+    }
+
+    /**
+     * Makes {@link #run(Request, JUnitCore)} leave out the tests that were
+     * flaky in at least {@code flakinessThreshold} of their recorded runs (see
+     * {@link TestStatistics#getFlakiness()}), so that they cannot break the
+     * build. They are run by {@link #runQuarantined(Request, JUnitCore)}
+     * instead.
+     *
+     * @param flakinessThreshold a fraction between 0 and 1
+     * @return this MaxCore
+     * @since 4.12
+     */
+    public MaxCore quarantiningFlakyTests(double flakinessThreshold) {
+        if (flakinessThreshold < 0 || flakinessThreshold > 1) {
+            throw new IllegalArgumentException("flakinessThreshold must be between 0 and 1, but was "
+                    + flakinessThreshold);
+        }
+        fQuarantineThreshold = flakinessThreshold;
+        return this;
+    }
+
     /**
      * Run all the tests in <code>class</code>.
      *
@@ -85,8 +166,70 @@ public class MaxCore {
      * @return a {@link Result} describing the details of the test run and the failed tests.
      */
     public Result run(Request request, JUnitCore core) {
-        core.addListener(fHistory.listener());
-        return core.run(sortRequest(request).getRunner());
+        return runPhase(request, core, false);
+    }
+
+    /**
+     * Run the tests contained in <code>request</code> that were quarantined
+     * because they are known to be flaky, see
+     * {@link #quarantiningFlakyTests(double)}. Their results are recorded in
+     * the history like those of other tests.
+     *
+     * @param request the request describing tests
+     * @param core a JUnitCore to delegate to.
+     * @return a {@link Result} describing the details of the test run and the failed tests.
+     * @since 4.12
+     */
+    public Result runQuarantined(Request request, JUnitCore core) {
+        return runPhase(request, core, true);
+    }
+
+    private Result runPhase(Request request, JUnitCore core, boolean quarantined) {
+        RunListener listener = fHistory.listener();
+        core.addListener(listener);
+        try {
+            Request phase = request;
+            if (fQuarantineThreshold >= 0 || quarantined) {
+                Runner runner = request.getRunner();
+                try {
+                    quarantineFilter(quarantined).apply(runner);
+                } catch (NoTestsRemainException e) {
+                    return core.run(Suite.emptySuite());
+                }
+                phase = Request.runner(runner);
+            }
+            Runner runner = sortRequest(phase).getRunner();
+            if (fRetries > 0 && runner instanceof ParentRunner) {
+                ((ParentRunner<?>) runner).setRetries(fRetries);
+            }
+            return core.run(runner);
+        } finally {
+            core.removeListener(listener);
+        }
+    }
+
+    private Filter quarantineFilter(final boolean quarantined) {
+        return new Filter() {
+            @Override
+            public boolean shouldRun(Description description) {
+                if (description.isTest()) {
+                    boolean flaky = fQuarantineThreshold >= 0
+                            && fHistory.isFlaky(description, fQuarantineThreshold);
+                    return flaky == quarantined;
+                }
+                for (Description each : description.getChildren()) {
+                    if (shouldRun(each)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public String describe() {
+                return quarantined ? "quarantined flaky tests" : "tests that are not quarantined";
+            }
+        };
     }
 
     /**
@@ -97,6 +240,9 @@ public class MaxCore {
             // We'll pay big karma points for this
             return request;
         }
+        if (fPreserveClasses) {
+            return request.sortWith(new MostUrgentMemberFirst(fHistory.testComparator()));
+        }
         List<Description> leaves = findLeaves(request);
         Collections.sort(leaves, fHistory.testComparator());
         return constructLeafRequest(leaves);
@@ -178,4 +324,38 @@ public class MaxCore {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Orders descriptions by their most urgent test.
+     */
+    private static class MostUrgentMemberFirst implements Comparator<Description> {
+        private final Comparator<Description> fTestComparator;
+
+        private final Map<Description, Description> fMostUrgent = new HashMap<Description, Description>();
+
+        MostUrgentMemberFirst(Comparator<Description> testComparator) {
+            fTestComparator = testComparator;
+        }
+
+        public int compare(Description o1, Description o2) {
+            return fTestComparator.compare(mostUrgent(o1), mostUrgent(o2));
+        }
+
+        private Description mostUrgent(Description description) {
+            if (description.getChildren().isEmpty()) {
+                return description;
+            }
+            Description mostUrgent = fMostUrgent.get(description);
+            if (mostUrgent == null) {
+                for (Description each : description.getChildren()) {
+                    Description candidate = mostUrgent(each);
+                    if (mostUrgent == null || fTestComparator.compare(candidate, mostUrgent) < 0) {
+                        mostUrgent = candidate;
+                    }
+                }
+                fMostUrgent.put(description, mostUrgent);
+            }
+            return mostUrgent;
+        }
+    }
+}
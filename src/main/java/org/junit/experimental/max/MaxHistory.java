@@ -2,14 +2,22 @@ package org.junit.experimental.max;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.junit.runner.Description;
 import org.junit.runner.Result;
@@ -20,30 +28,39 @@ import org.junit.runner.notification.RunListener;
  * Stores a subset of the history of each test:
  * <ul>
  * <li>Last failure timestamp
- * <li>Duration of last execution
+ * <li>{@link TestStatistics} of its durations and results, including how
+ * often it was flaky
  * </ul>
+ * The history is kept in a compact binary store that several JVMs can record
+ * into at the same time, and that survives a run being killed while it is
+ * saved.
  */
 public class MaxHistory implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
     /**
      * Loads a {@link MaxHistory} from {@code file}, or generates a new one that
-     * will be saved to {@code file}.
+     * will be saved to {@code file}. A history saved by an earlier version of
+     * JUnit is converted on the first save.
      */
     public static MaxHistory forFolder(File file) {
-        if (file.exists()) {
-            try {
-                return readHistory(file);
-            } catch (CouldNotReadCoreException e) {
+        MaxHistory history = new MaxHistory(file);
+        try {
+            history.fStore.read(history.new StoredContents());
+        } catch (CouldNotReadCoreException e) {
+            MaxHistory legacy = readLegacyHistory(file);
+            if (legacy == null) {
                 e.printStackTrace();
-                file.delete();
+            } else {
+                history.importHistory(legacy);
             }
         }
-        return new MaxHistory(file);
+        return history;
     }
 
-    private static MaxHistory readHistory(File storedResults)
-            throws CouldNotReadCoreException {
+    private static MaxHistory readLegacyHistory(File storedResults) {
         try {
             FileInputStream file = new FileInputStream(storedResults);
             try {
@@ -57,70 +74,423 @@ public class MaxHistory implements Serializable {
                 file.close();
             }
         } catch (Exception e) {
-            throw new CouldNotReadCoreException(e);
+            return null;
         }
     }
 
+    /**
+     * The durations of the last runs. Only filled in by a history serialized
+     * by an earlier version of JUnit, which is then converted.
+     */
     private final Map<String, Long> fDurations = new HashMap<String, Long>();
 
-    private final Map<String, Long> fFailureTimestamps = new HashMap<String, Long>();
+    /**
+     * Always a {@link ConcurrentHashMap}; declared as a {@code Map} for the
+     * serialized form of earlier versions of JUnit
+     */
+    private final Map<String, Long> fFailureTimestamps = new ConcurrentHashMap<String, Long>();
 
     private final File fHistoryStore;
 
+    /**
+     * The statistics of each test: those in the store, with the runs that
+     * were not saved yet. Each is replaced by compare-and-set, so that tests
+     * finishing on several threads never wait for each other or for a save.
+     */
+    private transient ConcurrentMap<String, TestState> fStatistics;
+
+    private transient HistoryStore fStore;
+
+    /**
+     * The tests whose history changed since it was last saved
+     */
+    private transient ConcurrentMap<String, Boolean> fUnsaved;
+
     private MaxHistory(File storedResults) {
         fHistoryStore = storedResults;
+        fStatistics = new ConcurrentHashMap<String, TestState>();
+        fStore = new HistoryStore(storedResults);
+        fUnsaved = new ConcurrentHashMap<String, Boolean>();
+    }
+
+    /**
+     * A single run of a test
+     */
+    private static final class Run {
+        private final long fDuration;
+
+        private final long fCpuTime;
+
+        private final boolean fPassed;
+
+        private final boolean fFlaky;
+
+        Run(long duration, long cpuTime, boolean passed, boolean flaky) {
+            fDuration = duration;
+            fCpuTime = cpuTime;
+            fPassed = passed;
+            fFlaky = flaky;
+        }
+
+        TestStatistics addTo(TestStatistics statistics) {
+            return statistics.withRun(fDuration, fCpuTime, fPassed, fFlaky);
+        }
+    }
+
+    /**
+     * The statistics of a test together with its runs that were not saved
+     * yet, which are always replaced at once
+     */
+    private static final class TestState {
+        static final TestState NONE = new TestState(TestStatistics.NONE, Collections.<Run>emptyList());
+
+        final TestStatistics fStatistics;
+
+        final List<Run> fUnsavedRuns;
+
+        TestState(TestStatistics statistics, List<Run> unsavedRuns) {
+            fStatistics = statistics;
+            fUnsavedRuns = unsavedRuns;
+        }
+
+        TestState withRun(Run run) {
+            List<Run> runs = new ArrayList<Run>(fUnsavedRuns);
+            runs.add(run);
+            return new TestState(run.addTo(fStatistics), Collections.unmodifiableList(runs));
+        }
+
+        /**
+         * @return the state with {@code stored} as the statistics in the
+         *         store, to which the unsaved runs are added again
+         */
+        TestState withStored(TestStatistics stored) {
+            TestStatistics statistics = stored;
+            for (Run each : fUnsavedRuns) {
+                statistics = each.addTo(statistics);
+            }
+            return new TestState(statistics, fUnsavedRuns);
+        }
+
+        TestState withoutUnsavedRuns() {
+            return new TestState(fStatistics, Collections.<Run>emptyList());
+        }
+
+        /**
+         * @return the state with {@code runs}, which could not be saved, as
+         *         unsaved runs again. They are already part of the statistics.
+         */
+        TestState withUnsavedRunsBefore(List<Run> runs) {
+            List<Run> unsavedRuns = new ArrayList<Run>(runs);
+            unsavedRuns.addAll(fUnsavedRuns);
+            return new TestState(fStatistics, Collections.unmodifiableList(unsavedRuns));
+        }
+    }
+
+    /**
+     * A change of the {@link TestState} of a test
+     */
+    private abstract static class Change {
+        abstract TestState apply(TestState state);
+    }
+
+    /**
+     * Applies {@code change} to the state of {@code test}, retrying if another
+     * thread changed it in the meantime.
+     *
+     * @return the state before the change
+     */
+    private TestState change(String test, Change change) {
+        while (true) {
+            TestState state = fStatistics.get(test);
+            if (state == null) {
+                if (fStatistics.putIfAbsent(test, change.apply(TestState.NONE)) == null) {
+                    return TestState.NONE;
+                }
+            } else if (fStatistics.replace(test, state, change.apply(state))) {
+                return state;
+            }
+        }
+    }
+
+    private void importHistory(MaxHistory legacy) {
+        for (Map.Entry<String, Long> each : legacy.fDurations.entrySet()) {
+            recordRun(each.getKey(), each.getValue(), TestStatistics.UNKNOWN, true);
+        }
+        for (Map.Entry<String, Long> each : legacy.fFailureTimestamps.entrySet()) {
+            fFailureTimestamps.put(each.getKey(), each.getValue());
+            fUnsaved.put(each.getKey(), Boolean.TRUE);
+        }
     }
 
     private void save() throws IOException {
-        ObjectOutputStream stream = new ObjectOutputStream(new FileOutputStream(
-                fHistoryStore));
-        stream.writeObject(this);
-        stream.close();
+        StoredContents contents = new StoredContents();
+        try {
+            fStore.append(contents);
+        } catch (IOException e) {
+            for (Map.Entry<String, List<Run>> each : contents.fSaving.entrySet()) {
+                final List<Run> runs = each.getValue();
+                if (!runs.isEmpty()) {
+                    change(each.getKey(), new Change() {
+                        @Override
+                        TestState apply(TestState state) {
+                            return state.withUnsavedRunsBefore(runs);
+                        }
+                    });
+                }
+                fUnsaved.put(each.getKey(), Boolean.TRUE);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the format of earlier versions of JUnit, with the duration of
+     * the last run of each test.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        Map<String, Long> durations = new HashMap<String, Long>();
+        for (Map.Entry<String, TestState> each : fStatistics.entrySet()) {
+            durations.put(each.getKey(), each.getValue().fStatistics.getLastDuration());
+        }
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("fDurations", durations);
+        fields.put("fFailureTimestamps", new HashMap<String, Long>(fFailureTimestamps));
+        fields.put("fHistoryStore", fHistoryStore);
+        out.writeFields();
     }
 
-    Long getFailureTimestamp(Description key) {
+    private void addRecords(String test, List<HistoryStore.Record> records) {
+        TestState state = fStatistics.get(test);
+        if (state != null) {
+            records.add(new HistoryStore.Record(test, HistoryStore.STATISTICS, state.fStatistics.encode()));
+        }
+        Long failureTimestamp = fFailureTimestamps.get(test);
+        if (failureTimestamp != null) {
+            records.add(new HistoryStore.Record(test, HistoryStore.FAILURE, failureTimestamp));
+        }
+    }
+
+    /**
+     * @return the statistics of the past runs of {@code test}, or
+     *         {@code null} if it has never been run
+     * @since 4.12
+     */
+    public TestStatistics getStatistics(Description test) {
+        TestState state = fStatistics.get(test.toString());
+        return state == null ? null : state.fStatistics;
+    }
+
+    /**
+     * @return when {@code key} last failed, in milliseconds since the epoch,
+     *         or {@code null} if it never failed
+     * @since 4.12
+     */
+    public Long getFailureTimestamp(Description key) {
         return fFailureTimestamps.get(key.toString());
     }
 
-    void putTestFailureTimestamp(Description key, long end) {
+    /**
+     * Records that {@code key} failed at {@code end}, in milliseconds since
+     * the epoch.
+     *
+     * @since 4.12
+     */
+    public void putTestFailureTimestamp(Description key, long end) {
         fFailureTimestamps.put(key.toString(), end);
+        fUnsaved.put(key.toString(), Boolean.TRUE);
     }
 
-    boolean isNewTest(Description key) {
-        return !fDurations.containsKey(key.toString());
+    /**
+     * @return whether {@code key} has never been run
+     * @since 4.12
+     */
+    public boolean isNewTest(Description key) {
+        return !fStatistics.containsKey(key.toString());
     }
 
-    Long getTestDuration(Description key) {
-        return fDurations.get(key.toString());
+    /**
+     * @return the duration of the latest run of {@code key}, in nanoseconds,
+     *         or {@code null} if it has never been run
+     * @since 4.12
+     */
+    public Long getTestDuration(Description key) {
+        TestStatistics statistics = getStatistics(key);
+        return statistics == null ? null : statistics.getLastDuration();
     }
 
-    void putTestDuration(Description description, long duration) {
-        fDurations.put(description.toString(), duration);
+    /**
+     * @return whether {@code key} was flaky in at least {@code threshold} of
+     *         its recorded runs
+     */
+    boolean isFlaky(Description key, double threshold) {
+        TestStatistics statistics = getStatistics(key);
+        return statistics != null && statistics.getFlakyRuns() > 0 && statistics.getFlakiness() >= threshold;
+    }
+
+    Long getExpectedDuration(Description key) {
+        TestStatistics statistics = getStatistics(key);
+        return statistics == null ? null : statistics.getMeanDuration();
+    }
+
+    /**
+     * Records a passed run of {@code description} that took
+     * {@code duration} nanoseconds.
+     *
+     * @since 4.12
+     */
+    public void putTestDuration(Description description, long duration) {
+        recordRun(description.toString(), duration, TestStatistics.UNKNOWN, true);
+    }
+
+    void recordRun(String test, long duration, long cpuTime, boolean passed) {
+        recordRun(test, duration, cpuTime, passed, false);
+    }
+
+    void recordRun(String test, long duration, long cpuTime, boolean passed, boolean flaky) {
+        final Run run = new Run(duration, cpuTime, passed, flaky);
+        change(test, new Change() {
+            @Override
+            TestState apply(TestState state) {
+                return state.withRun(run);
+            }
+        });
+        fUnsaved.put(test, Boolean.TRUE);
     }
 
+    /**
+     * Connects this history to its {@link HistoryStore}.
+     *
+     * <p>The statistics read from the store already include the runs of other
+     * writers, so the runs of this history that were not saved yet are added
+     * to them again, instead of overwriting them.
+     */
+    private final class StoredContents implements HistoryStore.Contents {
+        /**
+         * The tests whose records are being appended, with their runs
+         */
+        final Map<String, List<Run>> fSaving = new HashMap<String, List<Run>>();
+
+        public void put(HistoryStore.Record record) {
+            String test = record.getTest();
+            if (record.getType() == HistoryStore.STATISTICS) {
+                putStoredStatistics(test, TestStatistics.decode(record.getData()));
+            } else if (record.getType() == HistoryStore.DURATION) {
+                putStoredStatistics(test,
+                        TestStatistics.NONE.withRun(record.getValue(), TestStatistics.UNKNOWN, true));
+            } else if (record.getType() == HistoryStore.FAILURE) {
+                putStoredFailureTimestamp(test, record.getValue());
+            }
+        }
+
+        private void putStoredStatistics(String test, final TestStatistics stored) {
+            change(test, new Change() {
+                @Override
+                TestState apply(TestState state) {
+                    return state.withStored(stored);
+                }
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private void putStoredFailureTimestamp(String test, Long stored) {
+            ConcurrentMap<String, Long> timestamps = (ConcurrentMap<String, Long>) fFailureTimestamps;
+            Long timestamp = timestamps.get(test);
+            while (timestamp == null ? timestamps.putIfAbsent(test, stored) != null
+                    : timestamp < stored && !timestamps.replace(test, timestamp, stored)) {
+                timestamp = timestamps.get(test);
+            }
+        }
+
+        public List<HistoryStore.Record> unsaved() {
+            List<HistoryStore.Record> records = new ArrayList<HistoryStore.Record>();
+            for (String each : fUnsaved.keySet()) {
+                fUnsaved.remove(each);
+                TestState saved = change(each, new Change() {
+                    @Override
+                    TestState apply(TestState state) {
+                        return state.withoutUnsavedRuns();
+                    }
+                });
+                fSaving.put(each, saved.fUnsavedRuns);
+                addRecords(each, records);
+            }
+            return records;
+        }
+
+        public List<HistoryStore.Record> snapshot() {
+            Set<String> tests = new HashSet<String>(fStatistics.keySet());
+            tests.addAll(fFailureTimestamps.keySet());
+            List<HistoryStore.Record> records = new ArrayList<HistoryStore.Record>();
+            for (String each : tests) {
+                addRecords(each, records);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * When and on which thread a test started.
+     */
+    private static final class Start {
+        final long fNanoTime = System.nanoTime();
+
+        final long fCpuTime = currentThreadCpuTime();
+
+        final Thread fThread = Thread.currentThread();
+    }
+
+    private static long currentThreadCpuTime() {
+        try {
+            if (THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled()) {
+                return THREADS.getCurrentThreadCpuTime();
+            }
+        } catch (UnsupportedOperationException e) {
+            // fall through
+        }
+        return TestStatistics.UNKNOWN;
+    }
+
+    @RunListener.ThreadSafe
     private final class RememberingListener extends RunListener {
-        private long overallStart = System.currentTimeMillis();
+        private final long overallStart = System.currentTimeMillis();
+
+        private final Map<Description, Start> starts = new ConcurrentHashMap<Description, Start>();
+
+        private final Map<Description, Boolean> failed = new ConcurrentHashMap<Description, Boolean>();
 
-        private Map<Description, Long> starts = new HashMap<Description, Long>();
+        private final Map<Description, Boolean> flaky = new ConcurrentHashMap<Description, Boolean>();
 
         @Override
         public void testStarted(Description description) throws Exception {
-            starts.put(description, System.nanoTime()); // Get most accurate
-            // possible time
+            starts.put(description, new Start());
         }
 
         @Override
         public void testFinished(Description description) throws Exception {
-            long end = System.nanoTime();
-            long start = starts.get(description);
-            putTestDuration(description, end - start);
+            long end = System.nanoTime(); // Get most accurate possible time
+            long cpuTime = currentThreadCpuTime();
+            Start start = starts.remove(description);
+            if (start != null) {
+                boolean sameThread = start.fThread == Thread.currentThread()
+                        && start.fCpuTime != TestStatistics.UNKNOWN
+                        && cpuTime != TestStatistics.UNKNOWN;
+                recordRun(description.toString(), end - start.fNanoTime,
+                        sameThread ? cpuTime - start.fCpuTime : TestStatistics.UNKNOWN,
+                        failed.remove(description) == null, flaky.remove(description) != null);
+            }
         }
 
         @Override
         public void testFailure(Failure failure) throws Exception {
+            failed.put(failure.getDescription(), Boolean.TRUE);
             putTestFailureTimestamp(failure.getDescription(), overallStart);
         }
 
+        @Override
+        public void testFlaky(Failure failure) throws Exception {
+            flaky.put(failure.getDescription(), Boolean.TRUE);
+        }
+
         @Override
         public void testRunFinished(Result result) throws Exception {
             save();
@@ -140,7 +510,7 @@ public class MaxHistory implements Serializable {
             int result = getFailure(o2).compareTo(getFailure(o1));
             return result != 0 ? result
                     // Then shorter tests first
-                    : getTestDuration(o1).compareTo(getTestDuration(o2));
+                    : getExpectedDuration(o1).compareTo(getExpectedDuration(o2));
         }
 
         private Long getFailure(Description key) {
@@ -154,7 +524,9 @@ public class MaxHistory implements Serializable {
 
     /**
      * @return a listener that will update this history based on the test
-     *         results reported.
+     *         results reported. The listener is thread-safe, so tests may be
+     *         run in parallel, e.g. with a
+     *         {@link org.junit.experimental.ParallelComputer}.
      */
     public RunListener listener() {
         return new RememberingListener();
@@ -0,0 +1,280 @@
+package org.junit.experimental.max;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded summary of the past runs of a single test, kept by
+ * {@link MaxHistory}:
+ * <ul>
+ * <li>the number of runs that passed and failed, and of the runs that
+ * only passed when retried,
+ * <li>the duration of the last run,
+ * <li>exponentially weighted moving averages of the wall-clock duration and
+ * of the CPU time, in which recent runs weigh more than old ones,
+ * <li>a small histogram of the durations, from which percentiles are
+ * estimated.
+ * </ul>
+ * The histogram has logarithmically growing buckets, so percentiles are
+ * estimated to within about 20%. When it holds more than
+ * {@value #SKETCH_CAPACITY} runs, all counts are halved, so that it reflects
+ * recent runs.
+ *
+ * <p>All durations and CPU times are in nanoseconds. Instances are immutable.
+ *
+ * @see MaxHistory#getStatistics(org.junit.runner.Description)
+ * @since 4.12
+ */
+public final class TestStatistics {
+    /**
+     * Returned for a CPU time that was never measured.
+     */
+    public static final long UNKNOWN = -1;
+
+    /**
+     * The weight of the latest run in the moving averages.
+     */
+    static final double SMOOTHING = 0.25;
+
+    static final int SKETCH_CAPACITY = 64;
+
+    private static final int BUCKETS = 64;
+
+    private static final double LOWEST_BUCKET_LIMIT = 1000; // 1 microsecond
+
+    private static final double BUCKET_GROWTH = 1.4;
+
+    /**
+     * The statistics of a test that has never been run.
+     */
+    public static final TestStatistics NONE = new TestStatistics(0, 0, 0, 0, 0, UNKNOWN, new byte[BUCKETS]);
+
+    private final int fPasses;
+
+    private final int fFailures;
+
+    private final int fFlakyRuns;
+
+    private final long fLastDuration;
+
+    private final double fMeanDuration;
+
+    private final double fMeanCpuTime;
+
+    private final byte[] fSketch;
+
+    private TestStatistics(int passes, int failures, int flakyRuns, long lastDuration,
+            double meanDuration, double meanCpuTime, byte[] sketch) {
+        fPasses = passes;
+        fFailures = failures;
+        fFlakyRuns = flakyRuns;
+        fLastDuration = lastDuration;
+        fMeanDuration = meanDuration;
+        fMeanCpuTime = meanCpuTime;
+        fSketch = sketch;
+    }
+
+    /**
+     * @return the number of recorded runs
+     */
+    public int getRuns() {
+        return fPasses + fFailures;
+    }
+
+    /**
+     * @return the number of recorded runs that passed
+     */
+    public int getPasses() {
+        return fPasses;
+    }
+
+    /**
+     * @return the number of recorded runs that failed
+     */
+    public int getFailures() {
+        return fFailures;
+    }
+
+    /**
+     * @return the number of recorded runs that failed at first, but passed
+     *         when the test was retried. They are counted as passes.
+     */
+    public int getFlakyRuns() {
+        return fFlakyRuns;
+    }
+
+    /**
+     * @return the fraction of the recorded runs that were flaky, or 0 if
+     *         there were none
+     */
+    public double getFlakiness() {
+        return getRuns() == 0 ? 0 : (double) fFlakyRuns / getRuns();
+    }
+
+    /**
+     * @return the duration of the last recorded run
+     */
+    public long getLastDuration() {
+        return fLastDuration;
+    }
+
+    /**
+     * @return the exponentially weighted moving average of the durations
+     */
+    public long getMeanDuration() {
+        return Math.round(fMeanDuration);
+    }
+
+    /**
+     * @return the exponentially weighted moving average of the CPU time used
+     *         by the thread that ran the test, or {@link #UNKNOWN} if the
+     *         CPU time could not be measured
+     */
+    public long getMeanCpuTime() {
+        return fMeanCpuTime < 0 ? UNKNOWN : Math.round(fMeanCpuTime);
+    }
+
+    /**
+     * @param percentile a number between 0 (exclusive) and 100 (inclusive)
+     * @return an estimate of the given percentile of the recent durations,
+     *         e.g. {@code getDurationPercentile(95)} for the 95th percentile
+     */
+    public long getDurationPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in (0, 100], but was " + percentile);
+        }
+        int total = sketchTotal();
+        if (total == 0) {
+            return fLastDuration;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * total);
+        int seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += fSketch[i];
+            if (seen >= rank) {
+                return bucketValue(i);
+            }
+        }
+        return bucketValue(BUCKETS - 1);
+    }
+
+    /**
+     * @return an estimate of the median of the recent durations
+     */
+    public long getMedianDuration() {
+        return getDurationPercentile(50);
+    }
+
+    /**
+     * @return these statistics with another run of the test, which was not
+     *         flaky. {@code cpuTime} is {@link #UNKNOWN} if it was not
+     *         measured.
+     */
+    public TestStatistics withRun(long duration, long cpuTime, boolean passed) {
+        return withRun(duration, cpuTime, passed, false);
+    }
+
+    /**
+     * @return these statistics with another run of the test. {@code cpuTime}
+     *         is {@link #UNKNOWN} if it was not measured.
+     */
+    public TestStatistics withRun(long duration, long cpuTime, boolean passed, boolean flaky) {
+        boolean first = getRuns() == 0;
+        double meanDuration = first ? duration : fMeanDuration + SMOOTHING * (duration - fMeanDuration);
+        double meanCpuTime = fMeanCpuTime;
+        if (cpuTime >= 0) {
+            meanCpuTime = fMeanCpuTime < 0 ? cpuTime : fMeanCpuTime + SMOOTHING * (cpuTime - fMeanCpuTime);
+        }
+        byte[] sketch = fSketch.clone();
+        sketch[bucket(duration)]++;
+        if (sketchTotal(sketch) > SKETCH_CAPACITY) {
+            for (int i = 0; i < BUCKETS; i++) {
+                // rounding up keeps every bucket that has been hit, including the latest
+                sketch[i] = (byte) ((sketch[i] + 1) / 2);
+            }
+        }
+        return new TestStatistics(passed ? fPasses + 1 : fPasses, passed ? fFailures : fFailures + 1,
+                flaky ? fFlakyRuns + 1 : fFlakyRuns, duration, meanDuration, meanCpuTime, sketch);
+    }
+
+    private int sketchTotal() {
+        return sketchTotal(fSketch);
+    }
+
+    private static int sketchTotal(byte[] sketch) {
+        int total = 0;
+        for (byte each : sketch) {
+            total += each;
+        }
+        return total;
+    }
+
+    private static int bucket(long duration) {
+        if (duration < LOWEST_BUCKET_LIMIT) {
+            return 0;
+        }
+        int bucket = 1 + (int) (Math.log(duration / LOWEST_BUCKET_LIMIT) / Math.log(BUCKET_GROWTH));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * @return the geometric middle of the bucket
+     */
+    private static long bucketValue(int bucket) {
+        if (bucket == 0) {
+            return (long) (LOWEST_BUCKET_LIMIT / 2);
+        }
+        return Math.round(LOWEST_BUCKET_LIMIT * Math.pow(BUCKET_GROWTH, bucket - 0.5));
+    }
+
+    /**
+     * @return these statistics in a compact binary form, which
+     *         {@link #decode(byte[])} reads
+     */
+    public byte[] encode() {
+        int buckets = 0;
+        for (byte each : fSketch) {
+            if (each != 0) {
+                buckets++;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(37 + 2 * buckets);
+        buffer.putInt(fPasses).putInt(fFailures).putLong(fLastDuration)
+                .putDouble(fMeanDuration).putDouble(fMeanCpuTime).put((byte) buckets);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (fSketch[i] != 0) {
+                buffer.put((byte) i).put(fSketch[i]);
+            }
+        }
+        // added after the sketch, so statistics written without it can be read
+        buffer.putInt(fFlakyRuns);
+        return buffer.array();
+    }
+
+    /**
+     * @return the statistics that {@link #encode()} returned {@code bytes}
+     *         for
+     */
+    public static TestStatistics decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int passes = buffer.getInt();
+        int failures = buffer.getInt();
+        long lastDuration = buffer.getLong();
+        double meanDuration = buffer.getDouble();
+        double meanCpuTime = buffer.getDouble();
+        byte[] sketch = new byte[BUCKETS];
+        int buckets = buffer.get();
+        for (int i = 0; i < buckets; i++) {
+            sketch[buffer.get()] = buffer.get();
+        }
+        int flakyRuns = buffer.remaining() >= 4 ? buffer.getInt() : 0;
+        return new TestStatistics(passes, failures, flakyRuns, lastDuration, meanDuration, meanCpuTime,
+                sketch);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d runs (%d failed, %d flaky), mean %d ns, p50 %d ns, p95 %d ns, p99 %d ns",
+                getRuns(), getFailures(), getFlakyRuns(), getMeanDuration(), getMedianDuration(),
+                getDurationPercentile(95), getDurationPercentile(99));
+    }
+}
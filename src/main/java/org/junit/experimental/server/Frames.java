@@ -0,0 +1,140 @@
+package org.junit.experimental.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * The protocol spoken between a {@link TestClient} and a {@link TestServer}.
+ *
+ * <p>Each message is a frame: an {@code int} with the length of the rest of
+ * the frame, a byte with the type of the frame, and the payload. Strings are
+ * written as an {@code int} length followed by their UTF-8 bytes. Tests are
+ * referred to by a number, which is given to a test by a {@link #DESCRIPTION}
+ * frame the first time an event concerns it.
+ */
+final class Frames {
+    /**
+     * Client to server: class names, a filter specification and the name of a
+     * sorter class, the last two empty if not used
+     */
+    static final byte RUN = 1;
+
+    static final byte DESCRIPTION = 2;
+
+    static final byte RUN_STARTED = 3;
+
+    static final byte TEST_STARTED = 4;
+
+    static final byte TEST_FINISHED = 5;
+
+    static final byte TEST_FAILURE = 6;
+
+    static final byte TEST_ASSUMPTION_FAILURE = 7;
+
+    static final byte TEST_IGNORED = 8;
+
+    static final byte TEST_RETRIED = 9;
+
+    static final byte TEST_FLAKY = 10;
+
+    /**
+     * Server to client: ends the answer to a {@link #RUN} frame
+     */
+    static final byte RUN_FINISHED = 11;
+
+    private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    private static final String CHARSET = "UTF-8";
+
+    private Frames() {
+    }
+
+    /**
+     * A frame that is being written
+     */
+    static final class Writer {
+        private final byte fType;
+
+        private final ByteArrayOutputStream fBytes = new ByteArrayOutputStream();
+
+        private final DataOutputStream fPayload = new DataOutputStream(fBytes);
+
+        Writer(byte type) {
+            fType = type;
+        }
+
+        Writer putInt(int value) throws IOException {
+            fPayload.writeInt(value);
+            return this;
+        }
+
+        Writer putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(CHARSET);
+            fPayload.writeInt(bytes.length);
+            fPayload.write(bytes);
+            return this;
+        }
+
+        /**
+         * Writes the frame to {@code out} and flushes it.
+         */
+        void writeTo(DataOutputStream out) throws IOException {
+            fPayload.flush();
+            out.writeInt(fBytes.size() + 1);
+            out.writeByte(fType);
+            fBytes.writeTo(out);
+            out.flush();
+        }
+    }
+
+    /**
+     * A frame that was read
+     */
+    static final class Reader {
+        private final byte fType;
+
+        private final DataInputStream fPayload;
+
+        private Reader(byte type, byte[] payload) {
+            fType = type;
+            fPayload = new DataInputStream(new ByteArrayInputStream(payload));
+        }
+
+        byte getType() {
+            return fType;
+        }
+
+        int getInt() throws IOException {
+            return fPayload.readInt();
+        }
+
+        String getString() throws IOException {
+            byte[] bytes = new byte[fPayload.readInt()];
+            fPayload.readFully(bytes);
+            return new String(bytes, CHARSET);
+        }
+    }
+
+    /**
+     * @return the next frame, or {@code null} if the stream ended before it
+     */
+    static Reader read(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 1 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("bad frame length " + length);
+        }
+        byte type = in.readByte();
+        byte[] payload = new byte[length - 1];
+        in.readFully(payload);
+        return new Reader(type, payload);
+    }
+}
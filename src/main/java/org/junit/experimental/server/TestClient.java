@@ -0,0 +1,184 @@
+package org.junit.experimental.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+
+/**
+ * Sends requests to a {@link TestServer} and reports the events of the runs
+ * to {@link RunListener}s, as if the tests ran in this JVM. The descriptions
+ * passed to the listeners only have display names; they have no annotations
+ * and no children.
+ *
+ * <p>The requests of one client run one after another. Use several clients to
+ * run requests concurrently.
+ *
+ * @since 4.12
+ */
+public class TestClient implements Closeable {
+    private final Socket fSocket;
+
+    private final DataInputStream fIn;
+
+    private final DataOutputStream fOut;
+
+    /**
+     * Connects to the server listening on {@code port} of the loopback
+     * interface.
+     */
+    public TestClient(int port) throws IOException {
+        fSocket = new Socket(InetAddress.getByName(null), port);
+        fIn = new DataInputStream(new BufferedInputStream(fSocket.getInputStream()));
+        fOut = new DataOutputStream(new BufferedOutputStream(fSocket.getOutputStream()));
+    }
+
+    /**
+     * Runs the tests of the classes named {@code classNames} on the server.
+     *
+     * @param filterSpec a filter specification as understood by
+     *        {@link org.junit.runner.FilterFactories#createFilterFromFilterSpec},
+     *        or {@code null}
+     * @param sorterClassName the name of a {@code Comparator<Description>}
+     *        with a public no-argument constructor to sort the tests with, or
+     *        {@code null}
+     * @return the result of the run
+     * @throws IOException if the server could not be reached, or went away
+     *         during the run; for example, because it is being recycled
+     */
+    public synchronized Result run(List<String> classNames, String filterSpec, String sorterClassName,
+            RunListener... listeners) throws IOException {
+        Frames.Writer request = new Frames.Writer(Frames.RUN).putInt(classNames.size());
+        for (String each : classNames) {
+            request.putString(each);
+        }
+        request.putString(filterSpec == null ? "" : filterSpec)
+                .putString(sorterClassName == null ? "" : sorterClassName)
+                .writeTo(fOut);
+
+        Result result = new Result();
+        RunNotifier notifier = new RunNotifier();
+        notifier.addFirstListener(result.createListener());
+        for (RunListener each : listeners) {
+            notifier.addListener(each);
+        }
+        replay(notifier, result);
+        return result;
+    }
+
+    private void replay(RunNotifier notifier, Result result) throws IOException {
+        Map<Integer, Description> descriptions = new HashMap<Integer, Description>();
+        while (true) {
+            Frames.Reader frame = Frames.read(fIn);
+            if (frame == null) {
+                throw new EOFException("the test server closed the connection");
+            }
+            switch (frame.getType()) {
+                case Frames.DESCRIPTION:
+                    Integer id = Integer.valueOf(frame.getInt());
+                    descriptions.put(id, Description.createSuiteDescription(frame.getString()));
+                    break;
+                case Frames.RUN_STARTED:
+                    notifier.fireTestRunStarted(descriptionOf(frame, descriptions));
+                    break;
+                case Frames.TEST_STARTED:
+                    notifier.fireTestStarted(descriptionOf(frame, descriptions));
+                    break;
+                case Frames.TEST_FINISHED:
+                    notifier.fireTestFinished(descriptionOf(frame, descriptions));
+                    break;
+                case Frames.TEST_FAILURE:
+                    notifier.fireTestFailure(failureOf(frame, descriptions));
+                    break;
+                case Frames.TEST_ASSUMPTION_FAILURE:
+                    notifier.fireTestAssumptionFailed(failureOf(frame, descriptions));
+                    break;
+                case Frames.TEST_IGNORED:
+                    notifier.fireTestIgnored(descriptionOf(frame, descriptions));
+                    break;
+                case Frames.TEST_RETRIED:
+                    notifier.fireTestRetried(failureOf(frame, descriptions));
+                    break;
+                case Frames.TEST_FLAKY:
+                    notifier.fireTestFlaky(failureOf(frame, descriptions));
+                    break;
+                case Frames.RUN_FINISHED:
+                    notifier.fireTestRunFinished(result);
+                    return;
+                default:
+                    throw new IOException("unexpected frame of type " + frame.getType());
+            }
+        }
+    }
+
+    private static Description descriptionOf(Frames.Reader frame, Map<Integer, Description> descriptions)
+            throws IOException {
+        Description description = descriptions.get(Integer.valueOf(frame.getInt()));
+        if (description == null) {
+            throw new IOException("event for an unknown test");
+        }
+        return description;
+    }
+
+    private static Failure failureOf(Frames.Reader frame, Map<Integer, Description> descriptions)
+            throws IOException {
+        Description description = descriptionOf(frame, descriptions);
+        String message = frame.getString();
+        return new Failure(description, new RemoteThrowable(message, frame.getString()));
+    }
+
+    /**
+     * Closes the connection. The server stops serving this client after the
+     * request that is running.
+     */
+    public void close() throws IOException {
+        fSocket.close();
+    }
+
+    /**
+     * Stands in for an exception thrown in the server, which may be of a class
+     * that cannot be loaded here. It has the message of the original, and
+     * prints its stack trace.
+     */
+    public static class RemoteThrowable extends Throwable {
+        private static final long serialVersionUID = 1L;
+
+        private final String fTrace;
+
+        RemoteThrowable(String message, String trace) {
+            super(message.length() == 0 ? null : message);
+            fTrace = trace;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+        @Override
+        public void printStackTrace(PrintStream s) {
+            s.print(fTrace);
+        }
+
+        @Override
+        public void printStackTrace(PrintWriter s) {
+            s.print(fTrace);
+        }
+    }
+}
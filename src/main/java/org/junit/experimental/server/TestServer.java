@@ -0,0 +1,405 @@
+package org.junit.experimental.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.internal.TrackingClassLoader;
+import org.junit.internal.runners.ErrorReportingRunner;
+import org.junit.runner.Computer;
+import org.junit.runner.Description;
+import org.junit.runner.FilterFactories;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * A long-lived process that runs tests on request, so that IDEs and build
+ * tools do not have to start a new JVM for each run. Requests are sent by a
+ * {@link TestClient} over a socket on the loopback interface, and the events
+ * of the run are streamed back as they happen.
+ *
+ * <p>Each request loads the test classes and the classes they use from the
+ * class directories afresh, in a new class loader, so it sees the classes as
+ * they are now. Classes from jars, including JUnit itself, are loaded once and
+ * stay warm. Requests from different connections run concurrently; apart from
+ * the static state of classes from jars, they do not share anything.
+ *
+ * <p>Since a JVM does not give back the memory of the classes it loaded in an
+ * orderly way, the server can be told to recycle itself: once the heap or the
+ * memory outside the heap (which holds the class metadata) grows beyond a
+ * threshold, the server finishes the running requests, stops, and
+ * {@link #main(String...)} exits with {@link #RECYCLE_EXIT_STATUS}, so that
+ * whatever started it can start a fresh one.
+ *
+ * <pre>
+ * java -cp junit.jar:hamcrest-core.jar:target/classes:target/test-classes \
+ *     org.junit.experimental.server.TestServer --port=4567 --recycle-heap=512
+ * </pre>
+ *
+ * @since 4.12
+ */
+public class TestServer {
+    /**
+     * The exit status of {@link #main(String...)} when the server stopped to
+     * be recycled
+     */
+    public static final int RECYCLE_EXIT_STATUS = 3;
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final ServerSocket fServerSocket;
+
+    private final List<File> fRoots;
+
+    private final ExecutorService fConnections = Executors.newCachedThreadPool();
+
+    private final Set<Socket> fIdleConnections = new HashSet<Socket>();
+
+    private long fMaxHeap = Long.MAX_VALUE;
+
+    private long fMaxNonHeap = Long.MAX_VALUE;
+
+    private volatile boolean fRecycling = false;
+
+    /**
+     * Creates a server that accepts requests on {@code serverSocket}, and
+     * loads the test classes afresh from {@code roots} for every request.
+     */
+    public TestServer(ServerSocket serverSocket, List<File> roots) {
+        fServerSocket = serverSocket;
+        fRoots = new ArrayList<File>(roots);
+    }
+
+    /**
+     * Starts a server that accepts requests on the loopback interface, for the
+     * test classes in the class directories of the class path.
+     * <ul>
+     * <li>{@code --port=PORT}: the port to listen on. By default, a free port
+     * is chosen and printed.
+     * <li>{@code --recycle-heap=MB}: recycle the server once more than this
+     * many megabytes of the heap are in use.
+     * <li>{@code --recycle-non-heap=MB}: recycle the server once more than this
+     * many megabytes outside the heap are in use.
+     * </ul>
+     */
+    public static void main(String... args) throws IOException {
+        int port = 0;
+        long maxHeap = Long.MAX_VALUE;
+        long maxNonHeap = Long.MAX_VALUE;
+        for (String each : args) {
+            if (each.startsWith("--port=")) {
+                port = Integer.parseInt(valueOf(each));
+            } else if (each.startsWith("--recycle-heap=")) {
+                maxHeap = Long.parseLong(valueOf(each)) * MEGABYTE;
+            } else if (each.startsWith("--recycle-non-heap=")) {
+                maxNonHeap = Long.parseLong(valueOf(each)) * MEGABYTE;
+            } else {
+                System.err.println("TestServer knows nothing about the " + each + " option");
+                System.exit(2);
+            }
+        }
+        ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+        TestServer server = new TestServer(serverSocket, TrackingClassLoader.classPathDirectories())
+                .recyclingAbove(maxHeap, maxNonHeap);
+        System.out.println("JUnit test server listening on port " + serverSocket.getLocalPort());
+        boolean recycled = server.serve();
+        System.exit(recycled ? RECYCLE_EXIT_STATUS : 0);
+    }
+
+    private static String valueOf(String option) {
+        return option.substring(option.indexOf('=') + 1);
+    }
+
+    /**
+     * Makes the server stop once, after a request, more than
+     * {@code maxHeapBytes} of the heap or more than {@code maxNonHeapBytes}
+     * outside the heap are in use.
+     *
+     * @return this server
+     */
+    public TestServer recyclingAbove(long maxHeapBytes, long maxNonHeapBytes) {
+        fMaxHeap = maxHeapBytes;
+        fMaxNonHeap = maxNonHeapBytes;
+        return this;
+    }
+
+    /**
+     * Accepts and serves connections until the server is closed or has to be
+     * recycled, and then waits for the running requests to finish.
+     *
+     * @return whether the server stopped to be recycled
+     */
+    public boolean serve() throws IOException {
+        try {
+            while (!fRecycling) {
+                final Socket socket;
+                try {
+                    socket = fServerSocket.accept();
+                } catch (SocketException e) {
+                    // the server socket was closed
+                    break;
+                }
+                fConnections.execute(new Runnable() {
+                    public void run() {
+                        serveConnection(socket);
+                    }
+                });
+            }
+        } finally {
+            fConnections.shutdown();
+            try {
+                fConnections.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            fServerSocket.close();
+        }
+        return fRecycling;
+    }
+
+    /**
+     * Stops accepting connections, and closes the connections that wait for a
+     * request. Requests that are running are finished, and then their
+     * connections are closed.
+     */
+    public void close() throws IOException {
+        fServerSocket.close();
+        synchronized (fIdleConnections) {
+            for (Socket each : fIdleConnections) {
+                each.close();
+            }
+            fIdleConnections.clear();
+        }
+    }
+
+    /**
+     * @return whether the server stops, or stopped, to be recycled
+     */
+    public boolean isRecycling() {
+        return fRecycling;
+    }
+
+    private void serveConnection(Socket socket) {
+        try {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                while (becameIdle(socket)) {
+                    Frames.Reader frame = Frames.read(in);
+                    if (frame == null || !becameBusy(socket)) {
+                        break;
+                    }
+                    if (frame.getType() != Frames.RUN) {
+                        throw new IOException("unexpected frame of type " + frame.getType());
+                    }
+                    run(frame, out);
+                    checkMemory();
+                }
+            } finally {
+                becameBusy(socket);
+                socket.close();
+            }
+        } catch (IOException e) {
+            // the client went away, or the server was closed
+        }
+    }
+
+    /**
+     * @return whether the connection may wait for another request
+     */
+    private boolean becameIdle(Socket socket) {
+        synchronized (fIdleConnections) {
+            if (fRecycling || fServerSocket.isClosed()) {
+                return false;
+            }
+            fIdleConnections.add(socket);
+            return true;
+        }
+    }
+
+    /**
+     * @return whether the request that was received may run; it may not if
+     *         the connection was closed in the meantime
+     */
+    private boolean becameBusy(Socket socket) {
+        synchronized (fIdleConnections) {
+            return fIdleConnections.remove(socket);
+        }
+    }
+
+    private void run(Frames.Reader frame, DataOutputStream out) throws IOException {
+        List<String> classNames = new ArrayList<String>();
+        for (int i = frame.getInt(); i > 0; i--) {
+            classNames.add(frame.getString());
+        }
+        String filterSpec = frame.getString();
+        String sorterClassName = frame.getString();
+
+        ClassLoader parent = TestServer.class.getClassLoader();
+        TrackingClassLoader loader = new TrackingClassLoader(fRoots,
+                parent == null ? ClassLoader.getSystemClassLoader() : parent);
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+        try {
+            JUnitCore core = new JUnitCore();
+            core.addListener(new StreamingListener(out));
+            core.run(request(loader, classNames, filterSpec, sorterClassName));
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Request request(ClassLoader loader, List<String> classNames, String filterSpec,
+            String sorterClassName) {
+        try {
+            Class<?>[] classes = new Class<?>[classNames.size()];
+            for (int i = 0; i < classes.length; i++) {
+                classes[i] = Class.forName(classNames.get(i), true, loader);
+            }
+            Request request = Request.classes(Computer.serial(), classes);
+            if (filterSpec.length() > 0) {
+                request = request.filterWith(FilterFactories.createFilterFromFilterSpec(
+                        Description.createSuiteDescription(filterSpec), filterSpec));
+            }
+            if (sorterClassName.length() > 0) {
+                request = request.sortWith((Comparator<Description>) Class.forName(sorterClassName, true, loader)
+                        .newInstance());
+            }
+            return request;
+        } catch (Exception e) {
+            return Request.runner(new ErrorReportingRunner(TestServer.class, e));
+        }
+    }
+
+    private void checkMemory() {
+        if (exceedsThreshold()) {
+            // only recycle if collecting the garbage does not help
+            System.gc();
+            if (exceedsThreshold()) {
+                fRecycling = true;
+                try {
+                    close();
+                } catch (IOException e) {
+                    // serve() stops after the next connection
+                }
+            }
+        }
+    }
+
+    private boolean exceedsThreshold() {
+        return MEMORY.getHeapMemoryUsage().getUsed() > fMaxHeap
+                || MEMORY.getNonHeapMemoryUsage().getUsed() > fMaxNonHeap;
+    }
+
+    /**
+     * Writes the events of a run as frames.
+     */
+    @RunListener.ThreadSafe
+    private static class StreamingListener extends RunListener {
+        private final DataOutputStream fOut;
+
+        private final Map<Description, Integer> fIds = new HashMap<Description, Integer>();
+
+        StreamingListener(DataOutputStream out) {
+            fOut = out;
+        }
+
+        @Override
+        public void testRunStarted(Description description) throws Exception {
+            write(Frames.RUN_STARTED, description);
+        }
+
+        @Override
+        public void testStarted(Description description) throws Exception {
+            write(Frames.TEST_STARTED, description);
+        }
+
+        @Override
+        public void testFinished(Description description) throws Exception {
+            write(Frames.TEST_FINISHED, description);
+        }
+
+        @Override
+        public void testFailure(Failure failure) throws Exception {
+            write(Frames.TEST_FAILURE, failure);
+        }
+
+        @Override
+        public void testAssumptionFailure(Failure failure) {
+            try {
+                write(Frames.TEST_ASSUMPTION_FAILURE, failure);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void testIgnored(Description description) throws Exception {
+            write(Frames.TEST_IGNORED, description);
+        }
+
+        @Override
+        public void testRetried(Failure failure) throws Exception {
+            write(Frames.TEST_RETRIED, failure);
+        }
+
+        @Override
+        public void testFlaky(Failure failure) throws Exception {
+            write(Frames.TEST_FLAKY, failure);
+        }
+
+        @Override
+        public synchronized void testRunFinished(Result result) throws Exception {
+            new Frames.Writer(Frames.RUN_FINISHED).writeTo(fOut);
+        }
+
+        private synchronized void write(byte type, Description description) throws IOException {
+            new Frames.Writer(type).putInt(idOf(description)).writeTo(fOut);
+        }
+
+        private synchronized void write(byte type, Failure failure) throws IOException {
+            String message = failure.getMessage();
+            new Frames.Writer(type).putInt(idOf(failure.getDescription()))
+                    .putString(message == null ? "" : message)
+                    .putString(failure.getTrace())
+                    .writeTo(fOut);
+        }
+
+        private int idOf(Description description) throws IOException {
+            Integer id = fIds.get(description);
+            if (id == null) {
+                id = Integer.valueOf(fIds.size());
+                fIds.put(description, id);
+                new Frames.Writer(Frames.DESCRIPTION).putInt(id.intValue())
+                        .putString(description.getDisplayName()).writeTo(fOut);
+            }
+            return id.intValue();
+        }
+    }
+}
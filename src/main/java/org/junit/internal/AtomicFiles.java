@@ -0,0 +1,166 @@
+package org.junit.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Miscellaneous functions for replacing files, so that readers and a crash
+ * see either the old or the new contents, never a mix or nothing.
+ *
+ * @since 4.12
+ */
+public final class AtomicFiles {
+    private static final String BACKUP_SUFFIX = ".bak";
+
+    /**
+     * {@code java.nio.file.Files.move(Path, Path, CopyOption...)}, or
+     * {@code null} before Java 7
+     */
+    private static final Method MOVE;
+
+    /**
+     * {@code java.io.File.toPath()}, or {@code null} before Java 7
+     */
+    private static final Method TO_PATH;
+
+    /**
+     * {@code ATOMIC_MOVE} and {@code REPLACE_EXISTING}
+     */
+    private static final Object MOVE_OPTIONS;
+
+    static {
+        Method move = null;
+        Method toPath = null;
+        Object options = null;
+        try {
+            Class<?> path = Class.forName("java.nio.file.Path");
+            Class<?> copyOption = Class.forName("java.nio.file.CopyOption");
+            Class<?> standardCopyOption = Class.forName("java.nio.file.StandardCopyOption");
+            options = Array.newInstance(copyOption, 2);
+            Array.set(options, 0, standardCopyOption.getField("ATOMIC_MOVE").get(null));
+            Array.set(options, 1, standardCopyOption.getField("REPLACE_EXISTING").get(null));
+            move = Class.forName("java.nio.file.Files").getMethod("move", path, path, options.getClass());
+            toPath = File.class.getMethod("toPath");
+        } catch (Exception e) {
+            // before Java 7, files are replaced by renaming them
+            move = null;
+        }
+        MOVE = move;
+        TO_PATH = toPath;
+        MOVE_OPTIONS = options;
+    }
+
+    /**
+     * Writes the new contents of a file.
+     */
+    public interface Contents {
+        /**
+         * Writes the contents to {@code out}. Streams wrapped around
+         * {@code out} must be flushed, but not closed.
+         */
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Writes {@code contents} to a temporary file next to {@code file},
+     * forces it to the disk, and moves it to {@code file}, replacing it
+     * atomically. Where that is not possible, as before Java 7 on Windows,
+     * {@code file} is first renamed to a backup, which is deleted once the new
+     * contents are in place. If this is interrupted in between, readers find
+     * the old contents through {@link #current(File)}.
+     *
+     * @throws IOException if the contents cannot be written or {@code file}
+     * cannot be replaced
+     */
+    public static void replace(File file, Contents contents) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        File temp = File.createTempFile("." + file.getName() + "-", ".tmp", parent);
+        boolean replaced = false;
+        try {
+            FileOutputStream stream = new FileOutputStream(temp);
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+                contents.writeTo(out);
+                out.flush();
+                stream.getFD().sync();
+            } finally {
+                stream.close();
+            }
+            move(temp, file);
+            replaced = true;
+        } finally {
+            if (!replaced) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * @return the file that holds the contents of {@code file}: usually
+     *         {@code file} itself, but its backup if a {@link #replace} was
+     *         interrupted after moving {@code file} away
+     */
+    public static File current(File file) {
+        if (!file.exists()) {
+            File backup = backupOf(file);
+            if (backup.isFile()) {
+                return backup;
+            }
+        }
+        return file;
+    }
+
+    private static void move(File from, File to) throws IOException {
+        if (MOVE != null && moveAtomically(from, to)) {
+            return;
+        }
+        if (from.renameTo(to)) {
+            return;
+        }
+        File backup = backupOf(to);
+        backup.delete();
+        if (to.exists() && !to.renameTo(backup)) {
+            throw new IOException("Could not replace " + to);
+        }
+        if (!from.renameTo(to)) {
+            backup.renameTo(to);
+            throw new IOException("Could not replace " + to);
+        }
+        backup.delete();
+    }
+
+    /**
+     * @return whether the file was moved; {@code false} if the file system
+     *         cannot move it atomically
+     */
+    private static boolean moveAtomically(File from, File to) throws IOException {
+        try {
+            MOVE.invoke(null, TO_PATH.invoke(from), TO_PATH.invoke(to), MOVE_OPTIONS);
+            return true;
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getTargetException();
+            if (cause.getClass().getName().equals("java.nio.file.AtomicMoveNotSupportedException")) {
+                return false;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (IllegalAccessException e) {
+            return false;
+        }
+    }
+
+    private static File backupOf(File file) {
+        return new File(file.getPath() + BACKUP_SUFFIX);
+    }
+}
@@ -32,7 +32,14 @@ public abstract class ComparisonCriteria {
         int expectedsLength = assertArraysAreSameLength(expecteds,
                 actuals, header);
 
-        for (int i = 0; i < expectedsLength; i++) {
+        int from = 0;
+        if (isPrimitiveArrayOfSameType(expecteds, actuals)) {
+            from = firstDifference(expecteds, actuals, expectedsLength);
+            if (from < 0) {
+                return;
+            }
+        }
+        for (int i = from; i < expectedsLength; i++) {
             Object expected = Array.get(expecteds, i);
             Object actual = Array.get(actuals, i);
 
@@ -53,6 +60,32 @@ public abstract class ComparisonCriteria {
         }
     }
 
+    private boolean isPrimitiveArrayOfSameType(Object expecteds, Object actuals) {
+        Class<?> type = expecteds.getClass();
+        return type == actuals.getClass() && type.getComponentType().isPrimitive();
+    }
+
+    /**
+     * Finds the first element in which two arrays of the same primitive type
+     * and length differ, without boxing their elements. The elements from
+     * this index on are then compared with
+     * {@link #assertElementsEqual(Object, Object)}, which reports the
+     * difference.
+     *
+     * <p>The default implementation returns {@code 0}, so all elements are
+     * compared with {@link #assertElementsEqual(Object, Object)}. Subclasses
+     * may return any index up to the first difference, or {@code -1} if the
+     * arrays are equal.
+     *
+     * @param expecteds an array of a primitive type
+     * @param actuals an array of the same type and length as {@code expecteds}
+     * @param length the length of the arrays
+     * @return the index of the first difference, or {@code -1}
+     */
+    protected int firstDifference(Object expecteds, Object actuals, int length) {
+        return 0;
+    }
+
     private boolean isArray(Object expected) {
         return expected != null && expected.getClass().isArray();
     }
@@ -0,0 +1,191 @@
+package org.junit.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.Assert;
+
+/**
+ * Compares the contents of files, buffers and streams in chunks, so that
+ * comparing large contents takes a constant amount of heap. Files are mapped
+ * into memory region by region, and buffers are compared in place.
+ *
+ * <p>Contents of known size, like files and buffers, are compared by size
+ * first, like arrays are compared by length. Otherwise, the message of a
+ * failure gives the offset of the first differing byte, and shows the bytes
+ * around it in hex and as text.
+ *
+ * @see Assert#assertContentEquals(String, File, File)
+ * @since 4.12
+ */
+public final class ContentComparison {
+    private static final int MAP_REGION_SIZE = 64 * 1024 * 1024;
+
+    private static final int STREAM_CHUNK_SIZE = 64 * 1024;
+
+    private static final int EXCERPT_BEFORE = 8;
+
+    private static final int EXCERPT_AFTER = 8;
+
+    private final String fHeader;
+
+    /**
+     * @param message the identifying message for the {@link AssertionError}
+     * (<code>null</code> okay)
+     */
+    public ContentComparison(String message) {
+        fHeader = message == null ? "" : message + ": ";
+    }
+
+    /**
+     * Fails if the files differ in size or content.
+     */
+    public void assertEqual(File expected, File actual) throws IOException {
+        FileInputStream expectedIn = new FileInputStream(expected);
+        try {
+            FileInputStream actualIn = new FileInputStream(actual);
+            try {
+                FileChannel expectedChannel = expectedIn.getChannel();
+                FileChannel actualChannel = actualIn.getChannel();
+                long size = expectedChannel.size();
+                assertSameSize(size, actualChannel.size());
+                for (long position = 0; position < size; position += MAP_REGION_SIZE) {
+                    long regionSize = Math.min(MAP_REGION_SIZE, size - position);
+                    ByteBuffer expectedRegion = expectedChannel.map(FileChannel.MapMode.READ_ONLY, position,
+                            regionSize);
+                    ByteBuffer actualRegion = actualChannel.map(FileChannel.MapMode.READ_ONLY, position,
+                            regionSize);
+                    assertRegionsEqual(position, expectedRegion, actualRegion);
+                }
+            } finally {
+                actualIn.close();
+            }
+        } finally {
+            expectedIn.close();
+        }
+    }
+
+    /**
+     * Fails if the remaining bytes of the buffers differ in number or
+     * content. The positions of the buffers are not changed.
+     */
+    public void assertEqual(ByteBuffer expected, ByteBuffer actual) {
+        assertSameSize(expected.remaining(), actual.remaining());
+        assertRegionsEqual(0, expected.slice(), actual.slice());
+    }
+
+    /**
+     * Fails if the streams have different contents. Both streams are read up
+     * to the first difference, or to their end; they are not closed.
+     */
+    public void assertEqual(InputStream expected, InputStream actual) throws IOException {
+        byte[] expectedChunk = new byte[STREAM_CHUNK_SIZE];
+        byte[] actualChunk = new byte[STREAM_CHUNK_SIZE];
+        long position = 0;
+        while (true) {
+            int expectedLength = readChunk(expected, expectedChunk);
+            int actualLength = readChunk(actual, actualChunk);
+            int length = Math.min(expectedLength, actualLength);
+            ByteBuffer expectedBuffer = ByteBuffer.wrap(expectedChunk, 0, expectedLength);
+            ByteBuffer actualBuffer = ByteBuffer.wrap(actualChunk, 0, actualLength);
+            int difference = firstDifference(expectedBuffer, actualBuffer, length);
+            if (difference >= 0) {
+                failAt(position, difference, expectedBuffer, actualBuffer, "");
+            }
+            if (expectedLength != actualLength) {
+                String shorter = expectedLength < actualLength ? "expected" : "actual";
+                failAt(position, length, expectedBuffer, actualBuffer, ", " + shorter + " stream ended");
+            }
+            if (length < STREAM_CHUNK_SIZE) {
+                return;
+            }
+            position += length;
+        }
+    }
+
+    private static int readChunk(InputStream in, byte[] chunk) throws IOException {
+        int length = 0;
+        while (length < chunk.length) {
+            int read = in.read(chunk, length, chunk.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    private void assertSameSize(long expectedSize, long actualSize) {
+        if (expectedSize != actualSize) {
+            Assert.fail(fHeader + "sizes differed, expected.size=" + expectedSize
+                    + " actual.size=" + actualSize);
+        }
+    }
+
+    private void assertRegionsEqual(long position, ByteBuffer expected, ByteBuffer actual) {
+        int difference = firstDifference(expected, actual, expected.remaining());
+        if (difference >= 0) {
+            failAt(position, difference, expected, actual, "");
+        }
+    }
+
+    /**
+     * Compares the first {@code length} bytes of the buffers, from their
+     * positions on, a {@code long} at a time.
+     *
+     * @return the index of the first differing byte, relative to the
+     *         positions, or {@code -1}
+     */
+    private static int firstDifference(ByteBuffer expected, ByteBuffer actual, int length) {
+        int expectedStart = expected.position();
+        int actualStart = actual.position();
+        int i = 0;
+        while (i + 8 <= length && expected.getLong(expectedStart + i) == actual.getLong(actualStart + i)) {
+            i += 8;
+        }
+        for (; i < length; i++) {
+            if (expected.get(expectedStart + i) != actual.get(actualStart + i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void failAt(long position, int index, ByteBuffer expected, ByteBuffer actual, String detail) {
+        Assert.fail(fHeader + "contents differed at offset " + (position + index) + detail
+                + "\n  expected: " + excerpt(expected, index)
+                + "\n  actual:   " + excerpt(actual, index));
+    }
+
+    /**
+     * @return the bytes around {@code index} in hex and as text, with the
+     *         byte at {@code index} in brackets
+     */
+    private static String excerpt(ByteBuffer buffer, int index) {
+        int start = buffer.position();
+        int from = Math.max(0, index - EXCERPT_BEFORE);
+        int to = Math.min(buffer.remaining(), index + EXCERPT_AFTER + 1);
+        StringBuilder hex = new StringBuilder();
+        StringBuilder text = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            int b = buffer.get(start + i) & 0xFF;
+            String digits = Integer.toHexString(b);
+            if (hex.length() > 0) {
+                hex.append(' ');
+            }
+            hex.append(i == index ? "[" : "").append(digits.length() == 1 ? "0" : "").append(digits)
+                    .append(i == index ? "]" : "");
+            text.append(i == index ? "[" : "").append(b >= 0x20 && b < 0x7F ? (char) b : '.')
+                    .append(i == index ? "]" : "");
+        }
+        if (index >= to) {
+            hex.append(hex.length() > 0 ? " " : "").append("[end]");
+            text.append("[end]");
+        }
+        return hex + "  |" + text + "|";
+    }
+}
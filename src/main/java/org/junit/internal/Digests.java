@@ -0,0 +1,45 @@
+package org.junit.internal;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Miscellaneous functions for hashing the contents of files.
+ *
+ * @since 4.12
+ */
+public final class Digests {
+    private static final String ALGORITHM = "SHA-1";
+
+    private Digests() {
+    }
+
+    /**
+     * @return a new SHA-1 digest
+     */
+    public static MessageDigest newSha1() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(ALGORITHM + " is required by every Java platform", e);
+        }
+    }
+
+    /**
+     * @return the SHA-1 hash of {@code bytes}
+     */
+    public static byte[] sha1(byte[] bytes) {
+        return newSha1().digest(bytes);
+    }
+
+    /**
+     * @return {@code hash} as a string of lower case hexadecimal digits
+     */
+    public static String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(2 * hash.length);
+        for (byte each : hash) {
+            hex.append(Character.forDigit((each >> 4) & 0xF, 16)).append(Character.forDigit(each & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -1,5 +1,7 @@
 package org.junit.internal;
 
+import java.util.Arrays;
+
 import org.junit.Assert;
 
 public class ExactComparisonCriteria extends ComparisonCriteria {
@@ -7,4 +9,121 @@ public class ExactComparisonCriteria extends ComparisonCriteria {
     protected void assertElementsEqual(Object expected, Object actual) {
         Assert.assertEquals(expected, actual);
     }
+
+    /**
+     * Compares the arrays with {@link Arrays#equals}, and only looks for the
+     * first difference if they are not equal. Like
+     * {@link #assertElementsEqual(Object, Object)}, floating point elements
+     * are compared the way {@link Double#equals(Object)} and
+     * {@link Float#equals(Object)} compare them.
+     */
+    @Override
+    protected int firstDifference(Object expecteds, Object actuals, int length) {
+        if (expecteds instanceof byte[]) {
+            return firstDifference((byte[]) expecteds, (byte[]) actuals);
+        } else if (expecteds instanceof int[]) {
+            return firstDifference((int[]) expecteds, (int[]) actuals);
+        } else if (expecteds instanceof long[]) {
+            return firstDifference((long[]) expecteds, (long[]) actuals);
+        } else if (expecteds instanceof double[]) {
+            return firstDifference((double[]) expecteds, (double[]) actuals);
+        } else if (expecteds instanceof float[]) {
+            return firstDifference((float[]) expecteds, (float[]) actuals);
+        } else if (expecteds instanceof char[]) {
+            return firstDifference((char[]) expecteds, (char[]) actuals);
+        } else if (expecteds instanceof short[]) {
+            return firstDifference((short[]) expecteds, (short[]) actuals);
+        } else if (expecteds instanceof boolean[]) {
+            return firstDifference((boolean[]) expecteds, (boolean[]) actuals);
+        }
+        return super.firstDifference(expecteds, actuals, length);
+    }
+
+    private static int firstDifference(byte[] expecteds, byte[] actuals) {
+        if (Arrays.equals(expecteds, actuals)) {
+            return -1;
+        }
+        int i = 0;
+        while (expecteds[i] == actuals[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int firstDifference(int[] expecteds, int[] actuals) {
+        if (Arrays.equals(expecteds, actuals)) {
+            return -1;
+        }
+        int i = 0;
+        while (expecteds[i] == actuals[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int firstDifference(long[] expecteds, long[] actuals) {
+        if (Arrays.equals(expecteds, actuals)) {
+            return -1;
+        }
+        int i = 0;
+        while (expecteds[i] == actuals[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int firstDifference(double[] expecteds, double[] actuals) {
+        if (Arrays.equals(expecteds, actuals)) {
+            return -1;
+        }
+        int i = 0;
+        while (Double.doubleToLongBits(expecteds[i]) == Double.doubleToLongBits(actuals[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int firstDifference(float[] expecteds, float[] actuals) {
+        if (Arrays.equals(expecteds, actuals)) {
+            return -1;
+        }
+        int i = 0;
+        while (Float.floatToIntBits(expecteds[i]) == Float.floatToIntBits(actuals[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int firstDifference(char[] expecteds, char[] actuals) {
+        if (Arrays.equals(expecteds, actuals)) {
+            return -1;
+        }
+        int i = 0;
+        while (expecteds[i] == actuals[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int firstDifference(short[] expecteds, short[] actuals) {
+        if (Arrays.equals(expecteds, actuals)) {
+            return -1;
+        }
+        int i = 0;
+        while (expecteds[i] == actuals[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int firstDifference(boolean[] expecteds, boolean[] actuals) {
+        if (Arrays.equals(expecteds, actuals)) {
+            return -1;
+        }
+        int i = 0;
+        while (expecteds[i] == actuals[i]) {
+            i++;
+        }
+        return i;
+    }
 }
@@ -21,4 +21,42 @@ public class InexactComparisonCriteria extends ComparisonCriteria {
             Assert.assertEquals((Float) expected, (Float) actual, (Float) fDelta);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Compares {@code double} and {@code float} arrays without boxing their
+     * elements, the way {@link #assertElementsEqual(Object, Object)} compares
+     * them.
+     */
+    @Override
+    protected int firstDifference(Object expecteds, Object actuals, int length) {
+        Object delta = fDelta;
+        if (expecteds instanceof double[] && delta instanceof Double) {
+            return firstDifference((double[]) expecteds, (double[]) actuals, ((Double) delta).doubleValue());
+        } else if (expecteds instanceof float[] && delta instanceof Float) {
+            return firstDifference((float[]) expecteds, (float[]) actuals, ((Float) delta).floatValue());
+        }
+        return super.firstDifference(expecteds, actuals, length);
+    }
+
+    private static int firstDifference(double[] expecteds, double[] actuals, double delta) {
+        for (int i = 0; i < expecteds.length; i++) {
+            double expected = expecteds[i];
+            double actual = actuals[i];
+            if (Double.compare(expected, actual) != 0 && !(Math.abs(expected - actual) <= delta)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int firstDifference(float[] expecteds, float[] actuals, float delta) {
+        for (int i = 0; i < expecteds.length; i++) {
+            float expected = expecteds[i];
+            float actual = actuals[i];
+            if (Float.compare(expected, actual) != 0 && !(Math.abs(expected - actual) <= delta)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
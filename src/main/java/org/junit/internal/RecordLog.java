@@ -0,0 +1,317 @@
+package org.junit.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * A file of records that several JVMs can append to at the same time, and
+ * that survives a run being killed while it is written.
+ *
+ * <p>The file starts with a magic number, a version and a generation, and is
+ * followed by records. Every record carries a checksum, so a record that was
+ * only partly written when a run was killed is simply ignored, together with
+ * anything after it, and overwritten by the next append.
+ *
+ * <p>Changes are made by {@link #update(Update)}, which holds a lock on a
+ * sibling {@code .lock} file, so that writers in other JVMs wait. Before
+ * changing the log, a writer reads the records the others appended since it
+ * last looked. Once the log holds many more records than it has to, its
+ * writer compacts it: the records that are still needed are written to a
+ * temporary file, which then replaces the log. Each compaction starts a new
+ * generation, which tells other writers that they have to read the log again
+ * from the start.
+ *
+ * @since 4.12
+ */
+public final class RecordLog {
+    private static final int HEADER_LENGTH = 16;
+
+    /**
+     * File locks are held on behalf of the whole JVM, so writers in the same
+     * JVM are serialized by this lock as well.
+     */
+    private static final Object JVM_LOCK = new Object();
+
+    private static final Random GENERATIONS = new Random();
+
+    /**
+     * Reads the records of a log.
+     */
+    public interface Reader {
+        /**
+         * Called before the log is read from the start, because it was
+         * compacted, replaced or cannot be read. Everything read before has
+         * to be forgotten.
+         */
+        void reset();
+
+        /**
+         * Called for each complete record, in the order the records were
+         * written.
+         *
+         * @throws IOException if the record is corrupt, which ends the log
+         */
+        void read(byte[] record) throws IOException;
+    }
+
+    /**
+     * A change to a log, made while it is locked.
+     */
+    public interface Update {
+        /**
+         * Changes the log by {@link RecordLog#append(List)} or
+         * {@link RecordLog#compact(List)}, usually after
+         * {@link RecordLog#read(Reader) reading} what others appended.
+         */
+        void update() throws IOException;
+    }
+
+    private final File fFile;
+
+    private final File fLockFile;
+
+    private final int fMagic;
+
+    private final int fVersion;
+
+    private long fGeneration;
+
+    /**
+     * The end of the records read so far, or 0 if the log has not been read
+     * or could not be read
+     */
+    private long fEnd;
+
+    private int fRecordCount;
+
+    /**
+     * @param magic the number at the start of logs of this kind
+     * @param version the version of the records of this kind
+     */
+    public RecordLog(File file, int magic, int version) {
+        fFile = file;
+        fLockFile = new File(file.getPath() + ".lock");
+        fMagic = magic;
+        fVersion = version;
+    }
+
+    /**
+     * @return the file of the log
+     */
+    public File getFile() {
+        return fFile;
+    }
+
+    /**
+     * Reads the records appended since the last read into {@code reader}. If
+     * the log has been compacted in the meantime, it is read from the start.
+     * If the file does not exist, nothing is read, unless a compaction was
+     * interrupted; then its backup is read.
+     *
+     * @throws IOException if the file is not a log of this kind, or was
+     *         truncated by someone else
+     */
+    public synchronized void read(Reader reader) throws IOException {
+        File current = AtomicFiles.current(fFile);
+        if (!current.isFile()) {
+            reset(reader, 0);
+            return;
+        }
+        RandomAccessFile file = new RandomAccessFile(current, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = read(channel, 0, HEADER_LENGTH);
+            if (header.remaining() < HEADER_LENGTH || header.getInt() != fMagic || header.getInt() != fVersion) {
+                reset(reader, 0);
+                throw new IOException("not a log of this kind: " + fFile);
+            }
+            long generation = header.getLong();
+            if (fEnd == 0 || generation != fGeneration) {
+                reset(reader, generation);
+                fEnd = HEADER_LENGTH;
+            }
+            long size = channel.size();
+            if (fEnd > size) {
+                throw new IOException("log was truncated: " + fFile);
+            }
+            long start = fEnd;
+            ByteBuffer buffer = read(channel, start, (int) (size - start));
+            try {
+                while (readRecord(buffer, reader)) {
+                    fEnd = start + buffer.position();
+                    fRecordCount++;
+                }
+            } catch (IOException e) {
+                // a corrupt record ends the log
+            } catch (RuntimeException e) {
+                // a corrupt record ends the log
+            }
+        } finally {
+            file.close();
+        }
+        if (current != fFile) {
+            // the backup left by an interrupted compaction can only be
+            // compacted again, not appended to
+            fEnd = 0;
+        }
+    }
+
+    private void reset(Reader reader, long generation) {
+        reader.reset();
+        fGeneration = generation;
+        fEnd = 0;
+        fRecordCount = 0;
+    }
+
+    /**
+     * Reads the file into a buffer, instead of mapping it, as a mapped file
+     * cannot be truncated or replaced on some platforms until the mapping is
+     * garbage collected.
+     *
+     * @return up to {@code length} bytes from {@code position} on
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @return whether a complete record was read
+     */
+    private static boolean readRecord(ByteBuffer buffer, Reader reader) throws IOException {
+        if (buffer.remaining() < 4) {
+            return false;
+        }
+        int length = buffer.getInt();
+        if (length < 1 || length + 4 > buffer.remaining()) {
+            return false;
+        }
+        byte[] record = new byte[length];
+        buffer.get(record);
+        if (buffer.getInt() != (int) checksum(record)) {
+            return false;
+        }
+        reader.read(record);
+        return true;
+    }
+
+    /**
+     * @return whether the last {@link #read(Reader)} found a log of this
+     *         kind, to which records can be appended. If not, the log has to
+     *         be {@link #compact(List) compacted} instead.
+     */
+    public synchronized boolean isReadable() {
+        return fEnd > 0;
+    }
+
+    /**
+     * @return the number of records in the log, as far as it has been read
+     *         or written
+     */
+    public synchronized int getRecordCount() {
+        return fRecordCount;
+    }
+
+    /**
+     * Runs {@code update} while holding the lock of the log, so that no other
+     * writer, in this or another JVM, changes the log in the meantime.
+     */
+    public void update(Update update) throws IOException {
+        synchronized (JVM_LOCK) {
+            RandomAccessFile lockFile = new RandomAccessFile(fLockFile, "rw");
+            try {
+                FileLock lock = lockFile.getChannel().lock();
+                try {
+                    synchronized (this) {
+                        update.update();
+                    }
+                } finally {
+                    lock.release();
+                }
+            } finally {
+                lockFile.close();
+            }
+        }
+    }
+
+    /**
+     * Appends {@code records} after the records read so far, dropping a
+     * record that was only partly written by a killed run. Must be called
+     * from an {@link Update}, after reading the log.
+     */
+    public synchronized void append(List<byte[]> records) throws IOException {
+        if (!isReadable()) {
+            throw new IllegalStateException("cannot append to a log that was not read: " + fFile);
+        }
+        RandomAccessFile file = new RandomAccessFile(fFile, "rw");
+        try {
+            FileChannel channel = file.getChannel();
+            channel.truncate(fEnd);
+            ByteBuffer bytes = ByteBuffer.wrap(encode(records));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes, fEnd + bytes.position());
+            }
+            channel.force(false);
+            fEnd += bytes.limit();
+            fRecordCount += records.size();
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Replaces the log by one that holds only {@code records}, and starts a
+     * new generation. Must be called from an {@link Update}. If the log
+     * cannot be replaced, it is read from the start the next time.
+     */
+    public synchronized void compact(List<byte[]> records) throws IOException {
+        final long generation = GENERATIONS.nextLong();
+        final byte[] bytes = encode(records);
+        fEnd = 0;
+        fRecordCount = 0;
+        AtomicFiles.replace(fFile, new AtomicFiles.Contents() {
+            public void writeTo(DataOutputStream out) throws IOException {
+                out.writeInt(fMagic);
+                out.writeInt(fVersion);
+                out.writeLong(generation);
+                out.write(bytes);
+            }
+        });
+        fGeneration = generation;
+        fEnd = HEADER_LENGTH + bytes.length;
+        fRecordCount = records.size();
+    }
+
+    private static byte[] encode(List<byte[]> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (byte[] each : records) {
+            out.writeInt(each.length);
+            out.write(each);
+            out.writeInt((int) checksum(each));
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,190 @@
+package org.junit.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.AssumptionViolatedException;
+
+/**
+ * Measures the heap memory allocated and the CPU time used by the current
+ * thread while running a piece of code, and fails if they exceed a budget.
+ *
+ * <p>The code is warmed up first, and then measured a few times; the smallest
+ * measurement counts, as noise only ever adds to it. The cost of measuring
+ * itself is calibrated by measuring nothing, and subtracted. By default the
+ * warmup runs the code 10000 times, about as often as HotSpot's optimizing
+ * compiler waits before it compiles a method, so that allocations removed by
+ * escape analysis are not counted. Slow code is warmed up for at most half a
+ * second instead, so it may still be measured before it is compiled. Both
+ * limits can be changed by the system properties
+ * {@value #WARMUP_ITERATIONS_PROPERTY} and {@value #WARMUP_MILLIS_PROPERTY}.
+ *
+ * <p>Allocated memory is measured by
+ * {@code com.sun.management.ThreadMXBean}, which is looked up reflectively,
+ * as not all JVMs have it. If a JVM cannot measure a resource, the
+ * assertion is skipped by throwing an {@link AssumptionViolatedException}.
+ *
+ * @see Assert#assertAllocatesAtMost(String, long, Runnable)
+ * @see Assert#assertCpuTimeAtMost(String, long, java.util.concurrent.TimeUnit, Runnable)
+ * @since 4.12
+ */
+public final class ResourceBudget {
+    /**
+     * The system property that sets how often the code is run at most before
+     * it is measured
+     */
+    public static final String WARMUP_ITERATIONS_PROPERTY = "junit.resourceBudget.warmupIterations";
+
+    /**
+     * The system property that sets for how many milliseconds the code is
+     * run at most before it is measured. It is run at least once.
+     */
+    public static final String WARMUP_MILLIS_PROPERTY = "junit.resourceBudget.warmupMillis";
+
+    private static final int DEFAULT_WARMUP_ITERATIONS = 10000;
+
+    private static final long DEFAULT_WARMUP_MILLIS = 500;
+
+    private static final int MEASURED_ITERATIONS = 5;
+
+    private static final int CALIBRATION_ITERATIONS = 10;
+
+    private static final Runnable NOTHING = new Runnable() {
+        public void run() {
+        }
+    };
+
+    private final String fHeader;
+
+    private int fWarmupRuns = 0;
+
+    /**
+     * @param message the identifying message for the {@link AssertionError}
+     * (<code>null</code> okay)
+     */
+    public ResourceBudget(String message) {
+        fHeader = message == null ? "" : message + ": ";
+    }
+
+    /**
+     * Fails if {@code runnable} allocates more than {@code bytes} of heap
+     * memory on the current thread.
+     */
+    public void assertAllocatesAtMost(long bytes, Runnable runnable) {
+        long allocated = measure(new AllocatedBytes(), runnable);
+        if (allocated > bytes) {
+            Assert.fail(fHeader + "allocated " + allocated + " bytes, more than the budget of " + bytes
+                    + " bytes" + details());
+        }
+    }
+
+    /**
+     * Fails if {@code runnable} uses more than {@code nanos} of CPU time on
+     * the current thread.
+     */
+    public void assertCpuTimeAtMost(long nanos, Runnable runnable) {
+        long used = measure(new CpuTime(), runnable);
+        if (used > nanos) {
+            Assert.fail(fHeader + "used " + used + " ns of CPU time, more than the budget of " + nanos
+                    + " ns" + details());
+        }
+    }
+
+    private String details() {
+        return " (least of " + MEASURED_ITERATIONS + " runs after " + fWarmupRuns + " warmup runs)";
+    }
+
+    private long measure(Counter counter, Runnable runnable) {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ITERATIONS; i++) {
+            overhead = Math.min(overhead, counter.measure(NOTHING));
+        }
+        warmUp(runnable);
+        long least = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            least = Math.min(least, counter.measure(runnable));
+        }
+        return Math.max(0, least - overhead);
+    }
+
+    private void warmUp(Runnable runnable) {
+        int iterations = Integer.getInteger(WARMUP_ITERATIONS_PROPERTY, DEFAULT_WARMUP_ITERATIONS);
+        long nanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong(WARMUP_MILLIS_PROPERTY, DEFAULT_WARMUP_MILLIS));
+        long start = System.nanoTime();
+        for (fWarmupRuns = 0; fWarmupRuns < iterations; fWarmupRuns++) {
+            if (fWarmupRuns > 0 && System.nanoTime() - start >= nanos) {
+                break;
+            }
+            runnable.run();
+        }
+    }
+
+    /**
+     * A resource used by the current thread that only ever grows
+     */
+    private abstract static class Counter {
+        final long measure(Runnable runnable) {
+            long before = current();
+            runnable.run();
+            return current() - before;
+        }
+
+        abstract long current();
+    }
+
+    private static final class AllocatedBytes extends Counter {
+        private final ThreadMXBean fBean = ManagementFactory.getThreadMXBean();
+
+        private final Method fGetAllocatedBytes;
+
+        private final Object[] fThreadId = {Thread.currentThread().getId()};
+
+        AllocatedBytes() {
+            try {
+                Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+                if (!beanClass.isInstance(fBean)
+                        || !(Boolean) beanClass.getMethod("isThreadAllocatedMemorySupported").invoke(fBean)) {
+                    throw new AssumptionViolatedException("this JVM cannot measure allocated memory");
+                }
+                if (!(Boolean) beanClass.getMethod("isThreadAllocatedMemoryEnabled").invoke(fBean)) {
+                    beanClass.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(fBean, true);
+                }
+                fGetAllocatedBytes = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+            } catch (AssumptionViolatedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new AssumptionViolatedException("this JVM cannot measure allocated memory", e);
+            }
+        }
+
+        @Override
+        long current() {
+            try {
+                return (Long) fGetAllocatedBytes.invoke(fBean, fThreadId);
+            } catch (Exception e) {
+                throw new AssumptionViolatedException("this JVM cannot measure allocated memory", e);
+            }
+        }
+    }
+
+    private static final class CpuTime extends Counter {
+        private final ThreadMXBean fBean = ManagementFactory.getThreadMXBean();
+
+        CpuTime() {
+            if (!fBean.isCurrentThreadCpuTimeSupported()) {
+                throw new AssumptionViolatedException("this JVM cannot measure CPU time");
+            }
+            if (!fBean.isThreadCpuTimeEnabled()) {
+                fBean.setThreadCpuTimeEnabled(true);
+            }
+        }
+
+        @Override
+        long current() {
+            return fBean.getCurrentThreadCpuTime();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package org.junit.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A class loader that loads the classes found in a set of class directories
+ * itself, instead of asking its parent first, and remembers a hash of each
+ * class it loaded. All other classes, including those of JUnit and of jars,
+ * are loaded by the parent.
+ *
+ * <p>Because a new loader loads the classes in its directories afresh, it
+ * sees their current class files, and what it recorded is exactly the set of
+ * those classes that was needed by the code run with it. The classes are
+ * also recorded in the order they were loaded, so that the classes loaded
+ * while some piece of code ran can be told apart from those loaded before;
+ * see {@link #getLoadCount()}. Each class is defined with the directory it
+ * was read from as its code source, like the classes that the class loader
+ * of the class path loads from there.
+ */
+public class TrackingClassLoader extends ClassLoader {
+    /**
+     * A type in a descriptor or signature, such as {@code Ljava/lang/String;}
+     */
+    private static final Pattern TYPE = Pattern.compile("L([\\w$/]+)[;<]");
+
+    /**
+     * A string that could be the binary or internal name of a class
+     */
+    private static final Pattern CLASS_NAME = Pattern.compile("[\\w$]+(?:[./][\\w$]+)*");
+
+    private final List<File> fRoots;
+
+    private final Map<String, byte[]> fLoadedClasses = new TreeMap<String, byte[]>();
+
+    private final List<String> fLoadOrder = new ArrayList<String>();
+
+    private final Map<File, ProtectionDomain> fProtectionDomains = new HashMap<File, ProtectionDomain>();
+
+    /**
+     * @param roots the class directories whose classes are loaded by this
+     *        loader
+     * @param parent the loader of all other classes
+     */
+    public TrackingClassLoader(List<File> roots, ClassLoader parent) {
+        super(parent);
+        fRoots = new ArrayList<File>(roots);
+    }
+
+    /**
+     * @return the directories of {@code java.class.path}, except for the one
+     *         containing JUnit itself. Jars are not included.
+     */
+    public static List<File> classPathDirectories() {
+        File junit = codeSource(TrackingClassLoader.class);
+        List<File> roots = new ArrayList<File>();
+        for (String each : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            File root = new File(each).getAbsoluteFile();
+            if (root.isDirectory() && !root.equals(junit)) {
+                roots.add(root);
+            }
+        }
+        return roots;
+    }
+
+    private static File codeSource(Class<?> type) {
+        try {
+            return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    .getAbsoluteFile();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the directories whose classes are loaded by this loader
+     */
+    public List<File> getRoots() {
+        return Collections.unmodifiableList(fRoots);
+    }
+
+    @Override
+    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded == null) {
+            File root = rootOf(fRoots, name);
+            byte[] bytes = root == null ? null : readClass(root, name);
+            if (bytes == null) {
+                return super.loadClass(name, resolve);
+            }
+            definePackageOf(name);
+            loaded = defineClass(name, bytes, 0, bytes.length, protectionDomainOf(root));
+            fLoadedClasses.put(name, Digests.sha1(bytes));
+            fLoadOrder.add(name);
+        }
+        if (resolve) {
+            resolveClass(loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * @return a domain whose code source is {@code root}, as the classes
+     *         loaded from a directory of the class path have
+     */
+    private ProtectionDomain protectionDomainOf(File root) {
+        ProtectionDomain domain = fProtectionDomains.get(root);
+        if (domain == null) {
+            URL location;
+            try {
+                location = root.toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new RuntimeException(e);
+            }
+            domain = new ProtectionDomain(new CodeSource(location, (Certificate[]) null), null, this, null);
+            fProtectionDomains.put(root, domain);
+        }
+        return domain;
+    }
+
+    private void definePackageOf(String className) {
+        int lastDot = className.lastIndexOf('.');
+        if (lastDot > 0) {
+            String packageName = className.substring(0, lastDot);
+            if (getPackage(packageName) == null) {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            }
+        }
+    }
+
+    /**
+     * @return the names of the classes loaded by this loader, in alphabetical
+     *         order, each with the SHA-1 hash of its class file
+     */
+    public synchronized Map<String, byte[]> getLoadedClasses() {
+        return new TreeMap<String, byte[]>(fLoadedClasses);
+    }
+
+    /**
+     * @return the number of classes loaded by this loader so far
+     */
+    public synchronized int getLoadCount() {
+        return fLoadOrder.size();
+    }
+
+    /**
+     * @return the names of the classes loaded by this loader after the first
+     *         {@code loadCount}, as returned by {@link #getLoadCount()}, in
+     *         the order they were loaded
+     */
+    public synchronized List<String> getLoadedSince(int loadCount) {
+        return new ArrayList<String>(fLoadOrder.subList(loadCount, fLoadOrder.size()));
+    }
+
+    /**
+     * @return the binary names of the classes that the class file
+     *         {@code classFile} may refer to: the classes of its constant
+     *         pool, the types in its descriptors and signatures, and strings
+     *         that look like class names, as passed to {@link Class#forName}.
+     *         Names of classes that do not exist are included, so callers
+     *         have to look them up. A class file that cannot be parsed refers
+     *         to nothing.
+     */
+    public static Set<String> referencedClasses(byte[] classFile) {
+        Set<String> names = new TreeSet<String>();
+        try {
+            for (String each : utf8Constants(classFile)) {
+                Matcher type = TYPE.matcher(each);
+                while (type.find()) {
+                    names.add(type.group(1).replace('/', '.'));
+                }
+                if (CLASS_NAME.matcher(each).matches()) {
+                    names.add(each.replace('/', '.'));
+                }
+            }
+        } catch (IOException e) {
+            names.clear();
+        }
+        return names;
+    }
+
+    private static List<String> utf8Constants(byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != 0xCAFEBABE) {
+            throw new IOException("not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        int count = in.readUnsignedShort();
+        List<String> strings = new ArrayList<String>();
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    strings.add(in.readUTF());
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skip(in, 2);
+                    break;
+                case 15: // MethodHandle
+                    skip(in, 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skip(in, 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    skip(in, 8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("unknown constant pool tag " + tag);
+            }
+        }
+        return strings;
+    }
+
+    private static void skip(DataInputStream in, int bytes) throws IOException {
+        if (in.skipBytes(bytes) != bytes) {
+            throw new IOException("truncated class file");
+        }
+    }
+
+    /**
+     * @return the contents of the class file of {@code className} in the first
+     *         of {@code roots} that has one, or {@code null} if there is none
+     */
+    public static byte[] readClass(List<File> roots, String className) {
+        File root = rootOf(roots, className);
+        return root == null ? null : readClass(root, className);
+    }
+
+    private static byte[] readClass(File root, String className) {
+        try {
+            return readFully(classFile(root, className));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the first of {@code roots} that has a class file of
+     *         {@code className}, or {@code null} if there is none
+     */
+    private static File rootOf(List<File> roots, String className) {
+        for (File each : roots) {
+            if (classFile(each, className).isFile()) {
+                return each;
+            }
+        }
+        return null;
+    }
+
+    private static File classFile(File root, String className) {
+        return new File(root, className.replace('.', File.separatorChar) + ".class");
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
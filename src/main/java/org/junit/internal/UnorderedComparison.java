@@ -0,0 +1,181 @@
+package org.junit.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+
+/**
+ * Compares the elements of two collections regardless of their order, as
+ * multisets: an element that occurs twice in one collection has to occur
+ * twice in the other. The elements are counted in a hash map, so a
+ * comparison takes time linear in the size of the collections; the elements
+ * need consistent {@link Object#equals(Object)} and {@link Object#hashCode()}
+ * methods.
+ *
+ * <p>When the comparison fails, the message lists at most
+ * {@link #MAX_SAMPLES} elements of each kind of difference, and shortens long
+ * elements, so that it stays readable for collections of any size.
+ *
+ * @see Assert#assertEqualsIgnoringOrder(String, Iterable, Iterable)
+ * @since 4.12
+ */
+public final class UnorderedComparison {
+    /**
+     * The number of elements that the message of a failure shows for each
+     * kind of difference
+     */
+    public static final int MAX_SAMPLES = 10;
+
+    private static final int MAX_ELEMENT_LENGTH = 100;
+
+    private static final class Counts {
+        int fExpected;
+
+        int fActual;
+    }
+
+    private final Map<Object, Counts> fCounts = new LinkedHashMap<Object, Counts>();
+
+    private int fExpectedSize;
+
+    private int fActualSize;
+
+    /**
+     * Counts the elements of {@code expected} and {@code actual}.
+     */
+    public UnorderedComparison(Iterable<?> expected, Iterable<?> actual) {
+        for (Object each : expected) {
+            countsOf(each).fExpected++;
+            fExpectedSize++;
+        }
+        for (Object each : actual) {
+            countsOf(each).fActual++;
+            fActualSize++;
+        }
+    }
+
+    private Counts countsOf(Object element) {
+        Counts counts = fCounts.get(element);
+        if (counts == null) {
+            counts = new Counts();
+            fCounts.put(element, counts);
+        }
+        return counts;
+    }
+
+    /**
+     * Fails if the collections do not have the same elements, each as often.
+     */
+    public void assertEqual(String message) {
+        check(message, "collections differed ignoring order", true, true);
+    }
+
+    /**
+     * Fails if the actual collection does not have each element of the
+     * expected collection at least as often.
+     */
+    public void assertActualContainsAll(String message) {
+        check(message, "actual collection did not contain all expected elements", true, false);
+    }
+
+    /**
+     * Fails if the expected collection does not have each element of the
+     * actual collection at least as often.
+     */
+    public void assertActualContainedIn(String message) {
+        check(message, "actual collection was not contained in expected collection", false, true);
+    }
+
+    private void check(String message, String problem, boolean reportMissing, boolean reportUnexpected) {
+        Section missing = new Section("missing", false);
+        Section unexpected = new Section("unexpected", false);
+        Section differentCounts = new Section("different counts", true);
+        for (Map.Entry<Object, Counts> each : fCounts.entrySet()) {
+            Counts counts = each.getValue();
+            int expected = counts.fExpected;
+            int actual = counts.fActual;
+            if (expected > actual && reportMissing) {
+                (actual == 0 ? missing : differentCounts).add(each.getKey(), counts);
+            } else if (actual > expected && reportUnexpected) {
+                (expected == 0 ? unexpected : differentCounts).add(each.getKey(), counts);
+            }
+        }
+        if (missing.isEmpty() && unexpected.isEmpty() && differentCounts.isEmpty()) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        if (message != null && !message.equals("")) {
+            builder.append(message).append(": ");
+        }
+        builder.append(problem).append(" (expected ").append(fExpectedSize)
+                .append(" elements, actual ").append(fActualSize).append(" elements)");
+        missing.appendTo(builder);
+        unexpected.appendTo(builder);
+        differentCounts.appendTo(builder);
+        Assert.fail(builder.toString());
+    }
+
+    private static String format(Object element) {
+        String string = String.valueOf(element);
+        if (string.length() > MAX_ELEMENT_LENGTH) {
+            return string.substring(0, MAX_ELEMENT_LENGTH) + "...";
+        }
+        return string;
+    }
+
+    private static String format(Object element, Counts counts) {
+        return format(element) + " (expected " + counts.fExpected + " times, actual " + counts.fActual + " times)";
+    }
+
+    /**
+     * One kind of difference, with the first few elements that differ in
+     * this way. Only these samples are formatted, when the section is
+     * appended to the message.
+     */
+    private static final class Section {
+        private final String fName;
+
+        private final boolean fWithCounts;
+
+        private final List<Object> fSamples = new ArrayList<Object>();
+
+        private final List<Counts> fSampleCounts = new ArrayList<Counts>();
+
+        private int fCount;
+
+        Section(String name, boolean withCounts) {
+            fName = name;
+            fWithCounts = withCounts;
+        }
+
+        void add(Object element, Counts counts) {
+            if (fSamples.size() < MAX_SAMPLES) {
+                fSamples.add(element);
+                fSampleCounts.add(counts);
+            }
+            fCount++;
+        }
+
+        boolean isEmpty() {
+            return fCount == 0;
+        }
+
+        void appendTo(StringBuilder builder) {
+            if (isEmpty()) {
+                return;
+            }
+            builder.append("\n  ").append(fName).append(" (").append(fCount).append("): ");
+            for (int i = 0; i < fSamples.size(); i++) {
+                Object element = fSamples.get(i);
+                String sample = fWithCounts ? format(element, fSampleCounts.get(i)) : format(element);
+                builder.append(i == 0 ? "<" : ", <").append(sample).append(">");
+            }
+            if (fCount > fSamples.size()) {
+                builder.append(" and ").append(fCount - fSamples.size()).append(" more");
+            }
+        }
+    }
+}
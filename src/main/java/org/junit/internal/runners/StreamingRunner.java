@@ -0,0 +1,179 @@
+package org.junit.internal.runners;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.runner.Description;
+import org.junit.runner.Runner;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.Filterable;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Sortable;
+import org.junit.runner.manipulation.Sorter;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.RunnerBuilder;
+
+/**
+ * A {@link Runner} that constructs the runners for its classes on a background
+ * thread and runs each of them as soon as it is ready, instead of constructing
+ * all of them before the first test starts.
+ *
+ * <p>Since the tests are not known in advance, {@link #getDescription()} only
+ * contains the classes that have been discovered so far. Listeners are told
+ * about each class through
+ * {@link org.junit.runner.notification.RunListener#testSuiteDiscovered(Description)}
+ * just before it is run. Filters and sorters are applied to each class as it
+ * is constructed; the classes themselves keep the order in which they were
+ * given. A class that cannot be constructed, filtered or sorted is reported as
+ * a failure, and the following classes are run nonetheless. If the run is
+ * interrupted while it waits for a class, the class is reported as a failure
+ * and the run ends.
+ *
+ * @since 4.12
+ */
+public class StreamingRunner extends Runner implements Filterable, Sortable {
+    private static final Object END = new Object();
+
+    private final RunnerBuilder fBuilder;
+
+    private final Class<?>[] fClasses;
+
+    private final Description fDescription = Description.createSuiteDescription("null");
+
+    private final List<Filter> fFilters = new ArrayList<Filter>();
+
+    private final List<Sorter> fSorters = new ArrayList<Sorter>();
+
+    public StreamingRunner(RunnerBuilder builder, Class<?>[] classes) {
+        fBuilder = builder;
+        fClasses = classes.clone();
+    }
+
+    @Override
+    public Description getDescription() {
+        return fDescription;
+    }
+
+    @Override
+    public void run(RunNotifier notifier) {
+        BlockingQueue<Object> discovered = new LinkedBlockingQueue<Object>();
+        Thread discovery = new Thread(new Discovery(discovered), "junit-discovery");
+        discovery.setDaemon(true);
+        discovery.start();
+        int undiscovered = 0;
+        try {
+            while (true) {
+                Object next;
+                try {
+                    next = discovered.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (undiscovered < fClasses.length) {
+                        run(interrupted(undiscovered, e), notifier);
+                    }
+                    return;
+                }
+                if (next == END) {
+                    return;
+                }
+                DiscoveredRunner each = (DiscoveredRunner) next;
+                undiscovered = each.fIndex + 1;
+                run(each, notifier);
+            }
+        } finally {
+            discovery.interrupt();
+        }
+    }
+
+    private void run(DiscoveredRunner discovered, RunNotifier notifier) {
+        fDescription.addChild(discovered.fDescription);
+        notifier.fireTestSuiteDiscovered(discovered.fDescription);
+        discovered.fRunner.run(notifier);
+    }
+
+    private DiscoveredRunner interrupted(int undiscovered, InterruptedException e) {
+        InterruptedException cause = new InterruptedException("The run was interrupted while "
+                + (fClasses.length - undiscovered) + " of its classes were not run yet");
+        cause.initCause(e);
+        return error(undiscovered, cause);
+    }
+
+    private DiscoveredRunner error(int index, Throwable e) {
+        Runner errorRunner = new ErrorReportingRunner(fClasses[index], e);
+        return new DiscoveredRunner(index, errorRunner, errorRunner.getDescription());
+    }
+
+    public synchronized void filter(Filter filter) throws NoTestsRemainException {
+        fFilters.add(filter);
+    }
+
+    public synchronized void sort(Sorter sorter) {
+        fSorters.add(sorter);
+    }
+
+    private synchronized Runner manipulate(Runner runner) {
+        try {
+            for (Filter each : fFilters) {
+                each.apply(runner);
+            }
+        } catch (NoTestsRemainException e) {
+            return null;
+        }
+        for (Sorter each : fSorters) {
+            each.apply(runner);
+        }
+        return runner;
+    }
+
+    private DiscoveredRunner discover(int index) {
+        try {
+            Runner runner = fBuilder.safeRunnerForClass(fClasses[index]);
+            if (runner == null || manipulate(runner) == null) {
+                return null;
+            }
+            return new DiscoveredRunner(index, runner, runner.getDescription());
+        } catch (Throwable e) {
+            return error(index, e);
+        }
+    }
+
+    private static class DiscoveredRunner {
+        final int fIndex;
+
+        final Runner fRunner;
+
+        final Description fDescription;
+
+        DiscoveredRunner(int index, Runner runner, Description description) {
+            fIndex = index;
+            fRunner = runner;
+            fDescription = description;
+        }
+    }
+
+    private class Discovery implements Runnable {
+        private final BlockingQueue<Object> fDiscovered;
+
+        Discovery(BlockingQueue<Object> discovered) {
+            fDiscovered = discovered;
+        }
+
+        public void run() {
+            try {
+                for (int i = 0; i < fClasses.length; i++) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    DiscoveredRunner discovered = discover(i);
+                    if (discovered != null) {
+                        fDiscovered.add(discovered);
+                    }
+                }
+            } finally {
+                fDiscovered.add(END);
+            }
+        }
+    }
+}
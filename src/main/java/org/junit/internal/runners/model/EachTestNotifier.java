@@ -35,6 +35,14 @@ public class EachTestNotifier {
         fNotifier.fireTestAssumptionFailed(new Failure(fDescription, e));
     }
 
+    public void addRetry(Throwable targetException) {
+        fNotifier.fireTestRetried(new Failure(fDescription, targetException));
+    }
+
+    public void addFlakiness(Throwable firstException) {
+        fNotifier.fireTestFlaky(new Failure(fDescription, firstException));
+    }
+
     public void fireTestFinished() {
         fNotifier.fireTestFinished(fDescription);
     }
@@ -1,7 +1,5 @@
 package org.junit.internal.runners.statements;
 
-import java.lang.management.ManagementFactory;
-import java.lang.management.ThreadMXBean;
 import java.util.Arrays;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -79,10 +77,7 @@ public class FailOnTimeout extends Statement {
             thread.interrupt();
         }
         if (stuckThread != null) {
-            Exception stuckThreadException = 
-                new Exception ("Appears to be stuck in thread " +
-                               stuckThread.getName());
-            stuckThreadException.setStackTrace(getStackTrace(stuckThread));
+            Exception stuckThreadException = StuckThreads.stuckIn(stuckThread);
             return new MultipleFailureException    
                 (Arrays.<Throwable>asList(currThreadException, stuckThreadException));
         } else {
@@ -90,20 +85,6 @@ public class FailOnTimeout extends Statement {
         }
     }
 
-    /**
-     * Retrieves the stack trace for a given thread.
-     * @param thread The thread whose stack is to be retrieved.
-     * @return The stack trace; returns a zero-length array if the thread has 
-     * terminated or the stack cannot be retrieved for some other reason.
-     */
-    private StackTraceElement[] getStackTrace(Thread thread) {
-        try {
-            return thread.getStackTrace();
-        } catch (SecurityException e) {
-            return new StackTraceElement[0];
-        }
-    }
-
     /**
      * Determines whether the test appears to be stuck in some thread other than
      * the "main thread" (the one created to run the test).  This feature is experimental.
@@ -117,7 +98,7 @@ public class FailOnTimeout extends Statement {
     private Thread getStuckThread (Thread mainThread) {
         if (fThreadGroup == null) 
             return null;
-        Thread[] threadsInGroup = getThreadArray(fThreadGroup);
+        Thread[] threadsInGroup = StuckThreads.getThreadArray(fThreadGroup);
         if (threadsInGroup == null) 
             return null;
         
@@ -130,7 +111,7 @@ public class FailOnTimeout extends Statement {
         long maxCpuTime = 0;
         for (Thread thread : threadsInGroup) {
             if (thread.getState() == Thread.State.RUNNABLE) {
-                long threadCpuTime = cpuTime(thread);
+                long threadCpuTime = StuckThreads.cpuTime(thread);
                 if (stuckThread == null || threadCpuTime > maxCpuTime) {
                     stuckThread = thread;
                     maxCpuTime = threadCpuTime;
@@ -140,67 +121,6 @@ public class FailOnTimeout extends Statement {
         return (stuckThread == mainThread) ? null : stuckThread;
     }
 
-    /**
-     * Returns all active threads belonging to a thread group.  
-     * @param group The thread group.
-     * @return The active threads in the thread group.  The result should be a
-     * complete list of the active threads at some point in time.  Returns {@code null}
-     * if this cannot be determined, e.g. because new threads are being created at an
-     * extremely fast rate.
-     */
-    private Thread[] getThreadArray(ThreadGroup group) {
-        final int count = group.activeCount(); // this is just an estimate
-        int enumSize = Math.max(count * 2, 100);
-        int enumCount;
-        Thread[] threads;
-        int loopCount = 0;
-        while (true) {
-            threads = new Thread[enumSize];
-            enumCount = group.enumerate(threads);
-            if (enumCount < enumSize) break;
-            // if there are too many threads to fit into the array, enumerate's result
-            // is >= the array's length; therefore we can't trust that it returned all
-            // the threads.  Try again.
-            enumSize += 100;
-            if (++loopCount >= 5) 
-                return null;
-            // threads are proliferating too fast for us.  Bail before we get into 
-            // trouble.
-        }
-        return copyThreads(threads, enumCount);
-    }
-
-    /**
-     * Returns an array of the first {@code count} Threads in {@code threads}. 
-     * (Use instead of Arrays.copyOf to maintain compatibility with Java 1.5.)
-     * @param threads The source array.
-     * @param count The maximum length of the result array.
-     * @return The first {@count} (at most) elements of {@code threads}.
-     */
-    private Thread[] copyThreads(Thread[] threads, int count) {
-        int length = Math.min(count, threads.length);
-        Thread[] result = new Thread[length];
-        for (int i = 0; i < length; i++)
-            result[i] = threads[i];
-        return result;
-    }
-
-    /**
-     * Returns the CPU time used by a thread, if possible.
-     * @param thr The thread to query.
-     * @return The CPU time used by {@code thr}, or 0 if it cannot be determined.
-     */
-    private long cpuTime (Thread thr) {
-        ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
-        if (mxBean.isThreadCpuTimeSupported()) {
-            try {
-                return mxBean.getThreadCpuTime(thr.getId());
-            } catch (UnsupportedOperationException e) {
-            }
-        }
-        return 0;
-    }
-
     private class CallableStatement implements Callable<Throwable> {
         public Throwable call() throws Exception {
             try {
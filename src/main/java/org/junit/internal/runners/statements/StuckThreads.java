@@ -0,0 +1,100 @@
+package org.junit.internal.runners.statements;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Inspects the threads of a test that did not finish in time, to tell where
+ * they are stuck.
+ *
+ * @since 4.12
+ */
+public final class StuckThreads {
+    private StuckThreads() {
+    }
+
+    /**
+     * Returns an exception saying that the test appears to be stuck in
+     * {@code thread}, with the stack trace of {@code thread}.
+     */
+    public static Exception stuckIn(Thread thread) {
+        Exception exception = new Exception("Appears to be stuck in thread " + thread.getName());
+        exception.setStackTrace(getStackTrace(thread));
+        return exception;
+    }
+
+    /**
+     * Retrieves the stack trace for a given thread.
+     * @param thread The thread whose stack is to be retrieved.
+     * @return The stack trace; returns a zero-length array if the thread has 
+     * terminated or the stack cannot be retrieved for some other reason.
+     */
+    public static StackTraceElement[] getStackTrace(Thread thread) {
+        try {
+            return thread.getStackTrace();
+        } catch (SecurityException e) {
+            return new StackTraceElement[0];
+        }
+    }
+
+    /**
+     * Returns all active threads belonging to a thread group.  
+     * @param group The thread group.
+     * @return The active threads in the thread group.  The result should be a
+     * complete list of the active threads at some point in time.  Returns {@code null}
+     * if this cannot be determined, e.g. because new threads are being created at an
+     * extremely fast rate.
+     */
+    public static Thread[] getThreadArray(ThreadGroup group) {
+        final int count = group.activeCount(); // this is just an estimate
+        int enumSize = Math.max(count * 2, 100);
+        int enumCount;
+        Thread[] threads;
+        int loopCount = 0;
+        while (true) {
+            threads = new Thread[enumSize];
+            enumCount = group.enumerate(threads);
+            if (enumCount < enumSize) break;
+            // if there are too many threads to fit into the array, enumerate's result
+            // is >= the array's length; therefore we can't trust that it returned all
+            // the threads.  Try again.
+            enumSize += 100;
+            if (++loopCount >= 5) 
+                return null;
+            // threads are proliferating too fast for us.  Bail before we get into 
+            // trouble.
+        }
+        return copyThreads(threads, enumCount);
+    }
+
+    /**
+     * Returns an array of the first {@code count} Threads in {@code threads}. 
+     * (Use instead of Arrays.copyOf to maintain compatibility with Java 1.5.)
+     * @param threads The source array.
+     * @param count The maximum length of the result array.
+     * @return The first {@count} (at most) elements of {@code threads}.
+     */
+    private static Thread[] copyThreads(Thread[] threads, int count) {
+        int length = Math.min(count, threads.length);
+        Thread[] result = new Thread[length];
+        for (int i = 0; i < length; i++)
+            result[i] = threads[i];
+        return result;
+    }
+
+    /**
+     * Returns the CPU time used by a thread, if possible.
+     * @param thr The thread to query.
+     * @return The CPU time used by {@code thr}, or 0 if it cannot be determined.
+     */
+    public static long cpuTime (Thread thr) {
+        ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+        if (mxBean.isThreadCpuTimeSupported()) {
+            try {
+                return mxBean.getThreadCpuTime(thr.getId());
+            } catch (UnsupportedOperationException e) {
+            }
+        }
+        return 0;
+    }
+}
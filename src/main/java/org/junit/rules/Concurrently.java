@@ -0,0 +1,240 @@
+package org.junit.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.internal.runners.statements.StuckThreads;
+import org.junit.runner.Description;
+import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.Statement;
+import org.junit.runners.model.TestTimedOutException;
+
+/**
+ * The Concurrently Rule runs each test on several threads at once, to find
+ * races without a hand-written harness:
+ *
+ * <pre>
+ * public static class CounterTest {
+ *     private final Counter counter = new Counter();
+ *
+ *     &#064;Rule
+ *     public Concurrently concurrently = new Concurrently(16).iterations(10000)
+ *             .withTimeout(10, TimeUnit.SECONDS);
+ *
+ *     &#064;Test
+ *     public void incrementIsAtomic() {
+ *         long before = counter.get();
+ *         counter.increment();
+ *         assertTrue(counter.get() &gt; before);
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>The threads wait at a barrier until all of them are started, and are
+ * then released together. Each thread runs the test the given number of
+ * iterations, and stops at its first failure. The failures of all threads
+ * are reported together, as a {@link MultipleFailureException} if there is
+ * more than one.
+ *
+ * <p>As a {@link org.junit.Rule}, it runs everything it wraps on each thread, including
+ * {@link org.junit.Before} and {@link org.junit.After} methods. To run only
+ * a part of a test concurrently, call {@link #run(Runnable)} from the test
+ * instead, with a {@code Concurrently} that is not a rule.
+ *
+ * <p>If a timeout is set and the threads do not finish in time, they are
+ * interrupted, and the test fails with a {@link TestTimedOutException} and
+ * the stack traces of all threads that were still running, including the
+ * threads they started.
+ *
+ * <p>When the threads have finished, {@link #throughput(double[], Description)}
+ * is called with the number of iterations that each of them ran per second.
+ *
+ * @since 4.12
+ */
+public class Concurrently implements TestRule {
+    private final int fThreads;
+
+    private int fIterations = 1;
+
+    private long fTimeout = 0;
+
+    private TimeUnit fTimeUnit = TimeUnit.MILLISECONDS;
+
+    /**
+     * Creates a rule that runs each test on {@code threads} threads.
+     */
+    public Concurrently(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive, but was " + threads);
+        }
+        fThreads = threads;
+    }
+
+    /**
+     * Sets how many times each thread runs the test. The default is once.
+     *
+     * @return this rule
+     */
+    public Concurrently iterations(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive, but was " + iterations);
+        }
+        fIterations = iterations;
+        return this;
+    }
+
+    /**
+     * Sets the time all threads together may take. A timeout of 0, the
+     * default, means no timeout.
+     *
+     * @return this rule
+     */
+    public Concurrently withTimeout(long timeout, TimeUnit unit) {
+        fTimeout = timeout;
+        fTimeUnit = unit;
+        return this;
+    }
+
+    public Statement apply(final Statement base, final Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                run(base, description);
+            }
+        };
+    }
+
+    /**
+     * Runs {@code body} on the threads of this rule, and throws the failures
+     * of all threads.
+     */
+    public void run(final Runnable body) throws Throwable {
+        run(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                body.run();
+            }
+        }, null);
+    }
+
+    /**
+     * Invoked when the threads have finished or timed out.
+     *
+     * @param iterationsPerSecond the number of iterations per second that each
+     * thread ran, up to its end or to the timeout
+     * @param description the test that ran, or {@code null} if
+     * {@link #run(Runnable)} was called
+     */
+    protected void throughput(double[] iterationsPerSecond, Description description) {
+    }
+
+    private void run(Statement body, Description description) throws Throwable {
+        ThreadGroup group = new ThreadGroup("ConcurrentlyGroup");
+        CyclicBarrier barrier = new CyclicBarrier(fThreads + 1);
+        Worker[] workers = new Worker[fThreads];
+        Thread[] threads = new Thread[fThreads];
+        for (int i = 0; i < fThreads; i++) {
+            workers[i] = new Worker(body, barrier);
+            threads[i] = new Thread(group, workers[i], "Concurrently-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        barrier.await();
+        long start = System.nanoTime();
+
+        List<Throwable> timeoutErrors = new ArrayList<Throwable>();
+        if (!joinAll(threads, start)) {
+            timeoutErrors.add(new TestTimedOutException(fTimeout, fTimeUnit));
+            Thread[] stuck = StuckThreads.getThreadArray(group);
+            for (Thread each : stuck == null ? threads : stuck) {
+                if (each.isAlive()) {
+                    timeoutErrors.add(StuckThreads.stuckIn(each));
+                }
+            }
+            for (Thread each : threads) {
+                each.interrupt();
+            }
+        }
+        long end = System.nanoTime();
+
+        List<Throwable> errors = new ArrayList<Throwable>();
+        double[] iterationsPerSecond = new double[fThreads];
+        for (int i = 0; i < fThreads; i++) {
+            Worker worker = workers[i];
+            long nanos = (worker.fEnd == 0 ? end : worker.fEnd) - worker.fStart;
+            iterationsPerSecond[i] = worker.fStart != 0 && nanos > 0 ? worker.fCompleted * 1e9 / nanos : 0;
+            if (worker.fFailure != null) {
+                errors.add(worker.fFailure);
+            }
+        }
+        errors.addAll(timeoutErrors);
+        throughput(iterationsPerSecond, description);
+        MultipleFailureException.assertEmpty(errors);
+    }
+
+    /**
+     * @return {@code false} if the threads did not finish before the timeout
+     */
+    private boolean joinAll(Thread[] threads, long start) throws InterruptedException {
+        long deadline = start + fTimeUnit.toNanos(fTimeout);
+        for (Thread each : threads) {
+            if (fTimeout <= 0) {
+                each.join();
+            } else {
+                long remaining = deadline - System.nanoTime();
+                if (remaining > 0) {
+                    TimeUnit.NANOSECONDS.timedJoin(each, remaining);
+                }
+                if (each.isAlive()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private class Worker implements Runnable {
+        private final Statement fBody;
+
+        private final CyclicBarrier fBarrier;
+
+        private volatile long fStart;
+
+        private volatile long fEnd;
+
+        private volatile int fCompleted;
+
+        private volatile Throwable fFailure;
+
+        Worker(Statement body, CyclicBarrier barrier) {
+            fBody = body;
+            fBarrier = barrier;
+        }
+
+        public void run() {
+            try {
+                fBarrier.await();
+            } catch (InterruptedException e) {
+                fFailure = e;
+                return;
+            } catch (BrokenBarrierException e) {
+                fFailure = e;
+                return;
+            }
+            fStart = System.nanoTime();
+            try {
+                for (int i = 0; i < fIterations; i++) {
+                    fBody.evaluate();
+                    fCompleted++;
+                }
+            } catch (Throwable e) {
+                fFailure = e;
+            } finally {
+                fEnd = System.nanoTime();
+            }
+        }
+    }
+}
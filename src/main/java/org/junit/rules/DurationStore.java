@@ -0,0 +1,178 @@
+package org.junit.rules;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.internal.RecordLog;
+
+/**
+ * The durations of the latest runs of tests, as recorded by
+ * {@link PerformanceGuard}.
+ *
+ * <p>The file is a {@link RecordLog} of records, each holding the name of a
+ * test and one of its durations, so that recording a duration does not
+ * rewrite the file, and several JVMs can record into it at the same time.
+ * Once the log holds many more records than are kept, it is compacted to the
+ * kept durations.
+ *
+ * <p>There is one store per file and JVM, so that the file is read once.
+ */
+final class DurationStore {
+    private static final int MAGIC = 0x4A554452; // "JUDR"
+    private static final int VERSION = 2;
+
+    /**
+     * The number of latest durations kept of each test
+     */
+    static final int WINDOW = 100;
+
+    /**
+     * The log is not compacted before it holds at least this many records.
+     */
+    private static final int MIN_RECORDS_TO_COMPACT = 1024;
+
+    private static final Map<File, DurationStore> STORES = new HashMap<File, DurationStore>();
+
+    private final RecordLog fLog;
+
+    private final Map<String, LinkedList<Long>> fDurations = new TreeMap<String, LinkedList<Long>>();
+
+    private int fKept = 0;
+
+    private final RecordLog.Reader fReader = new RecordLog.Reader() {
+        public void reset() {
+            fDurations.clear();
+            fKept = 0;
+        }
+
+        public void read(byte[] record) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            keep(in.readUTF(), in.readLong());
+        }
+    };
+
+    private DurationStore(File file) {
+        fLog = new RecordLog(file, MAGIC, VERSION);
+    }
+
+    /**
+     * @return the store of {@code file}. If the file does not exist or
+     *         cannot be read, the store is empty.
+     */
+    static DurationStore open(File file) {
+        File key = file.getAbsoluteFile();
+        synchronized (STORES) {
+            DurationStore store = STORES.get(key);
+            if (store == null) {
+                store = new DurationStore(key);
+                store.read();
+                STORES.put(key, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Records a duration of {@code test}, forgetting its oldest duration if
+     * there are more than {@link #WINDOW}. The durations that other JVMs
+     * recorded in the meantime are read first.
+     *
+     * @return the latest durations of {@code test} before this one, including
+     *         those that other JVMs recorded, in nanoseconds, oldest first
+     */
+    synchronized long[] add(String test, long nanos) throws IOException {
+        Addition addition = new Addition(test, nanos);
+        fLog.update(addition);
+        return addition.fPrevious;
+    }
+
+    private final class Addition implements RecordLog.Update {
+        private final String fTest;
+
+        private final long fNanos;
+
+        private long[] fPrevious;
+
+        Addition(String test, long nanos) {
+            fTest = test;
+            fNanos = nanos;
+        }
+
+        public void update() throws IOException {
+            boolean readable = read();
+            fPrevious = getDurations(fTest);
+            keep(fTest, fNanos);
+            int records = fLog.getRecordCount() + 1;
+            if (!readable || (records >= MIN_RECORDS_TO_COMPACT && records > 4 * fKept)) {
+                List<byte[]> kept = new ArrayList<byte[]>(fKept);
+                for (Map.Entry<String, LinkedList<Long>> each : fDurations.entrySet()) {
+                    for (Long duration : each.getValue()) {
+                        kept.add(record(each.getKey(), duration));
+                    }
+                }
+                fLog.compact(kept);
+            } else {
+                fLog.append(Collections.singletonList(record(fTest, fNanos)));
+            }
+        }
+    }
+
+    private long[] getDurations(String test) {
+        LinkedList<Long> durations = fDurations.get(test);
+        if (durations == null) {
+            return new long[0];
+        }
+        long[] result = new long[durations.size()];
+        int i = 0;
+        for (Long each : durations) {
+            result[i++] = each;
+        }
+        return result;
+    }
+
+    private void keep(String test, long nanos) {
+        LinkedList<Long> durations = fDurations.get(test);
+        if (durations == null) {
+            durations = new LinkedList<Long>();
+            fDurations.put(test, durations);
+        }
+        durations.add(nanos);
+        fKept++;
+        if (durations.size() > WINDOW) {
+            durations.removeFirst();
+            fKept--;
+        }
+    }
+
+    /**
+     * @return whether the log could be read. If not, it is as good as empty.
+     */
+    private boolean read() {
+        try {
+            fLog.read(fReader);
+            return fLog.isReadable();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static byte[] record(String test, long nanos) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(test);
+        out.writeLong(nanos);
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -4,10 +4,15 @@ import static org.junit.Assert.assertThat;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.hamcrest.Matcher;
+import org.junit.runner.Description;
 import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.Statement;
 
 /**
  * The ErrorCollector rule allows execution of a test to continue after the
@@ -29,21 +34,154 @@ import org.junit.runners.model.MultipleFailureException;
  * }
  * </pre>
  *
+ * <p>Errors may be added from several threads at once. To keep the memory
+ * used by a test that finds very many problems bounded, the number of
+ * errors that are kept can be limited with {@link #retainingAtMost(int)}; the
+ * others are only counted. With {@link #failingFast()}, the collector stops
+ * at the first error instead, and interrupts the threads registered with
+ * {@link #registerWorker(Thread)}:
+ *
+ * <pre>
+ * &#064;Rule
+ * public ErrorCollector collector= new ErrorCollector().failingFast();
+ *
+ * &#064;Test
+ * public void concurrentUpdates() throws InterruptedException {
+ *     for (int i= 0; i &lt; 8; i++) {
+ *         Thread worker= new Thread(new UpdateAndCheck(collector));
+ *         collector.registerWorker(worker);
+ *         worker.start();
+ *     }
+ *     ...
+ * }
+ * </pre>
+ *
  * @since 4.7
  */
 public class ErrorCollector extends Verifier {
-    private List<Throwable> errors = new ArrayList<Throwable>();
+    private final Queue<Throwable> errors = new ConcurrentLinkedQueue<Throwable>();
+
+    private final AtomicInteger errorCount = new AtomicInteger();
+
+    private final Queue<Thread> workers = new ConcurrentLinkedQueue<Thread>();
+
+    /**
+     * Held while the workers are interrupted, so that the thread that runs
+     * the test cannot be interrupted after it stopped being a worker
+     */
+    private final Object interruptLock = new Object();
+
+    private volatile int maxRetainedErrors = Integer.MAX_VALUE;
+
+    private volatile boolean failFast = false;
+
+    /**
+     * Keeps at most {@code maxErrors} of the added errors. The test still
+     * fails with the number of errors that were not kept.
+     *
+     * @return this collector
+     * @since 4.12
+     */
+    public ErrorCollector retainingAtMost(int maxErrors) {
+        if (maxErrors < 1) {
+            throw new IllegalArgumentException("maxErrors must be positive");
+        }
+        maxRetainedErrors = maxErrors;
+        return this;
+    }
+
+    /**
+     * Makes the collector stop at the first error: the thread that adds it
+     * gets an exception, and the registered worker threads and the thread
+     * that runs the test are interrupted. The test fails with the first
+     * error; later errors, for example caused by the interruption, are only
+     * counted.
+     *
+     * @return this collector
+     * @since 4.12
+     */
+    public ErrorCollector failingFast() {
+        failFast = true;
+        return this;
+    }
+
+    /**
+     * Registers a thread that adds errors, so that it is interrupted when the
+     * collector fails fast.
+     *
+     * @since 4.12
+     */
+    public void registerWorker(Thread worker) {
+        workers.add(worker);
+    }
+
+    @Override
+    public Statement apply(final Statement base, Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                Thread testThread = Thread.currentThread();
+                workers.add(testThread);
+                try {
+                    base.evaluate();
+                } catch (Throwable e) {
+                    if (!hasFailedFast()) {
+                        throw e;
+                    }
+                    // the test was stopped, the first error tells why
+                } finally {
+                    synchronized (interruptLock) {
+                        workers.remove(testThread);
+                        if (hasFailedFast()) {
+                            Thread.interrupted();
+                        }
+                    }
+                }
+                verify();
+            }
+        };
+    }
 
     @Override
     protected void verify() throws Throwable {
-        MultipleFailureException.assertEmpty(errors);
+        List<Throwable> retained = new ArrayList<Throwable>(errors);
+        int notRetained = errorCount.get() - retained.size();
+        if (notRetained > 0) {
+            retained.add(new AssertionError(notRetained + " more errors were added but not kept"));
+        }
+        MultipleFailureException.assertEmpty(retained);
     }
 
     /**
      * Adds a Throwable to the table.  Execution continues, but the test will fail at the end.
+     * If the collector fails fast, an exception is thrown instead.
      */
     public void addError(Throwable error) {
-        errors.add(error);
+        int count = errorCount.incrementAndGet();
+        if (count <= (failFast ? 1 : maxRetainedErrors)) {
+            errors.add(error);
+        }
+        if (failFast) {
+            if (count == 1) {
+                interruptWorkers();
+            }
+            throw new StoppedException(error);
+        }
+    }
+
+    private boolean hasFailedFast() {
+        return failFast && errorCount.get() > 0;
+    }
+
+    private void interruptWorkers() {
+        Thread current = Thread.currentThread();
+        synchronized (interruptLock) {
+            for (Thread each : workers) {
+                if (each != current) {
+                    each.interrupt();
+                }
+            }
+        }
     }
 
     /**
@@ -76,9 +214,22 @@ public class ErrorCollector extends Verifier {
     public Object checkSucceeds(Callable<Object> callable) {
         try {
             return callable.call();
+        } catch (StoppedException e) {
+            throw e;
         } catch (Throwable e) {
             addError(e);
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Stops the thread that added an error to a collector that fails fast
+     */
+    private static class StoppedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StoppedException(Throwable error) {
+            super("stopped at the first error", error);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package org.junit.rules;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * The PerformanceGuard Rule fails tests that became much slower than they
+ * used to be, without turning them into benchmarks:
+ *
+ * <pre>
+ * public static class ReportTest {
+ *     &#064;Rule
+ *     public PerformanceGuard guard = new PerformanceGuard(new File(&quot;target/durations&quot;))
+ *             .factor(3).minSamples(10);
+ *
+ *     &#064;Test
+ *     public void rendersReport() {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>The duration of each passing test, as measured by {@link Stopwatch}, is
+ * recorded in a file, which keeps the latest 100 durations of each test.
+ * Once at least {@link #minSamples(int)} durations of a test were recorded,
+ * the test regressed if it takes longer than the 95th percentile of those
+ * durations times {@link #factor(double)}. Tests that take less than
+ * {@link #floor(long, TimeUnit)} never regress, as short durations are mostly
+ * noise.
+ *
+ * <p>A regressed test fails, unless the rule only warns about regressions
+ * (see {@link #failing(boolean)}). Either way, its duration is recorded, so a
+ * test that stays slower eventually becomes the new baseline. To see the
+ * biggest regressions of a run, add a {@link Report} to the listeners of the
+ * run. Until a report takes them, the regressions are remembered for all
+ * rules of the JVM, but only the {@value #MAX_REGRESSIONS} biggest ones.
+ *
+ * @since 4.12
+ */
+public class PerformanceGuard extends Stopwatch {
+    /**
+     * The number of regressions that are remembered until a {@link Report}
+     * takes them
+     */
+    public static final int MAX_REGRESSIONS = 1000;
+
+    private static final List<Regression> REGRESSIONS = new ArrayList<Regression>();
+
+    private static final Comparator<Regression> BIGGEST_FIRST = new Comparator<Regression>() {
+        public int compare(Regression o1, Regression o2) {
+            return Double.compare(o2.ratio(), o1.ratio());
+        }
+    };
+
+    private final File fFile;
+
+    private double fFactor = 2;
+
+    private int fMinSamples = 5;
+
+    private long fFloorNanos = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private boolean fFailing = true;
+
+    /**
+     * Creates a rule that records the durations of tests in {@code file}.
+     */
+    public PerformanceGuard(File file) {
+        fFile = file;
+    }
+
+    /**
+     * Sets how many times longer than the 95th percentile of its recorded
+     * durations a test must take to regress. The default is 2.
+     *
+     * @return this rule
+     */
+    public PerformanceGuard factor(double factor) {
+        if (factor < 1) {
+            throw new IllegalArgumentException("factor must be at least 1, but was " + factor);
+        }
+        fFactor = factor;
+        return this;
+    }
+
+    /**
+     * Sets how many durations of a test must be recorded before it can
+     * regress. The default is 5.
+     *
+     * @return this rule
+     */
+    public PerformanceGuard minSamples(int minSamples) {
+        if (minSamples < 1 || minSamples > DurationStore.WINDOW) {
+            throw new IllegalArgumentException("minSamples must be between 1 and " + DurationStore.WINDOW
+                    + ", but was " + minSamples);
+        }
+        fMinSamples = minSamples;
+        return this;
+    }
+
+    /**
+     * Sets the duration below which a test never regresses. The default is
+     * 10 milliseconds.
+     *
+     * @return this rule
+     */
+    public PerformanceGuard floor(long floor, TimeUnit unit) {
+        fFloorNanos = unit.toNanos(floor);
+        return this;
+    }
+
+    /**
+     * Sets whether regressed tests fail. If not, regressions are only
+     * reported by {@link Report}. By default, they fail.
+     *
+     * @return this rule
+     */
+    public PerformanceGuard failing(boolean failing) {
+        fFailing = failing;
+        return this;
+    }
+
+    @Override
+    protected void succeeded(long nanos, Description description) {
+        DurationStore store = DurationStore.open(fFile);
+        String test = description.getDisplayName();
+        long[] durations;
+        try {
+            durations = store.add(test, nanos);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not record the duration of " + test, e);
+        }
+        if (durations.length < fMinSamples || nanos < fFloorNanos) {
+            return;
+        }
+        long p95 = percentile95(durations);
+        if (nanos > p95 * fFactor) {
+            Regression regression = new Regression(test, nanos, p95, durations.length);
+            remember(regression);
+            if (fFailing) {
+                throw new AssertionError(regression + ", more than " + fFactor + " times as long");
+            }
+        }
+    }
+
+    private static void remember(Regression regression) {
+        synchronized (REGRESSIONS) {
+            REGRESSIONS.add(regression);
+            if (REGRESSIONS.size() >= 2 * MAX_REGRESSIONS) {
+                // trimming only now and then keeps remembering cheap
+                Collections.sort(REGRESSIONS, BIGGEST_FIRST);
+                REGRESSIONS.subList(MAX_REGRESSIONS, REGRESSIONS.size()).clear();
+            }
+        }
+    }
+
+    private static List<Regression> takeRegressions() {
+        synchronized (REGRESSIONS) {
+            List<Regression> regressions = new ArrayList<Regression>(REGRESSIONS);
+            REGRESSIONS.clear();
+            Collections.sort(regressions, BIGGEST_FIRST);
+            return regressions.subList(0, Math.min(MAX_REGRESSIONS, regressions.size()));
+        }
+    }
+
+    /**
+     * @return the 95th percentile of {@code durations} by the nearest-rank
+     *         method
+     */
+    private static long percentile95(long[] durations) {
+        long[] sorted = durations.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(0.95 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static final class Regression {
+        private final String fTest;
+
+        private final long fNanos;
+
+        private final long fPercentile95;
+
+        private final int fSamples;
+
+        Regression(String test, long nanos, long percentile95, int samples) {
+            fTest = test;
+            fNanos = nanos;
+            fPercentile95 = percentile95;
+            fSamples = samples;
+        }
+
+        double ratio() {
+            return fPercentile95 == 0 ? Double.POSITIVE_INFINITY : (double) fNanos / fPercentile95;
+        }
+
+        @Override
+        public String toString() {
+            return fTest + " took " + millis(fNanos) + " ms, its 95th percentile over " + fSamples
+                    + " runs was " + millis(fPercentile95) + " ms";
+        }
+
+        private static String millis(long nanos) {
+            return String.format(Locale.US, "%.1f", nanos / 1e6);
+        }
+    }
+
+    /**
+     * Prints the biggest regressions that were found by all
+     * {@code PerformanceGuard} rules during a run when it finishes, and
+     * forgets them. Regressions found before the run started are forgotten
+     * then. Nothing is printed if there were none.
+     */
+    @RunListener.ThreadSafe
+    public static class Report extends RunListener {
+        private final PrintStream fWriter;
+
+        private final int fLimit;
+
+        /**
+         * Creates a report of the 10 biggest regressions on
+         * {@code System.out}.
+         */
+        public Report() {
+            this(System.out, 10);
+        }
+
+        /**
+         * Creates a report of the {@code limit} biggest regressions on
+         * {@code writer}.
+         */
+        public Report(PrintStream writer, int limit) {
+            fWriter = writer;
+            fLimit = limit;
+        }
+
+        @Override
+        public void testRunStarted(Description description) {
+            takeRegressions();
+        }
+
+        @Override
+        public void testRunFinished(Result result) {
+            List<Regression> regressions = takeRegressions();
+            if (regressions.isEmpty()) {
+                return;
+            }
+            fWriter.println("Biggest performance regressions:");
+            for (Regression each : regressions.subList(0, Math.min(fLimit, regressions.size()))) {
+                fWriter.println(String.format(Locale.US, "  %.1fx %s", each.ratio(), each));
+            }
+            if (regressions.size() > fLimit) {
+                fWriter.println("  and " + (regressions.size() - fLimit) + " more");
+            }
+        }
+    }
+}
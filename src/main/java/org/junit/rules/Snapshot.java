@@ -0,0 +1,232 @@
+package org.junit.rules;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.ComparisonFailure;
+import org.junit.internal.Digests;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * The Snapshot Rule compares values with snapshots of them that were recorded
+ * before, so that expected output does not have to be maintained by hand:
+ *
+ * <pre>
+ * public static class ReportTest {
+ *     &#064;Rule
+ *     public Snapshot snapshot = new Snapshot(new File(&quot;src/test/snapshots&quot;));
+ *
+ *     &#064;Test
+ *     public void rendersReport() {
+ *         snapshot.matches(&quot;report&quot;, new Report(orders).render());
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>Each snapshot belongs to a test and has a name. The values are turned
+ * into strings by {@link #serialize(Object)}. All snapshots of a directory are
+ * kept in one index, which has a SHA-1 hash of the contents of each snapshot;
+ * the contents themselves are stored once per hash, in files sharded by the
+ * hash. When a value matches its snapshot, only the hash of the value is
+ * computed and compared. When it does not match, a {@link ComparisonFailure}
+ * shows the differences.
+ *
+ * <p>To record new snapshots, or to accept changed values, run the tests with
+ * the system property {@value #UPDATE_PROPERTY} set to {@code true}. In this
+ * update mode, the values are stored instead of compared.
+ *
+ * <p>When a test passes, but there are snapshots of it that it did not match,
+ * they are orphans, for example because the test was changed. The test then
+ * fails, unless it runs in update mode, which removes the orphans.
+ *
+ * <p>Snapshots of test methods that were removed or renamed are orphans as
+ * well, but no test notices them. To find them, use the rule as a
+ * {@link org.junit.ClassRule} too:
+ *
+ * <pre>
+ *     &#064;ClassRule
+ *     public static Snapshot snapshots = new Snapshot(new File(&quot;src/test/snapshots&quot;));
+ * </pre>
+ *
+ * <p>Once all tests of the class ran, it then fails if there are snapshots of
+ * methods that the class no longer has, or removes them in update mode.
+ * Snapshots of classes that were removed are not found.
+ *
+ * @since 4.12
+ */
+public class Snapshot implements TestRule {
+    /**
+     * The system property that makes tests update their snapshots
+     */
+    public static final String UPDATE_PROPERTY = "junit.snapshot.update";
+
+    private static final String CHARSET = "UTF-8";
+
+    private final File fDirectory;
+
+    private boolean fUpdate = Boolean.getBoolean(UPDATE_PROPERTY);
+
+    private Description fDescription;
+
+    private final Set<String> fMatched = new HashSet<String>();
+
+    /**
+     * Creates a rule that keeps its snapshots in {@code directory}.
+     */
+    public Snapshot(File directory) {
+        fDirectory = directory;
+    }
+
+    /**
+     * Sets whether the snapshots are updated instead of compared. By default,
+     * they are updated if the system property {@value #UPDATE_PROPERTY} is
+     * {@code true}.
+     *
+     * @return this rule
+     */
+    public Snapshot updating(boolean update) {
+        fUpdate = update;
+        return this;
+    }
+
+    public Statement apply(final Statement base, final Description description) {
+        if (description.getMethodName() == null) {
+            return new Statement() {
+                @Override
+                public void evaluate() throws Throwable {
+                    base.evaluate();
+                    checkOrphansOfRemovedMethods(description);
+                }
+            };
+        }
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                fDescription = description;
+                fMatched.clear();
+                try {
+                    base.evaluate();
+                    checkOrphans();
+                } finally {
+                    fDescription = null;
+                    SnapshotStore.open(fDirectory).flush();
+                }
+            }
+        };
+    }
+
+    /**
+     * Asserts that {@code value} matches the snapshot called {@code name} of
+     * the running test. In update mode, stores it as that snapshot instead.
+     *
+     * @throws AssertionError if there is no snapshot called {@code name}
+     * @throws ComparisonFailure if the value does not match the snapshot
+     */
+    public void matches(String name, Object value) throws IOException {
+        if (fDescription == null) {
+            throw new IllegalStateException("snapshots can only be matched while a test runs");
+        }
+        if (!fMatched.add(name)) {
+            throw new IllegalArgumentException("snapshot " + name + " was already matched by this test");
+        }
+        String key = keyPrefix() + name;
+        String actual = serialize(value);
+        byte[] contents = actual.getBytes(CHARSET);
+        byte[] hash = Digests.sha1(contents);
+        SnapshotStore store = SnapshotStore.open(fDirectory);
+        byte[] recordedHash = store.getHash(key);
+        if (recordedHash != null && Arrays.equals(recordedHash, hash)) {
+            return;
+        }
+        if (fUpdate) {
+            store.put(key, contents, hash);
+            return;
+        }
+        byte[] recorded = recordedHash == null ? null : store.getContents(recordedHash);
+        if (recorded == null) {
+            throw new AssertionError("no snapshot " + name + " of " + fDescription.getDisplayName()
+                    + "; run with -D" + UPDATE_PROPERTY + "=true to record it");
+        }
+        throw new ComparisonFailure("snapshot " + name, new String(recorded, CHARSET), actual);
+    }
+
+    /**
+     * Turns a value into the string that is compared with its snapshot. Arrays
+     * are turned into strings like {@link Arrays#deepToString(Object[])} does,
+     * and other values by {@link String#valueOf(Object)}. Override this to
+     * give values a more stable or more readable form.
+     */
+    protected String serialize(Object value) {
+        if (value instanceof Object[]) {
+            return Arrays.deepToString((Object[]) value);
+        } else if (value != null && value.getClass().isArray()) {
+            String string = Arrays.deepToString(new Object[]{value});
+            return string.substring(1, string.length() - 1);
+        }
+        return String.valueOf(value);
+    }
+
+    private String keyPrefix() {
+        return fDescription.getClassName() + "#" + fDescription.getMethodName() + "#";
+    }
+
+    private void checkOrphans() throws IOException {
+        SnapshotStore store = SnapshotStore.open(fDirectory);
+        String prefix = keyPrefix();
+        List<String> orphans = new ArrayList<String>();
+        for (String each : store.getKeys(prefix)) {
+            String name = each.substring(prefix.length());
+            if (!fMatched.contains(name)) {
+                if (fUpdate) {
+                    store.remove(each);
+                } else {
+                    orphans.add(name);
+                }
+            }
+        }
+        if (!orphans.isEmpty()) {
+            throw new AssertionError("snapshots " + orphans + " of " + fDescription.getDisplayName()
+                    + " were not matched; run with -D" + UPDATE_PROPERTY + "=true to remove them");
+        }
+    }
+
+    private void checkOrphansOfRemovedMethods(Description description) throws IOException {
+        Class<?> testClass = description.getTestClass();
+        if (testClass == null) {
+            return;
+        }
+        Set<String> methods = new HashSet<String>();
+        for (Class<?> each = testClass; each != null; each = each.getSuperclass()) {
+            for (Method method : each.getDeclaredMethods()) {
+                methods.add(method.getName());
+            }
+        }
+        SnapshotStore store = SnapshotStore.open(fDirectory);
+        String prefix = testClass.getName() + "#";
+        List<String> orphans = new ArrayList<String>();
+        for (String each : store.getKeys(prefix)) {
+            String method = each.substring(prefix.length(), each.indexOf('#', prefix.length()));
+            int parameters = method.indexOf('[');
+            if (!methods.contains(parameters < 0 ? method : method.substring(0, parameters))) {
+                if (fUpdate) {
+                    store.remove(each);
+                } else {
+                    orphans.add(each.substring(prefix.length()));
+                }
+            }
+        }
+        store.flush();
+        if (!orphans.isEmpty()) {
+            throw new AssertionError("snapshots " + orphans + " of " + testClass.getName()
+                    + " belong to methods that do not exist; run with -D" + UPDATE_PROPERTY
+                    + "=true to remove them");
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package org.junit.rules;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.internal.AtomicFiles;
+import org.junit.internal.Digests;
+import org.junit.internal.RecordLog;
+
+/**
+ * The snapshots of a directory. An index maps the key of each snapshot to the
+ * SHA-1 hash of its contents, and the contents are stored once per hash, in
+ * files named after the hash and sharded into subdirectories by its first
+ * byte.
+ *
+ * <p>The index is a {@link RecordLog} of records that put or remove a
+ * snapshot, so that several JVMs can update the snapshots of a directory at
+ * the same time. Changes are only kept in memory until {@link #flush()}, so
+ * that updating many snapshots does not write the index each time. A flush
+ * locks the index, reads the changes other JVMs made in the meantime, writes
+ * the new contents, appends the changes of this JVM, and then deletes the
+ * contents that no snapshot of the merged index uses anymore.
+ *
+ * <p>There is one store per directory and JVM, so that the index is read
+ * once.
+ */
+final class SnapshotStore {
+    private static final int MAGIC = 0x4A55534E; // "JUSN"
+    private static final int VERSION = 2;
+    private static final int HASH_LENGTH = 20;
+    private static final String INDEX_FILE_NAME = "index";
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    /**
+     * The index is not compacted before it holds at least this many records.
+     */
+    private static final int MIN_RECORDS_TO_COMPACT = 1024;
+
+    private static final Map<File, SnapshotStore> STORES = new HashMap<File, SnapshotStore>();
+
+    private final File fDirectory;
+
+    private final RecordLog fLog;
+
+    /**
+     * The index as read, with the changes of this JVM
+     */
+    private final SortedMap<String, byte[]> fHashes = new TreeMap<String, byte[]>();
+
+    /**
+     * The changes since the last flush: the new hash of each changed key, or
+     * {@code null} if its snapshot was removed
+     */
+    private final Map<String, byte[]> fChanges = new LinkedHashMap<String, byte[]>();
+
+    /**
+     * The contents put since the last flush, by their hexadecimal hash. They
+     * are written by the flush, since another JVM may delete the files of
+     * contents that its index does not use yet.
+     */
+    private final Map<String, byte[]> fNewContents = new HashMap<String, byte[]>();
+
+    /**
+     * The hexadecimal hashes of the contents that lost a use since the last
+     * flush
+     */
+    private final Set<String> fReleased = new HashSet<String>();
+
+    private final RecordLog.Reader fReader = new RecordLog.Reader() {
+        public void reset() {
+            fHashes.clear();
+        }
+
+        public void read(byte[] record) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            byte type = in.readByte();
+            String key = in.readUTF();
+            if (type == PUT) {
+                byte[] hash = new byte[HASH_LENGTH];
+                in.readFully(hash);
+                fHashes.put(key, hash);
+            } else if (type == REMOVE) {
+                fHashes.remove(key);
+            } else {
+                throw new IOException("unknown record type " + type + " in " + fLog.getFile());
+            }
+        }
+    };
+
+    private SnapshotStore(File directory) {
+        fDirectory = directory;
+        fLog = new RecordLog(new File(directory, INDEX_FILE_NAME), MAGIC, VERSION);
+    }
+
+    /**
+     * @return the store of {@code directory}. If its index does not exist or
+     *         cannot be read, the store is empty.
+     */
+    static SnapshotStore open(File directory) {
+        File key = directory.getAbsoluteFile();
+        synchronized (STORES) {
+            SnapshotStore store = STORES.get(key);
+            if (store == null) {
+                store = new SnapshotStore(key);
+                synchronized (store) {
+                    store.read();
+                }
+                STORES.put(key, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * @return the hash of the contents of the snapshot with {@code key}, or
+     *         {@code null} if there is none
+     */
+    synchronized byte[] getHash(String key) {
+        return fHashes.get(key);
+    }
+
+    /**
+     * @return the contents with {@code hash}, or {@code null} if they are
+     *         missing
+     */
+    synchronized byte[] getContents(byte[] hash) throws IOException {
+        String name = Digests.toHex(hash);
+        byte[] newContents = fNewContents.get(name);
+        if (newContents != null) {
+            return newContents;
+        }
+        File file = contentsFile(name);
+        if (!file.isFile()) {
+            return null;
+        }
+        byte[] contents = new byte[(int) file.length()];
+        InputStream in = new FileInputStream(file);
+        try {
+            new DataInputStream(in).readFully(contents);
+        } finally {
+            in.close();
+        }
+        return contents;
+    }
+
+    /**
+     * @return the keys that start with {@code prefix}
+     */
+    synchronized List<String> getKeys(String prefix) {
+        List<String> keys = new ArrayList<String>();
+        for (String each : fHashes.tailMap(prefix).keySet()) {
+            if (!each.startsWith(prefix)) {
+                break;
+            }
+            keys.add(each);
+        }
+        return keys;
+    }
+
+    /**
+     * Stores {@code contents}, which have {@code hash}, as the snapshot with
+     * {@code key}. The contents and the index are written by the next
+     * {@link #flush()}.
+     */
+    synchronized void put(String key, byte[] contents, byte[] hash) {
+        fNewContents.put(Digests.toHex(hash), contents);
+        release(fHashes.put(key, hash));
+        fChanges.put(key, hash);
+    }
+
+    /**
+     * Removes the snapshot with {@code key}. The index is written by the next
+     * {@link #flush()}.
+     */
+    synchronized void remove(String key) {
+        byte[] hash = fHashes.remove(key);
+        if (hash != null) {
+            release(hash);
+            fChanges.put(key, null);
+        }
+    }
+
+    /**
+     * Saves the changes since the last flush, if any, while holding the lock
+     * of the index. The changes that other JVMs saved in the meantime are
+     * read first, and kept unless this JVM changed the same snapshots. The
+     * contents are written before the index refers to them, and contents
+     * are deleted only once no snapshot of the saved index uses them.
+     */
+    synchronized void flush() throws IOException {
+        if (fChanges.isEmpty()) {
+            return;
+        }
+        fLog.update(new RecordLog.Update() {
+            public void update() throws IOException {
+                boolean readable = read();
+                List<byte[]> records = new ArrayList<byte[]>(fChanges.size());
+                for (Map.Entry<String, byte[]> each : fChanges.entrySet()) {
+                    if (each.getValue() == null) {
+                        fHashes.remove(each.getKey());
+                    } else {
+                        fHashes.put(each.getKey(), each.getValue());
+                    }
+                    records.add(record(each.getKey(), each.getValue()));
+                }
+                Set<String> used = usedContents();
+                writeNewContents(used);
+                int count = fLog.getRecordCount() + records.size();
+                if (!readable || (count >= MIN_RECORDS_TO_COMPACT && count > 4 * fHashes.size())) {
+                    List<byte[]> all = new ArrayList<byte[]>(fHashes.size());
+                    for (Map.Entry<String, byte[]> each : fHashes.entrySet()) {
+                        all.add(record(each.getKey(), each.getValue()));
+                    }
+                    fLog.compact(all);
+                } else {
+                    fLog.append(records);
+                }
+                for (String each : fReleased) {
+                    if (!used.contains(each)) {
+                        contentsFile(each).delete();
+                    }
+                }
+            }
+        });
+        fChanges.clear();
+        fNewContents.clear();
+        fReleased.clear();
+    }
+
+    private void release(byte[] hash) {
+        if (hash != null) {
+            fReleased.add(Digests.toHex(hash));
+        }
+    }
+
+    /**
+     * @return the hexadecimal hashes of the contents used by the index
+     */
+    private Set<String> usedContents() {
+        Set<String> used = new HashSet<String>();
+        for (byte[] each : fHashes.values()) {
+            used.add(Digests.toHex(each));
+        }
+        return used;
+    }
+
+    private void writeNewContents(Set<String> used) throws IOException {
+        for (Map.Entry<String, byte[]> each : fNewContents.entrySet()) {
+            File file = contentsFile(each.getKey());
+            if (used.contains(each.getKey()) && !file.isFile()) {
+                file.getParentFile().mkdirs();
+                replace(file, each.getValue());
+            }
+        }
+    }
+
+    private File contentsFile(String name) {
+        return new File(new File(fDirectory, name.substring(0, 2)), name.substring(2));
+    }
+
+    /**
+     * @return whether the index could be read. If not, it is as good as
+     *         empty.
+     */
+    private boolean read() {
+        try {
+            fLog.read(fReader);
+            return fLog.isReadable();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return a record that puts the snapshot with {@code key}, or removes it
+     *         if {@code hash} is {@code null}
+     */
+    private static byte[] record(String key, byte[] hash) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(hash == null ? REMOVE : PUT);
+        out.writeUTF(key);
+        if (hash != null) {
+            out.write(hash);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void replace(File file, final byte[] contents) throws IOException {
+        AtomicFiles.replace(file, new AtomicFiles.Contents() {
+            public void writeTo(DataOutputStream out) throws IOException {
+                out.write(contents);
+            }
+        });
+    }
+}
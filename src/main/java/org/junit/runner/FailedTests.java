@@ -0,0 +1,216 @@
+package org.junit.runner;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.internal.AtomicFiles;
+import org.junit.internal.Classes;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * The tests that failed in a previous run, as recorded in a file by
+ * {@link #recorder(File)}. Each line of the file names a test class, followed
+ * by a {@code #} and the name of a test method if the failure belonged to a
+ * single test.
+ *
+ * <p>Used by the {@code --failed-tests}, {@code --rerun-failed} and
+ * {@code --failures-first} options of {@link JUnitCore}:
+ *
+ * <pre>
+ * java org.junit.runner.JUnitCore --failed-tests=failed.txt com.example.AllTests
+ * java org.junit.runner.JUnitCore --failed-tests=failed.txt --rerun-failed
+ * </pre>
+ *
+ * @since 4.12
+ */
+public final class FailedTests {
+    private static final String CHARSET = "UTF-8";
+    private static final char METHOD_SEPARATOR = '#';
+
+    private final Set<String> fFailedClasses = new TreeSet<String>();
+
+    private final Map<String, Set<String>> fFailedMethods = new HashMap<String, Set<String>>();
+
+    private FailedTests(Iterable<String> failures) {
+        for (String each : failures) {
+            int separator = each.indexOf(METHOD_SEPARATOR);
+            if (separator < 0) {
+                fFailedClasses.add(each);
+            } else {
+                String className = each.substring(0, separator);
+                Set<String> methods = fFailedMethods.get(className);
+                if (methods == null) {
+                    methods = new TreeSet<String>();
+                    fFailedMethods.put(className, methods);
+                }
+                methods.add(each.substring(separator + 1));
+            }
+        }
+    }
+
+    /**
+     * Reads the tests recorded in {@code file}. If there is no such file, no
+     * test failed.
+     */
+    public static FailedTests readFrom(File file) throws IOException {
+        List<String> failures = new ArrayList<String>();
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(AtomicFiles.current(file)), CHARSET));
+        } catch (FileNotFoundException e) {
+            return new FailedTests(failures);
+        }
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.length() > 0) {
+                    failures.add(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return new FailedTests(failures);
+    }
+
+    /**
+     * @return a listener that writes the tests that failed to {@code file}
+     *         when the run finishes, replacing what was recorded before
+     */
+    public static RunListener recorder(File file) {
+        return new Recorder(file);
+    }
+
+    /**
+     * @return whether no test failed
+     */
+    public boolean isEmpty() {
+        return fFailedClasses.isEmpty() && fFailedMethods.isEmpty();
+    }
+
+    /**
+     * @return whether {@code description} is, or contains, a test that failed
+     */
+    public boolean contains(Description description) {
+        String className = description.getClassName();
+        if (fFailedClasses.contains(className)) {
+            return true;
+        }
+        if (description.isTest()) {
+            Set<String> methods = fFailedMethods.get(className);
+            return methods != null && methods.contains(description.getMethodName());
+        }
+        for (Description each : description.getChildren()) {
+            if (contains(each)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a {@link Request} for exactly the tests that failed. Runners are
+     * only built for the classes that contain them, and a class whose failure
+     * did not belong to a single test is run as a whole. Classes that no
+     * longer exist are skipped.
+     */
+    public Request request(Computer computer) {
+        Set<String> classNames = new TreeSet<String>(fFailedClasses);
+        classNames.addAll(fFailedMethods.keySet());
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        for (String each : classNames) {
+            try {
+                classes.add(Classes.getClass(each));
+            } catch (ClassNotFoundException e) {
+                // the class was removed since it failed
+            }
+        }
+        Request request = Request.classes(computer, classes.toArray(new Class<?>[classes.size()]));
+        return isEmpty() ? request : request.filterWith(filter());
+    }
+
+    /**
+     * @return {@code request}, sorted so that the tests that failed, and the
+     *         classes and suites that contain them, run first. Otherwise the
+     *         order is kept.
+     */
+    public Request failuresFirst(Request request) {
+        return request.sortWith(new Comparator<Description>() {
+            public int compare(Description o1, Description o2) {
+                return rank(o1) - rank(o2);
+            }
+
+            private int rank(Description description) {
+                return contains(description) ? 0 : 1;
+            }
+        });
+    }
+
+    private Filter filter() {
+        return new Filter() {
+            @Override
+            public boolean shouldRun(Description description) {
+                return contains(description);
+            }
+
+            @Override
+            public String describe() {
+                return "tests that failed before";
+            }
+        };
+    }
+
+    @RunListener.ThreadSafe
+    private static class Recorder extends RunListener {
+        private final File fFile;
+
+        private final Map<String, Boolean> fFailures = new ConcurrentHashMap<String, Boolean>();
+
+        Recorder(File file) {
+            fFile = file;
+        }
+
+        @Override
+        public void testFailure(Failure failure) throws Exception {
+            Description description = failure.getDescription();
+            String className = description.getClassName();
+            String methodName = description.getMethodName();
+            fFailures.put(methodName == null ? className : className + METHOD_SEPARATOR + methodName,
+                    Boolean.TRUE);
+        }
+
+        @Override
+        public void testRunFinished(Result result) throws Exception {
+            final List<String> failures = new ArrayList<String>(fFailures.keySet());
+            Collections.sort(failures);
+            AtomicFiles.replace(fFile, new AtomicFiles.Contents() {
+                public void writeTo(DataOutputStream stream) throws IOException {
+                    Writer out = new OutputStreamWriter(stream, CHARSET);
+                    for (String each : failures) {
+                        out.write(each);
+                        out.write('\n');
+                    }
+                    out.flush();
+                }
+            });
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.junit.runner;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,6 +14,12 @@ import static org.junit.runner.Description.createSuiteDescription;
 
 class JUnitCommandLineParseResult {
     private Filter filter = Filter.ALL;
+    private File failedTestsFile = null;
+    private boolean rerunFailed = false;
+    private boolean failuresFirst = false;
+    private File resultCacheFile = null;
+    private boolean noCache = false;
+    private boolean watch = false;
     private List<Class<?>> classes = new ArrayList<Class<?>>();
     private List<Throwable> parserErrors = new ArrayList<Throwable>();
 
@@ -27,6 +35,30 @@ class JUnitCommandLineParseResult {
         return filter;
     }
 
+    /**
+     * Returns the file in which failed tests are recorded, or {@code null}
+     * if they are not recorded.
+     */
+    public File getFailedTestsFile() {
+        return failedTestsFile;
+    }
+
+    /**
+     * Returns the file in which passed test classes are cached, or
+     * {@code null} if results are not cached.
+     */
+    public File getResultCacheFile() {
+        return noCache ? null : resultCacheFile;
+    }
+
+    /**
+     * Returns whether the tests should be run again whenever the class
+     * directories change. Never true if the command line has errors.
+     */
+    public boolean isWatching() {
+        return watch && parserErrors.isEmpty();
+    }
+
     /**
      * Returns test classes parsed from command line.
      */
@@ -49,6 +81,7 @@ class JUnitCommandLineParseResult {
 
     void parseArgs(String[] args) {
         parseParameters(parseOptions(args));
+        validateOptions();
     }
 
     String[] parseOptions(String[] args) {
@@ -77,6 +110,42 @@ class JUnitCommandLineParseResult {
 
                         filter = filter.intersect(FilterFactories.createFilterFromFilterSpec(
                                 createSuiteDescription(arg), filterSpec));
+                    } else if (arg.startsWith("--failed-tests=") || arg.equals("--failed-tests")) {
+                        if (arg.equals("--failed-tests")) {
+                            ++i;
+
+                            if (i < args.length) {
+                                failedTestsFile = new File(args[i]);
+                            } else {
+                                parserErrors.add(new CommandLineParserError(arg + " value not specified"));
+
+                                break;
+                            }
+                        } else {
+                            failedTestsFile = new File(arg.substring(arg.indexOf('=') + 1));
+                        }
+                    } else if (arg.startsWith("--result-cache=") || arg.equals("--result-cache")) {
+                        if (arg.equals("--result-cache")) {
+                            ++i;
+
+                            if (i < args.length) {
+                                resultCacheFile = new File(args[i]);
+                            } else {
+                                parserErrors.add(new CommandLineParserError(arg + " value not specified"));
+
+                                break;
+                            }
+                        } else {
+                            resultCacheFile = new File(arg.substring(arg.indexOf('=') + 1));
+                        }
+                    } else if (arg.equals("--no-cache")) {
+                        noCache = true;
+                    } else if (arg.equals("--watch")) {
+                        watch = true;
+                    } else if (arg.equals("--rerun-failed")) {
+                        rerunFailed = true;
+                    } else if (arg.equals("--failures-first")) {
+                        failuresFirst = true;
                     } else {
                         parserErrors.add(new CommandLineParserError("JUnit knows nothing about the " + arg + " option"));
                     }
@@ -91,6 +160,21 @@ class JUnitCommandLineParseResult {
         return new String[]{};
     }
 
+    private void validateOptions() {
+        if ((rerunFailed || failuresFirst) && failedTestsFile == null) {
+            parserErrors.add(new CommandLineParserError(
+                    (rerunFailed ? "--rerun-failed" : "--failures-first") + " requires --failed-tests"));
+        }
+        if (watch && (rerunFailed || failuresFirst || getResultCacheFile() != null)) {
+            parserErrors.add(new CommandLineParserError(
+                    "--watch cannot be combined with --rerun-failed, --failures-first or --result-cache"));
+        }
+        if (rerunFailed && failuresFirst) {
+            parserErrors.add(new CommandLineParserError(
+                    "--rerun-failed and --failures-first cannot be combined"));
+        }
+    }
+
     private String[] copyArray(String[] args, int from, int to) {
         ArrayList<String> result = new ArrayList<String>();
 
@@ -118,21 +202,45 @@ class JUnitCommandLineParseResult {
      */
     public Request createRequest(Computer computer) {
         if (parserErrors.isEmpty()) {
+            if (getResultCacheFile() != null) {
+                computer = ResultCache.open(getResultCacheFile()).computer(computer);
+            }
+            if (rerunFailed || failuresFirst) {
+                try {
+                    return createFailedTestsRequest(computer, FailedTests.readFrom(failedTestsFile));
+                } catch (IOException e) {
+                    parserErrors.add(e);
+                    return errorReportingRequest();
+                }
+            }
             return Request
                     .classes(computer, classes.toArray(new Class<?>[classes.size()]))
                     .filterWith(filter);
         } else {
-            return new Request() {
-                @Override
-                public Runner getRunner() {
-                    return new ErrorReportingRunner(
-                            JUnitCommandLineParseResult.class,
-                            new InitializationError(parserErrors));
-                }
-            };
+            return errorReportingRequest();
         }
     }
 
+    private Request createFailedTestsRequest(Computer computer, FailedTests failedTests) {
+        if (rerunFailed) {
+            return failedTests.request(computer).filterWith(filter);
+        }
+        return failedTests.failuresFirst(Request
+                .classes(computer, classes.toArray(new Class<?>[classes.size()]))
+                .filterWith(filter));
+    }
+
+    private Request errorReportingRequest() {
+        return new Request() {
+            @Override
+            public Runner getRunner() {
+                return new ErrorReportingRunner(
+                        JUnitCommandLineParseResult.class,
+                        new InitializationError(parserErrors));
+            }
+        };
+    }
+
     /**
      * Exception used if there's a problem parsing the command line.
      */
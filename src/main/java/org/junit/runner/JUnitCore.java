@@ -1,9 +1,12 @@
 package org.junit.runner;
 
+import java.io.IOException;
+
 import junit.runner.Version;
 import org.junit.internal.JUnitSystem;
 import org.junit.internal.RealSystem;
 import org.junit.internal.TextListener;
+import org.junit.internal.TrackingClassLoader;
 import org.junit.internal.runners.JUnit38ClassRunner;
 import org.junit.runner.notification.RunListener;
 import org.junit.runner.notification.RunNotifier;
@@ -29,6 +32,21 @@ public class JUnitCore {
      * If all tests run successfully, exit with a status of 0. Otherwise exit with a status of 1.
      * Write feedback while tests are running and write
      * stack traces for all failed tests after the tests all complete.
+     * <p>
+     * With {@code --failed-tests=FILE}, the tests that failed are recorded in
+     * {@code FILE}. Adding {@code --rerun-failed} runs only the tests recorded
+     * there, and {@code --failures-first} runs them before the other tests.
+     * See {@link FailedTests}.
+     * <p>
+     * With {@code --result-cache=FILE}, test classes that passed are recorded
+     * in {@code FILE} and skipped by later runs until a class they depend on
+     * changes. {@code --no-cache} runs all tests regardless. See
+     * {@link ResultCache}. The test classes are loaded afresh by a class
+     * loader of the run, which they all share.
+     * <p>
+     * With {@code --watch}, the JVM keeps running after the tests ran, and the
+     * test classes affected by a change are run again as soon as the class
+     * files in the class directories of the class path change.
      *
      * @param args names of classes in which to find tests to run
      */
@@ -73,7 +91,18 @@ public class JUnitCore {
 
         RunListener listener = new TextListener(system);
         addListener(listener);
+        if (jUnitCommandLineParseResult.getFailedTestsFile() != null) {
+            addListener(FailedTests.recorder(jUnitCommandLineParseResult.getFailedTestsFile()));
+        }
 
+        if (jUnitCommandLineParseResult.isWatching()) {
+            try {
+                return new WatchMode(this, system, defaultComputer(), jUnitCommandLineParseResult.getClasses(),
+                        jUnitCommandLineParseResult.getFilter(), TrackingClassLoader.classPathDirectories()).watch();
+            } catch (IOException e) {
+                system.out().println("Could not start watch mode: " + e);
+            }
+        }
         return run(jUnitCommandLineParseResult.createRequest(defaultComputer()));
     }
 
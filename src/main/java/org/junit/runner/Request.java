@@ -7,8 +7,10 @@ import org.junit.internal.requests.ClassRequest;
 import org.junit.internal.requests.FilterRequest;
 import org.junit.internal.requests.SortingRequest;
 import org.junit.internal.runners.ErrorReportingRunner;
+import org.junit.internal.runners.StreamingRunner;
 import org.junit.runner.manipulation.Filter;
 import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
 
 /**
  * A <code>Request</code> is an abstract description of tests to be run. Older versions of
@@ -80,6 +82,32 @@ public abstract class Request {
         }
     }
 
+    /**
+     * Create a <code>Request</code> that, when processed, will run all the tests
+     * in a set of classes, constructing the runner for each class on a background
+     * thread and running it as soon as it is ready. The first tests thus start
+     * before the runners for all classes have been constructed. Listeners are told
+     * about each class through
+     * {@link org.junit.runner.notification.RunListener#testSuiteDiscovered(Description)}.
+     * The classes are run one after another, in the given order; {@code computer}
+     * only helps to construct the runner for each class.
+     *
+     * @param computer Helps construct Runners from classes
+     * @param classes the classes containing the tests
+     * @return a <code>Request</code> that will cause all tests in the classes to be run
+     * @since 4.12
+     */
+    public static Request streamingClasses(final Computer computer, Class<?>... classes) {
+        final AllDefaultPossibilitiesBuilder builder = new AllDefaultPossibilitiesBuilder(true);
+        RunnerBuilder classBuilder = new RunnerBuilder() {
+            @Override
+            public Runner runnerForClass(Class<?> testClass) throws Throwable {
+                return computer.getRunner(builder, testClass);
+            }
+        };
+        return runner(new StreamingRunner(classBuilder, classes));
+    }
+
     /**
      * Create a <code>Request</code> that, when processed, will run all the tests
      * in a set of classes with the default <code>Computer</code>.
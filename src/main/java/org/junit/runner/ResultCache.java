@@ -0,0 +1,396 @@
+package org.junit.runner;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.AssumptionViolatedException;
+import org.junit.internal.AtomicFiles;
+import org.junit.internal.Digests;
+import org.junit.internal.TrackingClassLoader;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.Filterable;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Sortable;
+import org.junit.runner.manipulation.Sorter;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
+
+/**
+ * Remembers which test classes passed, so that they are not run again as long
+ * as nothing they depend on has changed.
+ *
+ * <p>The test classes found in the class directories of the class path are
+ * loaded afresh, by a single {@link TrackingClassLoader} for the whole run,
+ * which records every class from those directories that it loads. The
+ * dependencies of a test class are all classes that were loaded by the time
+ * it finished, since it may use any of them; see {@link TrackingComputer}. If
+ * all tests of the class pass, the class is stored together with a
+ * fingerprint of the class files of all its dependencies. A later run that finds
+ * the same fingerprint reports each test of the class as skipped, by an
+ * assumption failure, instead of running it. The members of a suite are
+ * cached one by one, so only those that are affected by a change run again.
+ *
+ * <p>A test class is run as soon as one of the recorded class files changes or
+ * disappears. The cache also records the path, size and modification time
+ * of every jar of the class path and of every other file in its directories,
+ * such as resources, and forgets all results when one of them changes. Files
+ * that tests read by their path are not noticed; use {@code --no-cache}
+ * after changing them.
+ * Since the test classes are not loaded by the class loader of the class
+ * path, they do not share static state with the copies loaded by it, for
+ * example by a runner that loaded the test classes itself.
+ *
+ * <pre>
+ * java org.junit.runner.JUnitCore --result-cache=junit-results com.example.AllTests
+ * </pre>
+ *
+ * @since 4.12
+ */
+public final class ResultCache {
+    private static final int MAGIC = 0x4A555243; // "JURC"
+    private static final int VERSION = 2;
+
+    /**
+     * The message of the assumption failure with which a cached test is
+     * reported.
+     */
+    public static final String SKIPPED = "passed before, and no class it depends on has changed";
+
+    private final File fFile;
+
+    private final List<File> fRoots;
+
+    /**
+     * A hash of the class path and its files, except for the class files in
+     * the roots, which are hashed one by one
+     */
+    private final byte[] fClassPathFingerprint;
+
+    private final Map<String, Entry> fEntries = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * The hashes of the class files as they are now, computed at most once
+     */
+    private final Map<String, byte[]> fCurrentHashes = new ConcurrentHashMap<String, byte[]>();
+
+    private ResultCache(File file, List<File> roots) {
+        fFile = file;
+        fRoots = new ArrayList<File>(roots);
+        fClassPathFingerprint = classPathFingerprint(fRoots);
+    }
+
+    /**
+     * The result of a test class that passed.
+     */
+    private static final class Entry {
+        final byte[] fFingerprint;
+        final List<String> fDependencies;
+        final List<String> fTestClassNames;
+        final List<String> fTestMethodNames;
+
+        Entry(byte[] fingerprint, List<String> dependencies, List<String> testClassNames,
+                List<String> testMethodNames) {
+            fFingerprint = fingerprint;
+            fDependencies = dependencies;
+            fTestClassNames = testClassNames;
+            fTestMethodNames = testMethodNames;
+        }
+    }
+
+    /**
+     * Opens the cache stored in {@code file}, for the test classes in the
+     * class directories of {@code java.class.path}. If the file does not exist
+     * or cannot be read, the cache is empty.
+     */
+    public static ResultCache open(File file) {
+        return open(file, TrackingClassLoader.classPathDirectories());
+    }
+
+    /**
+     * Opens the cache stored in {@code file}, for the test classes in
+     * {@code roots}. If the file does not exist or cannot be read, the cache
+     * is empty.
+     */
+    public static ResultCache open(File file, List<File> roots) {
+        ResultCache cache = new ResultCache(file, roots);
+        if (AtomicFiles.current(file).isFile()) {
+            try {
+                cache.read();
+            } catch (IOException e) {
+                cache.fEntries.clear();
+            } catch (RuntimeException e) {
+                // a corrupt cache is as good as none
+                cache.fEntries.clear();
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @return a {@link Computer} that builds runners like {@code computer},
+     *         but skips the test classes that passed before and records
+     *         those that pass now. The cache is saved when the tests of the
+     *         suite have run.
+     */
+    public Computer computer(Computer computer) {
+        return new TrackingComputer(computer, fRoots) {
+            @Override
+            Runner runnerInsteadOf(Class<?> testClass) {
+                Entry entry = fEntries.get(testClass.getName());
+                if (entry != null && Arrays.equals(entry.fFingerprint, currentFingerprint(entry.fDependencies))) {
+                    return new CachedRunner(testClass, entry);
+                }
+                return null;
+            }
+
+            @Override
+            void classFinished(String className, ClassRun run) {
+                if (run.isSuite()) {
+                    // its members are cached one by one
+                    return;
+                }
+                if (run.hadProblem()) {
+                    fEntries.remove(className);
+                } else if (run.isComplete()) {
+                    fEntries.put(className, entry(run));
+                }
+            }
+
+            @Override
+            void suiteFinished() {
+                try {
+                    save();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+    }
+
+    private static Entry entry(TrackingComputer.ClassRun run) {
+        Map<String, byte[]> dependencies = run.getDependencies();
+        List<String> testClassNames = new ArrayList<String>();
+        List<String> testMethodNames = new ArrayList<String>();
+        for (Description each : run.getTests()) {
+            testClassNames.add(each.getClassName());
+            testMethodNames.add(each.getMethodName() == null ? each.getDisplayName() : each.getMethodName());
+        }
+        return new Entry(fingerprint(dependencies), new ArrayList<String>(dependencies.keySet()),
+                testClassNames, testMethodNames);
+    }
+
+    private byte[] currentFingerprint(List<String> classNames) {
+        MessageDigest digest = Digests.newSha1();
+        for (String each : classNames) {
+            byte[] hash = fCurrentHashes.get(each);
+            if (hash == null) {
+                byte[] bytes = TrackingClassLoader.readClass(fRoots, each);
+                if (bytes == null) {
+                    return null;
+                }
+                hash = Digests.sha1(bytes);
+                fCurrentHashes.put(each, hash);
+            }
+            update(digest, each, hash);
+        }
+        return digest.digest();
+    }
+
+    private static byte[] fingerprint(Map<String, byte[]> hashes) {
+        MessageDigest digest = Digests.newSha1();
+        for (Map.Entry<String, byte[]> each : hashes.entrySet()) {
+            update(digest, each.getKey(), each.getValue());
+        }
+        return digest.digest();
+    }
+
+    private static byte[] classPathFingerprint(List<File> roots) {
+        Set<File> entries = new LinkedHashSet<File>();
+        for (String each : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (each.length() > 0) {
+                entries.add(new File(each).getAbsoluteFile());
+            }
+        }
+        Set<File> absoluteRoots = new HashSet<File>();
+        for (File each : roots) {
+            absoluteRoots.add(each.getAbsoluteFile());
+        }
+        entries.addAll(absoluteRoots);
+        MessageDigest digest = Digests.newSha1();
+        DataOutputStream out = new DataOutputStream(new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }, digest));
+        try {
+            for (File each : entries) {
+                out.writeUTF(each.getPath());
+                addFiles(out, each, "", absoluteRoots.contains(each));
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return digest.digest();
+    }
+
+    private static void addFiles(DataOutputStream out, File file, String path, boolean inRoot)
+            throws IOException {
+        if (file.isDirectory()) {
+            String[] names = file.list();
+            if (names != null) {
+                Arrays.sort(names);
+                for (String each : names) {
+                    addFiles(out, new File(file, each), path + "/" + each, inRoot);
+                }
+            }
+        } else if (file.isFile() && !(inRoot && path.endsWith(".class"))) {
+            out.writeUTF(path);
+            out.writeLong(file.length());
+            out.writeLong(file.lastModified());
+        }
+    }
+
+    private static void update(MessageDigest digest, String className, byte[] hash) {
+        try {
+            digest.update(className.getBytes("UTF-8"));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        digest.update((byte) 0);
+        digest.update(hash);
+    }
+
+    /**
+     * Writes the cache to its file. The file is replaced atomically, so a reader never
+     * sees a partly written cache; see {@link AtomicFiles#replace}.
+     */
+    public synchronized void save() throws IOException {
+        AtomicFiles.replace(fFile, new AtomicFiles.Contents() {
+            public void writeTo(DataOutputStream out) throws IOException {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeShort(fClassPathFingerprint.length);
+                out.write(fClassPathFingerprint);
+                out.writeInt(fEntries.size());
+                for (Map.Entry<String, Entry> each : fEntries.entrySet()) {
+                    Entry entry = each.getValue();
+                    out.writeUTF(each.getKey());
+                    out.writeShort(entry.fFingerprint.length);
+                    out.write(entry.fFingerprint);
+                    writeStrings(out, entry.fDependencies);
+                    writeStrings(out, entry.fTestClassNames);
+                    writeStrings(out, entry.fTestMethodNames);
+                }
+            }
+        });
+    }
+
+    private void read() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(AtomicFiles.current(fFile))));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not a result cache: " + fFile);
+            }
+            byte[] classPathFingerprint = new byte[in.readShort()];
+            in.readFully(classPathFingerprint);
+            if (!Arrays.equals(classPathFingerprint, fClassPathFingerprint)) {
+                throw new IOException("the class path changed since " + fFile + " was saved");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String className = in.readUTF();
+                byte[] fingerprint = new byte[in.readShort()];
+                in.readFully(fingerprint);
+                fEntries.put(className, new Entry(fingerprint, readStrings(in), readStrings(in),
+                        readStrings(in)));
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String each : strings) {
+            out.writeUTF(each);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> strings = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+
+    /**
+     * Reports the tests of a class that passed before as skipped.
+     */
+    private static class CachedRunner extends Runner implements Filterable, Sortable {
+        private final Class<?> fTestClass;
+
+        private final List<Description> fTests = new ArrayList<Description>();
+
+        CachedRunner(Class<?> testClass, Entry entry) {
+            fTestClass = testClass;
+            for (int i = 0; i < entry.fTestClassNames.size(); i++) {
+                fTests.add(Description.createTestDescription(entry.fTestClassNames.get(i),
+                        entry.fTestMethodNames.get(i)));
+            }
+        }
+
+        @Override
+        public Description getDescription() {
+            Description description = Description.createSuiteDescription(fTestClass);
+            for (Description each : fTests) {
+                description.addChild(each);
+            }
+            return description;
+        }
+
+        @Override
+        public void run(RunNotifier notifier) {
+            for (Description each : fTests) {
+                notifier.fireTestStarted(each);
+                notifier.fireTestAssumptionFailed(new Failure(each, new AssumptionViolatedException(SKIPPED)));
+                notifier.fireTestFinished(each);
+            }
+        }
+
+        public void filter(Filter filter) throws NoTestsRemainException {
+            for (Iterator<Description> iterator = fTests.iterator(); iterator.hasNext(); ) {
+                if (!filter.shouldRun(iterator.next())) {
+                    iterator.remove();
+                }
+            }
+            if (fTests.isEmpty()) {
+                throw new NoTestsRemainException();
+            }
+        }
+
+        public void sort(Sorter sorter) {
+            Collections.sort(fTests, sorter);
+        }
+    }
+}
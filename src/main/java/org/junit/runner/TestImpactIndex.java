@@ -0,0 +1,303 @@
+package org.junit.runner;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.internal.AtomicFiles;
+import org.junit.internal.TrackingClassLoader;
+
+/**
+ * Remembers which classes each test class loaded, so that after a change
+ * only the test classes that may be affected by it have to be run.
+ *
+ * <p>The index is built while tests run with the {@link Computer} returned by
+ * {@link #computer(Computer)}. Like a {@link ResultCache}, it loads the test
+ * classes found in the class directories of the class path afresh, by a
+ * single {@link TrackingClassLoader} for the whole run, and records the
+ * classes of those directories that each test class depends on: all those
+ * that were loaded by the time it finished, except for the other test classes
+ * it does not refer to; see {@link TrackingComputer}. The members of a
+ * suite are recorded one by one, and the suite with the classes of all its
+ * members. Each class is given a number, and the classes of a test class are
+ * stored as a bit set of these numbers.
+ *
+ * <p>Given the names of the classes that changed, for example those found by
+ * {@link #changedClasses(File, File)}, {@link #request(Computer, Collection, Class[])}
+ * selects the test classes that loaded one of them. Test classes for which
+ * nothing was recorded are selected as well, unless
+ * {@link #selectingUnrecordedTests(boolean)} says otherwise. Classes that are
+ * only used through jars, resources or files are not tracked. Since a class is
+ * recorded for every test class that finishes after it was loaded, the
+ * selection errs on the side of running too many tests.
+ *
+ * @since 4.12
+ */
+public final class TestImpactIndex {
+    private static final int MAGIC = 0x4A555449; // "JUTI"
+    private static final int VERSION = 1;
+
+    private final File fFile;
+
+    private final List<File> fRoots;
+
+    private final List<String> fClassNames = new ArrayList<String>();
+
+    private final Map<String, Integer> fClassIds = new HashMap<String, Integer>();
+
+    private final Map<String, BitSet> fDependencies = new ConcurrentHashMap<String, BitSet>();
+
+    private boolean fSelectUnrecorded = true;
+
+    private TestImpactIndex(File file, List<File> roots) {
+        fFile = file;
+        fRoots = new ArrayList<File>(roots);
+    }
+
+    /**
+     * Opens the index stored in {@code file}, for the test classes in the
+     * class directories of {@code java.class.path}. If the file does not exist
+     * or cannot be read, the index is empty.
+     */
+    public static TestImpactIndex open(File file) {
+        return open(file, TrackingClassLoader.classPathDirectories());
+    }
+
+    /**
+     * Opens the index stored in {@code file}, for the test classes in
+     * {@code roots}. If the file does not exist or cannot be read, the index
+     * is empty.
+     */
+    public static TestImpactIndex open(File file, List<File> roots) {
+        TestImpactIndex index = new TestImpactIndex(file, roots);
+        if (AtomicFiles.current(file).isFile()) {
+            try {
+                index.read();
+            } catch (IOException e) {
+                index.clear();
+            } catch (RuntimeException e) {
+                // a corrupt index is as good as none
+                index.clear();
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Sets whether test classes for which nothing was recorded, for example
+     * because they are new or are not in the class directories, are
+     * selected. They are by default.
+     *
+     * @return this index
+     */
+    public TestImpactIndex selectingUnrecordedTests(boolean selectUnrecorded) {
+        fSelectUnrecorded = selectUnrecorded;
+        return this;
+    }
+
+    /**
+     * @return a {@link Computer} that builds runners like {@code computer},
+     *         and records the classes that each test class loads. The index
+     *         is saved when the tests of the suite have run.
+     */
+    public Computer computer(Computer computer) {
+        return new TrackingComputer(computer, fRoots) {
+            @Override
+            void classFinished(String className, ClassRun run) {
+                BitSet dependencies = idsOf(run.getDependencies().keySet());
+                BitSet recorded = fDependencies.get(className);
+                if (!run.isComplete() && recorded != null) {
+                    // tests that did not run may need more classes
+                    dependencies.or(recorded);
+                }
+                fDependencies.put(className, dependencies);
+            }
+
+            @Override
+            void suiteFinished() {
+                try {
+                    save();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a {@link Request} for those of {@code classes} that may be
+     * affected by a change to {@code changedClasses}.
+     *
+     * @param changedClasses the binary names of the classes that were
+     *        changed, added or removed
+     */
+    public Request request(Computer computer, Collection<String> changedClasses, Class<?>... classes) {
+        BitSet changed = knownIdsOf(changedClasses);
+        List<Class<?>> affected = new ArrayList<Class<?>>();
+        for (Class<?> each : classes) {
+            if (isAffected(each.getName(), changed)) {
+                affected.add(each);
+            }
+        }
+        return Request.classes(computer, affected.toArray(new Class<?>[affected.size()]));
+    }
+
+    /**
+     * @return whether the test class named {@code testClassName} may be
+     *         affected by a change to {@code changedClasses}
+     */
+    public boolean isAffected(String testClassName, Collection<String> changedClasses) {
+        return isAffected(testClassName, knownIdsOf(changedClasses));
+    }
+
+    private boolean isAffected(String testClassName, BitSet changed) {
+        BitSet dependencies = fDependencies.get(testClassName);
+        return dependencies == null ? fSelectUnrecorded : dependencies.intersects(changed);
+    }
+
+    /**
+     * @return the binary names of the classes whose class files were added,
+     *         removed or changed between the class directories {@code before}
+     *         and {@code after}
+     */
+    public static Set<String> changedClasses(File before, File after) {
+        Set<String> classNames = new TreeSet<String>();
+        collectClassNames(before, "", classNames);
+        collectClassNames(after, "", classNames);
+        Set<String> changed = new TreeSet<String>();
+        for (String each : classNames) {
+            byte[] oldBytes = TrackingClassLoader.readClass(Arrays.asList(before), each);
+            byte[] newBytes = TrackingClassLoader.readClass(Arrays.asList(after), each);
+            if (!Arrays.equals(oldBytes, newBytes)) {
+                changed.add(each);
+            }
+        }
+        return changed;
+    }
+
+    private static void collectClassNames(File directory, String packagePrefix, Set<String> classNames) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File each : files) {
+            String name = each.getName();
+            if (each.isDirectory()) {
+                collectClassNames(each, packagePrefix + name + ".", classNames);
+            } else if (name.endsWith(".class")) {
+                classNames.add(packagePrefix + name.substring(0, name.length() - ".class".length()));
+            }
+        }
+    }
+
+    private synchronized BitSet idsOf(Collection<String> classNames) {
+        BitSet ids = new BitSet();
+        for (String each : classNames) {
+            Integer id = fClassIds.get(each);
+            if (id == null) {
+                id = Integer.valueOf(fClassNames.size());
+                fClassNames.add(each);
+                fClassIds.put(each, id);
+            }
+            ids.set(id.intValue());
+        }
+        return ids;
+    }
+
+    private synchronized BitSet knownIdsOf(Collection<String> classNames) {
+        BitSet ids = new BitSet();
+        for (String each : classNames) {
+            Integer id = fClassIds.get(each);
+            if (id != null) {
+                ids.set(id.intValue());
+            }
+        }
+        return ids;
+    }
+
+    private synchronized void clear() {
+        fClassNames.clear();
+        fClassIds.clear();
+        fDependencies.clear();
+    }
+
+    /**
+     * Writes the index to its file. The file is replaced atomically, so a reader never
+     * sees a partly written index; see {@link AtomicFiles#replace}.
+     */
+    public synchronized void save() throws IOException {
+        AtomicFiles.replace(fFile, new AtomicFiles.Contents() {
+            public void writeTo(DataOutputStream out) throws IOException {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(fClassNames.size());
+                for (String each : fClassNames) {
+                    out.writeUTF(each);
+                }
+                out.writeInt(fDependencies.size());
+                for (Map.Entry<String, BitSet> each : fDependencies.entrySet()) {
+                    out.writeUTF(each.getKey());
+                    byte[] bits = toBytes(each.getValue());
+                    out.writeInt(bits.length);
+                    out.write(bits);
+                }
+            }
+        });
+    }
+
+    private synchronized void read() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(AtomicFiles.current(fFile))));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not a test impact index: " + fFile);
+            }
+            int classCount = in.readInt();
+            for (int i = 0; i < classCount; i++) {
+                String className = in.readUTF();
+                fClassIds.put(className, Integer.valueOf(fClassNames.size()));
+                fClassNames.add(className);
+            }
+            int testClassCount = in.readInt();
+            for (int i = 0; i < testClassCount; i++) {
+                String testClassName = in.readUTF();
+                byte[] bits = new byte[in.readInt()];
+                in.readFully(bits);
+                fDependencies.put(testClassName, fromBytes(bits));
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte[] toBytes(BitSet bits) {
+        byte[] bytes = new byte[(bits.length() + 7) / 8];
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            bytes[i >> 3] |= 1 << (i & 7);
+        }
+        return bytes;
+    }
+
+    private static BitSet fromBytes(byte[] bytes) {
+        BitSet bits = new BitSet(bytes.length * 8);
+        for (int i = 0; i < bytes.length * 8; i++) {
+            if ((bytes[i >> 3] & (1 << (i & 7))) != 0) {
+                bits.set(i);
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,471 @@
+package org.junit.runner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.internal.TrackingClassLoader;
+import org.junit.internal.builders.AnnotatedBuilder;
+import org.junit.internal.builders.IgnoredBuilder;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.Filterable;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Sortable;
+import org.junit.runner.manipulation.Sorter;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+
+/**
+ * A {@link Computer} that loads the test classes found in a set of class
+ * directories in a {@link TrackingClassLoader}, and reports which of their
+ * classes each test class depends on. The members of suites are tracked one
+ * by one, as well as the suite as a whole.
+ *
+ * <p>All test classes of a suite share one loader, so they share static
+ * state and each class is loaded once, as in a run without tracking. A test
+ * class may therefore use classes that other test classes loaded before it,
+ * not only by referring to them in its class file but also through
+ * reflection, {@link Class#forName(String)}, or a
+ * {@link java.util.ServiceLoader}. To be safe, a test class depends on every
+ * class that was loaded by the time it finished. Only the other test
+ * classes, which are all loaded up front to build their runners, are left
+ * out, unless the classes loaded while the test class was built and run
+ * refer to them in their class files, directly or indirectly.
+ */
+abstract class TrackingComputer extends Computer {
+    private final Computer fComputer;
+
+    private final List<File> fRoots;
+
+    TrackingComputer(Computer computer, List<File> roots) {
+        fComputer = computer;
+        fRoots = new ArrayList<File>(roots);
+    }
+
+    /**
+     * What happened while the tests of a single class ran.
+     */
+    static final class ClassRun {
+        private final Map<String, byte[]> fDependencies;
+
+        private final List<Description> fTests;
+
+        private final boolean fHadProblem;
+
+        private final boolean fComplete;
+
+        private final boolean fSuite;
+
+        ClassRun(Map<String, byte[]> dependencies, List<Description> tests, boolean hadProblem,
+                boolean complete, boolean suite) {
+            fDependencies = dependencies;
+            fTests = tests;
+            fHadProblem = hadProblem;
+            fComplete = complete;
+            fSuite = suite;
+        }
+
+        /**
+         * @return the classes of the class directories that the test class
+         *         depends on, each with the SHA-1 hash of its class file. The
+         *         classes of a suite include those of its members.
+         */
+        Map<String, byte[]> getDependencies() {
+            return fDependencies;
+        }
+        /**
+         * @return all tests of the class, including those filtered out
+         */
+        List<Description> getTests() {
+            return fTests;
+        }
+
+        /**
+         * @return whether a test failed or was skipped by a failed assumption
+         */
+        boolean hadProblem() {
+            return fHadProblem;
+        }
+
+        /**
+         * @return whether every test of the class ran or was ignored
+         */
+        boolean isComplete() {
+            return fComplete;
+        }
+
+        /**
+         * @return whether the class is a suite of other tracked classes,
+         *         which are reported on their own as well
+         */
+        boolean isSuite() {
+            return fSuite;
+        }
+    }
+
+    /**
+     * @return the class directories whose classes are tracked
+     */
+    List<File> getRoots() {
+        return fRoots;
+    }
+
+    /**
+     * Called before a tracked test class is loaded.
+     *
+     * @return a runner to use instead of running the class, or {@code null}
+     *         to run it
+     */
+    Runner runnerInsteadOf(Class<?> testClass) {
+        return null;
+    }
+
+    /**
+     * Called after the tests of a tracked test class ran.
+     */
+    abstract void classFinished(String className, ClassRun run);
+
+    /**
+     * Called after all tests of the suite ran.
+     */
+    abstract void suiteFinished();
+
+    @Override
+    public Runner getSuite(RunnerBuilder builder, Class<?>[] classes) throws InitializationError {
+        return new SuiteRunner(fComputer.getSuite(new TrackingBuilder(builder), classes));
+    }
+
+    /**
+     * Builds the runner of a test class with {@code builder}, except that the
+     * members of suites are built by {@code tracking}, so that each of them
+     * is tracked on its own.
+     */
+    private static Runner buildRunner(RunnerBuilder tracking, RunnerBuilder builder, Class<?> testClass)
+            throws Throwable {
+        Runner runner = new IgnoredBuilder().runnerForClass(testClass);
+        if (runner == null) {
+            runner = new AnnotatedBuilder(tracking).runnerForClass(testClass);
+        }
+        return runner == null ? builder.runnerForClass(testClass) : runner;
+    }
+
+    /**
+     * The tracked classes whose runners were asked for while the runner of a
+     * tracked class was built
+     */
+    private static final class Members {
+        boolean fAny = false;
+
+        final List<TrackedRunner> fRunners = new ArrayList<TrackedRunner>();
+    }
+
+    /**
+     * Builds the runners of the tracked classes of a single suite, which
+     * share a loader.
+     */
+    private class TrackingBuilder extends RunnerBuilder {
+        private final RunnerBuilder fBuilder;
+
+        private TrackingClassLoader fLoader = null;
+
+        /**
+         * The classes referred to by the class files read so far
+         */
+        private final Map<String, Set<String>> fReferences = new HashMap<String, Set<String>>();
+
+        /**
+         * The names of the tracked test classes whose runners were built
+         */
+        private final Set<String> fTestClasses = new HashSet<String>();
+
+        /**
+         * For each thread, the members of the tracked class whose runner is
+         * being built, if it is a suite
+         */
+        private final ThreadLocal<Members> fEnclosing = new ThreadLocal<Members>();
+
+        TrackingBuilder(RunnerBuilder builder) {
+            fBuilder = builder;
+        }
+
+        @Override
+        public Runner runnerForClass(Class<?> testClass) throws Throwable {
+            String className = testClass.getName();
+            if (TrackingClassLoader.readClass(fRoots, className) == null) {
+                return buildRunner(this, fBuilder, testClass);
+            }
+            Members enclosing = fEnclosing.get();
+            if (enclosing != null) {
+                enclosing.fAny = true;
+            }
+            Runner instead = runnerInsteadOf(testClass);
+            if (instead != null) {
+                return instead;
+            }
+            TrackingClassLoader loader = loaderFor(testClass);
+            Thread thread = Thread.currentThread();
+            ClassLoader contextClassLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(loader);
+            Members members = new Members();
+            fEnclosing.set(members);
+            int loadCount = loader.getLoadCount();
+            try {
+                Class<?> trackedClass = testClass.getClassLoader() == loader
+                        ? testClass : loader.loadClass(className);
+                Runner runner = buildRunner(this, fBuilder, trackedClass);
+                if (runner == null) {
+                    return null;
+                }
+                TrackedRunner tracked = new TrackedRunner(className, runner, this,
+                        loader.getLoadedSince(loadCount), members);
+                addTestClass(className);
+                if (enclosing != null) {
+                    enclosing.fRunners.add(tracked);
+                }
+                return tracked;
+            } catch (LinkageError e) {
+                // the class only works with classes of the class path it was loaded from
+                return buildRunner(this, fBuilder, testClass);
+            } finally {
+                fEnclosing.set(enclosing);
+                thread.setContextClassLoader(contextClassLoader);
+            }
+        }
+
+        private synchronized TrackingClassLoader loaderFor(Class<?> testClass) {
+            if (fLoader == null) {
+                ClassLoader parent = testClass.getClassLoader();
+                fLoader = new TrackingClassLoader(fRoots,
+                        parent == null ? ClassLoader.getSystemClassLoader() : parent);
+            }
+            return fLoader;
+        }
+
+        private synchronized void addTestClass(String className) {
+            fTestClasses.add(className);
+        }
+
+        /**
+         * @return the classes loaded so far, except for the test classes, and
+         *         {@code classNames} and the loaded classes they refer to,
+         *         directly or indirectly, each with the hash of its class
+         *         file. Classes that were never loaded cannot have been used,
+         *         so they are left out.
+         */
+        synchronized Map<String, byte[]> dependencies(Collection<String> classNames) {
+            Map<String, byte[]> loadedClasses = fLoader.getLoadedClasses();
+            Map<String, byte[]> dependencies = new TreeMap<String, byte[]>();
+            for (Map.Entry<String, byte[]> each : loadedClasses.entrySet()) {
+                if (!fTestClasses.contains(each.getKey())) {
+                    dependencies.put(each.getKey(), each.getValue());
+                }
+            }
+            Set<String> visited = new HashSet<String>();
+            LinkedList<String> pending = new LinkedList<String>(classNames);
+            while (!pending.isEmpty()) {
+                String className = pending.removeFirst();
+                byte[] hash = loadedClasses.get(className);
+                if (hash != null && visited.add(className)) {
+                    dependencies.put(className, hash);
+                    pending.addAll(references(className));
+                }
+            }
+            return dependencies;
+        }
+
+        private Set<String> references(String className) {
+            Set<String> references = fReferences.get(className);
+            if (references == null) {
+                byte[] bytes = TrackingClassLoader.readClass(fRoots, className);
+                references = bytes == null
+                        ? Collections.<String>emptySet() : TrackingClassLoader.referencedClasses(bytes);
+                fReferences.put(className, references);
+            }
+            return references;
+        }
+
+        synchronized TrackingClassLoader getLoader() {
+            return fLoader;
+        }
+    }
+
+    private static void collectTests(Description description, List<Description> tests) {
+        if (description.isTest()) {
+            tests.add(description);
+        }
+        for (Description each : description.getChildren()) {
+            collectTests(each, tests);
+        }
+    }
+
+    /**
+     * Runs a test class that was loaded by a {@link TrackingClassLoader}.
+     */
+    private class TrackedRunner extends Runner implements Filterable, Sortable {
+        private final String fClassName;
+
+        private final Runner fRunner;
+
+        private final TrackingBuilder fBuilder;
+
+        /**
+         * The classes loaded while the runner was built
+         */
+        private final List<String> fBuildLoads;
+
+        private final Members fMembers;
+
+        private final List<Description> fAllTests = new ArrayList<Description>();
+
+        /**
+         * The dependencies found by the latest run, or {@code null} if it did
+         * not run
+         */
+        private volatile Map<String, byte[]> fDependencies = null;
+
+        TrackedRunner(String className, Runner runner, TrackingBuilder builder, List<String> buildLoads,
+                Members members) {
+            fClassName = className;
+            fRunner = runner;
+            fBuilder = builder;
+            fBuildLoads = buildLoads;
+            fMembers = members;
+            collectTests(runner.getDescription(), fAllTests);
+        }
+
+        @Override
+        public Description getDescription() {
+            return fRunner.getDescription();
+        }
+
+        @Override
+        public void run(RunNotifier notifier) {
+            Outcome outcome = new Outcome(getDescription());
+            notifier.addListener(outcome);
+            TrackingClassLoader loader = fBuilder.getLoader();
+            int loadCount = loader.getLoadCount();
+            Thread thread = Thread.currentThread();
+            ClassLoader contextClassLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(loader);
+            try {
+                fRunner.run(notifier);
+            } finally {
+                thread.setContextClassLoader(contextClassLoader);
+                notifier.removeListener(outcome);
+            }
+            List<String> loaded = new ArrayList<String>(fBuildLoads);
+            loaded.add(fClassName);
+            loaded.addAll(loader.getLoadedSince(loadCount));
+            Map<String, byte[]> dependencies = fBuilder.dependencies(loaded);
+            for (TrackedRunner each : fMembers.fRunners) {
+                Map<String, byte[]> memberDependencies = each.fDependencies;
+                if (memberDependencies != null) {
+                    dependencies.putAll(memberDependencies);
+                }
+            }
+            fDependencies = dependencies;
+            classFinished(fClassName, new ClassRun(dependencies, fAllTests, outcome.fHadProblem,
+                    outcome.fFinished.keySet().containsAll(fAllTests), fMembers.fAny));
+        }
+
+        public void filter(Filter filter) throws NoTestsRemainException {
+            filter.apply(fRunner);
+        }
+
+        public void sort(Sorter sorter) {
+            sorter.apply(fRunner);
+        }
+    }
+
+    /**
+     * Watches the tests of a single class.
+     */
+    @RunListener.ThreadSafe
+    private static class Outcome extends RunListener {
+        private final Set<Description> fDescriptions = new HashSet<Description>();
+
+        final Map<Description, Boolean> fFinished = new ConcurrentHashMap<Description, Boolean>();
+
+        volatile boolean fHadProblem = false;
+
+        Outcome(Description description) {
+            collectAll(description, fDescriptions);
+        }
+
+        private static void collectAll(Description description, Set<Description> all) {
+            all.add(description);
+            for (Description each : description.getChildren()) {
+                collectAll(each, all);
+            }
+        }
+
+        @Override
+        public void testFinished(Description description) {
+            if (fDescriptions.contains(description)) {
+                fFinished.put(description, Boolean.TRUE);
+            }
+        }
+
+        @Override
+        public void testIgnored(Description description) {
+            testFinished(description);
+        }
+
+        @Override
+        public void testFailure(Failure failure) {
+            if (fDescriptions.contains(failure.getDescription())) {
+                fHadProblem = true;
+            }
+        }
+
+        @Override
+        public void testAssumptionFailure(Failure failure) {
+            testFailure(failure);
+        }
+    }
+
+    /**
+     * Tells the computer when the suite has run.
+     */
+    private class SuiteRunner extends Runner implements Filterable, Sortable {
+        private final Runner fSuite;
+
+        SuiteRunner(Runner suite) {
+            fSuite = suite;
+        }
+
+        @Override
+        public Description getDescription() {
+            return fSuite.getDescription();
+        }
+
+        @Override
+        public void run(RunNotifier notifier) {
+            try {
+                fSuite.run(notifier);
+            } finally {
+                suiteFinished();
+            }
+        }
+
+        public void filter(Filter filter) throws NoTestsRemainException {
+            filter.apply(fSuite);
+        }
+
+        public void sort(Sorter sorter) {
+            sorter.apply(fSuite);
+        }
+    }
+}
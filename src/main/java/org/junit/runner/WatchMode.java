@@ -0,0 +1,207 @@
+package org.junit.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.internal.JUnitSystem;
+import org.junit.internal.TrackingClassLoader;
+import org.junit.runner.manipulation.Filter;
+
+/**
+ * Keeps the JVM running after the tests ran, and runs the affected test
+ * classes again whenever the class files in the class directories change.
+ *
+ * <p>The class directories are polled for changes. Every run loads the test
+ * classes and the classes they use from the class directories afresh, in a
+ * new {@link TrackingClassLoader}, so it sees the changed classes. Classes from
+ * jars, including JUnit itself, are loaded once by the parent class loader
+ * and stay warm. Which test classes are affected by a change is decided by a
+ * {@link TestImpactIndex} that is built while the tests run.
+ */
+final class WatchMode {
+    private static final long POLL_INTERVAL = 100;
+
+    private final JUnitCore fCore;
+
+    private final JUnitSystem fSystem;
+
+    private final Computer fComputer;
+
+    private final Class<?>[] fClasses;
+
+    private final Filter fFilter;
+
+    private final List<File> fRoots;
+
+    private final TestImpactIndex fIndex;
+
+    private Map<String, Stamp> fSnapshot = new HashMap<String, Stamp>();
+
+    WatchMode(JUnitCore core, JUnitSystem system, Computer computer, List<Class<?>> classes, Filter filter,
+            List<File> roots) throws IOException {
+        fCore = core;
+        fSystem = system;
+        fComputer = computer;
+        fClasses = classes.toArray(new Class<?>[classes.size()]);
+        fFilter = filter;
+        fRoots = new ArrayList<File>(roots);
+        File indexFile = File.createTempFile("junit-watch-", ".index");
+        indexFile.delete();
+        indexFile.deleteOnExit();
+        fIndex = TestImpactIndex.open(indexFile, fRoots);
+    }
+
+    /**
+     * The last modification time and length of a class file
+     */
+    private static final class Stamp {
+        private final long fLastModified;
+
+        private final long fLength;
+
+        Stamp(File file) {
+            fLastModified = file.lastModified();
+            fLength = file.length();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Stamp)) {
+                return false;
+            }
+            Stamp that = (Stamp) obj;
+            return fLastModified == that.fLastModified && fLength == that.fLength;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (fLastModified ^ fLength);
+        }
+    }
+
+    /**
+     * Runs all tests, and then the affected tests after each change, until
+     * the thread is interrupted.
+     *
+     * @return the result of the last run
+     */
+    Result watch() {
+        Result result = runAll();
+        try {
+            while (true) {
+                fSystem.out().println("Watching " + fRoots.size()
+                        + " class directories for changes. Press Ctrl-C to stop.");
+                Result changedResult;
+                do {
+                    Thread.sleep(POLL_INTERVAL);
+                    waitUntilSettled();
+                    changedResult = runChanged();
+                } while (changedResult == null);
+                result = changedResult;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return result;
+        }
+    }
+
+    /**
+     * Waits while class files are still being written, e.g. by a compiler.
+     */
+    private void waitUntilSettled() throws InterruptedException {
+        Map<String, Stamp> snapshot = snapshot();
+        if (snapshot.equals(fSnapshot)) {
+            return;
+        }
+        while (true) {
+            Thread.sleep(POLL_INTERVAL);
+            Map<String, Stamp> next = snapshot();
+            if (next.equals(snapshot)) {
+                return;
+            }
+            snapshot = next;
+        }
+    }
+
+    /**
+     * Runs all tests.
+     */
+    Result runAll() {
+        fSnapshot = snapshot();
+        return fCore.run(Request.classes(fIndex.computer(fComputer), fClasses).filterWith(fFilter));
+    }
+
+    /**
+     * Runs the tests affected by the class files that changed since the last
+     * run.
+     *
+     * @return the result, or {@code null} if no class file changed
+     */
+    Result runChanged() {
+        Map<String, Stamp> snapshot = snapshot();
+        Set<String> changed = changedClasses(fSnapshot, snapshot);
+        fSnapshot = snapshot;
+        if (changed.isEmpty()) {
+            return null;
+        }
+        List<Class<?>> affected = new ArrayList<Class<?>>();
+        for (Class<?> each : fClasses) {
+            if (fIndex.isAffected(each.getName(), changed)) {
+                affected.add(each);
+            }
+        }
+        if (affected.isEmpty()) {
+            fSystem.out().println("No tests are affected by the changes to " + changed);
+            return new Result();
+        }
+        return fCore.run(Request.classes(fIndex.computer(fComputer),
+                affected.toArray(new Class<?>[affected.size()])).filterWith(fFilter));
+    }
+
+    private static Set<String> changedClasses(Map<String, Stamp> before, Map<String, Stamp> after) {
+        Set<String> changed = new TreeSet<String>();
+        for (Map.Entry<String, Stamp> each : after.entrySet()) {
+            if (!each.getValue().equals(before.get(each.getKey()))) {
+                changed.add(each.getKey());
+            }
+        }
+        for (String each : before.keySet()) {
+            if (!after.containsKey(each)) {
+                changed.add(each);
+            }
+        }
+        return changed;
+    }
+
+    private Map<String, Stamp> snapshot() {
+        Map<String, Stamp> snapshot = new HashMap<String, Stamp>();
+        for (File each : fRoots) {
+            addClassFiles(each, "", snapshot);
+        }
+        return snapshot;
+    }
+
+    private static void addClassFiles(File directory, String packagePrefix, Map<String, Stamp> snapshot) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File each : files) {
+            String name = each.getName();
+            if (each.isDirectory()) {
+                addClassFiles(each, packagePrefix + name + ".", snapshot);
+            } else if (name.endsWith(".class")) {
+                String className = packagePrefix + name.substring(0, name.length() - ".class".length());
+                if (!snapshot.containsKey(className)) {
+                    snapshot.put(className, new Stamp(each));
+                }
+            }
+        }
+    }
+}
@@ -69,6 +69,20 @@ public class RunListener {
     public void testRunFinished(Result result) throws Exception {
     }
 
+    /**
+     * Called when a part of the test run, generally a test class, has been
+     * discovered and is about to be run. Only called by runners that discover
+     * their tests while the run is already in progress, such as the runner of
+     * {@link org.junit.runner.Request#streamingClasses(org.junit.runner.Computer, Class[])};
+     * the description passed to {@link #testRunStarted(Description)} will not
+     * contain these tests.
+     *
+     * @param description describes the tests that have been discovered
+     * @since 4.12
+     */
+    public void testSuiteDiscovered(Description description) throws Exception {
+    }
+
     /**
      * Called when an atomic test is about to be started.
      *
@@ -122,6 +136,30 @@ public class RunListener {
     public void testIgnored(Description description) throws Exception {
     }
 
+    /**
+     * Called when an atomic test failed, but will be run again because its
+     * runner retries failing tests (see
+     * {@link org.junit.runners.ParentRunner#setRetries(int)}). Unlike
+     * {@link #testFailure(Failure)}, this does not mean that the test failed.
+     *
+     * @param failure describes the test and the exception thrown by the
+     * attempt that failed
+     * @since 4.12
+     */
+    public void testRetried(Failure failure) throws Exception {
+    }
+
+    /**
+     * Called when an atomic test failed, but passed when it was retried. Such a
+     * test is not reported by {@link #testFailure(Failure)}.
+     *
+     * @param failure describes the test and the exception thrown by the
+     * first attempt
+     * @since 4.12
+     */
+    public void testFlaky(Failure failure) throws Exception {
+    }
+
 
     /**
      * Indicates a {@code RunListener} that can have its methods called
@@ -105,6 +105,22 @@ public class RunNotifier {
         }.run();
     }
 
+    /**
+     * Invoke to tell listeners that a part of the test run has been
+     * discovered while the run is already in progress.
+     *
+     * @param description the description of the discovered tests (generally a class)
+     * @since 4.12
+     */
+    public void fireTestSuiteDiscovered(final Description description) {
+        new SafeNotifier() {
+            @Override
+            protected void notifyListener(RunListener each) throws Exception {
+                each.testSuiteDiscovered(description);
+            }
+        }.run();
+    }
+
     /**
      * Invoke to tell listeners that an atomic test is about to start.
      *
@@ -176,6 +192,39 @@ public class RunNotifier {
         }.run();
     }
 
+    /**
+     * Invoke to tell listeners that an attempt of an atomic test failed, and
+     * that the test will be run again.
+     *
+     * @param failure the description of the test and the exception thrown
+     * @since 4.12
+     */
+    public void fireTestRetried(final Failure failure) {
+        new SafeNotifier() {
+            @Override
+            protected void notifyListener(RunListener each) throws Exception {
+                each.testRetried(failure);
+            }
+        }.run();
+    }
+
+    /**
+     * Invoke to tell listeners that an atomic test passed only after it was
+     * retried.
+     *
+     * @param failure the description of the test and the exception thrown
+     * by its first attempt
+     * @since 4.12
+     */
+    public void fireTestFlaky(final Failure failure) {
+        new SafeNotifier() {
+            @Override
+            protected void notifyListener(RunListener each) throws Exception {
+                each.testFlaky(failure);
+            }
+        }.run();
+    }
+
     /**
      * Invoke to tell listeners that an atomic test finished. Always invoke
      * this method if you invoke {@link #fireTestStarted(Description)}
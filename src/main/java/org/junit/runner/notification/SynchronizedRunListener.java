@@ -43,6 +43,13 @@ final class SynchronizedRunListener extends RunListener {
         }
     }
 
+    @Override
+    public void testSuiteDiscovered(Description description) throws Exception {
+        synchronized (fMonitor) {
+            fListener.testSuiteDiscovered(description);
+        }
+    }
+
     @Override
     public void testStarted(Description description) throws Exception {
         synchronized (fMonitor) {
@@ -78,6 +85,20 @@ final class SynchronizedRunListener extends RunListener {
         }
     }
 
+    @Override
+    public void testRetried(Failure failure) throws Exception {
+        synchronized (fMonitor) {
+            fListener.testRetried(failure);
+        }
+    }
+
+    @Override
+    public void testFlaky(Failure failure) throws Exception {
+        synchronized (fMonitor) {
+            fListener.testFlaky(failure);
+        }
+    }
+
     @Override
     public int hashCode() {
         return fListener.hashCode();
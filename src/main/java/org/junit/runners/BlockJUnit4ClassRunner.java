@@ -3,7 +3,13 @@ package org.junit.runners;
 import static org.junit.internal.runners.rules.RuleFieldValidator.RULE_METHOD_VALIDATOR;
 import static org.junit.internal.runners.rules.RuleFieldValidator.RULE_VALIDATOR;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.After;
@@ -27,6 +33,7 @@ import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.MultipleFailureException;
 import org.junit.runners.model.Statement;
+import org.junit.runners.model.TestPlan;
 
 /**
  * Implements the JUnit 4 standard test case class model, as defined by the
@@ -53,7 +60,19 @@ import org.junit.runners.model.Statement;
  * @since 4.5
  */
 public class BlockJUnit4ClassRunner extends ParentRunner<FrameworkMethod> {
+    /**
+     * The test classes that have no usable {@link TestPlan}, so that they are
+     * looked up only once per JVM. Weak, so that the classes can be unloaded.
+     */
+    private static final Map<Class<?>, Boolean> CLASSES_WITHOUT_PLAN = Collections.synchronizedMap(
+            new WeakHashMap<Class<?>, Boolean>());
+
     private final ConcurrentHashMap<FrameworkMethod, Description> fMethodDescriptions = new ConcurrentHashMap<FrameworkMethod, Description>();
+    private final Object fPlanLock = new Object();
+    // Guarded by fPlanLock
+    private volatile boolean fPlanLookedUp = false;
+    private volatile TestPlan fPlan = null;
+
     /**
      * Creates a BlockJUnit4ClassRunner to run {@code klass}
      *
@@ -73,7 +92,18 @@ public class BlockJUnit4ClassRunner extends ParentRunner<FrameworkMethod> {
         if (isIgnored(method)) {
             notifier.fireTestIgnored(description);
         } else {
-            runLeaf(methodBlock(method), description, notifier);
+            final Statement firstAttempt = methodBlock(method);
+            runLeaf(new Statement() {
+                private boolean fRetry = false;
+
+                @Override
+                public void evaluate() throws Throwable {
+                    // a retried test gets a fresh instance
+                    Statement attempt = fRetry ? methodBlock(method) : firstAttempt;
+                    fRetry = true;
+                    attempt.evaluate();
+                }
+            }, description, notifier);
         }
     }
     
@@ -212,9 +242,91 @@ public class BlockJUnit4ClassRunner extends ParentRunner<FrameworkMethod> {
      * one exists).
      */
     protected Object createTest() throws Exception {
+        TestPlan plan = getTestPlan();
+        if (plan != null) {
+            return plan.createTest();
+        }
         return getTestClass().getOnlyConstructor().newInstance();
     }
 
+    /**
+     * Returns the {@link TestPlan} generated for the test class, or
+     * {@code null} if there is none or if it does not list the same test
+     * methods as the test class.
+     */
+    protected TestPlan getTestPlan() {
+        if (!fPlanLookedUp) {
+            synchronized (fPlanLock) {
+                if (!fPlanLookedUp) {
+                    fPlan = findTestPlan();
+                    fPlanLookedUp = true;
+                }
+            }
+        }
+        return fPlan;
+    }
+
+    private TestPlan findTestPlan() {
+        Class<?> testClass = getTestClass().getJavaClass();
+        if (testClass == null || CLASSES_WITHOUT_PLAN.containsKey(testClass)) {
+            return null;
+        }
+        TestPlan plan = loadTestPlan(testClass);
+        if (plan == null || !isCurrent(plan)) {
+            CLASSES_WITHOUT_PLAN.put(testClass, Boolean.TRUE);
+            return null;
+        }
+        return plan;
+    }
+
+    /**
+     * Loads the plan class without initializing it, so that a class that
+     * merely has the name of a plan is not run unless it is one.
+     */
+    private static TestPlan loadTestPlan(Class<?> testClass) {
+        try {
+            Class<?> planClass = Class.forName(testClass.getName() + TestPlan.CLASS_NAME_SUFFIX,
+                    false, testClass.getClassLoader());
+            if (!TestPlan.class.isAssignableFrom(planClass)) {
+                return null;
+            }
+            return (TestPlan) planClass.newInstance();
+        } catch (Exception e) {
+            // no plan has been generated, or it cannot be used
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    private boolean isCurrent(TestPlan plan) {
+        Set<String> testMethodNames = new HashSet<String>();
+        for (FrameworkMethod each : computeTestMethods()) {
+            testMethodNames.add(each.getName());
+        }
+        return testMethodNames.equals(new HashSet<String>(plan.getTestMethodNames()));
+    }
+
+    private FrameworkMethod planned(FrameworkMethod method) {
+        TestPlan plan = getTestPlan();
+        if (plan != null && plan.canInvoke(method.getName())
+                && method.getMethod().getParameterTypes().length == 0) {
+            return new PlannedMethod(plan, method);
+        }
+        return method;
+    }
+
+    private List<FrameworkMethod> planned(List<FrameworkMethod> methods) {
+        if (getTestPlan() == null) {
+            return methods;
+        }
+        List<FrameworkMethod> planned = new ArrayList<FrameworkMethod>(methods.size());
+        for (FrameworkMethod each : methods) {
+            planned.add(planned(each));
+        }
+        return planned;
+    }
+
     /**
      * Returns the name that describes {@code method} for {@link Description}s.
      * Default implementation is the method's name
@@ -285,7 +397,7 @@ public class BlockJUnit4ClassRunner extends ParentRunner<FrameworkMethod> {
      * Returns a {@link Statement} that invokes {@code method} on {@code test}
      */
     protected Statement methodInvoker(FrameworkMethod method, Object test) {
-        return new InvokeMethod(method, test);
+        return new InvokeMethod(planned(method), test);
     }
 
     /**
@@ -323,7 +435,7 @@ public class BlockJUnit4ClassRunner extends ParentRunner<FrameworkMethod> {
         List<FrameworkMethod> befores = getTestClass().getAnnotatedMethods(
                 Before.class);
         return befores.isEmpty() ? statement : new RunBefores(statement,
-                befores, target);
+                planned(befores), target);
     }
 
     /**
@@ -337,8 +449,8 @@ public class BlockJUnit4ClassRunner extends ParentRunner<FrameworkMethod> {
             Statement statement) {
         List<FrameworkMethod> afters = getTestClass().getAnnotatedMethods(
                 After.class);
-        return afters.isEmpty() ? statement : new RunAfters(statement, afters,
-                target);
+        return afters.isEmpty() ? statement : new RunAfters(statement,
+                planned(afters), target);
     }
 
     private Statement withRules(FrameworkMethod method, Object target,
@@ -422,4 +534,22 @@ public class BlockJUnit4ClassRunner extends ParentRunner<FrameworkMethod> {
         }
         return annotation.timeout();
     }
+
+    /**
+     * A {@link FrameworkMethod} that is invoked through a {@link TestPlan}.
+     */
+    private static class PlannedMethod extends FrameworkMethod {
+        private final TestPlan fPlan;
+
+        PlannedMethod(TestPlan plan, FrameworkMethod method) {
+            super(method.getMethod());
+            fPlan = plan;
+        }
+
+        @Override
+        public Object invokeExplosively(Object target, Object... params) throws Throwable {
+            fPlan.invoke(target, getName());
+            return null;
+        }
+    }
 }
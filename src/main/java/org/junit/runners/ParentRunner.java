@@ -66,6 +66,8 @@ public abstract class ParentRunner<T> extends Runner implements Filterable,
     // Guarded by fChildrenLock
     private volatile Collection<T> fFilteredChildren = null;
 
+    private volatile int fRetries = 0;
+
     private volatile RunnerScheduler fScheduler = new RunnerScheduler() {
         public void schedule(Runnable childStatement) {
             childStatement.run();
@@ -316,17 +318,43 @@ public abstract class ParentRunner<T> extends Runner implements Filterable,
 
     /**
      * Runs a {@link Statement} that represents a leaf (aka atomic) test.
+     * If the statement fails and retries have been set with
+     * {@link #setRetries(int)}, it is evaluated again. A test that passes
+     * when retried is reported as flaky instead of failed, and one whose
+     * retry is skipped by a failed assumption as failed.
      */
     protected final void runLeaf(Statement statement, Description description,
             RunNotifier notifier) {
         EachTestNotifier eachNotifier = new EachTestNotifier(notifier, description);
         eachNotifier.fireTestStarted();
         try {
-            statement.evaluate();
-        } catch (AssumptionViolatedException e) {
-            eachNotifier.addFailedAssumption(e);
-        } catch (Throwable e) {
-            eachNotifier.addFailure(e);
+            Throwable firstFailure = null;
+            for (int retriesLeft = fRetries; ; retriesLeft--) {
+                try {
+                    statement.evaluate();
+                    if (firstFailure != null) {
+                        eachNotifier.addFlakiness(firstFailure);
+                    }
+                    return;
+                } catch (AssumptionViolatedException e) {
+                    if (firstFailure != null) {
+                        // a test that failed does not become skipped by a retry
+                        eachNotifier.addFailure(firstFailure);
+                    } else {
+                        eachNotifier.addFailedAssumption(e);
+                    }
+                    return;
+                } catch (Throwable e) {
+                    if (retriesLeft <= 0) {
+                        eachNotifier.addFailure(e);
+                        return;
+                    }
+                    eachNotifier.addRetry(e);
+                    if (firstFailure == null) {
+                        firstFailure = e;
+                    }
+                }
+            }
         } finally {
             eachNotifier.fireTestFinished();
         }
@@ -449,4 +477,17 @@ public abstract class ParentRunner<T> extends Runner implements Filterable,
     public void setScheduler(RunnerScheduler scheduler) {
         this.fScheduler = scheduler;
     }
+
+    /**
+     * Sets how many times a failing leaf test is run again before it is
+     * reported as failed. By default, failing tests are not retried.
+     *
+     * @since 4.12
+     */
+    public void setRetries(int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("retries must not be negative, but was " + retries);
+        }
+        this.fRetries = retries;
+    }
 }
@@ -118,6 +118,19 @@ public class Suite extends ParentRunner<Runner> {
         return fRunners;
     }
 
+    /**
+     * Sets the retries of the runners of this suite as well.
+     */
+    @Override
+    public void setRetries(int retries) {
+        super.setRetries(retries);
+        for (Runner each : fRunners) {
+            if (each instanceof ParentRunner) {
+                ((ParentRunner<?>) each).setRetries(retries);
+            }
+        }
+    }
+
     @Override
     protected Description describeChild(Runner child) {
         return child.getDescription();
@@ -37,7 +37,12 @@ import org.junit.runner.Runner;
  * @since 4.5
  */
 public abstract class RunnerBuilder {
-    private final Set<Class<?>> parents = new HashSet<Class<?>>();
+    private final ThreadLocal<Set<Class<?>>> parents = new ThreadLocal<Set<Class<?>>>() {
+        @Override
+        protected Set<Class<?>> initialValue() {
+            return new HashSet<Class<?>>();
+        }
+    };
 
     /**
      * Override to calculate the correct runner for a test class at runtime.
@@ -63,14 +68,14 @@ public abstract class RunnerBuilder {
     }
 
     Class<?> addParent(Class<?> parent) throws InitializationError {
-        if (!parents.add(parent)) {
+        if (!parents.get().add(parent)) {
             throw new InitializationError(String.format("class '%s' (possibly indirectly) contains itself as a SuiteClass", parent.getName()));
         }
         return parent;
     }
 
     void removeParent(Class<?> klass) {
-        parents.remove(klass);
+        parents.get().remove(klass);
     }
 
     /**
@@ -95,7 +100,16 @@ public abstract class RunnerBuilder {
         return runners(parent, children.toArray(new Class<?>[0]));
     }
 
-    private List<Runner> runners(Class<?>[] children) {
+    /**
+     * Constructs and returns a list of Runners, one for each child class in
+     * {@code children}, in the same order.  Override to change how (for
+     * example, on which threads) the runners are constructed.  The suites
+     * under construction are tracked per thread, so nested suites may safely
+     * be constructed on several threads at once.
+     *
+     * @since 4.12
+     */
+    protected List<Runner> runners(Class<?>[] children) {
         ArrayList<Runner> runners = new ArrayList<Runner>();
         for (Class<?> each : children) {
             Runner childRunner = safeRunnerForClass(each);
@@ -0,0 +1,46 @@
+package org.junit.runners.model;
+
+import java.util.List;
+
+/**
+ * A plan for running the tests of a class, generated at build time (see
+ * {@code org.junit.experimental.discovery.TestPlanGenerator}). It creates
+ * instances of the test class and invokes its test and fixture methods by
+ * direct calls instead of reflection.
+ *
+ * <p>The plan for a class {@code com.example.FooTest} is the class
+ * {@code com.example.FooTest_TestPlan}. {@link org.junit.runners.BlockJUnit4ClassRunner}
+ * uses it if it is present and lists the same test methods as the class
+ * itself, and falls back to reflection otherwise.
+ *
+ * @since 4.12
+ */
+public interface TestPlan {
+    /**
+     * The suffix that is appended to the name of a test class to get the name
+     * of its plan.
+     */
+    String CLASS_NAME_SUFFIX = "_TestPlan";
+
+    /**
+     * @return the names of the methods annotated with {@code @Test}
+     */
+    List<String> getTestMethodNames();
+
+    /**
+     * @return whether {@link #invoke(Object, String)} can invoke the
+     *         no-argument method {@code methodName}
+     */
+    boolean canInvoke(String methodName);
+
+    /**
+     * @return a new instance of the test class
+     */
+    Object createTest() throws Exception;
+
+    /**
+     * Invokes the no-argument method {@code methodName} on {@code target}, or
+     * the static method {@code methodName} if {@code target} is {@code null}.
+     */
+    void invoke(Object target, String methodName) throws Throwable;
+}
@@ -0,0 +1,273 @@
+package org.junit.experimental.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.samples.Dependency;
+import org.junit.runner.samples.Independent;
+import org.junit.runner.samples.UsesDependency;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestServerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestServer server;
+
+    private int port;
+
+    private Future<Boolean> serving;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final List<String> started = new ArrayList<String>();
+
+    private final RunListener startedListener = new RunListener() {
+        @Override
+        public void testStarted(Description description) {
+            started.add(description.getDisplayName());
+        }
+    };
+
+    private File root;
+
+    public static class Version {
+        public static String get() {
+            return "version-1";
+        }
+    }
+
+    public static class ChecksVersion {
+        @Test
+        public void isFirstVersion() {
+            assertEquals("version-1", Version.get());
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.newFolder("classes");
+        copyClassFile(root, UsesDependency.class);
+        copyClassFile(root, Independent.class);
+        copyClassFile(root, Dependency.class);
+        copyClassFile(root, TestServerTest.class);
+        copyClassFile(root, Version.class);
+        copyClassFile(root, ChecksVersion.class);
+        ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName(null));
+        port = serverSocket.getLocalPort();
+        server = new TestServer(serverSocket, asList(root));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        if (serving != null) {
+            serving.get();
+        }
+        executor.shutdownNow();
+    }
+
+    private void copyClassFile(File root, Class<?> type) throws IOException {
+        File file = new File(root, type.getName().replace('.', File.separatorChar) + ".class");
+        file.getParentFile().mkdirs();
+        InputStream in = type.getResourceAsStream("/" + type.getName().replace('.', '/') + ".class");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                byte[] buffer = new byte[4096];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void changeVersion() throws IOException {
+        File file = new File(root, Version.class.getName().replace('.', File.separatorChar) + ".class");
+        InputStream in = new FileInputStream(file);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                bytes.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        String contents = new String(bytes.toByteArray(), "ISO-8859-1").replace("version-1", "version-2");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents.getBytes("ISO-8859-1"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private void startServer() {
+        serving = executor.submit(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                return server.serve();
+            }
+        });
+    }
+
+    private Result run(TestClient client, String... classNames) throws IOException {
+        return client.run(asList(classNames), null, null, startedListener);
+    }
+
+    @Test
+    public void runsRequestedTestClasses() throws IOException {
+        startServer();
+        TestClient client = new TestClient(port);
+        try {
+            Result result = run(client, UsesDependency.class.getName(), Independent.class.getName());
+
+            assertThat(result.getRunCount(), is(2));
+            assertTrue(result.wasSuccessful());
+            assertThat(started, is(asList(
+                    "usesDependency(" + UsesDependency.class.getName() + ")",
+                    "independent(" + Independent.class.getName() + ")")));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void servesRepeatedRequestsOnOneConnection() throws IOException {
+        startServer();
+        TestClient client = new TestClient(port);
+        try {
+            run(client, Independent.class.getName());
+            Result result = run(client, Independent.class.getName());
+
+            assertThat(result.getRunCount(), is(1));
+            assertThat(started.size(), is(2));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void laterRequestSeesChangedClassFile() throws IOException {
+        startServer();
+        TestClient client = new TestClient(port);
+        try {
+            assertTrue(run(client, ChecksVersion.class.getName()).wasSuccessful());
+            changeVersion();
+
+            Result result = run(client, ChecksVersion.class.getName());
+
+            assertThat(result.getFailureCount(), is(1));
+            assertThat(result.getFailures().get(0).getMessage(), is("expected:<version-[1]> but was:<version-[2]>"));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void reportsFailuresWithRemoteMessageAndTrace() throws IOException {
+        startServer();
+        TestClient client = new TestClient(port);
+        try {
+            Result result = run(client, "org.junit.NoSuchTest");
+
+            assertThat(result.getFailureCount(), is(1));
+            assertThat(result.getFailures().get(0).getMessage(), containsString("org.junit.NoSuchTest"));
+            assertThat(result.getFailures().get(0).getTrace(), containsString("ClassNotFoundException"));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void servesConcurrentClients() throws Exception {
+        startServer();
+        List<Future<Result>> results = new ArrayList<Future<Result>>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(new Callable<Result>() {
+                public Result call() throws Exception {
+                    TestClient client = new TestClient(port);
+                    try {
+                        return client.run(asList(UsesDependency.class.getName(), Independent.class.getName()),
+                                null, null);
+                    } finally {
+                        client.close();
+                    }
+                }
+            }));
+        }
+
+        for (Future<Result> each : results) {
+            assertThat(each.get().getRunCount(), is(2));
+            assertTrue(each.get().wasSuccessful());
+        }
+    }
+
+    @Test
+    public void stopsAfterRequestWhenMemoryThresholdIsExceeded() throws Exception {
+        server.recyclingAbove(0, 0);
+        startServer();
+        TestClient client = new TestClient(port);
+        try {
+            Result result = run(client, Independent.class.getName());
+            assertThat(result.getRunCount(), is(1));
+
+            assertTrue(serving.get());
+            assertTrue(server.isRecycling());
+            try {
+                run(client, Independent.class.getName());
+                fail("expected the recycled server to close the connection");
+            } catch (IOException expected) {
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void doesNotRecycleBelowMemoryThreshold() throws Exception {
+        startServer();
+        TestClient client = new TestClient(port);
+        try {
+            run(client, Independent.class.getName());
+        } finally {
+            client.close();
+        }
+        server.close();
+
+        assertFalse(serving.get());
+    }
+}
@@ -0,0 +1,59 @@
+package org.junit.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AtomicFilesTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void replace(File file, final int value) throws IOException {
+        AtomicFiles.replace(file, new AtomicFiles.Contents() {
+            public void writeTo(DataOutputStream out) throws IOException {
+                out.writeInt(value);
+            }
+        });
+    }
+
+    private static int read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new FileInputStream(AtomicFiles.current(file)));
+        try {
+            return in.readInt();
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void replacesAnExistingFileAgainAndAgain() throws IOException {
+        File file = new File(folder.getRoot(), "store");
+        replace(file, 1);
+        replace(file, 2);
+        replace(file, 3);
+
+        assertEquals(3, read(file));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void readsTheBackupOfAnInterruptedReplacement() throws IOException {
+        File file = new File(folder.getRoot(), "store");
+        replace(new File(folder.getRoot(), "store.bak"), 1);
+
+        assertFalse(file.exists());
+        assertEquals(1, read(file));
+
+        replace(file, 2);
+        assertEquals(2, read(file));
+    }
+}
@@ -0,0 +1,152 @@
+package org.junit.runner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.notification.RunListener;
+import org.junit.tests.TestSystem;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FailedTestsOptionIntegrationTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String failedTestsOption;
+
+    private final List<String> started = new ArrayList<String>();
+
+    @Before
+    public void setUp() {
+        failedTestsOption = "--failed-tests=" + new File(folder.getRoot(), "failed.txt");
+        OneFailingTest.failing = true;
+        FailingClassFixture.failing = true;
+    }
+
+    public static class AllPassing {
+        @Test
+        public void passes() {
+        }
+    }
+
+    public static class OneFailingTest {
+        static boolean failing;
+
+        @Test
+        public void passes() {
+        }
+
+        @Test
+        public void fails() {
+            if (failing) {
+                fail();
+            }
+        }
+    }
+
+    public static class FailingClassFixture {
+        static boolean failing;
+
+        @BeforeClass
+        public static void setUpClass() {
+            if (failing) {
+                fail();
+            }
+        }
+
+        @Test
+        public void one() {
+        }
+
+        @Test
+        public void two() {
+        }
+    }
+
+    private Result runJUnit(String... args) {
+        JUnitCore jUnitCore = new JUnitCore();
+        jUnitCore.addListener(new RunListener() {
+            @Override
+            public void testStarted(Description description) {
+                started.add(description.getMethodName());
+            }
+        });
+        return jUnitCore.runMain(new TestSystem(), args);
+    }
+
+    @Test
+    public void shouldRecordFailedTests() throws Exception {
+        runJUnit(failedTestsOption, AllPassing.class.getName(), OneFailingTest.class.getName());
+
+        File file = new File(folder.getRoot(), "failed.txt");
+        FailedTests failedTests = FailedTests.readFrom(file);
+        assertTrue(failedTests.contains(Description.createTestDescription(OneFailingTest.class, "fails")));
+        assertThat(failedTests.contains(Description.createTestDescription(OneFailingTest.class, "passes")), is(false));
+    }
+
+    @Test
+    public void shouldRerunOnlyFailedTests() {
+        runJUnit(failedTestsOption, AllPassing.class.getName(), OneFailingTest.class.getName());
+        started.clear();
+
+        Result result = runJUnit(failedTestsOption, "--rerun-failed");
+
+        assertThat(started, is(asList("fails")));
+        assertThat(result.getFailureCount(), is(1));
+    }
+
+    @Test
+    public void shouldRerunWholeClassIfItsClassFixtureFailed() {
+        runJUnit(failedTestsOption, AllPassing.class.getName(), FailingClassFixture.class.getName());
+        started.clear();
+        FailingClassFixture.failing = false;
+
+        Result result = runJUnit(failedTestsOption, "--rerun-failed");
+
+        assertThat(result.getRunCount(), is(2));
+        assertTrue(result.wasSuccessful());
+    }
+
+    @Test
+    public void shouldForgetTestsThatPassWhenRerun() {
+        runJUnit(failedTestsOption, OneFailingTest.class.getName());
+        OneFailingTest.failing = false;
+        runJUnit(failedTestsOption, "--rerun-failed");
+        started.clear();
+
+        Result result = runJUnit(failedTestsOption, "--rerun-failed");
+
+        assertThat(result.getRunCount(), is(0));
+    }
+
+    @Test
+    public void shouldRunFailedTestsFirst() {
+        runJUnit(failedTestsOption, AllPassing.class.getName(), OneFailingTest.class.getName());
+        started.clear();
+
+        runJUnit(failedTestsOption, "--failures-first",
+                AllPassing.class.getName(), OneFailingTest.class.getName());
+
+        assertThat(started, is(asList("fails", "passes", "passes")));
+    }
+
+    @Test
+    public void shouldRequireFailedTestsFile() {
+        Result result = runJUnit("--rerun-failed", AllPassing.class.getName());
+
+        assertThat(result.getFailureCount(), is(1));
+        assertThat(result.getFailures().get(0).getMessage(),
+                containsString("--rerun-failed requires --failed-tests"));
+    }
+}
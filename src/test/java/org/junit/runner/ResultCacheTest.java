@@ -0,0 +1,383 @@
+package org.junit.runner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+import org.junit.tests.TestSystem;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResultCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File cacheFile;
+
+    private File root;
+
+    private final List<String> skipped = new ArrayList<String>();
+
+    private final List<String> skippedTests = new ArrayList<String>();
+
+    @Before
+    public void setUp() throws IOException {
+        Shared.executions = 0;
+        Shared.independentExecutions = 0;
+        Shared.dependencyClasses.clear();
+        Shared.failing = false;
+        Shared.codeSource = null;
+        cacheFile = new File(folder.getRoot(), "results");
+        root = folder.newFolder("classes");
+        copyClassFile(ResultCacheTest.class);
+        copyClassFile(CachedSample.class);
+        copyClassFile(Dependency.class);
+        copyClassFile(Independent.class);
+        copyClassFile(SampleSuite.class);
+        copyClassFile(OtherCachedSample.class);
+        copyClassFile(CodeSourceSample.class);
+    }
+
+    @After
+    public void clearFailingProperty() {
+        System.clearProperty(FAILING_PROPERTY);
+    }
+
+    /**
+     * Not copied to the class directory, so the copies loaded from there
+     * share this state with the test.
+     */
+    public static class Shared {
+        public static int executions;
+
+        public static int independentExecutions;
+
+        public static final List<Class<?>> dependencyClasses = new ArrayList<Class<?>>();
+
+        public static boolean failing;
+
+        public static URL codeSource;
+    }
+
+    public static class CachedSample {
+        @Test
+        public void usesDependency() {
+            Shared.executions++;
+            assertEquals(Shared.failing ? "" : Dependency.version(), Dependency.version());
+        }
+    }
+
+    public static class OtherCachedSample {
+        @Test
+        public void usesDependency() {
+            Shared.executions++;
+            Shared.dependencyClasses.add(Dependency.class);
+            assertEquals("version-1", Dependency.version());
+        }
+    }
+
+    public static class Dependency {
+        public static String version() {
+            return "version-1";
+        }
+    }
+
+    public static class CodeSourceSample {
+        @Test
+        public void recordsItsCodeSource() {
+            Shared.codeSource = getClass().getProtectionDomain().getCodeSource().getLocation();
+        }
+    }
+
+    public static class Independent {
+        @Test
+        public void doesNotUseDependency() {
+            Shared.independentExecutions++;
+        }
+    }
+
+    @RunWith(Suite.class)
+    @SuiteClasses({CachedSample.class, Independent.class})
+    public static class SampleSuite {
+    }
+
+    /**
+     * Set while the tests of {@link FailingMember} should fail. Being a
+     * system property, it is seen by the copies of the class that the
+     * result cache loads from the class path.
+     */
+    private static final String FAILING_PROPERTY = "ResultCacheTest.failing";
+
+    public static class PassingMember {
+        @Test
+        public void passes() {
+        }
+    }
+
+    public static class FailingMember {
+        @Test
+        public void failsWhileFailingPropertyIsSet() {
+            assertFalse(Boolean.getBoolean(FAILING_PROPERTY));
+        }
+    }
+
+    @RunWith(Suite.class)
+    @SuiteClasses({PassingMember.class, FailingMember.class})
+    public static class MemberSuite {
+    }
+
+    public static class NotInRoots {
+        @Test
+        public void passes() {
+            Shared.executions++;
+        }
+    }
+
+    private File classFile(Class<?> type) {
+        return new File(root, type.getName().replace('.', File.separatorChar) + ".class");
+    }
+
+    private void copyClassFile(Class<?> type) throws IOException {
+        String resource = "/" + type.getName().replace('.', '/') + ".class";
+        File file = classFile(type);
+        file.getParentFile().mkdirs();
+        InputStream in = type.getResourceAsStream(resource);
+        try {
+            write(file, readFully(in));
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        byte[] bytes = new byte[0];
+        byte[] buffer = new byte[4096];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            byte[] joined = new byte[bytes.length + read];
+            System.arraycopy(bytes, 0, joined, 0, bytes.length);
+            System.arraycopy(buffer, 0, joined, bytes.length, read);
+            bytes = joined;
+        }
+        return bytes;
+    }
+
+    private static void write(File file, byte[] bytes) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void changeDependency() throws IOException {
+        File file = classFile(Dependency.class);
+        InputStream in = new FileInputStream(file);
+        byte[] bytes;
+        try {
+            bytes = readFully(in);
+        } finally {
+            in.close();
+        }
+        String contents = new String(bytes, "ISO-8859-1").replace("version-1", "version-2");
+        write(file, contents.getBytes("ISO-8859-1"));
+    }
+
+    private Result run(Class<?>... classes) {
+        ResultCache cache = ResultCache.open(cacheFile, asList(root));
+        JUnitCore core = new JUnitCore();
+        core.addListener(new RunListener() {
+            @Override
+            public void testAssumptionFailure(Failure failure) {
+                skipped.add(failure.getMessage());
+            }
+        });
+        return core.run(Request.classes(cache.computer(new Computer()), classes));
+    }
+
+    private Result runMain(String... args) {
+        JUnitCore core = new JUnitCore();
+        core.addListener(new RunListener() {
+            @Override
+            public void testAssumptionFailure(Failure failure) {
+                skippedTests.add(failure.getDescription().getMethodName());
+            }
+        });
+        return core.runMain(new TestSystem(), args);
+    }
+
+    @Test
+    public void runsTestsTheFirstTime() {
+        Result result = run(CachedSample.class);
+
+        assertTrue(result.wasSuccessful());
+        assertThat(Shared.executions, is(1));
+        assertTrue(cacheFile.isFile());
+    }
+
+    @Test
+    public void skipsTestsThatPassedBefore() {
+        run(CachedSample.class);
+
+        Result result = run(CachedSample.class);
+
+        assertThat(Shared.executions, is(1));
+        assertThat(result.getRunCount(), is(1));
+        assertThat(skipped, is(asList(ResultCache.SKIPPED)));
+    }
+
+    @Test
+    public void rerunsTestsWhenADependencyChanged() throws IOException {
+        run(CachedSample.class);
+        changeDependency();
+
+        run(CachedSample.class);
+
+        assertThat(Shared.executions, is(2));
+        assertTrue(skipped.isEmpty());
+    }
+
+    @Test
+    public void rerunsEveryTestClassThatUsesAChangedDependency() throws IOException {
+        run(CachedSample.class, OtherCachedSample.class);
+        changeDependency();
+
+        run(CachedSample.class, OtherCachedSample.class);
+
+        assertThat(Shared.executions, is(4));
+    }
+
+    @Test
+    public void loadsTheTestClassesOfARunWithASingleLoader() {
+        run(OtherCachedSample.class, OtherCachedSample.class);
+
+        assertThat(Shared.dependencyClasses.size(), is(2));
+        assertThat(Shared.dependencyClasses.get(0), is((Object) Shared.dependencyClasses.get(1)));
+        assertThat(Shared.dependencyClasses.get(0), is(not((Object) Dependency.class)));
+    }
+
+    @Test
+    public void rerunsTestsWhenAResourceChanged() throws IOException {
+        File resource = new File(root, "sample.properties");
+        write(resource, "version=1".getBytes("UTF-8"));
+        run(CachedSample.class);
+        write(resource, "version=10".getBytes("UTF-8"));
+
+        run(CachedSample.class);
+
+        assertThat(Shared.executions, is(2));
+    }
+
+    @Test
+    public void loadsTrackedClassesWithTheirClassDirectoryAsCodeSource() throws IOException {
+        run(CodeSourceSample.class);
+
+        assertThat(Shared.codeSource, is(root.toURI().toURL()));
+    }
+
+    @Test
+    public void rerunsTestsWhenADependencyDisappeared() {
+        run(CachedSample.class);
+        assertTrue(classFile(Dependency.class).delete());
+
+        run(CachedSample.class);
+
+        assertThat(Shared.executions, is(2));
+    }
+
+    @Test
+    public void rerunsTestsThatFailed() {
+        Shared.failing = true;
+        run(CachedSample.class);
+        Shared.failing = false;
+
+        run(CachedSample.class);
+        run(CachedSample.class);
+
+        assertThat(Shared.executions, is(2));
+    }
+
+    @Test
+    public void skipsMembersOfASuiteThatPassed() {
+        Shared.failing = true;
+        run(SampleSuite.class);
+        Shared.failing = false;
+
+        Result result = run(SampleSuite.class);
+
+        assertTrue(result.wasSuccessful());
+        assertThat(Shared.executions, is(2));
+        assertThat(Shared.independentExecutions, is(1));
+        assertThat(skipped, is(asList(ResultCache.SKIPPED)));
+    }
+
+    @Test
+    public void resultCacheOptionSkipsMembersOfASuiteThatPassed() {
+        System.setProperty(FAILING_PROPERTY, "true");
+        runMain("--result-cache=" + cacheFile, MemberSuite.class.getName());
+        System.clearProperty(FAILING_PROPERTY);
+
+        Result rerun = runMain("--result-cache=" + cacheFile, MemberSuite.class.getName());
+        Result cached = runMain("--result-cache=" + cacheFile, MemberSuite.class.getName());
+
+        assertTrue(rerun.wasSuccessful());
+        assertTrue(cached.wasSuccessful());
+        assertThat(skippedTests, is(asList("passes", "passes", "failsWhileFailingPropertyIsSet")));
+    }
+
+    @Test
+    public void alwaysRunsClassesOutsideTheRoots() {
+        run(NotInRoots.class);
+
+        run(NotInRoots.class);
+
+        assertThat(Shared.executions, is(2));
+    }
+
+    @Test
+    public void ignoresCorruptCacheFile() throws IOException {
+        write(cacheFile, "not a cache".getBytes("UTF-8"));
+
+        Result result = run(CachedSample.class);
+
+        assertTrue(result.wasSuccessful());
+        assertThat(Shared.executions, is(1));
+    }
+
+    @Test
+    public void noCacheOptionOverridesResultCacheOption() {
+        JUnitCommandLineParseResult result = JUnitCommandLineParseResult.parse(
+                new String[]{"--result-cache=" + cacheFile, "--no-cache"});
+
+        assertThat(result.getResultCacheFile(), is(nullValue()));
+    }
+
+    @Test
+    public void resultCacheOptionCachesResults() {
+        new JUnitCore().runMain(new TestSystem(), "--result-cache=" + cacheFile, NotInRoots.class.getName());
+
+        assertTrue(cacheFile.isFile());
+    }
+}
@@ -0,0 +1,129 @@
+package org.junit.runner;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.notification.RunListener;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.InitializationError;
+
+public class StreamingRequestTest {
+    private static final long TIMEOUT = 15;
+    private static volatile CountDownLatch fFirstTestRan;
+    private static volatile String fLog;
+
+    public static class First {
+        @Test
+        public void first() {
+            fFirstTestRan.countDown();
+        }
+    }
+
+    public static class SlowToConstructRunner extends BlockJUnit4ClassRunner {
+        public SlowToConstructRunner(Class<?> klass) throws InitializationError, InterruptedException {
+            super(klass);
+            if (!fFirstTestRan.await(TIMEOUT, TimeUnit.SECONDS)) {
+                throw new InitializationError("first test did not run before construction finished");
+            }
+        }
+    }
+
+    @RunWith(SlowToConstructRunner.class)
+    public static class Second {
+        @Test
+        public void second() {
+        }
+    }
+
+    @Before
+    public void init() {
+        fFirstTestRan = new CountDownLatch(1);
+        fLog = "";
+    }
+
+    private class LoggingListener extends RunListener {
+        @Override
+        public void testSuiteDiscovered(Description description) {
+            fLog += "discovered " + description.getDisplayName() + " ";
+        }
+
+        @Override
+        public void testStarted(Description description) {
+            fLog += "started " + description.getMethodName() + " ";
+        }
+    }
+
+    @Test
+    public void runsTestsWhileLaterClassesAreStillBeingConstructed() {
+        JUnitCore core = new JUnitCore();
+        core.addListener(new LoggingListener());
+        Result result = core.run(Request.streamingClasses(new Computer(), First.class, Second.class));
+
+        assertTrue(result.wasSuccessful());
+        assertEquals(2, result.getRunCount());
+        assertEquals("discovered " + First.class.getName() + " started first "
+                + "discovered " + Second.class.getName() + " started second ", fLog);
+    }
+
+    @Test
+    public void appliesFiltersToEachDiscoveredClass() {
+        fFirstTestRan.countDown();
+        Request request = Request.streamingClasses(new Computer(), First.class, Second.class)
+                .filterWith(Description.createTestDescription(Second.class, "second"));
+        Result result = new JUnitCore().run(request);
+
+        assertTrue(result.wasSuccessful());
+        assertThat(result.getRunCount(), is(1));
+    }
+
+    @Test
+    public void reportsAClassThatCannotBeFilteredAndRunsTheOthers() {
+        fFirstTestRan.countDown();
+        Request request = Request.streamingClasses(new Computer(), First.class, Second.class)
+                .filterWith(new Filter() {
+                    @Override
+                    public boolean shouldRun(Description description) {
+                        if (First.class.equals(description.getTestClass())) {
+                            throw new IllegalStateException("cannot filter First");
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public String describe() {
+                        return "all but First";
+                    }
+                });
+        Result result = new JUnitCore().run(request);
+
+        assertThat(result.getRunCount(), is(2));
+        assertThat(result.getFailureCount(), is(1));
+        assertThat(result.getFailures().get(0).getMessage(), is("cannot filter First"));
+    }
+
+    @Test
+    public void reportsTheClassesThatWereNotRunWhenInterrupted() {
+        fFirstTestRan.countDown();
+        Request request = Request.streamingClasses(new Computer(), First.class, Second.class);
+        Result result;
+        Thread.currentThread().interrupt();
+        try {
+            result = new JUnitCore().run(request);
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertFalse(result.wasSuccessful());
+        assertThat(result.getFailures().get(0).getException(), instanceOf(InterruptedException.class));
+    }
+}
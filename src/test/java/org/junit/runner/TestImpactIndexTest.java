@@ -0,0 +1,188 @@
+package org.junit.runner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.samples.Dependency;
+import org.junit.runner.samples.Independent;
+import org.junit.runner.samples.UsesDependency;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestImpactIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File indexFile;
+
+    private File root;
+
+    private final List<String> started = new ArrayList<String>();
+
+    @Before
+    public void setUp() throws IOException {
+        indexFile = new File(folder.getRoot(), "impact");
+        root = folder.newFolder("classes");
+        copyClassFile(root, UsesDependency.class);
+        copyClassFile(root, Independent.class);
+        copyClassFile(root, Dependency.class);
+    }
+
+    public static class NotInRoots {
+        @Test
+        public void notInRoots() {
+        }
+    }
+
+    private static File classFile(File directory, Class<?> type) {
+        return new File(directory, type.getName().replace('.', File.separatorChar) + ".class");
+    }
+
+    private static void copyClassFile(File directory, Class<?> type) throws IOException {
+        File file = classFile(directory, type);
+        file.getParentFile().mkdirs();
+        InputStream in = type.getResourceAsStream("/" + type.getName().replace('.', '/') + ".class");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                byte[] buffer = new byte[4096];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private TestImpactIndex index() {
+        return TestImpactIndex.open(indexFile, asList(root));
+    }
+
+    private void recordAll() {
+        run(Request.classes(index().computer(new Computer()),
+                Independent.class, UsesDependency.class));
+        started.clear();
+    }
+
+    private Result run(Request request) {
+        JUnitCore core = new JUnitCore();
+        core.addListener(new RunListener() {
+            @Override
+            public void testStarted(Description description) {
+                started.add(description.getMethodName());
+            }
+        });
+        return core.run(request);
+    }
+
+    private Result runAffectedBy(TestImpactIndex index, String... changedClasses) {
+        return run(index.request(new Computer(), asList(changedClasses),
+                UsesDependency.class, Independent.class, NotInRoots.class));
+    }
+
+    @Test
+    public void selectsTestsThatLoadedAChangedClass() {
+        recordAll();
+
+        runAffectedBy(index(), Dependency.class.getName());
+
+        assertThat(started, is(asList("usesDependency", "notInRoots")));
+    }
+
+    @Test
+    public void selectsTestsThatFinishedAfterAChangedClassWasLoaded() {
+        run(Request.classes(index().computer(new Computer()),
+                UsesDependency.class, Independent.class));
+        started.clear();
+
+        runAffectedBy(index().selectingUnrecordedTests(false), Dependency.class.getName());
+
+        assertThat(started, is(asList("usesDependency", "independent")));
+    }
+
+    @Test
+    public void selectsTestClassThatChangedItself() {
+        recordAll();
+
+        runAffectedBy(index(), Independent.class.getName());
+
+        assertThat(started, is(asList("independent", "notInRoots")));
+    }
+
+    @Test
+    public void unrecordedTestsCanBeLeftOut() {
+        recordAll();
+
+        runAffectedBy(index().selectingUnrecordedTests(false), Dependency.class.getName());
+
+        assertThat(started, is(asList("usesDependency")));
+    }
+
+    @Test
+    public void selectsAllTestsWithoutIndex() {
+        runAffectedBy(index(), Dependency.class.getName());
+
+        assertThat(started, is(asList("usesDependency", "independent", "notInRoots")));
+    }
+
+    @Test
+    public void selectsNothingRecordedIfNothingChanged() {
+        recordAll();
+
+        runAffectedBy(index().selectingUnrecordedTests(false));
+
+        assertTrue(started.isEmpty());
+    }
+
+    @Test
+    public void indexIsStoredInFile() {
+        recordAll();
+
+        TestImpactIndex index = index();
+
+        assertTrue(index.isAffected(UsesDependency.class.getName(),
+                Collections.singleton(Dependency.class.getName())));
+        assertFalse(index.isAffected(Independent.class.getName(),
+                Collections.singleton(Dependency.class.getName())));
+    }
+
+    @Test
+    public void findsChangedClassesBetweenDirectories() throws IOException {
+        File before = folder.newFolder("before");
+        File after = folder.newFolder("after");
+        copyClassFile(before, Independent.class);
+        copyClassFile(before, Dependency.class);
+        copyClassFile(after, Dependency.class);
+        copyClassFile(after, UsesDependency.class);
+        OutputStream out = new FileOutputStream(classFile(after, Dependency.class), true);
+        try {
+            out.write(0);
+        } finally {
+            out.close();
+        }
+
+        Set<String> changed = TestImpactIndex.changedClasses(before, after);
+
+        assertThat(new ArrayList<String>(changed), is(asList(Dependency.class.getName(),
+                Independent.class.getName(), UsesDependency.class.getName())));
+    }
+}
@@ -0,0 +1,145 @@
+package org.junit.runner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.samples.Dependency;
+import org.junit.runner.samples.Independent;
+import org.junit.runner.samples.UsesDependency;
+import org.junit.tests.TestSystem;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class WatchModeTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+
+    private WatchMode watchMode;
+
+    private final List<String> started = new ArrayList<String>();
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.newFolder("classes");
+        copyClassFile(UsesDependency.class);
+        copyClassFile(Independent.class);
+        copyClassFile(Dependency.class);
+        JUnitCore core = new JUnitCore();
+        core.addListener(new RunListener() {
+            @Override
+            public void testStarted(Description description) {
+                started.add(description.getMethodName());
+            }
+        });
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        classes.add(Independent.class);
+        classes.add(UsesDependency.class);
+        watchMode = new WatchMode(core, new TestSystem(), new Computer(), classes, Filter.ALL, asList(root));
+    }
+
+    private File classFile(Class<?> type) {
+        return new File(root, type.getName().replace('.', File.separatorChar) + ".class");
+    }
+
+    private void copyClassFile(Class<?> type) throws IOException {
+        File file = classFile(type);
+        file.getParentFile().mkdirs();
+        InputStream in = type.getResourceAsStream("/" + type.getName().replace('.', '/') + ".class");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                byte[] buffer = new byte[4096];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void touch(Class<?> type) {
+        File file = classFile(type);
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+    }
+
+    @Test
+    public void runsAllTestsFirst() {
+        watchMode.runAll();
+
+        assertThat(started, is(asList("independent", "usesDependency")));
+    }
+
+    @Test
+    public void runsNothingWithoutChanges() {
+        watchMode.runAll();
+        started.clear();
+
+        assertThat(watchMode.runChanged(), is(nullValue()));
+        assertTrue(started.isEmpty());
+    }
+
+    @Test
+    public void rerunsTestsAffectedByChangedClass() {
+        watchMode.runAll();
+        started.clear();
+        touch(Dependency.class);
+
+        watchMode.runChanged();
+
+        assertThat(started, is(asList("usesDependency")));
+    }
+
+    @Test
+    public void rerunsChangedTestClass() {
+        watchMode.runAll();
+        started.clear();
+        touch(Independent.class);
+
+        watchMode.runChanged();
+
+        assertThat(started, is(asList("independent")));
+    }
+
+    @Test
+    public void rerunsTestsAffectedByRemovedClass() {
+        watchMode.runAll();
+        started.clear();
+        assertTrue(classFile(Dependency.class).delete());
+
+        watchMode.runChanged();
+
+        assertThat(started, is(asList("usesDependency")));
+    }
+
+    @Test
+    public void watchCannotBeCombinedWithRerunFailed() {
+        TestSystem system = new TestSystem();
+        Result result = new JUnitCore().runMain(system, "--watch",
+                "--failed-tests=" + new File(folder.getRoot(), "failed.txt"),
+                "--rerun-failed");
+
+        assertThat(result.getFailureCount(), is(1));
+        assertThat(result.getFailures().get(0).getMessage(), containsString("--watch cannot be combined"));
+    }
+}
@@ -0,0 +1,6 @@
+package org.junit.runner.samples;
+
+public class Dependency {
+    public static void use() {
+    }
+}
@@ -0,0 +1,9 @@
+package org.junit.runner.samples;
+
+import org.junit.Test;
+
+public class Independent {
+    @Test
+    public void independent() {
+    }
+}
@@ -0,0 +1,10 @@
+package org.junit.runner.samples;
+
+import org.junit.Test;
+
+public class UsesDependency {
+    @Test
+    public void usesDependency() {
+        Dependency.use();
+    }
+}
@@ -4,13 +4,20 @@ import junit.framework.JUnit4TestAdapter;
 import junit.framework.Test;
 import org.junit.AssumptionViolatedExceptionTest;
 import org.junit.experimental.categories.CategoryFilterFactoryTest;
+import org.junit.experimental.server.TestServerTest;
+import org.junit.internal.AtomicFilesTest;
 import org.junit.internal.MethodSorterTest;
 import org.junit.internal.matchers.StacktracePrintingMatcherTest;
+import org.junit.runner.FailedTestsOptionIntegrationTest;
 import org.junit.runner.FilterFactoriesTest;
 import org.junit.runner.FilterOptionIntegrationTest;
 import org.junit.runner.JUnitCommandLineParseResultTest;
 import org.junit.runner.JUnitCoreTest;
+import org.junit.runner.ResultCacheTest;
 import org.junit.runner.RunWith;
+import org.junit.runner.StreamingRequestTest;
+import org.junit.runner.TestImpactIndexTest;
+import org.junit.runner.WatchModeTest;
 import org.junit.runner.notification.ConcurrentRunNotifierTest;
 import org.junit.runner.notification.RunNotifierTest;
 import org.junit.runner.notification.SynchronizedRunListenerTest;
@@ -23,7 +30,10 @@ import org.junit.runners.parameterized.ParameterizedNamesTest;
 import org.junit.runners.parameterized.TestWithParametersTest;
 import org.junit.tests.assertion.AssertionTest;
 import org.junit.tests.assertion.ComparisonFailureTest;
+import org.junit.tests.assertion.ContentAssertionTest;
+import org.junit.tests.assertion.LineDiffComparisonFailureTest;
 import org.junit.tests.assertion.MultipleFailureExceptionTest;
+import org.junit.tests.assertion.ResourceBudgetTest;
 import org.junit.tests.description.AnnotatedDescriptionTest;
 import org.junit.tests.description.SuiteDescriptionTest;
 import org.junit.tests.description.TestDescriptionMethodNameTest;
@@ -31,22 +41,33 @@ import org.junit.tests.description.TestDescriptionTest;
 import org.junit.tests.experimental.AssumptionTest;
 import org.junit.tests.experimental.ExperimentalTests;
 import org.junit.tests.experimental.MatcherTest;
+import org.junit.tests.experimental.benchmark.BenchmarkRunnerTest;
 import org.junit.tests.experimental.categories.CategoriesAndParameterizedTest;
 import org.junit.tests.experimental.categories.CategoryTest;
 import org.junit.tests.experimental.categories.JavadocTest;
 import org.junit.tests.experimental.categories.MultiCategoryTest;
+import org.junit.tests.experimental.discovery.DiscoveryIndexTest;
+import org.junit.tests.experimental.discovery.IndexedComputerTest;
+import org.junit.tests.experimental.discovery.TestClassScannerTest;
+import org.junit.tests.experimental.discovery.TestPlanGeneratorTest;
 import org.junit.tests.experimental.max.JUnit38SortingTest;
+import org.junit.tests.experimental.max.MaxHistoryTest;
 import org.junit.tests.experimental.max.MaxStarterTest;
+import org.junit.tests.experimental.max.TestStatisticsTest;
 import org.junit.tests.experimental.parallel.ParallelClassTest;
+import org.junit.tests.experimental.parallel.ParallelConstructionTest;
 import org.junit.tests.experimental.parallel.ParallelMethodTest;
 import org.junit.tests.experimental.rules.BlockJUnit4ClassRunnerOverrideTest;
 import org.junit.tests.experimental.rules.ClassRulesTest;
+import org.junit.tests.experimental.rules.ConcurrentlyRuleTest;
 import org.junit.tests.experimental.rules.ExpectedExceptionTest;
 import org.junit.tests.experimental.rules.ExternalResourceRuleTest;
 import org.junit.tests.experimental.rules.MethodRulesTest;
 import org.junit.tests.experimental.rules.NameRulesTest;
+import org.junit.tests.experimental.rules.PerformanceGuardTest;
 import org.junit.tests.experimental.rules.RuleChainTest;
 import org.junit.tests.experimental.rules.RuleFieldValidatorTest;
+import org.junit.tests.experimental.rules.SnapshotRuleTest;
 import org.junit.tests.experimental.rules.StopwatchTest;
 import org.junit.tests.experimental.rules.TempFolderRuleTest;
 import org.junit.tests.experimental.rules.TemporaryFolderUsageTest;
@@ -88,6 +109,7 @@ import org.junit.tests.running.classes.ParentRunnerFilteringTest;
 import org.junit.tests.running.classes.ParentRunnerTest;
 import org.junit.tests.running.classes.RunWithTest;
 import org.junit.tests.running.classes.SuiteTest;
+import org.junit.tests.running.classes.TestPlanTest;
 import org.junit.tests.running.classes.UseSuiteAsASuperclassTest;
 import org.junit.tests.running.core.CommandLineTest;
 import org.junit.tests.running.core.JUnitCoreReturnsCorrectExitCodeTest;
@@ -169,6 +191,7 @@ import org.junit.validator.PublicClassValidatorTest;
         TimeoutRuleTest.class,
         ParallelClassTest.class,
         ParallelMethodTest.class,
+        ParallelConstructionTest.class,
         ParentRunnerTest.class,
         NameRulesTest.class,
         ClassRulesTest.class,
@@ -201,9 +224,30 @@ import org.junit.validator.PublicClassValidatorTest;
         FrameworkMethodTest.class,
         FailOnTimeoutTest.class,
         JUnitCoreTest.class,
+        StreamingRequestTest.class,
         TestWithParametersTest.class,
         ParameterizedNamesTest.class,
-        PublicClassValidatorTest.class
+        PublicClassValidatorTest.class,
+        TestClassScannerTest.class,
+        DiscoveryIndexTest.class,
+        IndexedComputerTest.class,
+        TestPlanTest.class,
+        TestPlanGeneratorTest.class,
+        MaxHistoryTest.class,
+        TestStatisticsTest.class,
+        FailedTestsOptionIntegrationTest.class,
+        ResultCacheTest.class,
+        TestImpactIndexTest.class,
+        WatchModeTest.class,
+        TestServerTest.class,
+        LineDiffComparisonFailureTest.class,
+        ContentAssertionTest.class,
+        SnapshotRuleTest.class,
+        ConcurrentlyRuleTest.class,
+        BenchmarkRunnerTest.class,
+        PerformanceGuardTest.class,
+        ResourceBudgetTest.class,
+        AtomicFilesTest.class
 })
 public class AllTests {
     public static Test suite() {
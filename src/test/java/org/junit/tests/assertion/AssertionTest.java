@@ -1,10 +1,14 @@
 package org.junit.tests.assertion;
 
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertContainedIn;
+import static org.junit.Assert.assertContainsAll;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertEqualsIgnoringOrder;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -14,6 +18,8 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.ComparisonFailure;
@@ -176,6 +182,66 @@ public class AssertionTest {
         assertArrayEquals(new boolean[]{true}, new boolean[]{false});
     }
 
+    @Test
+    public void primitiveArraysReportFirstDifferingElement() {
+        byte[] expecteds = new byte[100000];
+        byte[] actuals = new byte[100000];
+        actuals[99998] = 1;
+        actuals[99999] = 2;
+        try {
+            assertArrayEquals("message", expecteds, actuals);
+        } catch (ArrayComparisonFailure exception) {
+            assertEquals("message: arrays first differed at element [99998]; expected:<0> but was:<1>",
+                    exception.getMessage());
+            return;
+        }
+        fail("Expected ArrayComparisonFailure");
+    }
+
+    @Test
+    public void doubleArraysReportFirstElementOutsideDelta() {
+        try {
+            assertArrayEquals(new double[]{1.0, 2.0, 3.0}, new double[]{1.5, 2.0, 4.0}, 0.5);
+        } catch (ArrayComparisonFailure exception) {
+            assertEquals("arrays first differed at element [2]; expected:<3.0> but was:<4.0>",
+                    exception.getMessage());
+            return;
+        }
+        fail("Expected ArrayComparisonFailure");
+    }
+
+    @Test
+    public void floatArraysReportFirstElementOutsideDelta() {
+        try {
+            assertArrayEquals(new float[]{1.0f, 2.0f}, new float[]{2.5f, 2.0f}, 1.0f);
+        } catch (ArrayComparisonFailure exception) {
+            assertEquals("arrays first differed at element [0]; expected:<1.0> but was:<2.5>",
+                    exception.getMessage());
+            return;
+        }
+        fail("Expected ArrayComparisonFailure");
+    }
+
+    @Test
+    public void doubleArraysWithNaNsAreEqual() {
+        assertArrayEquals(new double[]{Double.NaN}, new double[]{Double.NaN}, 0.0);
+        assertArrayEquals(new float[]{Float.NaN}, new float[]{Float.NaN}, 0.0f);
+    }
+
+    @Test
+    public void multiDimensionalIntArraysReportDimensionsOfFirstDifference() {
+        int[][] expecteds = {{1, 2, 3}, {4, 5, 6}};
+        int[][] actuals = {{1, 2, 3}, {4, 7, 6}};
+        try {
+            assertArrayEquals("message", expecteds, actuals);
+        } catch (ArrayComparisonFailure exception) {
+            assertEquals("message: arrays first differed at element [1][1]; expected:<5> but was:<7>",
+                    exception.getMessage());
+            return;
+        }
+        fail("Expected ArrayComparisonFailure");
+    }
+
     @Test(expected = AssertionError.class)
     public void IntegerDoesNotEqualLong() {
         assertEquals(new Integer(1), new Long(1));
@@ -648,4 +714,132 @@ public class AssertionTest {
     public void assertNotEqualsIgnoresFloatDeltaOnNaN() {
         assertNotEquals(Float.NaN, Float.NaN, 1f);
     }
+
+    @Test
+    public void collectionsWithSameElementsInOtherOrderAreEqualIgnoringOrder() {
+        assertEqualsIgnoringOrder(asList("a", "b", "b", null), asList(null, "b", "a", "b"));
+        assertEqualsIgnoringOrder(null, null);
+    }
+
+    @Test
+    public void equalsIgnoringOrderReportsMissingUnexpectedAndCountDifferences() {
+        try {
+            assertEqualsIgnoringOrder("message", asList("a", "b", "b", "c"), asList("b", "c", "d"));
+        } catch (AssertionError exception) {
+            assertEquals("message: collections differed ignoring order (expected 4 elements, actual 3 elements)\n"
+                    + "  missing (1): <a>\n"
+                    + "  unexpected (1): <d>\n"
+                    + "  different counts (1): <b (expected 2 times, actual 1 times)>",
+                    exception.getMessage());
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    @Test
+    public void equalsIgnoringOrderLimitsReportedElements() {
+        List<Integer> expected = new ArrayList<Integer>();
+        List<Integer> actual = new ArrayList<Integer>();
+        for (int i = 0; i < 1000000; i++) {
+            expected.add(i);
+            actual.add(i < 100 ? -i - 1 : i);
+        }
+        try {
+            assertEqualsIgnoringOrder(expected, actual);
+        } catch (AssertionError exception) {
+            assertTrue(exception.getMessage().contains("\n  missing (100): <0>, <1>, <2>, <3>, <4>, <5>, <6>, <7>, <8>, <9> and 90 more"));
+            assertTrue(exception.getMessage().length() < 500);
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    private static class CountsFormatting {
+        static int formatted;
+
+        private final int fValue;
+
+        CountsFormatting(int value) {
+            fValue = value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CountsFormatting && ((CountsFormatting) obj).fValue == fValue;
+        }
+
+        @Override
+        public int hashCode() {
+            return fValue;
+        }
+
+        @Override
+        public String toString() {
+            formatted++;
+            return String.valueOf(fValue);
+        }
+    }
+
+    @Test
+    public void equalsIgnoringOrderFormatsOnlyReportedElements() {
+        List<CountsFormatting> expected = new ArrayList<CountsFormatting>();
+        List<CountsFormatting> actual = new ArrayList<CountsFormatting>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(new CountsFormatting(i));
+            expected.add(new CountsFormatting(i));
+            actual.add(new CountsFormatting(i % 2 == 0 ? i : -i - 1));
+        }
+        CountsFormatting.formatted = 0;
+        try {
+            assertEqualsIgnoringOrder(expected, actual);
+        } catch (AssertionError exception) {
+            assertEquals(30, CountsFormatting.formatted);
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    @Test(expected = AssertionError.class)
+    public void equalsIgnoringOrderFailsForNullActual() {
+        assertEqualsIgnoringOrder(asList("a"), null);
+    }
+
+    @Test
+    public void containsAllPassesForSubsetWithCounts() {
+        assertContainsAll(asList("a", "b"), asList("b", "c", "a"));
+        assertContainsAll(asList("b", "b"), asList("b", "a", "b"));
+    }
+
+    @Test
+    public void containsAllReportsOnlyMissingElements() {
+        try {
+            assertContainsAll(asList("a", "b", "b"), asList("b", "c"));
+        } catch (AssertionError exception) {
+            assertEquals("actual collection did not contain all expected elements (expected 3 elements, actual 2 elements)\n"
+                    + "  missing (1): <a>\n"
+                    + "  different counts (1): <b (expected 2 times, actual 1 times)>",
+                    exception.getMessage());
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    @Test
+    public void containedInPassesForSuperset() {
+        assertContainedIn(asList("a", "b", "c"), asList("c", "a"));
+    }
+
+    @Test
+    public void containedInReportsOnlyUnexpectedElements() {
+        try {
+            assertContainedIn(asList("a", "b"), asList("b", "b", "c"));
+        } catch (AssertionError exception) {
+            assertEquals("actual collection was not contained in expected collection (expected 2 elements, actual 3 elements)\n"
+                    + "  unexpected (1): <c>\n"
+                    + "  different counts (1): <b (expected 1 times, actual 2 times)>",
+                    exception.getMessage());
+            return;
+        }
+        fail("Expected AssertionError");
+    }
 }
@@ -0,0 +1,137 @@
+package org.junit.tests.assertion;
+
+import static org.junit.Assert.assertContentEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContentAssertionTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] content(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) ('a' + i % 26);
+        }
+        return bytes;
+    }
+
+    private File file(byte[] bytes) throws IOException {
+        File file = folder.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void equalFilesPass() throws IOException {
+        assertContentEquals(file(content(100000)), file(content(100000)));
+        assertContentEquals(file(new byte[0]), file(new byte[0]));
+    }
+
+    @Test
+    public void filesOfDifferentSizesFail() throws IOException {
+        try {
+            assertContentEquals("golden", file(content(10)), file(content(11)));
+        } catch (AssertionError e) {
+            assertEquals("golden: sizes differed, expected.size=10 actual.size=11", e.getMessage());
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    @Test
+    public void differingFilesReportFirstDifferingOffset() throws IOException {
+        byte[] actual = content(100000);
+        actual[70001] = '\n';
+        actual[90000] = 'X';
+        try {
+            assertContentEquals("golden", file(content(100000)), file(actual));
+        } catch (AssertionError e) {
+            assertEquals("golden: contents differed at offset 70001\n"
+                    + "  expected: 62 63 64 65 66 67 68 69 [6a] 6b 6c 6d 6e 6f 70 71 72  |bcdefghi[j]klmnopqr|\n"
+                    + "  actual:   62 63 64 65 66 67 68 69 [0a] 6b 6c 6d 6e 6f 70 71 72  |bcdefghi[.]klmnopqr|",
+                    e.getMessage());
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    @Test
+    public void comparesRemainingBytesOfBuffers() {
+        ByteBuffer expected = ByteBuffer.wrap(content(20));
+        ByteBuffer actual = ByteBuffer.allocateDirect(30);
+        actual.put(new byte[10]).put(content(20)).position(10);
+
+        assertContentEquals(expected, actual);
+        assertEquals(10, actual.position());
+    }
+
+    @Test
+    public void differingBuffersReportOffsetRelativeToPosition() {
+        byte[] actual = content(20);
+        actual[0] = 'X';
+        try {
+            assertContentEquals(ByteBuffer.wrap(content(20)), ByteBuffer.wrap(actual));
+        } catch (AssertionError e) {
+            assertEquals("contents differed at offset 0\n"
+                    + "  expected: [61] 62 63 64 65 66 67 68 69  |[a]bcdefghi|\n"
+                    + "  actual:   [58] 62 63 64 65 66 67 68 69  |[X]bcdefghi|",
+                    e.getMessage());
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    @Test
+    public void equalStreamsPass() throws IOException {
+        assertContentEquals(new ByteArrayInputStream(content(200000)), new ByteArrayInputStream(content(200000)));
+    }
+
+    @Test
+    public void differingStreamsReportFirstDifferingOffset() throws IOException {
+        byte[] actual = content(200000);
+        actual[150000] = 'X';
+        try {
+            assertContentEquals(new ByteArrayInputStream(content(200000)), new ByteArrayInputStream(actual));
+        } catch (AssertionError e) {
+            assertEquals("contents differed at offset 150000\n"
+                    + "  expected: 79 7a 61 62 63 64 65 66 [67] 68 69 6a 6b 6c 6d 6e 6f  |yzabcdef[g]hijklmno|\n"
+                    + "  actual:   79 7a 61 62 63 64 65 66 [58] 68 69 6a 6b 6c 6d 6e 6f  |yzabcdef[X]hijklmno|",
+                    e.getMessage());
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    @Test
+    public void shorterStreamFails() throws IOException {
+        InputStream expected = new ByteArrayInputStream(content(65536 + 3));
+        InputStream actual = new ByteArrayInputStream(content(65536 + 1));
+        try {
+            assertContentEquals(expected, actual);
+        } catch (AssertionError e) {
+            assertEquals("contents differed at offset 65537, actual stream ended\n"
+                    + "  expected: 71 [72] 73  |q[r]s|\n"
+                    + "  actual:   71 [end]  |q[end]|",
+                    e.getMessage());
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+}
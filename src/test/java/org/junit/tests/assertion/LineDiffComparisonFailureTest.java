@@ -0,0 +1,94 @@
+package org.junit.tests.assertion;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.ComparisonFailure;
+import org.junit.Test;
+
+public class LineDiffComparisonFailureTest {
+    private static String lines(int count, int changed, String replacement) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            builder.append(i == changed ? replacement : "line " + i).append('\n');
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void shortStringsAreCompacted() {
+        ComparisonFailure failure = new ComparisonFailure("", "a\nb", "a\nc");
+
+        assertEquals("expected:<a\n[b]> but was:<a\n[c]>", failure.getMessage());
+    }
+
+    @Test
+    public void longStringsShowChangedLineWithContext() {
+        ComparisonFailure failure = new ComparisonFailure("report", lines(2000, 1000, "line 1000"),
+                lines(2000, 1000, "changed"));
+
+        assertEquals("report expected and actual differed in lines (expected 2001 lines, actual 2001 lines):\n"
+                + "--- expected\n"
+                + "+++ actual\n"
+                + "@@ -997,7 +997,7 @@\n"
+                + " line 997\n"
+                + " line 998\n"
+                + " line 999\n"
+                + "-line 1000\n"
+                + "+changed\n"
+                + " line 1001\n"
+                + " line 1002\n"
+                + " line 1003", failure.getMessage());
+    }
+
+    @Test
+    public void longStringsShowInsertedAndRemovedLines() {
+        String expected = lines(2000, 0, null);
+        String actual = expected.replace("line 10\n", "").replace("line 1500\n", "line 1500\nnew line\n");
+        ComparisonFailure failure = new ComparisonFailure(null, expected, actual);
+
+        String message = failure.getMessage();
+        assertThat(message, containsString("@@ -7,7 +7,6 @@\n line 7\n line 8\n line 9\n-line 10\n line 11\n"));
+        assertThat(message, containsString("@@ -1498,6 +1497,7 @@\n line 1498\n line 1499\n line 1500\n+new line\n line 1501\n"));
+    }
+
+    @Test
+    public void showsOnlyFirstHunks() {
+        String expected = lines(2000, 0, null);
+        String actual = expected;
+        for (int i = 1; i <= 20; i++) {
+            actual = actual.replace("line " + (i * 50) + "\n", "changed " + i + "\n");
+        }
+        ComparisonFailure failure = new ComparisonFailure(null, expected, actual);
+
+        String message = failure.getMessage();
+        assertThat(message, containsString("+changed 5\n"));
+        assertThat(message, not(containsString("+changed 6\n")));
+        assertThat(message, containsString("(more hunks omitted)"));
+    }
+
+    @Test
+    public void showsLinesFromFirstDifferenceIfTooManyLinesDiffer() {
+        String expected = lines(2000, 0, null);
+        String actual = expected.replace("line", "row");
+        ComparisonFailure failure = new ComparisonFailure(null, expected, actual);
+
+        String message = failure.getMessage();
+        assertThat(message, containsString("showing the lines from line 1 on)\n-line 1\n"));
+        assertThat(message, containsString("\n+row 1\n"));
+        assertTrue(message.length() < 2000);
+    }
+
+    @Test
+    public void keepsExpectedAndActual() {
+        String expected = lines(2000, 1, "a");
+        String actual = lines(2000, 1, "b");
+        ComparisonFailure failure = new ComparisonFailure(null, expected, actual);
+
+        assertEquals(expected, failure.getExpected());
+        assertEquals(actual, failure.getActual());
+    }
+}
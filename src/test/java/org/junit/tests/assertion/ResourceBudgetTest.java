@@ -0,0 +1,100 @@
+package org.junit.tests.assertion;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertAllocatesAtMost;
+import static org.junit.Assert.assertCpuTimeAtMost;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.internal.ResourceBudget;
+
+public class ResourceBudgetTest {
+    private static int counter;
+
+    private static Object retained;
+
+    private static final Runnable INCREMENTS = new Runnable() {
+        public void run() {
+            counter++;
+        }
+    };
+
+    private static final Runnable ALLOCATES = new Runnable() {
+        public void run() {
+            retained = new byte[100000];
+        }
+    };
+
+    private static final Runnable SPINS = new Runnable() {
+        public void run() {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+            while (System.nanoTime() < end) {
+                counter++;
+            }
+        }
+    };
+
+    @Test
+    public void codeWithoutAllocationsFitsEmptyBudget() {
+        assertAllocatesAtMost(0, INCREMENTS);
+    }
+
+    @After
+    public void clearProperties() {
+        System.clearProperty(ResourceBudget.WARMUP_ITERATIONS_PROPERTY);
+        System.clearProperty(ResourceBudget.WARMUP_MILLIS_PROPERTY);
+    }
+
+    @Test
+    public void allocationsOverBudgetFail() {
+        System.setProperty(ResourceBudget.WARMUP_ITERATIONS_PROPERTY, "10");
+        try {
+            assertAllocatesAtMost("buffer", 1000, ALLOCATES);
+        } catch (AssertionError e) {
+            assertThat(e.getMessage(), startsWith("buffer: allocated "));
+            assertThat(e.getMessage(), containsString(
+                    " bytes, more than the budget of 1000 bytes (least of 5 runs after 10 warmup runs)"));
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    @Test
+    public void warmupOfSlowCodeIsLimitedInTime() {
+        System.setProperty(ResourceBudget.WARMUP_MILLIS_PROPERTY, "1");
+        try {
+            assertCpuTimeAtMost("spin", 1, TimeUnit.MILLISECONDS, SPINS);
+        } catch (AssertionError e) {
+            assertThat(e.getMessage(), containsString("(least of 5 runs after 1 warmup runs)"));
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    @Test
+    public void allocationsWithinBudgetPass() {
+        assertAllocatesAtMost(200000, ALLOCATES);
+    }
+
+    @Test
+    public void cpuTimeOverBudgetFails() {
+        try {
+            assertCpuTimeAtMost("spin", 1, TimeUnit.MILLISECONDS, SPINS);
+        } catch (AssertionError e) {
+            assertThat(e.getMessage(), startsWith("spin: used "));
+            assertThat(e.getMessage(), containsString(" ns of CPU time, more than the budget of 1000000 ns"));
+            return;
+        }
+        fail("Expected AssertionError");
+    }
+
+    @Test
+    public void cpuTimeWithinBudgetPasses() {
+        assertCpuTimeAtMost(1, TimeUnit.SECONDS, INCREMENTS);
+    }
+}
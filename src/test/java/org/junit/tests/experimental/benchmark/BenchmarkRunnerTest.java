@@ -0,0 +1,152 @@
+package org.junit.tests.experimental.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.experimental.results.PrintableResult.testResult;
+import static org.junit.experimental.results.ResultMatchers.hasFailureContaining;
+import static org.junit.experimental.results.ResultMatchers.isSuccessful;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.benchmark.Benchmark;
+import org.junit.experimental.benchmark.BenchmarkRunner;
+import org.junit.experimental.benchmark.Blackhole;
+import org.junit.experimental.benchmark.Throughput;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runner.notification.RunListener;
+
+public class BenchmarkRunnerTest {
+    private static int invocations;
+
+    private static boolean slow;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        invocations = 0;
+        slow = false;
+    }
+
+    @After
+    public void clearProperties() {
+        System.clearProperty(BenchmarkRunner.BASELINE_PROPERTY);
+        System.clearProperty(BenchmarkRunner.UPDATE_PROPERTY);
+    }
+
+    @RunWith(BenchmarkRunner.class)
+    public static class Measured {
+        @Benchmark(warmupIterations = 1, iterations = 3, iterationMillis = 5)
+        public void parse(Blackhole blackhole) {
+            invocations++;
+            blackhole.consume(Integer.parseInt("12345"));
+        }
+
+        @Test
+        public void ordinaryTest() {
+        }
+    }
+
+    @Test
+    public void reportsThroughputWhenBenchmarkFinishes() {
+        final Map<String, Throughput> throughputs = new HashMap<String, Throughput>();
+        JUnitCore core = new JUnitCore();
+        core.addListener(new RunListener() {
+            @Override
+            public void testFinished(Description description) {
+                throughputs.put(description.getMethodName(), description.getAnnotation(Throughput.class));
+            }
+        });
+        Result result = core.run(Measured.class);
+
+        assertTrue(result.wasSuccessful());
+        assertEquals(2, result.getRunCount());
+        Throughput throughput = throughputs.get("parse");
+        assertNotNull(throughput);
+        assertEquals(3, throughput.iterations());
+        assertTrue(throughput.opsPerSecond() > 0);
+        assertTrue(throughput.error() >= 0);
+        assertTrue(invocations >= 4);
+        assertNull(throughputs.get("ordinaryTest"));
+    }
+
+    @RunWith(BenchmarkRunner.class)
+    public static class TooSlow {
+        @Benchmark(warmupIterations = 0, iterations = 2, iterationMillis = 5, minOpsPerSecond = 1e12)
+        public void sleep() throws InterruptedException {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void failsBelowThreshold() {
+        assertThat(testResult(TooSlow.class), hasFailureContaining("was below the threshold of 1000000000000.0 ops/s"));
+    }
+
+    @RunWith(BenchmarkRunner.class)
+    public static class SlowsDown {
+        @Benchmark(warmupIterations = 0, iterations = 2, iterationMillis = 20, tolerance = 50)
+        public void work(Blackhole blackhole) throws InterruptedException {
+            if (slow) {
+                Thread.sleep(5);
+            }
+            blackhole.consume(new Object());
+        }
+    }
+
+    @Test
+    public void failsBelowBaseline() {
+        File baseline = new File(folder.getRoot(), "baseline");
+        System.setProperty(BenchmarkRunner.BASELINE_PROPERTY, baseline.getPath());
+        assertThat(testResult(SlowsDown.class), isSuccessful());
+        assertTrue(baseline.isFile());
+
+        slow = true;
+        assertThat(testResult(SlowsDown.class), hasFailureContaining("% below the baseline of"));
+
+        System.setProperty(BenchmarkRunner.UPDATE_PROPERTY, "true");
+        assertThat(testResult(SlowsDown.class), isSuccessful());
+        System.clearProperty(BenchmarkRunner.UPDATE_PROPERTY);
+        assertThat(testResult(SlowsDown.class), isSuccessful());
+    }
+
+    public static class InheritsSlowsDown extends SlowsDown {
+    }
+
+    @Test
+    public void keepsABaselinePerTestClass() {
+        File baseline = new File(folder.getRoot(), "baseline");
+        System.setProperty(BenchmarkRunner.BASELINE_PROPERTY, baseline.getPath());
+        assertThat(testResult(SlowsDown.class), isSuccessful());
+
+        slow = true;
+        assertThat(testResult(InheritsSlowsDown.class), isSuccessful());
+    }
+
+    @RunWith(BenchmarkRunner.class)
+    public static class WrongParameter {
+        @Benchmark
+        public void parse(String input) {
+        }
+    }
+
+    @Test
+    public void benchmarkMethodsTakeOnlyBlackhole() {
+        assertThat(testResult(WrongParameter.class),
+                hasFailureContaining("Method parse should have no parameters or a single Blackhole"));
+    }
+}
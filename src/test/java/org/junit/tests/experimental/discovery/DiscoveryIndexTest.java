@@ -0,0 +1,70 @@
+package org.junit.tests.experimental.discovery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.junit.Rule;
+import org.junit.experimental.discovery.DiscoveryIndex;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DiscoveryIndexTest {
+    private static final byte[] HASH = {1, 2, 3};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DiscoveryIndex.Entry entry(String className, byte[] hash) {
+        return new DiscoveryIndex.Entry(className, hash, "SomeRunner", true);
+    }
+
+    @Test
+    public void entriesSurviveSaveAndOpen() throws Exception {
+        File file = new File(folder.getRoot(), "index");
+        DiscoveryIndex index = DiscoveryIndex.open(file);
+        index.put(entry("a.FirstTest", HASH));
+        index.save();
+
+        DiscoveryIndex.Entry entry = DiscoveryIndex.open(file).get("a.FirstTest", HASH);
+        assertEquals("SomeRunner", entry.getRunnerClassName());
+        assertTrue(entry.isValid());
+    }
+
+    @Test
+    public void entriesOfOtherClassesAreKeptWhenSavingAgain() throws Exception {
+        File file = new File(folder.getRoot(), "index");
+        DiscoveryIndex first = DiscoveryIndex.open(file);
+        first.put(entry("a.FirstTest", HASH));
+        first.save();
+        DiscoveryIndex second = DiscoveryIndex.open(file);
+        second.put(new DiscoveryIndex.Entry("a.SecondTest", HASH, "OtherRunner", false));
+        second.save();
+
+        DiscoveryIndex reopened = DiscoveryIndex.open(file);
+        assertEquals("SomeRunner", reopened.get("a.FirstTest", HASH).getRunnerClassName());
+        assertFalse(reopened.get("a.SecondTest", HASH).isValid());
+    }
+
+    @Test
+    public void ignoresEntriesWithDifferentHash() throws Exception {
+        DiscoveryIndex index = DiscoveryIndex.open(new File(folder.getRoot(), "index"));
+        index.put(entry("a.FirstTest", HASH));
+
+        assertNull(index.get("a.FirstTest", new byte[]{1, 2, 4}));
+    }
+
+    @Test
+    public void corruptIndexIsEmpty() throws Exception {
+        File file = folder.newFile("index");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[]{'J', 'U', 'D', 'X', 0, 0});
+        out.close();
+
+        assertNull(DiscoveryIndex.open(file).get("a.FirstTest", HASH));
+    }
+}
@@ -0,0 +1,66 @@
+package org.junit.tests.experimental.discovery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.experimental.discovery.ClassHashes;
+import org.junit.experimental.discovery.DiscoveryIndex;
+import org.junit.experimental.discovery.IndexedComputer;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+public class IndexedComputerTest {
+    public static class ValidTest {
+        @Test
+        public void one() {
+        }
+
+        @Test
+        public void two() {
+        }
+    }
+
+    public static class StaticTestMethod {
+        @Test
+        public static void staticMethod() {
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsRunnerAndValidity() {
+        File file = new File(folder.getRoot(), "index");
+        Result result = JUnitCore.runClasses(new IndexedComputer(file), ValidTest.class);
+        assertTrue(result.wasSuccessful());
+
+        DiscoveryIndex.Entry entry = DiscoveryIndex.open(file).get(ValidTest.class.getName(),
+                ClassHashes.hashWithSuperclasses(ValidTest.class));
+        assertEquals(BlockJUnit4ClassRunner.class.getName(), entry.getRunnerClassName());
+        assertTrue(entry.isValid());
+    }
+
+    @Test
+    public void doesNotValidateClassesKnownToBeValid() throws Exception {
+        File file = new File(folder.getRoot(), "index");
+        assertFalse(JUnitCore.runClasses(new IndexedComputer(file), StaticTestMethod.class)
+                .wasSuccessful());
+
+        DiscoveryIndex index = DiscoveryIndex.open(file);
+        index.put(new DiscoveryIndex.Entry(StaticTestMethod.class.getName(),
+                ClassHashes.hashWithSuperclasses(StaticTestMethod.class),
+                BlockJUnit4ClassRunner.class.getName(), true));
+        index.save();
+
+        assertTrue(JUnitCore.runClasses(new IndexedComputer(file), StaticTestMethod.class)
+                .wasSuccessful());
+    }
+}
@@ -0,0 +1,129 @@
+package org.junit.tests.experimental.discovery;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.discovery.TestClassScanner;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Computer;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.tests.experimental.discovery.samples.AnnotatedTest;
+
+public class TestClassScannerTest {
+    private static final String SAMPLES = AnnotatedTest.class.getPackage().getName();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static File classesDirectory() throws Exception {
+        return new File(TestClassScannerTest.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+    }
+
+    private static TestClassScanner scannerFor(File root) {
+        return new TestClassScanner(Collections.singletonList(root)).includePackage(SAMPLES);
+    }
+
+    @Test
+    public void findsTestClassesWithoutLoadingThem() throws Exception {
+        List<String> found = scannerFor(classesDirectory()).scan();
+
+        assertEquals(asList(
+                SAMPLES + ".AnnotatedTest",
+                SAMPLES + ".InheritingTest",
+                SAMPLES + ".JUnit3Test",
+                SAMPLES + ".SuiteTest"), found);
+        assertNull(System.getProperty(AnnotatedTest.LOADED_PROPERTY));
+    }
+
+    @Test
+    public void findsNestedClassesOnlyIfRequested() throws Exception {
+        List<String> found = scannerFor(classesDirectory())
+                .includeNestedClasses(true)
+                .includeClassNames(".*Nested.*")
+                .scan();
+
+        assertEquals(asList(SAMPLES + ".AnnotatedTest$NestedTest"), found);
+    }
+
+    @Test
+    public void findsTestClassesInJars() throws Exception {
+        File jar = createJar(new File(classesDirectory(), SAMPLES.replace('.', '/')));
+        List<String> found = scannerFor(jar).includeClassNames(".*\\.JUnit3Test").scan();
+
+        assertEquals(asList(SAMPLES + ".JUnit3Test"), found);
+    }
+
+    @Test
+    public void splitsLargeRootsIntoBatchesReadInParallel() throws Exception {
+        List<File> roots = Collections.singletonList(classesDirectory());
+        List<String> serial = new TestClassScanner(roots).threads(1).scan();
+        List<String> parallel = new TestClassScanner(roots).threads(4).scan();
+
+        assertTrue(serial.size() > 100);
+        assertEquals(serial, parallel);
+    }
+
+    @Test
+    public void createsRequestForTestClassesFound() throws Exception {
+        Result result = new JUnitCore().run(scannerFor(classesDirectory())
+                .includeClassNames(".*\\.(Inheriting|JUnit3)Test")
+                .request(new Computer()));
+
+        assertTrue(result.wasSuccessful());
+        assertEquals(2, result.getRunCount());
+    }
+
+    @Test
+    public void skipsClassFilesThatCannotBeParsed() throws Exception {
+        File jar = createJar(new File(classesDirectory(), SAMPLES.replace('.', '/')));
+        File broken = new File(folder.newFolder(SAMPLES.split("\\.")), "Broken.class");
+        FileOutputStream out = new FileOutputStream(broken);
+        out.write(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0});
+        out.close();
+        TestClassScanner scanner = new TestClassScanner(asList(folder.getRoot(), jar)).includePackage(SAMPLES)
+                .includeClassNames(".*\\.JUnit3Test");
+
+        assertEquals(asList(SAMPLES + ".JUnit3Test"), scanner.scan());
+        assertEquals(1, scanner.getUnreadableClassFiles().size());
+        assertTrue(scanner.getUnreadableClassFiles().get(0).startsWith("Could not read " + broken));
+    }
+
+    private File createJar(File samples) throws IOException {
+        File jar = folder.newFile("samples.jar");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (File each : samples.listFiles()) {
+                out.putNextEntry(new JarEntry(SAMPLES.replace('.', '/') + "/" + each.getName()));
+                InputStream in = new FileInputStream(each);
+                try {
+                    byte[] buffer = new byte[4096];
+                    for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                        out.write(buffer, 0, read);
+                    }
+                } finally {
+                    in.close();
+                }
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return jar;
+    }
+}
@@ -0,0 +1,138 @@
+package org.junit.tests.experimental.discovery;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.discovery.TestPlanGenerator;
+import org.junit.rules.TemporaryFolder;
+import org.junit.tests.experimental.discovery.samples.AnnotatedTest;
+
+public class TestPlanGeneratorTest {
+    private static final String SAMPLES = AnnotatedTest.class.getPackage().getName();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public static class InvalidTest {
+        public InvalidTest(String name) {
+        }
+
+        @Test
+        void notPublic() {
+        }
+
+        @Test
+        public static void isStatic() {
+        }
+
+        @Test
+        public int returnsValue() {
+            return 0;
+        }
+    }
+
+    private static File classesDirectory() throws Exception {
+        return new File(TestPlanGeneratorTest.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+    }
+
+    private static File classFile(File root, String className) {
+        return new File(root, className.replace('.', File.separatorChar) + ".class");
+    }
+
+    private static String read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void generatesPlansForDefaultRunnerTestClasses() throws Exception {
+        File samples = new File(classesDirectory(), SAMPLES.replace('.', File.separatorChar));
+        File output = folder.newFolder("plans");
+
+        List<String> errors = new TestPlanGenerator(samples, output).generate();
+
+        assertEquals(asList(), errors);
+        assertTrue(planFile(output, "AnnotatedTest").isFile());
+        assertTrue(planFile(output, "AnnotatedTest$NestedTest").isFile());
+        assertFalse(planFile(output, "JUnit3Test").exists());
+        assertFalse(planFile(output, "SuiteTest").exists());
+        assertFalse(planFile(output, "AbstractTest").exists());
+
+        String source = read(planFile(output, "InheritingTest"));
+        assertThat(source, containsString("package " + SAMPLES + ";"));
+        assertThat(source, containsString(
+                "public final class InheritingTest_TestPlan implements org.junit.runners.model.TestPlan"));
+        assertThat(source, containsString("java.util.Arrays.asList(new String[]{\"inherited\"})"));
+        assertThat(source, containsString("return new " + SAMPLES + ".InheritingTest();"));
+        assertThat(source, containsString("test.inherited();"));
+
+        assertThat(read(planFile(output, "AnnotatedTest$NestedTest")),
+                containsString("return new " + SAMPLES + ".AnnotatedTest.NestedTest();"));
+    }
+
+    private static File planFile(File output, String simpleName) {
+        return new File(output, (SAMPLES + "." + simpleName).replace('.', File.separatorChar)
+                + "_TestPlan.java");
+    }
+
+    @Test
+    public void reportsInvalidMethodsAndGeneratesNoPlanForThem() throws Exception {
+        File classes = folder.newFolder("classes");
+        copy(classFile(classesDirectory(), InvalidTest.class.getName()),
+                classFile(classes, InvalidTest.class.getName()));
+        File output = folder.newFolder("plans");
+
+        List<String> errors = new TestPlanGenerator(classes, output).generate();
+
+        String name = InvalidTest.class.getName();
+        assertEquals(asList(
+                name + ": Test class should have exactly one public zero-argument constructor",
+                name + ": Method notPublic() should be public",
+                name + ": Method isStatic() should not be static",
+                name + ": Method returnsValue should have no parameters and return void"), errors);
+        assertEquals(0, output.list().length);
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        to.getParentFile().mkdirs();
+        InputStream in = new FileInputStream(from);
+        try {
+            OutputStream out = new FileOutputStream(to);
+            try {
+                byte[] buffer = new byte[4096];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.junit.tests.experimental.discovery.samples;
+
+import org.junit.Test;
+
+public abstract class AbstractTest {
+    @Test
+    public void inherited() {
+    }
+}
@@ -0,0 +1,21 @@
+package org.junit.tests.experimental.discovery.samples;
+
+import org.junit.Test;
+
+public class AnnotatedTest {
+    public static final String LOADED_PROPERTY = "org.junit.tests.experimental.discovery.samples.AnnotatedTest.loaded";
+
+    static {
+        System.setProperty(LOADED_PROPERTY, "true");
+    }
+
+    @Test
+    public void test() {
+    }
+
+    public static class NestedTest {
+        @Test
+        public void test() {
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package org.junit.tests.experimental.discovery.samples;
+
+public class InheritingTest extends AbstractTest {
+}
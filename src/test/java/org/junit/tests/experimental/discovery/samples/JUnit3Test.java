@@ -0,0 +1,8 @@
+package org.junit.tests.experimental.discovery.samples;
+
+import junit.framework.TestCase;
+
+public class JUnit3Test extends TestCase {
+    public void testSomething() {
+    }
+}
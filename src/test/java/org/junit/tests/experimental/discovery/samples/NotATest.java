@@ -0,0 +1,6 @@
+package org.junit.tests.experimental.discovery.samples;
+
+public class NotATest {
+    public void test() {
+    }
+}
@@ -0,0 +1,10 @@
+package org.junit.tests.experimental.discovery.samples;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+@RunWith(Suite.class)
+@SuiteClasses({AnnotatedTest.class, JUnit3Test.class})
+public class SuiteTest {
+}
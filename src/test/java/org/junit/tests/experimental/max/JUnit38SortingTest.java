@@ -29,6 +29,7 @@ public class JUnit38SortingTest {
     @After
     public void forgetMax() {
         fMaxFile.delete();
+        new File(fMaxFile.getPath() + ".lock").delete();
     }
 
     public static class JUnit4Test {
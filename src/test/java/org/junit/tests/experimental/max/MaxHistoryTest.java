@@ -0,0 +1,279 @@
+package org.junit.tests.experimental.max;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.ParallelComputer;
+import org.junit.experimental.max.MaxHistory;
+import org.junit.experimental.max.TestStatistics;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+
+public class MaxHistoryTest {
+    private static final Description ONE = Description.createTestDescription(MaxHistoryTest.class, "one");
+
+    private static final Description TWO = Description.createTestDescription(MaxHistoryTest.class, "two");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void save(MaxHistory history) throws Exception {
+        history.listener().testRunFinished(new Result());
+    }
+
+    @Test
+    public void historySurvivesSaveAndLoad() throws Exception {
+        File file = new File(folder.getRoot(), "history");
+        MaxHistory history = MaxHistory.forFolder(file);
+        history.putTestDuration(ONE, 17);
+        history.putTestFailureTimestamp(ONE, 42);
+        save(history);
+
+        MaxHistory loaded = MaxHistory.forFolder(file);
+        assertEquals(Long.valueOf(17), loaded.getTestDuration(ONE));
+        assertEquals(Long.valueOf(42), loaded.getFailureTimestamp(ONE));
+        assertTrue(loaded.isNewTest(TWO));
+    }
+
+    @Test
+    public void partlyWrittenRecordIsIgnored() throws Exception {
+        File file = new File(folder.getRoot(), "history");
+        MaxHistory history = MaxHistory.forFolder(file);
+        history.putTestDuration(ONE, 17);
+        save(history);
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.seek(out.length());
+            out.write(new byte[] {0, 0, 0, 13, 2, 0});
+        } finally {
+            out.close();
+        }
+
+        MaxHistory loaded = MaxHistory.forFolder(file);
+        assertEquals(Long.valueOf(17), loaded.getTestDuration(ONE));
+        loaded.putTestDuration(TWO, 5);
+        save(loaded);
+
+        MaxHistory reloaded = MaxHistory.forFolder(file);
+        assertEquals(Long.valueOf(17), reloaded.getTestDuration(ONE));
+        assertEquals(Long.valueOf(5), reloaded.getTestDuration(TWO));
+    }
+
+    @Test
+    public void writersSharingAStoreSeeEachOthersRecords() throws Exception {
+        File file = new File(folder.getRoot(), "history");
+        MaxHistory first = MaxHistory.forFolder(file);
+        MaxHistory second = MaxHistory.forFolder(file);
+        first.putTestDuration(ONE, 1);
+        save(first);
+        second.putTestDuration(TWO, 2);
+        save(second);
+
+        assertEquals(Long.valueOf(1), second.getTestDuration(ONE));
+        MaxHistory loaded = MaxHistory.forFolder(file);
+        assertEquals(Long.valueOf(1), loaded.getTestDuration(ONE));
+        assertEquals(Long.valueOf(2), loaded.getTestDuration(TWO));
+    }
+
+    @Test
+    public void writersSharingAStoreKeepEachOthersRunsOfTheSameTest() throws Exception {
+        File file = new File(folder.getRoot(), "history");
+        MaxHistory first = MaxHistory.forFolder(file);
+        MaxHistory second = MaxHistory.forFolder(file);
+        first.putTestDuration(ONE, 1);
+        second.putTestDuration(ONE, 2);
+        save(first);
+        save(second);
+        first.putTestDuration(ONE, 3);
+        save(first);
+
+        assertEquals(3, MaxHistory.forFolder(file).getStatistics(ONE).getRuns());
+        assertEquals(2, second.getStatistics(ONE).getRuns());
+        assertEquals(3, first.getStatistics(ONE).getRuns());
+    }
+
+    @Test
+    public void runsRecordedWhileSavingAreNeitherLostNorCountedTwice() throws Exception {
+        File file = new File(folder.getRoot(), "history");
+        final MaxHistory history = MaxHistory.forFolder(file);
+        MaxHistory other = MaxHistory.forFolder(file);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int run = 0; run < 500; run++) {
+                        history.putTestDuration(ONE, run);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < 20; i++) {
+            other.putTestDuration(ONE, i);
+            save(other);
+            save(history);
+        }
+        for (Thread each : threads) {
+            each.join();
+        }
+        save(history);
+
+        assertEquals(2020, history.getStatistics(ONE).getRuns());
+        assertEquals(2020, MaxHistory.forFolder(file).getStatistics(ONE).getRuns());
+    }
+
+    @Test
+    public void logIsCompactedWhenItGrows() throws Exception {
+        File file = new File(folder.getRoot(), "history");
+        MaxHistory history = MaxHistory.forFolder(file);
+        history.putTestDuration(ONE, 0);
+        save(history);
+        for (int i = 1; i <= 5000; i++) {
+            history.putTestDuration(ONE, i);
+            save(history);
+        }
+
+        // 5000 appended records would take more than 200 KB
+        assertTrue(file.length() < 64 * 1024);
+        assertEquals(Long.valueOf(5000), MaxHistory.forFolder(file).getTestDuration(ONE));
+    }
+
+    @Test
+    public void unreadableStoreIsReplacedOnSave() throws Exception {
+        File file = new File(folder.getRoot(), "history");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("not a history".getBytes("UTF-8"));
+        out.close();
+
+        MaxHistory history = MaxHistory.forFolder(file);
+        assertTrue(history.isNewTest(ONE));
+        history.putTestDuration(ONE, 3);
+        save(history);
+
+        assertEquals(Long.valueOf(3), MaxHistory.forFolder(file).getTestDuration(ONE));
+    }
+
+    @Test
+    public void serializedHistoryIsConverted() throws Exception {
+        File file = new File(folder.getRoot(), "history");
+        MaxHistory legacy = MaxHistory.forFolder(new File(folder.getRoot(), "unused"));
+        legacy.putTestDuration(ONE, 8);
+        legacy.putTestFailureTimestamp(ONE, 9);
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+        out.writeObject(legacy);
+        out.close();
+
+        MaxHistory history = MaxHistory.forFolder(file);
+        assertEquals(Long.valueOf(8), history.getTestDuration(ONE));
+        save(history);
+
+        MaxHistory converted = MaxHistory.forFolder(file);
+        assertEquals(Long.valueOf(8), converted.getTestDuration(ONE));
+        assertEquals(Long.valueOf(9), converted.getFailureTimestamp(ONE));
+        assertFalse(converted.isNewTest(ONE));
+        assertNull(converted.getTestDuration(TWO));
+    }
+
+    public static class SlowTests {
+        @Test
+        public void one() throws Exception {
+            Thread.sleep(50);
+        }
+
+        @Test
+        public void two() throws Exception {
+            Thread.sleep(50);
+        }
+
+        @Test
+        public void three() throws Exception {
+            Thread.sleep(50);
+        }
+
+        @Test
+        public void four() throws Exception {
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void listenerIsThreadSafe() {
+        MaxHistory history = MaxHistory.forFolder(new File(folder.getRoot(), "history"));
+        assertTrue(history.listener().getClass().isAnnotationPresent(RunListener.ThreadSafe.class));
+    }
+
+    @Test
+    public void recordsDurationsOfTestsRunInParallel() throws Exception {
+        File file = new File(folder.getRoot(), "history");
+        MaxHistory history = MaxHistory.forFolder(file);
+        JUnitCore core = new JUnitCore();
+        core.addListener(history.listener());
+        Result result = core.run(ParallelComputer.methods(), SlowTests.class);
+
+        assertTrue(result.wasSuccessful());
+        MaxHistory loaded = MaxHistory.forFolder(file);
+        for (String each : new String[] {"one", "two", "three", "four"}) {
+            Long duration = loaded.getTestDuration(Description.createTestDescription(SlowTests.class, each));
+            assertTrue(each, duration.longValue() >= 40 * 1000 * 1000);
+        }
+    }
+
+    public static class PassingAndFailing {
+        @Test
+        public void passes() {
+        }
+
+        @Test
+        public void fails() {
+            fail();
+        }
+    }
+
+    @Test
+    public void listenerRecordsResultsAndCpuTime() throws Exception {
+        MaxHistory history = MaxHistory.forFolder(new File(folder.getRoot(), "history"));
+        JUnitCore core = new JUnitCore();
+        core.addListener(history.listener());
+        core.run(PassingAndFailing.class);
+        core.run(PassingAndFailing.class);
+
+        TestStatistics passes = history.getStatistics(
+                Description.createTestDescription(PassingAndFailing.class, "passes"));
+        assertEquals(2, passes.getPasses());
+        assertEquals(0, passes.getFailures());
+        TestStatistics fails = history.getStatistics(
+                Description.createTestDescription(PassingAndFailing.class, "fails"));
+        assertEquals(0, fails.getPasses());
+        assertEquals(2, fails.getFailures());
+        if (ManagementFactory.getThreadMXBean().isCurrentThreadCpuTimeSupported()) {
+            assertTrue(passes.getMeanCpuTime() >= 0);
+        }
+    }
+
+    @Test
+    public void comparatorOrdersByMeanDurationRatherThanLastDuration() {
+        MaxHistory history = MaxHistory.forFolder(new File(folder.getRoot(), "history"));
+        for (int i = 0; i < 10; i++) {
+            history.putTestDuration(ONE, 10);
+            history.putTestDuration(TWO, 500);
+        }
+        history.putTestDuration(ONE, 1000);
+
+        assertTrue(history.testComparator().compare(ONE, TWO) < 0);
+    }
+}
@@ -9,13 +9,17 @@ import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.TestCase;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.max.MaxCore;
+import org.junit.experimental.max.MaxHistory;
+import org.junit.experimental.max.TestStatistics;
 import org.junit.internal.runners.JUnit38ClassRunner;
 import org.junit.runner.Computer;
 import org.junit.runner.Description;
@@ -45,6 +49,7 @@ public class MaxStarterTest {
     @After
     public void forgetMax() {
         fMaxFile.delete();
+        new File(fMaxFile.getPath() + ".lock").delete();
     }
 
     public static class TwoTests {
@@ -291,4 +296,102 @@ public class MaxStarterTest {
         assertThat(failure.toString(), containsString("testNothing"));
         assertThat(failure.toString(), containsString("isn't public"));
     }
+
+    public static class ThreePassingTests {
+        static int classFixtureRuns = 0;
+
+        @BeforeClass
+        public static void countClassFixtureRuns() {
+            classFixtureRuns++;
+        }
+
+        @Test
+        public void one() {
+        }
+
+        @Test
+        public void two() {
+        }
+
+        @Test
+        public void three() {
+        }
+    }
+
+    @Test
+    public void preservingClassesRunsClassFixturesOnce() {
+        ThreePassingTests.classFixtureRuns = 0;
+        Result result = fMax.preservingClasses().run(Request.aClass(ThreePassingTests.class));
+        assertEquals(3, result.getRunCount());
+        assertEquals(1, ThreePassingTests.classFixtureRuns);
+    }
+
+    @Test
+    public void preservingClassesRunsClassWithMostUrgentTestFirst() {
+        Request request = Request.classes(Computer.serial(), ThreePassingTests.class,
+                TwoTests.class);
+        fMax.preservingClasses().run(request);
+        List<Description> tests = fMax.sortedLeavesForTest(request);
+        assertEquals(5, tests.size());
+        assertEquals(Description.createTestDescription(TwoTests.class, "dontSucceed"), tests.get(0));
+        assertEquals(Description.createTestDescription(TwoTests.class, "succeed"), tests.get(1));
+        for (Description each : tests.subList(2, 5)) {
+            assertEquals(ThreePassingTests.class, each.getTestClass());
+        }
+    }
+
+    public static class FlakyAndStable {
+        static int flakyAttempts = 0;
+
+        @Test
+        public void flaky() {
+            flakyAttempts++;
+            if (flakyAttempts % 2 == 1) {
+                fail();
+            }
+        }
+
+        @Test
+        public void stable() {
+        }
+    }
+
+    @Test
+    public void retryingRecordsFlakyTests() {
+        FlakyAndStable.flakyAttempts = 0;
+        Result result = fMax.retryingFailedTests(1).run(FlakyAndStable.class);
+        assertTrue(result.wasSuccessful());
+        TestStatistics statistics = MaxHistory.forFolder(fMaxFile).getStatistics(
+                Description.createTestDescription(FlakyAndStable.class, "flaky"));
+        assertEquals(1, statistics.getFlakyRuns());
+        assertEquals(1, statistics.getPasses());
+    }
+
+    @Test
+    public void quarantinedFlakyTestsRunSeparately() {
+        FlakyAndStable.flakyAttempts = 0;
+        fMax.retryingFailedTests(1).run(FlakyAndStable.class);
+        MaxCore max = MaxCore.storedLocally(fMaxFile).retryingFailedTests(1)
+                .quarantiningFlakyTests(0.5);
+        final List<String> started = new ArrayList<String>();
+        JUnitCore core = new JUnitCore();
+        core.addListener(new RunListener() {
+            @Override
+            public void testStarted(Description description) {
+                started.add(description.getMethodName());
+            }
+        });
+
+        max.run(Request.aClass(FlakyAndStable.class), core);
+        max.runQuarantined(Request.aClass(FlakyAndStable.class), core);
+
+        assertThat(started, is(Arrays.asList("stable", "flaky")));
+    }
+
+    @Test
+    public void quarantineIsEmptyWithoutFlakyTests() {
+        Result result = fMax.quarantiningFlakyTests(0.1).runQuarantined(
+                Request.aClass(ThreePassingTests.class), new JUnitCore());
+        assertEquals(0, result.getRunCount());
+    }
 }
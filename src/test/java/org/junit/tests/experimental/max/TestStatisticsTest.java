@@ -0,0 +1,132 @@
+package org.junit.tests.experimental.max;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.experimental.max.TestStatistics;
+
+public class TestStatisticsTest {
+    private static final long MILLISECOND = 1000 * 1000;
+
+    private static TestStatistics runs(long duration, int count) {
+        TestStatistics statistics = TestStatistics.NONE;
+        for (int i = 0; i < count; i++) {
+            statistics = statistics.withRun(duration, TestStatistics.UNKNOWN, true);
+        }
+        return statistics;
+    }
+
+    private static void assertWithin20Percent(long expected, long actual) {
+        assertTrue("expected about " + expected + ", but was " + actual,
+                Math.abs(actual - expected) <= expected / 5);
+    }
+
+    @Test
+    public void countsPassesAndFailures() {
+        TestStatistics statistics = TestStatistics.NONE
+                .withRun(MILLISECOND, TestStatistics.UNKNOWN, true)
+                .withRun(MILLISECOND, TestStatistics.UNKNOWN, false)
+                .withRun(MILLISECOND, TestStatistics.UNKNOWN, true);
+
+        assertEquals(3, statistics.getRuns());
+        assertEquals(2, statistics.getPasses());
+        assertEquals(1, statistics.getFailures());
+    }
+
+    @Test
+    public void singleOutlierBarelyMovesTheMean() {
+        TestStatistics statistics = runs(MILLISECOND, 20)
+                .withRun(1000 * MILLISECOND, TestStatistics.UNKNOWN, true);
+
+        assertEquals(1000 * MILLISECOND, statistics.getLastDuration());
+        assertTrue(statistics.getMeanDuration() < 300 * MILLISECOND);
+        assertWithin20Percent(MILLISECOND, statistics.getMedianDuration());
+    }
+
+    @Test
+    public void meanFollowsLastingChanges() {
+        TestStatistics statistics = runs(MILLISECOND, 20);
+        for (int i = 0; i < 20; i++) {
+            statistics = statistics.withRun(100 * MILLISECOND, TestStatistics.UNKNOWN, true);
+        }
+
+        assertWithin20Percent(100 * MILLISECOND, statistics.getMeanDuration());
+    }
+
+    @Test
+    public void estimatesPercentiles() {
+        TestStatistics statistics = TestStatistics.NONE;
+        for (int i = 1; i <= 60; i++) {
+            statistics = statistics.withRun(i * MILLISECOND, TestStatistics.UNKNOWN, true);
+        }
+
+        assertWithin20Percent(30 * MILLISECOND, statistics.getMedianDuration());
+        assertWithin20Percent(57 * MILLISECOND, statistics.getDurationPercentile(95));
+        assertWithin20Percent(60 * MILLISECOND, statistics.getDurationPercentile(99));
+    }
+
+    @Test
+    public void sketchForgetsOldRuns() {
+        TestStatistics statistics = runs(MILLISECOND, 200);
+        for (int i = 0; i < 200; i++) {
+            statistics = statistics.withRun(100 * MILLISECOND, TestStatistics.UNKNOWN, true);
+        }
+
+        assertWithin20Percent(100 * MILLISECOND, statistics.getMedianDuration());
+    }
+
+    @Test
+    public void cpuTimeIsUnknownUntilMeasured() {
+        TestStatistics statistics = runs(MILLISECOND, 3);
+        assertEquals(TestStatistics.UNKNOWN, statistics.getMeanCpuTime());
+
+        statistics = statistics.withRun(MILLISECOND, MILLISECOND / 2, true);
+        assertEquals(MILLISECOND / 2, statistics.getMeanCpuTime());
+    }
+
+    @Test
+    public void survivesEncoding() {
+        TestStatistics statistics = runs(MILLISECOND, 5)
+                .withRun(3 * MILLISECOND, MILLISECOND, false);
+
+        TestStatistics decoded = TestStatistics.decode(statistics.encode());
+        assertEquals(statistics.toString(), decoded.toString());
+        assertEquals(statistics.getMeanCpuTime(), decoded.getMeanCpuTime());
+        assertEquals(statistics.getLastDuration(), decoded.getLastDuration());
+    }
+
+    @Test
+    public void countsFlakyRunsAsPasses() {
+        TestStatistics statistics = runs(MILLISECOND, 3)
+                .withRun(MILLISECOND, TestStatistics.UNKNOWN, true, true);
+
+        assertEquals(4, statistics.getPasses());
+        assertEquals(1, statistics.getFlakyRuns());
+        assertEquals(0.25, statistics.getFlakiness(), 0);
+    }
+
+    @Test
+    public void flakyRunsSurviveEncoding() {
+        TestStatistics statistics = runs(MILLISECOND, 1)
+                .withRun(MILLISECOND, TestStatistics.UNKNOWN, true, true);
+
+        assertEquals(1, TestStatistics.decode(statistics.encode()).getFlakyRuns());
+    }
+
+    @Test
+    public void decodesStatisticsWrittenWithoutFlakyRuns() {
+        byte[] encoded = runs(MILLISECOND, 2).encode();
+        byte[] withoutFlakyRuns = new byte[encoded.length - 4];
+        System.arraycopy(encoded, 0, withoutFlakyRuns, 0, withoutFlakyRuns.length);
+
+        TestStatistics decoded = TestStatistics.decode(withoutFlakyRuns);
+        assertEquals(2, decoded.getRuns());
+        assertEquals(0, decoded.getFlakyRuns());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPercentileAbove100() {
+        runs(MILLISECOND, 1).getDurationPercentile(101);
+    }
+}
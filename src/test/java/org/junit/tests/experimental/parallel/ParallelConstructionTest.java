@@ -0,0 +1,89 @@
+package org.junit.tests.experimental.parallel;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.ParallelComputer;
+import org.junit.experimental.ParallelRunnerBuilder;
+import org.junit.internal.builders.AllDefaultPossibilitiesBuilder;
+import org.junit.internal.runners.ErrorReportingRunner;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.Runner;
+import org.junit.runners.model.RunnerBuilder;
+
+public class ParallelConstructionTest {
+    private static final long TIMEOUT = 15;
+
+    public static class Example1 {
+        @Test
+        public void one() {
+        }
+    }
+
+    public static class Example2 {
+        @Test
+        public void two() {
+        }
+    }
+
+    public static class Example3 {
+        @Test
+        public void three() {
+        }
+    }
+
+    private static class LatchedBuilder extends RunnerBuilder {
+        private final CountDownLatch fLatch;
+
+        LatchedBuilder(int parties) {
+            fLatch = new CountDownLatch(parties);
+        }
+
+        @Override
+        public Runner runnerForClass(Class<?> testClass) throws Throwable {
+            fLatch.countDown();
+            if (!fLatch.await(TIMEOUT, TimeUnit.SECONDS)) {
+                throw new Exception("runners were not constructed concurrently");
+            }
+            if (testClass == Example2.class) {
+                throw new Exception("cannot construct " + testClass.getName());
+            }
+            return new AllDefaultPossibilitiesBuilder(true).runnerForClass(testClass);
+        }
+    }
+
+    @Test
+    public void runnersAreConstructedConcurrentlyInDeclarationOrder() throws Exception {
+        RunnerBuilder builder = new ParallelRunnerBuilder(new LatchedBuilder(3), 3);
+        List<Runner> runners = builder.runners(null,
+                new Class<?>[]{Example1.class, Example2.class, Example3.class});
+
+        assertEquals(3, runners.size());
+        assertThat(runners.get(0).getDescription().getTestClass(), is((Object) Example1.class));
+        assertThat(runners.get(1), instanceOf(ErrorReportingRunner.class));
+        assertThat(runners.get(1).getDescription().getTestClass(), is((Object) Example2.class));
+        assertThat(runners.get(2).getDescription().getTestClass(), is((Object) Example3.class));
+    }
+
+    @Test
+    public void runsClassesWithParallelConstruction() {
+        Result result = JUnitCore.runClasses(ParallelComputer.construction(4),
+                Example1.class, Example2.class, Example3.class);
+        assertTrue(result.wasSuccessful());
+        assertEquals(3, result.getRunCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveThreadCount() {
+        new ParallelRunnerBuilder(new AllDefaultPossibilitiesBuilder(true), 0);
+    }
+}
@@ -0,0 +1,155 @@
+package org.junit.tests.experimental.rules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.experimental.results.PrintableResult.testResult;
+import static org.junit.experimental.results.ResultMatchers.hasFailureContaining;
+import static org.junit.experimental.results.ResultMatchers.isSuccessful;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Concurrently;
+import org.junit.runner.Description;
+import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.TestTimedOutException;
+
+public class ConcurrentlyRuleTest {
+    private static final AtomicInteger runs = new AtomicInteger();
+
+    private static double[] reported;
+
+    public static class RunsOnAllThreads {
+        @Rule
+        public Concurrently concurrently = new Concurrently(4).iterations(25);
+
+        @Test
+        public void counts() {
+            runs.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void runsTestOnEachThreadForEachIteration() {
+        runs.set(0);
+        assertThat(testResult(RunsOnAllThreads.class), isSuccessful());
+        assertEquals(100, runs.get());
+    }
+
+    public static class WaitsForAllThreads {
+        private static final CountDownLatch started = new CountDownLatch(3);
+
+        @Rule
+        public Concurrently concurrently = new Concurrently(3).withTimeout(10, TimeUnit.SECONDS);
+
+        @Test
+        public void waits() throws InterruptedException {
+            started.countDown();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void threadsRunTogether() {
+        assertThat(testResult(WaitsForAllThreads.class), isSuccessful());
+    }
+
+    public static class FailsOnTwoThreads {
+        private static final AtomicInteger threads = new AtomicInteger();
+
+        @Rule
+        public Concurrently concurrently = new Concurrently(3);
+
+        @Test
+        public void fails() {
+            int thread = threads.incrementAndGet();
+            if (thread <= 2) {
+                fail("failure " + thread);
+            }
+        }
+    }
+
+    @Test
+    public void aggregatesFailuresOfAllThreads() {
+        String result = testResult(FailsOnTwoThreads.class).toString();
+        assertTrue(result, result.contains("2 failures"));
+        assertTrue(result, result.contains("failure 1"));
+        assertTrue(result, result.contains("failure 2"));
+    }
+
+    public static class HangsForever {
+        @Rule
+        public Concurrently concurrently = new Concurrently(2).withTimeout(100, TimeUnit.MILLISECONDS);
+
+        @Test
+        public void hangs() throws InterruptedException {
+            new CountDownLatch(1).await();
+        }
+    }
+
+    @Test
+    public void timeoutReportsStuckThreads() {
+        assertThat(testResult(HangsForever.class), hasFailureContaining("test timed out after 100 milliseconds"));
+        assertThat(testResult(HangsForever.class), hasFailureContaining("Appears to be stuck in thread Concurrently-1"));
+    }
+
+    @Test
+    public void runsRunnableAndReportsThroughput() throws Throwable {
+        final AtomicInteger count = new AtomicInteger();
+        Concurrently concurrently = new Concurrently(2) {
+            @Override
+            protected void throughput(double[] iterationsPerSecond, Description description) {
+                reported = iterationsPerSecond;
+            }
+        };
+        concurrently.iterations(1000).run(new Runnable() {
+            public void run() {
+                count.incrementAndGet();
+            }
+        });
+
+        assertEquals(2000, count.get());
+        assertEquals(2, reported.length);
+        assertTrue(reported[0] > 0);
+        assertTrue(reported[1] > 0);
+    }
+
+    @Test
+    public void throwsFailuresOfRunnable() throws Throwable {
+        try {
+            new Concurrently(2).run(new Runnable() {
+                public void run() {
+                    throw new IllegalStateException("broken");
+                }
+            });
+        } catch (MultipleFailureException e) {
+            assertEquals(2, e.getFailures().size());
+            return;
+        }
+        fail("Expected MultipleFailureException");
+    }
+
+    @Test
+    public void timeoutFailsRunnable() throws Throwable {
+        try {
+            new Concurrently(1).withTimeout(50, TimeUnit.MILLISECONDS).run(new Runnable() {
+                public void run() {
+                    try {
+                        Thread.sleep(10000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        } catch (MultipleFailureException e) {
+            assertTrue(e.getFailures().get(0) instanceof TestTimedOutException);
+            return;
+        }
+        fail("Expected MultipleFailureException");
+    }
+}
@@ -0,0 +1,139 @@
+package org.junit.tests.experimental.rules;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.experimental.results.PrintableResult.testResult;
+import static org.junit.experimental.results.ResultMatchers.hasFailureContaining;
+import static org.junit.experimental.results.ResultMatchers.isSuccessful;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.results.PrintableResult;
+import org.junit.rules.PerformanceGuard;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.JUnitCore;
+
+public class PerformanceGuardTest {
+    private static File file;
+
+    private static long sleepMillis;
+
+    private static boolean failing;
+
+    private static long floorMillis;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "durations");
+        sleepMillis = 2;
+        failing = true;
+        floorMillis = 1;
+    }
+
+    public static class Sleeps {
+        @Rule
+        public PerformanceGuard guard = new PerformanceGuard(file).factor(2).minSamples(3)
+                .floor(floorMillis, TimeUnit.MILLISECONDS).failing(failing);
+
+        @Test
+        public void sleeps() throws InterruptedException {
+            Thread.sleep(sleepMillis);
+        }
+    }
+
+    private void recordBaseline() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(testResult(Sleeps.class), isSuccessful());
+        }
+    }
+
+    @Test
+    public void slowerTestPassesUntilEnoughDurationsAreRecorded() {
+        assertThat(testResult(Sleeps.class), isSuccessful());
+        assertThat(testResult(Sleeps.class), isSuccessful());
+        sleepMillis = 300;
+        assertThat(testResult(Sleeps.class), isSuccessful());
+    }
+
+    @Test
+    public void slowerTestFailsOnceEnoughDurationsAreRecorded() {
+        recordBaseline();
+        sleepMillis = 300;
+        PrintableResult result = testResult(Sleeps.class);
+        assertThat(result, hasFailureContaining("sleeps(" + Sleeps.class.getName() + ") took "));
+        assertThat(result, hasFailureContaining("more than 2.0 times as long"));
+
+        // the slow duration was recorded as well
+        assertThat(testResult(Sleeps.class), isSuccessful());
+    }
+
+    @Test
+    public void slowerTestIsComparedWithDurationsRecordedByOtherStores() {
+        File ownFile = file;
+        floorMillis = 1000;
+        assertThat(testResult(Sleeps.class), isSuccessful());
+        // another path to the same file opens another store, as another JVM does
+        file = new File(new File(folder.getRoot(), "."), "durations");
+        recordBaseline();
+        file = ownFile;
+        floorMillis = 1;
+        sleepMillis = 300;
+        assertThat(testResult(Sleeps.class), hasFailureContaining("more than 2.0 times as long"));
+    }
+
+    @Test
+    public void testsBelowFloorDoNotRegress() {
+        floorMillis = 1000;
+        recordBaseline();
+        sleepMillis = 300;
+        assertThat(testResult(Sleeps.class), isSuccessful());
+    }
+
+    @Test
+    public void warningsAreOnlyReported() {
+        failing = false;
+        recordBaseline();
+        sleepMillis = 300;
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        JUnitCore core = new JUnitCore();
+        core.addListener(new PerformanceGuard.Report(new PrintStream(report), 10));
+
+        assertEquals(0, core.run(Sleeps.class).getFailureCount());
+        assertThat(report.toString(), containsString("Biggest performance regressions:\n  "));
+        assertThat(report.toString(), containsString("x sleeps(" + Sleeps.class.getName() + ") took "));
+    }
+
+    @Test
+    public void durationsArePersisted() {
+        recordBaseline();
+        // a header, and each record framed by its length and checksum
+        int record = 4 + 2 + ("sleeps(" + Sleeps.class.getName() + ")").length() + 8 + 4;
+        assertEquals(16 + 3 * record, file.length());
+    }
+
+    @Test
+    public void reportOnlyShowsRegressionsOfItsRun() {
+        failing = false;
+        recordBaseline();
+        sleepMillis = 300;
+        assertEquals(0, new JUnitCore().run(Sleeps.class).getFailureCount());
+        sleepMillis = 2;
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        JUnitCore core = new JUnitCore();
+        core.addListener(new PerformanceGuard.Report(new PrintStream(report), 10));
+
+        core.run(Sleeps.class);
+
+        assertEquals("", report.toString());
+    }
+}
@@ -0,0 +1,261 @@
+package org.junit.tests.experimental.rules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.experimental.results.PrintableResult.testResult;
+import static org.junit.experimental.results.ResultMatchers.hasFailureContaining;
+import static org.junit.experimental.results.ResultMatchers.isSuccessful;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.rules.Snapshot;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runners.model.Statement;
+
+public class SnapshotRuleTest {
+    private static File directory;
+
+    private static boolean update;
+
+    private static String value;
+
+    private static boolean matchSecond;
+
+    /**
+     * Another name of {@link #directory}, which gets a store of its own, as
+     * if it were used by another JVM
+     */
+    private static File otherDirectory;
+
+    private static String otherValue;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("snapshots");
+        update = false;
+        value = "first value";
+        matchSecond = false;
+        otherDirectory = new File(directory, ".");
+        otherValue = "first value";
+    }
+
+    public static class MatchesSnapshots {
+        @Rule
+        public Snapshot snapshot = new Snapshot(directory).updating(update);
+
+        @Test
+        public void renders() throws IOException {
+            snapshot.matches("first", value);
+            if (matchSecond) {
+                snapshot.matches("second", new int[]{1, 2});
+            }
+        }
+    }
+
+    public static class MatchesSnapshotInOtherStore {
+        @Rule
+        public Snapshot snapshot = new Snapshot(otherDirectory).updating(update);
+
+        @Test
+        public void renders() throws IOException {
+            snapshot.matches("first", otherValue);
+        }
+    }
+
+    @Test
+    public void missingSnapshotFails() {
+        assertThat(testResult(MatchesSnapshots.class), hasFailureContaining(
+                "no snapshot first of renders(" + MatchesSnapshots.class.getName() + "); run with -D"
+                        + Snapshot.UPDATE_PROPERTY + "=true to record it"));
+    }
+
+    @Test
+    public void matchesRecordedSnapshot() {
+        update = true;
+        assertThat(testResult(MatchesSnapshots.class), isSuccessful());
+
+        update = false;
+        assertThat(testResult(MatchesSnapshots.class), isSuccessful());
+    }
+
+    @Test
+    public void changedValueFailsWithComparison() {
+        update = true;
+        testResult(MatchesSnapshots.class);
+
+        update = false;
+        value = "changed value";
+        assertThat(testResult(MatchesSnapshots.class), hasFailureContaining(
+                "snapshot first expected:<[first] value> but was:<[changed] value>"));
+    }
+
+    @Test
+    public void updateModeAcceptsChangedValue() {
+        update = true;
+        testResult(MatchesSnapshots.class);
+        value = "changed value";
+        testResult(MatchesSnapshots.class);
+
+        update = false;
+        assertThat(testResult(MatchesSnapshots.class), isSuccessful());
+    }
+
+    @Test
+    public void unmatchedSnapshotsAreOrphans() {
+        update = true;
+        matchSecond = true;
+        testResult(MatchesSnapshots.class);
+
+        update = false;
+        matchSecond = false;
+        assertThat(testResult(MatchesSnapshots.class), hasFailureContaining(
+                "snapshots [second] of renders(" + MatchesSnapshots.class.getName() + ") were not matched"));
+    }
+
+    @Test
+    public void updateModeRemovesOrphans() {
+        update = true;
+        matchSecond = true;
+        testResult(MatchesSnapshots.class);
+        matchSecond = false;
+        testResult(MatchesSnapshots.class);
+
+        update = false;
+        assertThat(testResult(MatchesSnapshots.class), isSuccessful());
+    }
+
+    @Test
+    public void storesContentsInShardsAndRemovesUnusedContents() {
+        update = true;
+        matchSecond = true;
+        testResult(MatchesSnapshots.class);
+
+        File[] shards = directory.listFiles();
+        int contentFiles = 0;
+        for (File each : shards) {
+            if (each.isDirectory()) {
+                assertEquals(2, each.getName().length());
+                contentFiles += each.list().length;
+            }
+        }
+        assertEquals(2, contentFiles);
+        assertTrue(new File(directory, "index").isFile());
+
+        matchSecond = false;
+        testResult(MatchesSnapshots.class);
+        contentFiles = 0;
+        for (File each : directory.listFiles()) {
+            if (each.isDirectory()) {
+                contentFiles += each.list().length;
+            }
+        }
+        assertEquals(1, contentFiles);
+    }
+
+    @Test
+    public void storesOfTheSameDirectoryKeepEachOthersSnapshotsAndContents() {
+        update = true;
+        testResult(MatchesSnapshotInOtherStore.class);
+        testResult(MatchesSnapshots.class);
+        otherValue = "other value";
+        testResult(MatchesSnapshotInOtherStore.class);
+
+        update = false;
+        directory = new File(otherDirectory, ".");
+        value = "changed value";
+        assertThat(testResult(MatchesSnapshots.class), hasFailureContaining(
+                "snapshot first expected:<[first] value> but was:<[changed] value>"));
+        otherDirectory = directory;
+        assertThat(testResult(MatchesSnapshotInOtherStore.class), isSuccessful());
+    }
+
+    @Test
+    public void savesTheIndexOnlyWhenSnapshotsChanged() {
+        update = true;
+        testResult(MatchesSnapshots.class);
+        File index = new File(directory, "index");
+        assertTrue(index.delete());
+
+        testResult(MatchesSnapshots.class);
+        assertFalse(index.exists());
+
+        value = "changed value";
+        testResult(MatchesSnapshots.class);
+        assertTrue(index.isFile());
+    }
+
+    public static class MatchesTwice {
+        @Rule
+        public Snapshot snapshot = new Snapshot(directory).updating(true);
+
+        @Test
+        public void renders() throws IOException {
+            snapshot.matches("first", "a");
+            snapshot.matches("first", "b");
+        }
+    }
+
+    @Test
+    public void snapshotCannotBeMatchedTwiceByOneTest() {
+        assertThat(testResult(MatchesTwice.class), hasFailureContaining("snapshot first was already matched"));
+    }
+
+    public static class ChecksRemovedMethods {
+        @ClassRule
+        public static Snapshot snapshots() {
+            return new Snapshot(directory).updating(update);
+        }
+
+        @Rule
+        public Snapshot snapshot = new Snapshot(directory).updating(update);
+
+        @Test
+        public void renders() throws IOException {
+            snapshot.matches("first", value);
+        }
+    }
+
+    private void recordSnapshotOfRemovedMethod() throws Throwable {
+        final Snapshot snapshot = new Snapshot(directory).updating(true);
+        snapshot.apply(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                snapshot.matches("first", value);
+            }
+        }, Description.createTestDescription(ChecksRemovedMethods.class, "removed")).evaluate();
+    }
+
+    @Test
+    public void snapshotsOfRemovedMethodsAreOrphans() throws Throwable {
+        update = true;
+        testResult(ChecksRemovedMethods.class);
+        recordSnapshotOfRemovedMethod();
+
+        update = false;
+        assertThat(testResult(ChecksRemovedMethods.class), hasFailureContaining(
+                "snapshots [removed#first] of " + ChecksRemovedMethods.class.getName()
+                        + " belong to methods that do not exist"));
+    }
+
+    @Test
+    public void updateModeRemovesSnapshotsOfRemovedMethods() throws Throwable {
+        update = true;
+        testResult(ChecksRemovedMethods.class);
+        recordSnapshotOfRemovedMethod();
+        testResult(ChecksRemovedMethods.class);
+
+        update = false;
+        assertThat(testResult(ChecksRemovedMethods.class), isSuccessful());
+    }
+}
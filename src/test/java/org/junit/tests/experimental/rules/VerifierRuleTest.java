@@ -2,12 +2,15 @@ package org.junit.tests.experimental.rules;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.experimental.results.PrintableResult.testResult;
 import static org.junit.experimental.results.ResultMatchers.hasFailureContaining;
 import static org.junit.experimental.results.ResultMatchers.isSuccessful;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -142,4 +145,131 @@ public class VerifierRuleTest {
         assertThat(testResult(UsesVerifier.class), isSuccessful());
         assertEquals("test verify ", sequence);
     }
-}
\ No newline at end of file
+
+    private static final int THREADS = 8;
+
+    private static final int CHECKS_PER_THREAD = 1000;
+
+    private static void checkConcurrently(final ErrorCollector collector) throws InterruptedException {
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < CHECKS_PER_THREAD; j++) {
+                        collector.checkThat(j, is(-1));
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread each : threads) {
+            each.join();
+        }
+    }
+
+    public static class UsesErrorCollectorFromManyThreads {
+        @Rule
+        public ErrorCollector collector = new ErrorCollector();
+
+        @Test
+        public void example() throws InterruptedException {
+            checkConcurrently(collector);
+        }
+    }
+
+    @Test
+    public void errorCollectorKeepsErrorsFromManyThreads() {
+        assertThat(testResult(UsesErrorCollectorFromManyThreads.class).failureCount(),
+                is(THREADS * CHECKS_PER_THREAD));
+    }
+
+    public static class UsesErrorCollectorRetainingFewErrors {
+        @Rule
+        public ErrorCollector collector = new ErrorCollector().retainingAtMost(10);
+
+        @Test
+        public void example() throws InterruptedException {
+            checkConcurrently(collector);
+        }
+    }
+
+    @Test
+    public void errorCollectorCountsErrorsItDoesNotKeep() {
+        PrintableResult testResult = testResult(UsesErrorCollectorRetainingFewErrors.class);
+        assertThat(testResult.failureCount(), is(11));
+        assertThat(testResult, hasFailureContaining((THREADS * CHECKS_PER_THREAD - 10)
+                + " more errors were added but not kept"));
+    }
+
+    private static volatile boolean workerInterrupted;
+
+    public static class UsesErrorCollectorFailingFast {
+        @Rule
+        public ErrorCollector collector = new ErrorCollector().failingFast();
+
+        @Test
+        public void example() throws InterruptedException {
+            final CountDownLatch started = new CountDownLatch(1);
+            Thread worker = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        started.countDown();
+                        Thread.sleep(10000);
+                    } catch (InterruptedException e) {
+                        workerInterrupted = true;
+                    }
+                }
+            };
+            collector.registerWorker(worker);
+            worker.start();
+            started.await();
+            collector.checkThat("first", 1, is(2));
+            collector.checkThat("second", 3, is(4));
+        }
+    }
+
+    @Test
+    public void errorCollectorFailingFastStopsAtFirstErrorAndInterruptsWorkers() throws InterruptedException {
+        workerInterrupted = false;
+        PrintableResult testResult = testResult(UsesErrorCollectorFailingFast.class);
+        assertThat(testResult.failureCount(), is(1));
+        assertThat(testResult, hasFailureContaining("first"));
+        for (int i = 0; i < 100 && !workerInterrupted; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(workerInterrupted);
+    }
+
+    public static class UsesErrorCollectorFailingFastInWorker {
+        @Rule
+        public ErrorCollector collector = new ErrorCollector().failingFast();
+
+        @Test
+        public void example() throws InterruptedException {
+            Thread worker = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        collector.checkThat("in worker", 1, is(2));
+                    } catch (RuntimeException stopped) {
+                        // the worker stops
+                    }
+                }
+            };
+            worker.start();
+            Thread.sleep(10000);
+        }
+    }
+
+    @Test
+    public void errorCollectorFailingFastInterruptsTestThread() {
+        long start = System.currentTimeMillis();
+        PrintableResult testResult = testResult(UsesErrorCollectorFailingFastInWorker.class);
+        assertThat(testResult.failureCount(), is(1));
+        assertThat(testResult, hasFailureContaining("in worker"));
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
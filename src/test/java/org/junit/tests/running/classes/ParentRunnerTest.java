@@ -1,15 +1,18 @@
 package org.junit.tests.running.classes;
 
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeMatcher;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -232,12 +235,119 @@ public class ParentRunnerTest {
         return listener;
     }
 
+    public static class FlakyTest {
+        static int attempts;
+
+        static int instances;
+
+        public FlakyTest() {
+            instances++;
+        }
+
+        @Test
+        public void passesThirdTime() {
+            attempts++;
+            if (attempts < 3) {
+                Assert.fail("attempt " + attempts);
+            }
+        }
+    }
+
+    private CountingRunListener runWithRetries(Class<?> testClass, int retries) throws InitializationError {
+        CountingRunListener listener = new CountingRunListener();
+        RunNotifier runNotifier = new RunNotifier();
+        runNotifier.addListener(listener);
+        ParentRunner<?> runner = new BlockJUnit4ClassRunner(testClass);
+        runner.setRetries(retries);
+        runner.run(runNotifier);
+        return listener;
+    }
+
+    @Test
+    public void retriedTestThatPassesIsReportedAsFlaky() throws InitializationError {
+        FlakyTest.attempts = 0;
+        FlakyTest.instances = 0;
+
+        CountingRunListener listener = runWithRetries(FlakyTest.class, 2);
+
+        assertEquals(0, listener.testFailure);
+        assertEquals(2, listener.testRetried);
+        assertEquals(1, listener.testFlaky);
+        assertEquals(1, listener.testStarted);
+        assertEquals(1, listener.testFinished);
+        assertEquals(3, FlakyTest.instances);
+    }
+
+    @Test
+    public void testIsReportedAsFailedWhenRetriesRunOut() throws InitializationError {
+        FlakyTest.attempts = 0;
+
+        CountingRunListener listener = runWithRetries(FlakyTest.class, 1);
+
+        assertEquals(1, listener.testFailure);
+        assertEquals(1, listener.testRetried);
+        assertEquals(0, listener.testFlaky);
+    }
+
+    @Test
+    public void failingTestIsNotRetriedByDefault() throws InitializationError {
+        FlakyTest.attempts = 0;
+
+        CountingRunListener listener = runTestWithParentRunner(FlakyTest.class);
+
+        assertEquals(1, listener.testFailure);
+        assertEquals(0, listener.testRetried);
+        assertEquals(1, FlakyTest.attempts);
+    }
+
+    public static class FailsThenMakesAnAssumptionFail {
+        static int attempts;
+
+        @Test
+        public void failsFirstTime() {
+            attempts++;
+            Assume.assumeTrue(attempts < 2);
+            Assert.fail("attempt " + attempts);
+        }
+    }
+
+    @Test
+    public void retriedTestIsReportedAsFailedWhenARetryMakesAnAssumptionFail() throws InitializationError {
+        FailsThenMakesAnAssumptionFail.attempts = 0;
+
+        CountingRunListener listener = runWithRetries(FailsThenMakesAnAssumptionFail.class, 1);
+
+        assertEquals(1, listener.testFailure);
+        assertEquals(0, listener.testAssumptionFailure);
+        assertEquals(2, FailsThenMakesAnAssumptionFail.attempts);
+    }
+
+    @Test
+    public void firstAttemptIsCreatedBeforeTheTestStarts() throws InitializationError {
+        FlakyTest.attempts = 0;
+        FlakyTest.instances = 0;
+        final List<Integer> instancesWhenStarted = new ArrayList<Integer>();
+        RunNotifier runNotifier = new RunNotifier();
+        runNotifier.addListener(new RunListener() {
+            @Override
+            public void testStarted(Description description) {
+                instancesWhenStarted.add(FlakyTest.instances);
+            }
+        });
+
+        new BlockJUnit4ClassRunner(FlakyTest.class).run(runNotifier);
+
+        assertEquals(asList(1), instancesWhenStarted);
+    }
+
     private static class CountingRunListener extends RunListener {
         private int testStarted = 0;
         private int testFinished = 0;
         private int testFailure = 0;
         private int testAssumptionFailure = 0;
         private int testIgnored = 0;
+        private int testRetried = 0;
+        private int testFlaky = 0;
 
         @Override
         public void testStarted(Description description) throws Exception {
@@ -263,5 +373,15 @@ public class ParentRunnerTest {
         public void testIgnored(Description description) throws Exception {
             testIgnored++;
         }
+
+        @Override
+        public void testRetried(Failure failure) throws Exception {
+            testRetried++;
+        }
+
+        @Override
+        public void testFlaky(Failure failure) throws Exception {
+            testFlaky++;
+        }
     }
 }
@@ -0,0 +1,157 @@
+package org.junit.tests.running.classes;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.TestPlan;
+
+public class TestPlanTest {
+    private static final List<String> log = new ArrayList<String>();
+
+    public static class PlannedTest {
+        @Before
+        public void before() {
+            log.add("before");
+        }
+
+        @Test
+        public void test() {
+            log.add("test");
+        }
+    }
+
+    /**
+     * Written the way {@code TestPlanGenerator} would generate it, but
+     * logging each call.
+     */
+    public static final class PlannedTest_TestPlan implements TestPlan {
+        public List<String> getTestMethodNames() {
+            return asList("test");
+        }
+
+        public boolean canInvoke(String methodName) {
+            return asList("test", "before").contains(methodName);
+        }
+
+        public Object createTest() throws Exception {
+            log.add("plan: create");
+            return new PlannedTest();
+        }
+
+        public void invoke(Object target, String methodName) throws Throwable {
+            log.add("plan: " + methodName);
+            PlannedTest test = (PlannedTest) target;
+            if ("test".equals(methodName)) {
+                test.test();
+                return;
+            }
+            if ("before".equals(methodName)) {
+                test.before();
+                return;
+            }
+            throw new NoSuchMethodException(methodName);
+        }
+    }
+
+    public static class StaleTest {
+        @Test
+        public void test() {
+            log.add("test");
+        }
+
+        @Test
+        public void added() {
+            log.add("added");
+        }
+    }
+
+    public static final class StaleTest_TestPlan implements TestPlan {
+        public List<String> getTestMethodNames() {
+            return asList("test");
+        }
+
+        public boolean canInvoke(String methodName) {
+            return "test".equals(methodName);
+        }
+
+        public Object createTest() throws Exception {
+            log.add("plan: create");
+            return new StaleTest();
+        }
+
+        public void invoke(Object target, String methodName) throws Throwable {
+            log.add("plan: " + methodName);
+            ((StaleTest) target).test();
+        }
+    }
+
+    public static class NotAPlanTest {
+        @Test
+        public void test() {
+            log.add("test");
+        }
+    }
+
+    /**
+     * Has the name of a plan, but is none.
+     */
+    public static final class NotAPlanTest_TestPlan {
+        static {
+            log.add("initialized");
+        }
+    }
+
+    @Test
+    public void runsTestsThroughGeneratedPlan() throws Exception {
+        log.clear();
+        Result result = JUnitCore.runClasses(PlannedTest.class);
+
+        assertTrue(result.wasSuccessful());
+        assertEquals(asList("plan: create", "plan: before", "before", "plan: test", "test"), log);
+    }
+
+    @Test
+    public void ignoresPlanThatDoesNotListTheCurrentTestMethods() throws Exception {
+        log.clear();
+        Result result = JUnitCore.runClasses(StaleTest.class);
+
+        assertTrue(result.wasSuccessful());
+        assertEquals(2, log.size());
+        assertTrue(log.containsAll(asList("test", "added")));
+    }
+
+    @Test
+    public void neitherInitializesNorUsesAClassThatIsNoPlan() throws Exception {
+        log.clear();
+        Result result = JUnitCore.runClasses(NotAPlanTest.class);
+
+        assertTrue(result.wasSuccessful());
+        assertEquals(asList("test"), log);
+    }
+
+    @Test
+    public void hasNoPlanIfNoneWasGenerated() throws Exception {
+        assertNull(new RunnerWithPlan(TestPlanTest.class).getTestPlan());
+    }
+
+    private static class RunnerWithPlan extends BlockJUnit4ClassRunner {
+        RunnerWithPlan(Class<?> klass) throws Exception {
+            super(klass);
+        }
+
+        @Override
+        public TestPlan getTestPlan() {
+            return super.getTestPlan();
+        }
+    }
+}